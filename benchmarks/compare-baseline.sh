@@ -0,0 +1,29 @@
+#!/bin/bash
+#
+# Runs the benchmarks and compares the results with a baseline, see README.md.
+#
+# Usage: ./compare-baseline.sh baseline.json [threshold %] [JMH options, e.g. a benchmark regexp]
+
+cd "$(dirname "$0")"
+
+baseline="$1"
+[ -z "${baseline}" ] && { echo "Missing baseline! Usage: ./compare-baseline.sh baseline.json [threshold %] [JMH options]"; exit 2; }
+shift
+
+threshold="10"
+if [[ "$1" =~ ^[0-9.]+$ ]]; then
+    threshold="$1"
+    shift
+fi
+
+[ -z "${JAVA_HOME}" ] && export JAVA_HOME="/usr"
+
+jar="target/benchmarks.jar"
+[ -f "${jar}" ] || { echo "${jar} not found, build it with: mvn clean install -Pbenchmarks -DskipTests"; exit 2; }
+
+results="target/results-$(date +%Y%m%d-%H%M%S).json"
+
+${JAVA_HOME}/bin/java -jar "${jar}" -rf json -rff "${results}" "$@" || exit $?
+
+${JAVA_HOME}/bin/java -cp "${jar}" org.jboss.aerogear.unifiedpush.benchmark.BaselineComparison \
+        "${baseline}" "${results}" "${threshold}"
@@ -0,0 +1,212 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes a flight recording of the push pipeline per push message: the batches loaded, the time the messages
+ * waited in the queues, the sends to the push networks and the waits for the metrics lock, together with the garbage
+ * collection pauses, lock contention and socket I/O that happened while the message was delivered.
+ *
+ * Not part of the build, it runs as a single source file on JDK 11 or newer, see ../README.md:
+ *
+ * <pre>
+ * java benchmarks/jfr/PipelineRecordingSummary.java pipeline.jfr
+ * </pre>
+ */
+public class PipelineRecordingSummary {
+
+    private static final String PREFIX = "org.jboss.aerogear.unifiedpush.";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java PipelineRecordingSummary.java <recording.jfr>");
+            System.exit(2);
+        }
+
+        final Map<String, Message> messages = new LinkedHashMap<>();
+        final List<RecordedEvent> gcPauses = new ArrayList<>();
+        final List<RecordedEvent> contention = new ArrayList<>();
+        final List<RecordedEvent> socketIo = new ArrayList<>();
+        final Stats documentReads = new Stats();
+        final Stats documentWrites = new Stats();
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(Paths.get(args[0]))) {
+            final String type = event.getEventType().getName();
+            switch (type) {
+                case "jdk.GarbageCollection":
+                    gcPauses.add(event);
+                    continue;
+                case "jdk.JavaMonitorEnter":
+                case "jdk.ThreadPark":
+                    contention.add(event);
+                    continue;
+                case "jdk.SocketRead":
+                case "jdk.SocketWrite":
+                    socketIo.add(event);
+                    continue;
+                case PREFIX + "DocumentRead":
+                    documentReads.add(event.getDuration());
+                    continue;
+                case PREFIX + "DocumentWrite":
+                    documentWrites.add(event.getDuration());
+                    continue;
+                default:
+            }
+            if (!type.startsWith(PREFIX) || !event.hasField("pushMessageId") || event.getString("pushMessageId") == null) {
+                continue;
+            }
+
+            final String id = event.getString("pushMessageId");
+            Message message = messages.get(id);
+            if (message == null) {
+                message = new Message(id);
+                messages.put(id, message);
+            }
+            message.add(type.substring(PREFIX.length()), event);
+        }
+
+        if (messages.isEmpty()) {
+            System.out.println("No pipeline events in the recording, was it made with pipeline.jfc?");
+        }
+        for (Message message : messages.values()) {
+            message.print(gcPauses, contention, socketIo);
+        }
+        if (documentReads.count > 0 || documentWrites.count > 0) {
+            System.out.println("Documents");
+            System.out.println("  reads:  " + documentReads);
+            System.out.println("  writes: " + documentWrites);
+        }
+    }
+
+    private static class Message {
+        private final String id;
+        private Instant first;
+        private Instant last;
+
+        private int batches;
+        private long tokensLoaded;
+        private final Stats loading = new Stats();
+        private int enqueued;
+        private final Stats queueWait = new Stats();
+        private final Stats sends = new Stats();
+        private long tokensSent;
+        private int failedSends;
+        private final Stats lockWait = new Stats();
+
+        Message(String id) {
+            this.id = id;
+        }
+
+        void add(String type, RecordedEvent event) {
+            if (first == null || event.getStartTime().isBefore(first)) {
+                first = event.getStartTime();
+            }
+            if (last == null || event.getEndTime().isAfter(last)) {
+                last = event.getEndTime();
+            }
+
+            switch (type) {
+                case "TokenBatchLoaded":
+                    batches++;
+                    tokensLoaded += event.getInt("tokens");
+                    loading.add(event.getDuration());
+                    break;
+                case "JmsEnqueue":
+                    enqueued++;
+                    break;
+                case "JmsDequeue":
+                    queueWait.add(Duration.ofMillis(event.getLong("queueWait")));
+                    break;
+                case "NetworkSend":
+                    sends.add(event.getDuration());
+                    tokensSent += event.getInt("tokens");
+                    if (!event.getBoolean("success")) {
+                        failedSends++;
+                    }
+                    break;
+                case "MetricsCollect":
+                    lockWait.add(Duration.ofMillis(event.getLong("lockWait")));
+                    break;
+                default:
+            }
+        }
+
+        void print(List<RecordedEvent> gcPauses, List<RecordedEvent> contention, List<RecordedEvent> socketIo) {
+            System.out.println(String.format("Push message %s (%.2f ms)", id, millis(Duration.between(first, last))));
+            System.out.println("  token batches:   " + batches + " batches, " + tokensLoaded + " tokens, loading " + loading);
+            System.out.println("  queued:          " + enqueued + " messages, waited " + queueWait);
+            System.out.println("  sent:            " + tokensSent + " tokens, " + failedSends + " failed, sending " + sends);
+            System.out.println("  metrics:         lock wait " + lockWait);
+            System.out.println("  GC pauses:       " + overlapping(gcPauses, "sumOfPauses"));
+            System.out.println("  contended locks: " + overlapping(contention, null));
+            System.out.println("  slow socket I/O: " + overlapping(socketIo, null));
+        }
+
+        /**
+         * @return the number and total duration of the events overlapping the delivery of the message
+         */
+        private Stats overlapping(List<RecordedEvent> events, String durationField) {
+            final Stats stats = new Stats();
+            for (RecordedEvent event : events) {
+                if (event.getEndTime().isBefore(first) || event.getStartTime().isAfter(last)) {
+                    continue;
+                }
+                stats.add(durationField == null ? event.getDuration() : event.getDuration(durationField));
+            }
+            return stats;
+        }
+    }
+
+    private static class Stats {
+        private int count;
+        private Duration total = Duration.ZERO;
+        private Duration max = Duration.ZERO;
+
+        void add(Duration duration) {
+            count++;
+            total = total.plus(duration);
+            if (duration.compareTo(max) > 0) {
+                max = duration;
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (count == 0) {
+                return "-";
+            }
+            return String.format("%d x avg %.2f ms, max %.2f ms, total %.2f ms", count,
+                    millis(total) / count, millis(max), millis(total));
+        }
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1000000.0;
+    }
+}
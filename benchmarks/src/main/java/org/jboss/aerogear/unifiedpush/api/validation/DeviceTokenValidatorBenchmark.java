@@ -0,0 +1,92 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.api.validation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The device token patterns, run for every registered installation. The invalid token only fails on its last
+ * character, which is the worst case for the patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DeviceTokenValidatorBenchmark {
+
+    private String iosToken;
+    private String androidToken;
+    private String invalidAndroidToken;
+    private String admToken;
+    private String windowsToken;
+    private String simplePushToken;
+
+    @Setup
+    public void setUp() {
+        iosToken = Fixtures.tokens(1, 64).get(0);
+        androidToken = "APA91b" + Fixtures.tokens(1, 146).get(0).replace('a', '_').replace('b', '-');
+        invalidAndroidToken = androidToken.substring(1) + "!";
+        admToken = "amzn1.adm-registration.v2." + Fixtures.tokens(1, 200).get(0);
+        windowsToken = "https://db5.notify.windows.com/?token=" + Fixtures.tokens(1, 160).get(0);
+        simplePushToken = "https://updates.push.services.mozilla.com/update/" + Fixtures.tokens(1, 140).get(0);
+    }
+
+    @Benchmark
+    public boolean ios() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(iosToken, VariantType.IOS);
+    }
+
+    @Benchmark
+    public boolean android() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(androidToken, VariantType.ANDROID);
+    }
+
+    @Benchmark
+    public boolean invalidAndroid() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(invalidAndroidToken, VariantType.ANDROID);
+    }
+
+    @Benchmark
+    public boolean adm() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(admToken, VariantType.ADM);
+    }
+
+    @Benchmark
+    public boolean windows() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(windowsToken, VariantType.WINDOWS_WNS);
+    }
+
+    @Benchmark
+    public boolean simplePush() {
+        return DeviceTokenValidator.isValidDeviceTokenForVariant(simplePushToken, VariantType.SIMPLE_PUSH);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files, written with <code>-rf json</code>, and reports the benchmarks that got slower.
+ *
+ * A benchmark regressed if its score got worse by more than the threshold percentage, and by more than the sum of the
+ * score errors of both runs. Exits with status 1 if any benchmark regressed, so that it can fail a build.
+ *
+ * Usage: <code>BaselineComparison baseline.json current.json [threshold percentage, default 10]</code>
+ */
+public final class BaselineComparison {
+
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <current.json> [threshold %]");
+            System.exit(2);
+        }
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        final Map<String, JsonNode> baseline = read(new File(args[0]));
+        final Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            final JsonNode now = entry.getValue();
+            final JsonNode before = baseline.get(entry.getKey());
+            final String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.println(String.format("%-90s %14s %14.3f %9s  %s", entry.getKey(), "-", score(now), "new", unit));
+                continue;
+            }
+
+            final double change = (score(now) - score(before)) / score(before) * 100;
+            // throughput is better when higher, every other mode is a time, better when lower
+            final double worse = isThroughput(now) ? -change : change;
+            final boolean regressed = worse > threshold
+                    && Math.abs(score(now) - score(before)) > error(now) + error(before);
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%  %s%s", entry.getKey(), score(before),
+                    score(now), change, unit, regressed ? "  REGRESSION" : ""));
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmarks regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        final Map<String, JsonNode> results = new LinkedHashMap<String, JsonNode>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    /**
+     * The benchmark name with its mode and parameters, e.g. <code>...serializeWithTokens (avgt):batchSize=100</code>
+     */
+    private static String key(JsonNode result) {
+        final StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        key.append(" (").append(result.path("mode").asText()).append(')');
+        final Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+        while (params.hasNext()) {
+            final Map.Entry<String, JsonNode> param = params.next();
+            key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.toString();
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double error(JsonNode result) {
+        // JMH writes "NaN" when there are too few iterations to compute the error
+        final double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static boolean isThroughput(JsonNode result) {
+        return "thrpt".equals(result.path("mode").asText());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.cache;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aerogear.unifiedpush.message.cache.AbstractServiceCache.ServiceConstructor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Borrowing and returning services of the {@link AbstractServiceCache} by concurrent senders, either all sending to
+ * the same variant, as for a large batch of a single push message, or each to a variant of its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ServiceCacheBenchmark {
+
+    private static final String PUSH_MESSAGE_ID = "5b2c9d41-7e0f-4a1b-9c3d-2e4f6a8b0c1d";
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+        // enough instances for every thread, the benchmark measures contention, not waiting for a free instance
+        final AbstractServiceCache<Object> cache = new AbstractServiceCache<Object>(64, 1000) {
+        };
+        final ServiceConstructor<Object> constructor = new ServiceConstructor<Object>() {
+            @Override
+            public Object construct() {
+                return new Object();
+            }
+        };
+        final String sharedVariantID = UUID.randomUUID().toString();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadVariant {
+        final String variantID = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public Object sharedVariant(Cache state) {
+        return borrowAndReturn(state, state.sharedVariantID);
+    }
+
+    @Benchmark
+    public Object variantPerThread(Cache state, ThreadVariant variant) {
+        return borrowAndReturn(state, variant.variantID);
+    }
+
+    private static Object borrowAndReturn(Cache state, String variantID) {
+        final Object service = state.cache.dequeueOrCreateNewService(PUSH_MESSAGE_ID, variantID, state.constructor);
+        state.cache.queueFreedUpService(PUSH_MESSAGE_ID, variantID, service);
+        return service;
+    }
+}
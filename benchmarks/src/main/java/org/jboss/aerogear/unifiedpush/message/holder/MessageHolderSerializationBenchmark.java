@@ -0,0 +1,116 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.holder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.benchmark.Fixtures;
+import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Java serialization of the holders, which is what the JMS queues of the push pipeline pay for every batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MessageHolderSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private MessageHolderWithTokens withTokens;
+    private MessageHolderWithVariants withVariants;
+    private byte[] withTokensBytes;
+    private byte[] withVariantsBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        final PushMessageInformation pushMessageInformation = Fixtures.pushMessageInformation();
+        final UnifiedPushMessage unifiedPushMessage = Fixtures.unifiedPushMessage();
+
+        withTokens = new MessageHolderWithTokens(pushMessageInformation, unifiedPushMessage, Fixtures.androidVariant(),
+                new TreeSet<String>(Fixtures.tokens(batchSize, 152)), 1);
+
+        final List<Variant> variants = new ArrayList<Variant>();
+        for (int i = 0; i < 5; i++) {
+            variants.add(Fixtures.androidVariant());
+        }
+        withVariants = new MessageHolderWithVariants(pushMessageInformation, unifiedPushMessage, VariantType.ANDROID, variants);
+
+        withTokensBytes = serialize(withTokens);
+        withVariantsBytes = serialize(withVariants);
+    }
+
+    @Benchmark
+    public byte[] serializeWithTokens() throws IOException {
+        return serialize(withTokens);
+    }
+
+    @Benchmark
+    public Object deserializeWithTokens() throws IOException, ClassNotFoundException {
+        return deserialize(withTokensBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeWithVariants() throws IOException {
+        return serialize(withVariants);
+    }
+
+    @Benchmark
+    public Object deserializeWithVariants() throws IOException, ClassNotFoundException {
+        return deserialize(withVariantsBytes);
+    }
+
+    private static byte[] serialize(Object holder) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(holder);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.sender;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aerogear.unifiedpush.benchmark.Fixtures;
+import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transformation of a push message into the payload of each push network, without the network calls. The SimplePush
+ * sender is left out, its payload is the submitted string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PayloadBuildingBenchmark {
+
+    private static final String PUSH_MESSAGE_ID = "5b2c9d41-7e0f-4a1b-9c3d-2e4f6a8b0c1d";
+
+    private UnifiedPushMessage pushMessage;
+    private WNSPushNotificationSender wnsSender;
+
+    @Setup
+    public void setUp() {
+        pushMessage = Fixtures.unifiedPushMessage();
+        wnsSender = new WNSPushNotificationSender();
+        wnsSender.setPushMessageInformationId(PUSH_MESSAGE_ID);
+    }
+
+    @Benchmark
+    public Object gcm() {
+        return GCMPushNotificationSender.createGcmMessage(pushMessage, PUSH_MESSAGE_ID);
+    }
+
+    @Benchmark
+    public String apns() {
+        return APNsPushNotificationSender.createPayloadBuilder(pushMessage.getMessage(), PUSH_MESSAGE_ID).build();
+    }
+
+    @Benchmark
+    public String adm() {
+        return AdmPushNotificationSender.createPayloadBuilder(pushMessage, PUSH_MESSAGE_ID).build();
+    }
+
+    @Benchmark
+    public Object mpns() {
+        return MPNSPushNotificationSender.createNotification(pushMessage.getMessage(), PUSH_MESSAGE_ID);
+    }
+
+    @Benchmark
+    public Object wns() {
+        return wnsSender.createToastMessage(pushMessage.getMessage());
+    }
+}
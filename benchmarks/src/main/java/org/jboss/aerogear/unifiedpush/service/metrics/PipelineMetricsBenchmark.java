@@ -0,0 +1,95 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the {@link PipelineMetrics} instrumentation: token batches built like the TokenLoader builds them, without
+ * metrics, recording every batch, and with the metrics disabled, by concurrent loaders.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PipelineMetricsBenchmark {
+
+    private static final int BATCH_SIZE = 200;
+    private static final String[] TOKENS = new String[BATCH_SIZE];
+
+    static {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            TOKENS[i] = String.format("%064x", (long) i * 2654435761L);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Metrics {
+        final PipelineMetrics enabled = new PipelineMetrics();
+        final PipelineMetrics disabled = new PipelineMetrics();
+
+        public Metrics() {
+            disabled.setEnabled(false);
+        }
+    }
+
+    @Benchmark
+    public Set<String> plain() {
+        return batch();
+    }
+
+    @Benchmark
+    public Set<String> instrumented(Metrics state) {
+        return recordedBatch(state.enabled);
+    }
+
+    @Benchmark
+    public Set<String> disabled(Metrics state) {
+        return recordedBatch(state.disabled);
+    }
+
+    private static Set<String> recordedBatch(PipelineMetrics metrics) {
+        final long start = metrics.start();
+        final Set<String> tokens = batch();
+        metrics.record(PipelineStage.TOKEN_LOAD, VariantType.ANDROID, true, start, tokens.size());
+        return tokens;
+    }
+
+    private static Set<String> batch() {
+        final Set<String> tokens = new TreeSet<String>();
+        for (String token : TOKENS) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+}
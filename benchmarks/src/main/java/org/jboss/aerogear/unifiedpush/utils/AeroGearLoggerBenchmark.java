@@ -0,0 +1,116 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The escaping of {@link AeroGearLogger}, for a logged message and for a message below the level of the logger, built
+ * by the caller or from a pattern. The log records are dropped by a handler, so that only the cost of the logger
+ * itself is measured. Run with <code>-prof gc</code> to compare their allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AeroGearLoggerBenchmark {
+
+    private static final String PLAIN = "Sent push notification to the Apple APNs Server for 1000 tokens";
+    private static final String ESCAPED = "Rejected alias <john@example.com> & category\r\nforged=entry";
+    private static final String PATTERN = "Loaded batch #{}, containing {} tokens, for {} variant";
+
+    // keeps the configured logger from being garbage collected
+    private Logger julLogger;
+    private AeroGearLogger logger;
+
+    private int serialId = 3;
+    private int tokens = 1000;
+    private String variantType = "ios";
+
+    @Setup
+    public void setUp() {
+        julLogger = Logger.getLogger(AeroGearLoggerBenchmark.class.getName());
+        julLogger.setUseParentHandlers(false);
+        julLogger.setLevel(Level.INFO);
+        julLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        logger = AeroGearLogger.getInstance(AeroGearLoggerBenchmark.class);
+    }
+
+    @Benchmark
+    public void plain() {
+        logger.info(PLAIN);
+    }
+
+    @Benchmark
+    public void escaped() {
+        logger.info(ESCAPED);
+    }
+
+    @Benchmark
+    public void disabled() {
+        logger.fine(PLAIN);
+    }
+
+    @Benchmark
+    public void formatted() {
+        logger.info(String.format("Loaded batch #%s, containing %d tokens, for %s variant", serialId, tokens, variantType));
+    }
+
+    @Benchmark
+    public void pattern() {
+        logger.info(PATTERN, serialId, tokens, variantType);
+    }
+
+    @Benchmark
+    public void disabledFormatted() {
+        logger.fine(String.format("Loaded batch #%s, containing %d tokens, for %s variant", serialId, tokens, variantType));
+    }
+
+    @Benchmark
+    public void disabledPattern() {
+        logger.fine(PATTERN, serialId, tokens, variantType);
+    }
+}
@@ -1,7 +1,10 @@
 package org.jboss.aerogear.unifiedpush.rest.documents;
 
+import java.io.IOException;
+
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.OPTIONS;
@@ -17,6 +20,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.apache.commons.lang.StringUtils;
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
@@ -24,6 +28,8 @@ import org.jboss.aerogear.unifiedpush.api.Variant;
 import org.jboss.aerogear.unifiedpush.rest.AbstractEndpoint;
 import org.jboss.aerogear.unifiedpush.rest.EmptyJSON;
 import org.jboss.aerogear.unifiedpush.rest.util.ClientAuthHelper;
+import org.jboss.aerogear.unifiedpush.rest.util.DocumentOutput;
+import org.jboss.aerogear.unifiedpush.rest.util.HttpRequestUtil;
 import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
 import org.jboss.aerogear.unifiedpush.service.DocumentService;
 import org.jboss.aerogear.unifiedpush.service.GenericVariantService;
@@ -175,7 +181,8 @@ public class DocumentEndpoint extends AbstractEndpoint {
 	@Path("/{publisher}/{alias}/{qualifier}/latest")
 	@Deprecated
 	public Response retrieveTextDocument(@PathParam("publisher") String publisher, @PathParam("alias") String alias,
-			@PathParam("qualifier") String qualifier, @Context HttpServletRequest request) {
+			@PathParam("qualifier") String qualifier, @Context HttpServletRequest request,
+			@Context HttpServletResponse response) {
 		final Variant variant = ClientAuthHelper.loadVariantWhenInstalled(genericVariantService,
 				clientInstallationService, request);
 		if (variant == null) {
@@ -183,10 +190,10 @@ public class DocumentEndpoint extends AbstractEndpoint {
 		}
 
 		try {
-			String document = documentService.getLatestDocumentForAlias(variant,
+			DocumentContent document = documentService.getLatestDocumentContentForAlias(variant,
 					DocumentMetadata.getPublisher(publisher), alias, DocumentMetadata.getQualifier(qualifier),
 					DocumentMetadata.NULL_ID);
-			return Response.ok(StringUtils.isEmpty(document) ? EmptyJSON.STRING: document).build();
+			return documentResponse(document, request, response);
 		} catch (Exception e) {
 			logger.severe("Cannot retrieve files for alias", e);
 			return Response.status(Status.INTERNAL_SERVER_ERROR).build();
@@ -228,7 +235,8 @@ public class DocumentEndpoint extends AbstractEndpoint {
 	@Produces(MediaType.APPLICATION_JSON)
 	@Path("/{publisher}/{alias}/{qualifier}/{id}/latest")
 	public Response retrieveJsonDocument(@PathParam("publisher") String publisher, @PathParam("alias") String alias,
-			@PathParam("qualifier") String qualifier, @PathParam("id") String id, @Context HttpServletRequest request) {
+			@PathParam("qualifier") String qualifier, @PathParam("id") String id, @Context HttpServletRequest request,
+			@Context HttpServletResponse response) {
 		final Variant variant = ClientAuthHelper.loadVariantWhenInstalled(genericVariantService,
 				clientInstallationService, request);
 		if (variant == null) {
@@ -236,14 +244,36 @@ public class DocumentEndpoint extends AbstractEndpoint {
 		}
 
 		try {
-			String document = documentService.getLatestDocumentForAlias(variant,
+			DocumentContent document = documentService.getLatestDocumentContentForAlias(variant,
 					DocumentMetadata.getPublisher(publisher), alias, DocumentMetadata.getQualifier(qualifier),
 					DocumentMetadata.getId(id));
-			return Response.ok(StringUtils.isEmpty(document) ? EmptyJSON.STRING : document).build();
+			return documentResponse(document, request, response);
 		} catch (Exception e) {
 			logger.severe("Cannot retrieve files for alias", e);
 			return Response.status(Status.INTERNAL_SERVER_ERROR).build();
 		}
 	}
 
+	private Response documentResponse(DocumentContent stored, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		if (stored == null || stored.getSize() == 0) {
+			return Response.ok(EmptyJSON.STRING).build();
+		}
+
+		// opened here, so that a document deleted or moved before the response is written still fails with an error
+		// status instead of a truncated response
+		final DocumentContent document = stored.open();
+
+		if (DocumentContent.GZIP.equals(document.getContentEncoding())) {
+			// stored compressed, streamed as is if the client accepts it. The header is set on the servlet response,
+			// the RESTEasy GZIP interceptor would compress the entity again if it was part of the JAX-RS response.
+			final boolean gzip = HttpRequestUtil.acceptsGzip(request);
+			if (gzip) {
+				response.setHeader(HttpHeaders.CONTENT_ENCODING, DocumentContent.GZIP);
+			}
+			return Response.ok(new DocumentOutput(document, gzip)).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+					.build();
+		}
+		return Response.ok(new DocumentOutput(document)).build();
+	}
 }
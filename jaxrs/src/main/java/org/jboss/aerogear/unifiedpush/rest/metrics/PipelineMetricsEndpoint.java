@@ -0,0 +1,60 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.rest.metrics;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.jboss.aerogear.unifiedpush.message.QueueMonitoringService;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+
+/**
+ * Latencies and throughput of the delivery stages of this node, and the backlog of its JMS queues, for scraping by
+ * Prometheus.
+ */
+@Path("/sys/metrics")
+public class PipelineMetricsEndpoint {
+
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
+    @Inject
+    private QueueMonitoringService queueMonitoringService;
+
+    /**
+     * Get the latency summaries and item counters of the delivery stages, per variant type and outcome, and the
+     * gauges of the JMS queues
+     *
+     * <pre>
+     * curl -v https://SERVER:PORT/context/rest/sys/metrics
+     * </pre>
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public String metrics() {
+        final StringBuilder out = new StringBuilder(4096);
+        pipelineMetrics.writePrometheus(out);
+        queueMonitoringService.writePrometheus(out);
+        return out.toString();
+    }
+}
@@ -91,6 +91,30 @@ public class PushMetricsEndpoint {
                 .build();
     }
 
+    /**
+     * GET info about a submitted push message, including the delivery timeline of each of its variants: when the
+     * tokens were loaded, when the batches were dispatched and acknowledged by the push network, and when the variant
+     * was completed (epoch milliseconds).
+     *
+     * @param id    id of {@link PushMessageInformation}
+     * @return      the {@link PushMessageInformation}
+     *
+     * @statuscode 404 The requested push message does not exist
+     */
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ReturnType("org.jboss.aerogear.unifiedpush.api.PushMessageInformation")
+    public Response pushMessageInformation(@PathParam("id") String id) {
+        final PushMessageInformation pushMessageInformation = metricsService.getPushMessageInformation(id);
+
+        if (pushMessageInformation == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Could not find requested information").build();
+        }
+
+        return Response.ok(pushMessageInformation).build();
+    }
+
     private Integer parsePageSize(Integer pageSize) {
         if (pageSize != null) {
             pageSize = Math.min(MAX_PAGE_SIZE, pageSize);
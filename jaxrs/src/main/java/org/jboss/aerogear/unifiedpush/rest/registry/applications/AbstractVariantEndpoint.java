@@ -22,6 +22,8 @@ import org.jboss.aerogear.unifiedpush.api.Variant;
 import org.jboss.aerogear.unifiedpush.rest.AbstractBaseEndpoint;
 import org.jboss.aerogear.unifiedpush.service.GenericVariantService;
 import org.jboss.aerogear.unifiedpush.service.PushApplicationService;
+import org.jboss.aerogear.unifiedpush.service.VariantRemovalService;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
@@ -49,6 +51,9 @@ public abstract class AbstractVariantEndpoint extends AbstractBaseEndpoint {
     @Inject
     protected GenericVariantService variantService;
 
+    @Inject
+    protected VariantRemovalService variantRemovalService;
+
     /**
      * Secret Reset
      *
@@ -105,16 +110,19 @@ public abstract class AbstractVariantEndpoint extends AbstractBaseEndpoint {
     }
 
     /**
-     * Delete Variant
+     * Delete Variant. The variant is marked as deleting and its installations are removed
+     * in the background, the variant itself is removed once all installations are gone.
      *
      * @param variantId id of {@link Variant}
+     * @return          progress of the removal
      *
-     * @statuscode 204 The Variant successfully deleted
+     * @statuscode 202 The removal of the Variant has been scheduled
      * @statuscode 404 The requested Variant resource does not exist
      */
     @DELETE
     @Path("/{variantId}")
-    @ReturnType("java.lang.Void")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ReturnType("org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress")
     public Response deleteVariant(@PathParam("variantId") String variantId) {
 
         Variant variant = variantService.findByVariantID(variantId);
@@ -122,13 +130,37 @@ public abstract class AbstractVariantEndpoint extends AbstractBaseEndpoint {
         if (variant != null) {
             logger.finest("Deleting: " + variant.getClass().getSimpleName());
 
-            variantService.removeVariant(variant);
-            return Response.noContent().build();
+            final RemovalProgress progress = variantRemovalService.removeVariant(variant);
+            return Response.status(Response.Status.ACCEPTED).entity(progress).build();
         }
 
         return Response.status(Response.Status.NOT_FOUND).entity("Could not find requested Variant").build();
     }
 
+    /**
+     * Progress of a Variant removal
+     *
+     * @param variantId id of {@link Variant}
+     * @return          progress of the removal
+     *
+     * @statuscode 200 The progress of the removal
+     * @statuscode 404 No removal is known for the requested Variant
+     */
+    @GET
+    @Path("/{variantId}/removal")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ReturnType("org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress")
+    public Response variantRemovalProgress(@PathParam("variantId") String variantId) {
+
+        final RemovalProgress progress = variantRemovalService.getProgress(variantId);
+
+        if (progress != null) {
+            return Response.ok(progress).build();
+        }
+
+        return Response.status(Response.Status.NOT_FOUND).entity("Could not find removal of requested Variant").build();
+    }
+
     protected <T extends Variant> Set<T> getVariantsByType(PushApplication application, Class<T> type) {
         Set<T> variants = new HashSet<T>();
         for (Variant variant : application.getVariants()) {
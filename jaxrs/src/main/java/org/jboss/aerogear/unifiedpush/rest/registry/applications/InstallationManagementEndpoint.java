@@ -16,6 +16,8 @@
  */
 package org.jboss.aerogear.unifiedpush.rest.registry.applications;
 
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -28,6 +30,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.jboss.aerogear.unifiedpush.api.Installation;
@@ -55,13 +58,17 @@ public class InstallationManagementEndpoint {
     /**
      * List Installations of specified Variant
      *
+     * Without a page number the list is paged by cursor: the "next" link continues after the last installation
+     * of the current page, which stays fast on deep pages of large variants.
+     *
      * @param variantId id of {@link org.jboss.aerogear.unifiedpush.api.Variant}
-     * @param page      page number
+     * @param page      page number, optional
      * @param pageSize  number of items per page
      * @param search    search query
+     * @param after     id of the last installation of the previous page, when paging by cursor
      * @return          list of {@link Installation}s
      *
-     * @responseheader Link     Links to "prev", "first", "next" and "last" pages
+     * @responseheader Link     Links to "prev", "first", "next" and "last" pages, or to the "first" and "next" pages when paging by cursor
      * @responseheader total    Total count of items
      *
      * @statuscode 404 The requested Variant resource does not exist
@@ -73,6 +80,7 @@ public class InstallationManagementEndpoint {
                                       @QueryParam("page") Integer page,
                                       @QueryParam("per_page") Integer pageSize,
                                       @QueryParam("search") String search,
+                                      @QueryParam("after") String after,
                                       @Context UriInfo uri) {
         if (pageSize != null) {
             pageSize = Math.min(MAX_PAGE_SIZE, pageSize);
@@ -80,10 +88,6 @@ public class InstallationManagementEndpoint {
             pageSize = DEFAULT_PAGE_SIZE;
         }
 
-        if (page == null) {
-            page = 0;
-        }
-
         if (search == null || search.isEmpty()) {
             search = null;
         }
@@ -93,8 +97,26 @@ public class InstallationManagementEndpoint {
             return Response.status(Response.Status.NOT_FOUND).entity("Could not find requested Variant").build();
         }
 
+        if (page == null) {
+            final PageResult<Installation, Count> pageResult = searchManager.getSearchService().findInstallationsByVariantAfter(variantId, after, pageSize, search);
+            final List<Installation> installations = pageResult.getResultList();
+
+            final LinkHeader header = new LinkHeader();
+            if (after != null) {
+                header.addLink(buildCursorLink("first", null, uri));
+            }
+            if (installations.size() == pageSize) {
+                header.addLink(buildCursorLink("next", installations.get(installations.size() - 1).getId(), uri));
+            }
+
+            return Response.ok(installations)
+                    .header("Link", header.toString())
+                    .header("total", pageResult.getAggregate().getCount())
+                    .build();
+        }
+
         //Find the installations using the variantID
-        PageResult<Installation, Count> pageResult = searchManager.getSearchService().findAllInstallationsByVariantForDeveloper(variantId, page, pageSize, search);
+        PageResult<Installation, Count> pageResult = searchManager.getSearchService().findInstallationsByVariantPage(variantId, page, pageSize, search);
 
         final long totalPages = pageResult.getAggregate().getCount() / pageSize;
         LinkHeader header = getLinkHeader(page, totalPages, uri);
@@ -120,6 +142,14 @@ public class InstallationManagementEndpoint {
         return header;
     }
 
+    private Link buildCursorLink(String rel, String after, UriInfo uri) {
+        final UriBuilder builder = uri.getRequestUriBuilder().replaceQueryParam("after", after);
+        Link link = new Link();
+        link.setHref(builder.build().toASCIIString());
+        link.setRelationship(rel);
+        return link;
+    }
+
     private Link buildLink(String rel, long pageNo, UriInfo uri) {
         Link link = new Link();
         link.setHref(uri.getAbsolutePathBuilder().queryParam("page", pageNo).build().toASCIIString());
@@ -31,9 +31,11 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
 import org.jboss.aerogear.unifiedpush.rest.AbstractBaseEndpoint;
 import org.jboss.aerogear.unifiedpush.rest.EmptyJSON;
+import org.jboss.aerogear.unifiedpush.rest.util.DocumentOutput;
 import org.jboss.aerogear.unifiedpush.rest.util.PushAppAuthHelper;
 import org.jboss.aerogear.unifiedpush.service.DocumentService;
 import org.jboss.aerogear.unifiedpush.service.PushApplicationService;
@@ -116,10 +118,11 @@ public class PushApplicationDataEndpoint extends AbstractBaseEndpoint {
 		}
 
 		try {
+			// parts are only read from storage while the response is written, one at a time
 			MultipartFormDataOutput mdo = new MultipartFormDataOutput();
-			List<String> documents = documentService.getLatestDocumentsForApplication(pushApp, alias, qualifier, id);
+			List<DocumentContent> documents = documentService.getLatestDocumentContentsForApplication(pushApp, alias, qualifier, id);
 			for (int i = 0; i < documents.size(); i++) {
-				mdo.addFormData("file" + i, documents.get(i), MediaType.TEXT_PLAIN_TYPE);
+				mdo.addFormData("file" + i, new DocumentOutput(documents.get(i)), MediaType.TEXT_PLAIN_TYPE);
 			}
 			return Response.ok(mdo).build();
 		} catch (Exception e) {
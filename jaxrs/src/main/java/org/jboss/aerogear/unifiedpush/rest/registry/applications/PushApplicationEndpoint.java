@@ -44,6 +44,8 @@ import org.jboss.aerogear.unifiedpush.dao.PageResult;
 import org.jboss.aerogear.unifiedpush.dto.Count;
 import org.jboss.aerogear.unifiedpush.rest.AbstractBaseEndpoint;
 import org.jboss.aerogear.unifiedpush.service.PushApplicationService;
+import org.jboss.aerogear.unifiedpush.service.VariantRemovalService;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress;
 import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
 
 import com.qmino.miredot.annotations.ReturnType;
@@ -59,6 +61,9 @@ public class PushApplicationEndpoint extends AbstractBaseEndpoint {
     @Inject
     private PushMessageMetricsService metricsService;
 
+    @Inject
+    private VariantRemovalService variantRemovalService;
+
     @Inject
     private InstallationDao installationDao;
 
@@ -287,28 +292,53 @@ public class PushApplicationEndpoint extends AbstractBaseEndpoint {
     }
 
     /**
-     * Delete Push Application
+     * Delete Push Application. All variants are marked as deleting and their installations are
+     * removed in the background, the Push Application itself is removed once they are gone.
      *
      * @param pushApplicationID id of {@link PushApplication}
+     * @return                  progress of the removal
      *
-     * @statuscode 204 The PushApplication successfully deleted
+     * @statuscode 202 The removal of the PushApplication has been scheduled
      * @statuscode 404 The requested PushApplication resource does not exist
      */
     @DELETE
     @Path("/{pushAppID}")
     @Produces(MediaType.APPLICATION_JSON)
-    @ReturnType("java.lang.Void")
+    @ReturnType("org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress")
     public Response deletePushApplication(@PathParam("pushAppID") String pushApplicationID) {
 
         PushApplication pushApp = getSearch().findByPushApplicationIDForDeveloper(pushApplicationID);
 
         if (pushApp != null) {
-            pushAppService.removePushApplication(pushApp);
-            return Response.noContent().build();
+            final RemovalProgress progress = variantRemovalService.removePushApplication(pushApp);
+            return Response.status(Status.ACCEPTED).entity(progress).build();
         }
         return Response.status(Status.NOT_FOUND).entity("Could not find requested PushApplicationEntity").build();
     }
 
+    /**
+     * Progress of a Push Application removal
+     *
+     * @param pushApplicationID id of {@link PushApplication}
+     * @return                  progress of the removal
+     *
+     * @statuscode 200 The progress of the removal
+     * @statuscode 404 No removal is known for the requested PushApplication
+     */
+    @GET
+    @Path("/{pushAppID}/removal")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ReturnType("org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress")
+    public Response pushApplicationRemovalProgress(@PathParam("pushAppID") String pushApplicationID) {
+
+        final RemovalProgress progress = variantRemovalService.getProgress(pushApplicationID);
+
+        if (progress != null) {
+            return Response.ok(progress).build();
+        }
+        return Response.status(Status.NOT_FOUND).entity("Could not find removal of requested PushApplicationEntity").build();
+    }
+
     /**
      * Count Push Applications
      *
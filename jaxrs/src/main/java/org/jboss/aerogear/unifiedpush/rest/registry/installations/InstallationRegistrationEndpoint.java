@@ -17,6 +17,7 @@
 package org.jboss.aerogear.unifiedpush.rest.registry.installations;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -45,6 +46,8 @@ import org.jboss.aerogear.unifiedpush.rest.EmptyJSON;
 import org.jboss.aerogear.unifiedpush.rest.util.ClientAuthHelper;
 import org.jboss.aerogear.unifiedpush.rest.util.HttpBasicHelper;
 import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
+import org.jboss.aerogear.unifiedpush.service.ClientInstallationService.RegistrationResult;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
 import org.jboss.aerogear.unifiedpush.service.GenericVariantService;
 import org.jboss.aerogear.unifiedpush.service.VerificationService;
 import org.jboss.aerogear.unifiedpush.service.VerificationService.VerificationResult;
@@ -63,6 +66,10 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
     // at some point we should move the mapper to a util class.?
     public static final ObjectMapper mapper = new ObjectMapper();
 
+    private static final int DEFAULT_BATCH_MAX_SIZE = 1000;
+    // not part of Response.Status in JAX-RS 2.0
+    private static final int TOO_MANY_REQUESTS = 429;
+
     private final AeroGearLogger logger = AeroGearLogger.getInstance(InstallationRegistrationEndpoint.class);
     @Inject
     private ClientInstallationService clientInstallationService;
@@ -72,6 +79,8 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
     private PushMessageMetricsService metricsService;
     @Inject
     private VerificationService verificationService;
+    @Inject
+    private Configuration configuration;
 
     /**
      * Cross Origin for Installations
@@ -188,6 +197,102 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
         return appendAllowOriginHeader(Response.ok(entity), request);
     }
 
+    /**
+     * RESTful API for registering a batch of devices of one variant with a single request.
+     * The Endpoint is protected using <code>HTTP Basic</code> (credentials <code>VariantID:secret</code>).
+     *
+     * <pre>
+     * curl -u "variantID:secret"
+     *   -v -H "Accept: application/json" -H "Content-type: application/json"
+     *   -X POST
+     *   -d '[
+     *     {
+     *       "deviceToken" : "someTokenString",
+     *       "deviceType" : "iPad",
+     *       "operatingSystem" : "iOS",
+     *       "osVersion" : "6.1.2",
+     *       "alias" : "someUsername or email adress...",
+     *       "categories" : ["football", "sport"]
+     *     },
+     *     ...
+     *   ]'
+     *   https://SERVER:PORT/context/rest/registry/device/batch
+     * </pre>
+     *
+     * Every installation is registered like a single one posted to <code>/rest/registry/device</code>, all of them in
+     * one transaction. Installations with an invalid device token are skipped. The response holds the outcome of every
+     * installation, in the order of the request: CREATED, UPDATED, DISABLED (existing installation not updated) or
+     * INVALID.
+     *
+     * @HTTP 200 (OK) Successful storage of the device metadata.
+     * @HTTP 400 (Bad Request) The format of the client request was incorrect.
+     * @HTTP 401 (Unauthorized) The request requires authentication.
+     * @HTTP 413 (Request Entity Too Large) The batch holds more installations than allowed.
+     *
+     * @param entities  list of {@link Installation} for Device registration
+     * @return          list of {@link InstallationRegistrationResult}
+     *
+     * @responseheader Access-Control-Allow-Origin      With host in your "Origin" header
+     * @responseheader Access-Control-Allow-Credentials true
+     * @responseheader WWW-Authenticate Basic realm="Atoms UnifiedPush Server" (only for 401 response)
+     *
+     * @statuscode 200 Successful storage of the device metadata
+     * @statuscode 400 The format of the client request was incorrect
+     * @statuscode 401 The request requires authentication
+     * @statuscode 413 The batch holds more installations than allowed
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @ReturnType("java.util.List<org.jboss.aerogear.unifiedpush.rest.registry.installations.InstallationRegistrationResult>")
+    public Response registerInstallations(
+            List<Installation> entities,
+            @Context HttpServletRequest request) {
+
+        // find the matching variation:
+        final Variant variant = loadVariantWhenAuthorized(request);
+        if (variant == null) {
+            return create401Response(request);
+        }
+
+        if (entities == null) {
+            return appendAllowOriginHeader(Response.status(Status.BAD_REQUEST), request);
+        }
+        final int maxSize = configuration.getProperty(Configuration.PROP_REGISTRATION_BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+        if (entities.size() > maxSize) {
+            return appendAllowOriginHeader(Response.status(Status.REQUEST_ENTITY_TOO_LARGE)
+                    .entity("at most " + maxSize + " installations per batch"), request);
+        }
+
+        // Poor up-front validation for required tokens
+        final List<Installation> valid = new ArrayList<>(entities.size());
+        for (Installation entity : entities) {
+            final String deviceToken = entity == null ? null : entity.getDeviceToken();
+            if (deviceToken != null && DeviceTokenValidator.isValidDeviceTokenForVariant(deviceToken, variant.getType())) {
+                valid.add(entity);
+            } else {
+                logger.finest(String.format("Invalid device token was delivered: %s for variant type: %s", deviceToken, variant.getType()));
+            }
+        }
+
+        final List<RegistrationResult> registered = valid.isEmpty() ? new ArrayList<RegistrationResult>()
+                : clientInstallationService.registerInstallations(variant, valid);
+
+        final List<InstallationRegistrationResult> results = new ArrayList<>(entities.size());
+        int next = 0;
+        for (Installation entity : entities) {
+            if (next < valid.size() && valid.get(next) == entity) {
+                results.add(new InstallationRegistrationResult(entity.getDeviceToken(), registered.get(next++)));
+            } else {
+                results.add(new InstallationRegistrationResult(entity == null ? null : entity.getDeviceToken(),
+                        RegistrationResult.INVALID));
+            }
+        }
+
+        return appendAllowOriginHeader(Response.ok(results), request);
+    }
+
     /**
      * RESTful API for Push Notification metrics registration.
      * The Endpoint is protected using <code>HTTP Basic</code> (credentials <code>VariantID:secret</code>).
@@ -385,6 +490,7 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
      *
      * @HTTP 200 (OK) if enable went through
      * @HTTP 401 (Unauthorized) The request requires authentication.
+     * @HTTP 429 (Too Many Requests) The device failed too many attempts recently.
      *
      * @param verificationAttempt {@link InstallationVerificationAttempt} containing the verification code.
      * @return verification outcome {@link VerificationResult}
@@ -396,6 +502,7 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
      * @statuscode 200 Successful
      * @statuscode 400 The format of the client request was incorrect (e.g. missing required values)
      * @statuscode 401 The request requires authentication
+     * @statuscode 429 The device failed too many attempts recently, the code was not checked
      */
     @POST
     @Path("/enable")
@@ -410,6 +517,11 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
             return create401Response(request);
         }
 
+        // rejected before loading the installation
+        if (verificationService.isThrottled(variant, verificationAttempt.getDeviceToken())) {
+            return appendAllowOriginHeader(Response.status(TOO_MANY_REQUESTS).entity(VerificationResult.THROTTLED), request);
+        }
+
 		Installation installation = clientInstallationService.findInstallationForVariantByDeviceToken(variant.getVariantID(),
 				verificationAttempt.getDeviceToken());
 
@@ -420,6 +532,9 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
 		}
 
         VerificationResult result = verificationService.verifyDevice(installation, variant, verificationAttempt.getCode());
+        if (result == VerificationResult.THROTTLED) {
+            return appendAllowOriginHeader(Response.status(TOO_MANY_REQUESTS).entity(result), request);
+        }
 
         return appendAllowOriginHeader(Response.ok(result), request);
     }
@@ -557,7 +672,7 @@ public class InstallationRegistrationEndpoint extends AbstractBaseEndpoint {
         String secret = credentials[1];
 
         final Variant variant = genericVariantService.findByVariantID(variantID);
-        if (variant != null && variant.getSecret().equals(secret)) {
+        if (variant != null && !variant.isDeleting() && variant.getSecret().equals(secret)) {
             return variant;
         }
 
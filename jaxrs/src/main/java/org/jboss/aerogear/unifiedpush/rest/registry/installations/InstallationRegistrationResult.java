@@ -0,0 +1,52 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.rest.registry.installations;
+
+import org.jboss.aerogear.unifiedpush.service.ClientInstallationService.RegistrationResult;
+
+/**
+ * Outcome of the registration of one installation of a batch registration.
+ */
+public class InstallationRegistrationResult {
+
+    private String deviceToken;
+    private RegistrationResult result;
+
+    public InstallationRegistrationResult() {
+    }
+
+    public InstallationRegistrationResult(String deviceToken, RegistrationResult result) {
+        this.deviceToken = deviceToken;
+        this.result = result;
+    }
+
+    public String getDeviceToken() {
+        return deviceToken;
+    }
+
+    public void setDeviceToken(String deviceToken) {
+        this.deviceToken = deviceToken;
+    }
+
+    public RegistrationResult getResult() {
+        return result;
+    }
+
+    public void setResult(RegistrationResult result) {
+        this.result = result;
+    }
+}
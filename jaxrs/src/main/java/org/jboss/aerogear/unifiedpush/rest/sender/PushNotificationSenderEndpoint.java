@@ -16,6 +16,8 @@
  */
 package org.jboss.aerogear.unifiedpush.rest.sender;
 
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
@@ -38,6 +40,9 @@ import org.jboss.aerogear.unifiedpush.rest.AbstractEndpoint;
 import org.jboss.aerogear.unifiedpush.rest.EmptyJSON;
 import org.jboss.aerogear.unifiedpush.rest.util.HttpRequestUtil;
 import org.jboss.aerogear.unifiedpush.rest.util.PushAppAuthHelper;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.aerogear.unifiedpush.service.DocumentService;
 import org.jboss.aerogear.unifiedpush.service.PushApplicationService;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
@@ -48,6 +53,8 @@ import com.qmino.miredot.annotations.ReturnType;
 @Path("/sender")
 public class PushNotificationSenderEndpoint extends AbstractEndpoint {
 
+    private static final int DEFAULT_BATCH_MAX_SIZE = 100;
+
     private final AeroGearLogger logger = AeroGearLogger.getInstance(PushNotificationSenderEndpoint.class);
     @Inject
     private PushApplicationService pushApplicationService;
@@ -55,6 +62,10 @@ public class PushNotificationSenderEndpoint extends AbstractEndpoint {
     private NotificationRouter notificationRouter;
 	@Inject
 	private DocumentService documentService;
+    @Inject
+    private Configuration configuration;
+    @Inject
+    private PipelineMetrics pipelineMetrics;
 
     /**
      * RESTful API for sending Push Notifications.
@@ -97,6 +108,7 @@ public class PushNotificationSenderEndpoint extends AbstractEndpoint {
     @BodyType("org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage")
     @ReturnType("org.jboss.aerogear.unifiedpush.rest.EmptyJSON")
     public Response send(final InternalUnifiedPushMessage message, @Context HttpServletRequest request) {
+        final long start = pipelineMetrics.start();
 
         final PushApplication pushApplication = PushAppAuthHelper.loadPushApplicationWhenAuthorized(request, pushApplicationService);
         if (pushApplication == null) {
@@ -113,12 +125,108 @@ public class PushNotificationSenderEndpoint extends AbstractEndpoint {
         message.setClientIdentifier(HttpRequestUtil.extractAeroGearSenderInformation(request));
 
         // submitted to EJB:
-        notificationRouter.submit(pushApplication, message);
+        boolean submitted = false;
+        try {
+            notificationRouter.submit(pushApplication, message);
+            submitted = true;
+        } finally {
+            pipelineMetrics.record(PipelineStage.SEND_REQUEST, null, submitted, start, 1);
+        }
         logger.fine(String.format("Push Message Request from [%s] API was internally submitted for further processing", message.getClientIdentifier()));
 
         return Response.status(Status.ACCEPTED).entity(EmptyJSON.STRING).build();
     }
 
+    /**
+     * RESTful API for sending several differently targeted Push Notifications with one request.
+     * The Endpoint is protected using <code>HTTP Basic</code> (credentials <code>PushApplicationID:masterSecret</code>).
+     * <p/><p/>
+     *
+     * Messages are submitted as a JSON array of the messages accepted by <code>/rest/sender</code>:
+     * <pre>
+     * curl -u "PushApplicationID:MasterSecret"
+     *   -v -H "Accept: application/json" -H "Content-type: application/json"
+     *   -X POST
+     *   -d '[
+     *     {
+     *       "criteria": { "alias": ["john"] },
+     *       "message": { "alert": "HELLO JOHN!" }
+     *     },
+     *     {
+     *       "criteria": { "categories": ["sport"] },
+     *       "message": { "alert": "GOAL!" }
+     *     }
+     *   ]'
+     *   https://SERVER:PORT/CONTEXT/rest/sender/batch
+     * </pre>
+     *
+     * All messages are accepted in one transaction, or none of them. The response holds the id of every message,
+     * in the order of the request, as used by the metrics of the push application.
+     *
+     * @HTTP 202 (Accepted) Indicates the Job has been accepted and is being process by the AeroGear UnifiedPush Server.
+     * @HTTP 400 (Bad Request) The format of the client request was incorrect.
+     * @HTTP 401 (Unauthorized) The request requires authentication.
+     * @HTTP 413 (Request Entity Too Large) The request holds more messages than allowed.
+     * @RequestHeader aerogear-sender The header to identify the used client. If the header is not present, the standard "user-agent" header is used.
+     *
+     * @param messages  messages to send
+     * @return          ids of the messages
+     *
+     * @responseheader WWW-Authenticate Basic realm="AeroGear UnifiedPush Server" (only for 401 response)
+     *
+     * @statuscode 202 Indicates the Job has been accepted and is being process by the AeroGear UnifiedPush Server
+     * @statuscode 400 The format of the client request was incorrect
+     * @statuscode 401 The request requires authentication
+     * @statuscode 413 The request holds more messages than allowed
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @BodyType("java.util.List<org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage>")
+    @ReturnType("java.util.List<java.lang.String>")
+    public Response sendAll(final List<InternalUnifiedPushMessage> messages, @Context HttpServletRequest request) {
+        final long start = pipelineMetrics.start();
+
+        final PushApplication pushApplication = PushAppAuthHelper.loadPushApplicationWhenAuthorized(request, pushApplicationService);
+        if (pushApplication == null) {
+            return Response.status(Status.UNAUTHORIZED)
+                    .header("WWW-Authenticate", "Basic realm=\"Atoms UnifiedPush Server\"")
+                    .entity("Unauthorized Request")
+                    .build();
+        }
+
+        if (messages == null || messages.contains(null)) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+        final int maxSize = configuration.getProperty(Configuration.PROP_SENDER_BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+        if (messages.size() > maxSize) {
+            return Response.status(Status.REQUEST_ENTITY_TOO_LARGE)
+                    .entity("at most " + maxSize + " messages per request")
+                    .build();
+        }
+
+        final String ipAddress = HttpRequestUtil.extractIPAddress(request);
+        final String clientIdentifier = HttpRequestUtil.extractAeroGearSenderInformation(request);
+        for (InternalUnifiedPushMessage message : messages) {
+            // submit http request metadata:
+            message.setIpAddress(ipAddress);
+            // add the client identifier
+            message.setClientIdentifier(clientIdentifier);
+        }
+
+        // submitted to EJB:
+        List<String> ids = null;
+        try {
+            ids = notificationRouter.submit(pushApplication, messages);
+        } finally {
+            pipelineMetrics.record(PipelineStage.SEND_REQUEST, null, ids != null, start, messages.size());
+        }
+        logger.fine(String.format("%d Push Message Requests from [%s] API were internally submitted for further processing", messages.size(), clientIdentifier));
+
+        return Response.status(Status.ACCEPTED).entity(ids).build();
+    }
+
     /**
      * RESTful API for sending Push Notifications with large payload.
      * The Endpoint is protected using <code>HTTP Basic</code> (credentials <code>PushApplicationID:masterSecret</code>).</BR>
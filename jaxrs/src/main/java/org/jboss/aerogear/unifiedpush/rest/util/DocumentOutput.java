@@ -0,0 +1,48 @@
+package org.jboss.aerogear.unifiedpush.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+
+/**
+ * Streams a stored document to the response, reading it only when the response (or multipart part) is written.
+ * Content {@link DocumentContent#open() opened} beforehand is closed once written.
+ */
+public class DocumentOutput implements StreamingOutput {
+	private final DocumentContent content;
+	private final boolean encoded;
+
+	public DocumentOutput(DocumentContent content) {
+		this(content, false);
+	}
+
+	/**
+	 * @param encoded true to stream the content as stored, in its {@link DocumentContent#getContentEncoding() content
+	 *            encoding}
+	 */
+	public DocumentOutput(DocumentContent content, boolean encoded) {
+		this.content = content;
+		this.encoded = encoded;
+	}
+
+	@Override
+	public void write(OutputStream output) throws IOException, WebApplicationException {
+		try {
+			if (encoded) {
+				content.writeEncodedTo(Channels.newChannel(output));
+			} else {
+				content.writeTo(Channels.newChannel(output));
+			}
+		} finally {
+			if (content instanceof OpenDocumentContent) {
+				((OpenDocumentContent) content).close();
+			}
+		}
+	}
+}
@@ -17,9 +17,15 @@
 package org.jboss.aerogear.unifiedpush.rest.util;
 
 import org.jboss.aerogear.unifiedpush.message.HealthNetworkService;
+import org.jboss.aerogear.unifiedpush.message.QueueMonitoringService;
+import org.jboss.aerogear.unifiedpush.message.jms.QueueStatistics;
 import org.jboss.aerogear.unifiedpush.service.HealthDBService;
+import org.jboss.aerogear.unifiedpush.service.VerificationService;
+import org.jboss.aerogear.unifiedpush.service.file.DocumentCache;
+import org.jboss.aerogear.unifiedpush.service.file.DocumentCacheStatistics;
 import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
 import org.jboss.aerogear.unifiedpush.service.impl.health.HealthStatus;
+import org.jboss.aerogear.unifiedpush.service.impl.verification.VerificationStatistics;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
@@ -42,6 +48,15 @@ public class HealthCheck {
     @Inject
     private HealthNetworkService healthNetworkService;
 
+    @Inject
+    private QueueMonitoringService queueMonitoringService;
+
+    @Inject
+    private DocumentCache documentCache;
+
+    @Inject
+    private VerificationService verificationService;
+
     /**
      * Get health status
      *
@@ -63,8 +78,45 @@ public class HealthCheck {
         for (HealthDetails details : networkStatus.get()) {
             status.add(details);
         }
+        status.add(queueMonitoringService.queueStatus());
 
         return status;
     }
 
+    /**
+     * Get the backlog of the JMS queues of the pipeline: messages waiting, age of the oldest message, consumers, and
+     * messages added and consumed per second
+     *
+     * @return list of {@link QueueStatistics} of the last sample, taken every 30 seconds
+     */
+    @GET
+    @Path("/queues")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<QueueStatistics> queues() {
+        return queueMonitoringService.queueStatistics();
+    }
+
+    /**
+     * Get the hit and miss counters of the latest document cache
+     *
+     * @return {@link DocumentCacheStatistics} since startup of this node
+     */
+    @GET
+    @Path("/document-cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public DocumentCacheStatistics documentCache() {
+        return documentCache.getStatistics();
+    }
+
+    /**
+     * Get the counters of the verification codes, including the expired and evicted entries
+     *
+     * @return {@link VerificationStatistics} since startup of this node
+     */
+    @GET
+    @Path("/verification")
+    @Produces(MediaType.APPLICATION_JSON)
+    public VerificationStatistics verification() {
+        return verificationService.getStatistics();
+    }
 }
@@ -45,6 +45,28 @@ public final class HttpRequestUtil {
         }
     }
 
+    /**
+     * Checks the "Accept-Encoding" header of the given {@link javax.servlet.http.HttpServletRequest} for gzip.
+     *
+     * @param request to inspect
+     *
+     * @return true if the client accepts gzip encoded responses
+     */
+    public static boolean acceptsGzip(final HttpServletRequest request) {
+        final String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            final String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
     /**
      * Extracts the IP address from the given {@link javax.servlet.http.HttpServletRequest}.
      *
@@ -17,6 +17,7 @@
 package org.jboss.aerogear.unifiedpush.rest.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.github.fge.jackson.JacksonUtils;
@@ -25,25 +26,93 @@ import com.github.fge.jsonpatch.JsonPatchException;
 
 import org.jboss.aerogear.unifiedpush.rest.util.transform.DynamicTransformer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 
 /**
  * Basic request transformer
+ *
+ * The patch of a path and version is read and compiled once, together with its dynamic transformer, and reused by
+ * all requests. Paths without a patch are remembered as well, up to {@value #MAX_UNPATCHED_PATHS} of them, since the
+ * path is chosen by the client.
  */
-@RequestScoped
+@ApplicationScoped
 public class RequestTransformer {
-    private final Logger logger = Logger.getLogger(RequestTransformer.class.getName());
+    private static final Logger logger = Logger.getLogger(RequestTransformer.class.getName());
 
     private static final String OPERATIONS = "operations";
     private static final String TRANSFORMER = "dynamicTransformer";
+    private static final int MAX_UNPATCHED_PATHS = 1024;
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
 
-    public StringBuilder transform(String path, String version, StringBuilder json) {
+    private final ConcurrentMap<String, Patch> patches = new ConcurrentHashMap<>();
+    private final Set<String> unpatched = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * @return true if requests to the path with the given api version are transformed
+     */
+    public boolean hasPatch(String path, String version) {
+        return patch(path, version) != null;
+    }
+
+    /**
+     * @return the transformed json, or the given json if there is no patch or the json could not be transformed
+     */
+    public byte[] transform(String path, String version, byte[] json) {
+        final Patch patch = patch(path, version);
+        if (patch == null) {
+            return json;
+        }
         try {
-            final JsonNode node = locateJsonPatch(path, version);
+            return MAPPER.writeValueAsBytes(patch.apply(JacksonUtils.getReader().readTree(new ByteArrayInputStream(json))));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("could not transform request for version '%s' and path '%s'", version, path), e);
+            return json;
+        }
+    }
+
+    public StringBuilder transform(String path, String version, StringBuilder json) {
+        final byte[] content = json.toString().getBytes(StandardCharsets.UTF_8);
+        final byte[] transformed = transform(path, version, content);
+        return transformed == content ? json : new StringBuilder(new String(transformed, StandardCharsets.UTF_8));
+    }
+
+    private Patch patch(String path, String version) {
+        final String resource = path + "/" + version + ".json";
+        final Patch patch = patches.get(resource);
+        if (patch != null || unpatched.contains(resource)) {
+            return patch;
+        }
+
+        final Patch loaded = loadPatch(resource, path, version);
+        if (loaded == null) {
+            if (unpatched.size() < MAX_UNPATCHED_PATHS) {
+                unpatched.add(resource);
+            }
+            return null;
+        }
+        final Patch existing = patches.putIfAbsent(resource, loaded);
+        return existing == null ? loaded : existing;
+    }
+
+    private Patch loadPatch(String resource, String path, String version) {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            final JsonNode node = JacksonUtils.getReader().readTree(in);
             final JsonNode operations = node.findPath(OPERATIONS);
             final JsonNode patch;
             if (patchHasDynamicTransformer(operations)) {
@@ -52,13 +121,17 @@ public class RequestTransformer {
                 patch = node;
             }
 
-            final JsonNode patched = transformJson(patch, json);
-            return convertToStringBuilder(applyDynamicTransformer(patched, node));
+            // one patch per operation, operations not applicable to a request are skipped
+            final List<JsonPatch> compiled = new ArrayList<>();
+            for (JsonNode operation : patch) {
+                final ArrayNode nodes = JsonNodeFactory.instance.arrayNode();
+                nodes.add(operation);
+                compiled.add(JsonPatch.fromJson(nodes));
+            }
+            return new Patch(compiled, loadDynamicTransformer(node));
         } catch (IOException e) {
             logger.log(Level.SEVERE, String.format("could not find/load path file for version '%s' and path '%s'", version, path), e);
-            return json;
-        } catch (JsonPatchException e) {
-            throw new RuntimeException("Error in json patch file", e);
+            return null;
         }
     }
 
@@ -66,43 +139,37 @@ public class RequestTransformer {
         return !operations.isMissingNode();
     }
 
-    private JsonNode locateJsonPatch(String path, String version) throws IOException {
-        return JacksonUtils.getReader().readTree(getClass().getResourceAsStream(path + "/" + version + ".json"));
-    }
-
-    private JsonNode transformJson(JsonNode patch, StringBuilder json) throws IOException, JsonPatchException {
-        JsonNode jsonNode = convertToJsonNode(json);
-        for (JsonNode operation : patch) {
+    private DynamicTransformer loadDynamicTransformer(JsonNode patch) {
+        String clazz = patch.findPath(TRANSFORMER).textValue();
+        if (clazz != null) {
             try {
-                final ArrayNode nodes = JsonNodeFactory.instance.arrayNode();
-                nodes.add(operation);
-                JsonPatch patchOperation = JsonPatch.fromJson(nodes);
-                jsonNode = patchOperation.apply(jsonNode);
-            } catch (JsonPatchException e) {
-                logger.log(Level.FINEST, "ignore field not found");
+                return (DynamicTransformer) Class.forName(getClass().getPackage().getName() + ".transform." + clazz).newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException("error in json patch could not instantiate / find dynamic transformer", e);
             }
         }
-        return jsonNode;
+        return null;
     }
 
-    private JsonNode convertToJsonNode(StringBuilder json) throws IOException {
-        return JacksonUtils.getReader().readTree(json.toString());
-    }
+    private static final class Patch {
+        private final List<JsonPatch> operations;
+        private final DynamicTransformer dynamicTransformer;
 
-    private StringBuilder convertToStringBuilder(JsonNode dynamicTransformedNode) {
-        return new StringBuilder(dynamicTransformedNode.toString());
-    }
+        Patch(List<JsonPatch> operations, DynamicTransformer dynamicTransformer) {
+            this.operations = operations;
+            this.dynamicTransformer = dynamicTransformer;
+        }
 
-    JsonNode applyDynamicTransformer(JsonNode json, JsonNode patch) throws IOException {
-        String clazz = patch.findPath(TRANSFORMER).textValue();
-        if (clazz != null) {
-            try {
-                final DynamicTransformer dynamicTransformer = (DynamicTransformer) Class.forName(getClass().getPackage().getName() + ".transform." + clazz).newInstance();
-                return dynamicTransformer.transform(json);
-            } catch (Exception e) {
-                throw new RuntimeException("error in json patch could not instantiate / find dynamic transformer", e);
+        JsonNode apply(JsonNode json) throws IOException {
+            JsonNode jsonNode = json;
+            for (JsonPatch operation : operations) {
+                try {
+                    jsonNode = operation.apply(jsonNode);
+                } catch (JsonPatchException e) {
+                    logger.log(Level.FINEST, "ignore field not found");
+                }
             }
+            return dynamicTransformer == null ? jsonNode : dynamicTransformer.transform(jsonNode);
         }
-        return json;
     }
 }
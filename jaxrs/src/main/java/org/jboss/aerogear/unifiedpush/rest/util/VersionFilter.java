@@ -27,9 +27,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -58,8 +57,12 @@ public class VersionFilter implements Filter {
             if (index != -1) {
                 final int beginIndex = index + AEROGEAR_VERSION_PREFIX.length();
                 final String version = accept.substring(beginIndex, beginIndex + VERSION_LENGTH);
-                chain.doFilter(new TransformHttpServletRequestWrapper(version, httpRequest), response);
-                return;
+                final String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+                // requests to paths without a patch for the version are passed on as they are
+                if (requestTransformer.hasPatch(path, version)) {
+                    chain.doFilter(new TransformHttpServletRequestWrapper(path, version, httpRequest), response);
+                    return;
+                }
             }
         }
         chain.doFilter(request, response);
@@ -70,37 +73,43 @@ public class VersionFilter implements Filter {
    }
 
     private class TransformHttpServletRequestWrapper extends HttpServletRequestWrapper {
-        private final StringBuilder jsonRequest = new StringBuilder();
         private final String path;
         private final String version;
+        private byte[] jsonRequest;
 
-        public TransformHttpServletRequestWrapper(String version, HttpServletRequest httpRequest) throws IOException {
+        public TransformHttpServletRequestWrapper(String path, String version, HttpServletRequest httpRequest) {
             super(httpRequest);
-
-            final BufferedReader reader = httpRequest.getReader();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonRequest.append(line);
-            }
-
-            final String contextPath = httpRequest.getContextPath();
-            this.path = httpRequest.getRequestURI().substring(contextPath.length());
+            this.path = path;
             this.version = version;
         }
 
         @Override
         public ServletInputStream getInputStream() throws IOException {
-            StringBuilder data = requestTransformer.transform(path, version, jsonRequest);
-            final byte[] bytes = data.toString().getBytes();
+            if (jsonRequest == null) {
+                jsonRequest = requestTransformer.transform(path, version, read(super.getInputStream(), getContentLength()));
+            }
+            final InputStream inputStream = new ByteArrayInputStream(jsonRequest);
             return new ServletInputStream() {
-                private InputStream inputStream = new BufferedInputStream(new ByteArrayInputStream(bytes));
-
                 @Override
                 public int read() throws IOException {
                     return inputStream.read();
                 }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return inputStream.read(b, off, len);
+                }
             };
         }
 
+        private byte[] read(InputStream in, int contentLength) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? contentLength : 1024);
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
     }
 }
@@ -0,0 +1,67 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.rest.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.core.Response;
+
+import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
+import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PushMetricsEndpointTest {
+
+    @Mock
+    private PushMessageMetricsService metricsService;
+
+    @InjectMocks
+    private PushMetricsEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldReturnPushMessageInformation() {
+        // given
+        final PushMessageInformation information = new PushMessageInformation();
+        when(metricsService.getPushMessageInformation(information.getId())).thenReturn(information);
+
+        // when
+        final Response response = endpoint.pushMessageInformation(information.getId());
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        assertThat(response.getEntity()).isSameAs(information);
+    }
+
+    @Test
+    public void shouldReturnNotFoundForUnknownPushMessage() {
+        // when
+        final Response response = endpoint.pushMessageInformation("unknown");
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+    }
+}
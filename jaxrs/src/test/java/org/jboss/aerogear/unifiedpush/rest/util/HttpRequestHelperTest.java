@@ -164,6 +164,23 @@ public class HttpRequestHelperTest {
         assertThat(client).isEqualTo("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_9_2)");
     }
 
+    @Test
+    public void acceptsGzipEncoding() {
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("deflate, gzip;q=0.8");
+
+        assertThat(HttpRequestUtil.acceptsGzip(request)).isTrue();
+    }
+
+    @Test
+    public void refusesGzipEncoding() {
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("identity, gzip; q=0");
+
+        assertThat(HttpRequestUtil.acceptsGzip(request)).isFalse();
+        assertThat(HttpRequestUtil.acceptsGzip(Mockito.mock(HttpServletRequest.class))).isFalse();
+    }
+
     @Test
     public void extactNullSortingParamValue() {
         assertThat(HttpRequestUtil.extractSortingQueryParamValue(null)).isTrue();
@@ -23,8 +23,12 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  */
@@ -47,4 +51,35 @@ public class RequestTransformerTest {
 
         assertEquals(newNode, patchedNode);
     }
+
+    @Test
+    public void shouldTransformRequestBytesWithCachedPatch() throws IOException {
+        //given
+        ObjectReader reader = JacksonUtils.getReader();
+        final byte[] json = IOUtils.toByteArray(getClass().getResourceAsStream("/message-format-100.json"));
+        requestTransformer.transform("/rest/sender", "100", json);
+
+        //when
+        final byte[] patched = requestTransformer.transform("/rest/sender", "100", json);
+
+        //then
+        final JsonNode patchedNode = reader.readTree(new String(patched, StandardCharsets.UTF_8));
+        JsonNode newNode = reader.readTree(getClass().getResourceAsStream("/new-message-format.json"));
+
+        assertEquals(newNode, patchedNode);
+    }
+
+    @Test
+    public void shouldPassOnRequestWithoutPatch() {
+        //given
+        final byte[] json = "{\"deviceToken\": \"token\"}".getBytes(StandardCharsets.UTF_8);
+
+        //when
+        final byte[] transformed = requestTransformer.transform("/rest/registry/device", "100", json);
+
+        //then
+        assertSame(json, transformed);
+        assertFalse(requestTransformer.hasPatch("/rest/registry/device", "100"));
+        assertTrue(requestTransformer.hasPatch("/rest/sender", "100"));
+    }
 }
@@ -0,0 +1,107 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.api;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Incrementally maintained number of installations and push messages of a single variant or push application.
+ * Serves the dashboard and the installation counts without scanning the installation table, and is reconciled
+ * with the real numbers periodically.
+ */
+public class CounterSummary implements Serializable {
+    private static final long serialVersionUID = 6384014637946512247L;
+
+    public enum Type {
+        VARIANT, PUSH_APPLICATION
+    }
+
+    private String id;
+    private Type type;
+    private long installations;
+    private long messages;
+    private Date reconciled;
+
+    public CounterSummary() {
+    }
+
+    public CounterSummary(String id, Type type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The variantID or pushApplicationID the counters belong to
+     *
+     * @param id the variantID or pushApplicationID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getInstallations() {
+        return installations;
+    }
+
+    /**
+     * Number of installations, only maintained for variants.
+     *
+     * @param installations the number of installations
+     */
+    public void setInstallations(long installations) {
+        this.installations = installations;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * Number of push messages sent to the variant or push application.
+     *
+     * @param messages the number of push messages
+     */
+    public void setMessages(long messages) {
+        this.messages = messages;
+    }
+
+    public Date getReconciled() {
+        return reconciled;
+    }
+
+    /**
+     * Last time the counters were reconciled with the actual numbers.
+     *
+     * @param reconciled the reconciliation date
+     */
+    public void setReconciled(Date reconciled) {
+        this.reconciled = reconciled;
+    }
+}
@@ -0,0 +1,46 @@
+package org.jboss.aerogear.unifiedpush.api;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reference to the stored content of a document version. The content is only read when written to a channel, so it
+ * is never held in memory as a whole.
+ */
+public interface DocumentContent {
+
+	/**
+	 * Content encoding of documents stored gzip compressed.
+	 */
+	String GZIP = "gzip";
+
+	DocumentMetadata getMetadata();
+
+	/**
+	 * @return size of the stored (possibly compressed) content in bytes, at the time the document was looked up
+	 */
+	long getSize();
+
+	/**
+	 * @return encoding of the stored content, {@link #GZIP} or null if it is stored as is
+	 */
+	String getContentEncoding();
+
+	/**
+	 * Copies the content (UTF-8) to the channel, decompressing it if necessary.
+	 */
+	void writeTo(WritableByteChannel target) throws IOException;
+
+	/**
+	 * Copies the stored content to the channel as is, in its {@link #getContentEncoding() content encoding}.
+	 */
+	void writeEncodedTo(WritableByteChannel target) throws IOException;
+
+	/**
+	 * Opens the stored content, to write it once the response is committed. The opened content can still be written
+	 * when the document is replaced, moved or deleted meanwhile. The caller closes it.
+	 *
+	 * @throws IOException if the content is no longer stored
+	 */
+	OpenDocumentContent open() throws IOException;
+}
@@ -0,0 +1,9 @@
+package org.jboss.aerogear.unifiedpush.api;
+
+import java.io.Closeable;
+
+/**
+ * Document content opened by {@link DocumentContent#open()}, holding the stored content until it is closed.
+ */
+public interface OpenDocumentContent extends DocumentContent, Closeable {
+}
@@ -0,0 +1,63 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.api;
+
+/**
+ * Entry of the search index over the push message history: one word of the alert, the criteria or the user-data
+ * keys of a {@link PushMessageInformation}.
+ */
+public class PushMessageTerm extends BaseModel {
+
+    private static final long serialVersionUID = -2651937514329563047L;
+
+    private String term;
+    private String pushApplicationId;
+    private String pushMessageInformationId;
+
+    public PushMessageTerm() {
+    }
+
+    public PushMessageTerm(String term, String pushApplicationId, String pushMessageInformationId) {
+        this.term = term;
+        this.pushApplicationId = pushApplicationId;
+        this.pushMessageInformationId = pushMessageInformationId;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public String getPushApplicationId() {
+        return pushApplicationId;
+    }
+
+    public void setPushApplicationId(String pushApplicationId) {
+        this.pushApplicationId = pushApplicationId;
+    }
+
+    public String getPushMessageInformationId() {
+        return pushMessageInformationId;
+    }
+
+    public void setPushMessageInformationId(String pushMessageInformationId) {
+        this.pushMessageInformationId = pushMessageInformationId;
+    }
+}
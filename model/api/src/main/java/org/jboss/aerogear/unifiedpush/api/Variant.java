@@ -38,6 +38,8 @@ public abstract class Variant extends BaseModel {
 
     private String developer;
 
+    private boolean deleting;
+
     /**
      * The @VariantType of the underlying variant.
      *
@@ -102,4 +104,19 @@ public abstract class Variant extends BaseModel {
     public void setDeveloper(String developer) {
         this.developer = developer;
     }
+
+    public boolean isDeleting() {
+        return deleting;
+    }
+
+    /**
+     * Marks the variant as being removed. Installations of such a variant are
+     * deleted in the background and the variant no longer accepts registrations
+     * or push messages.
+     *
+     * @param deleting true once the removal has been scheduled
+     */
+    public void setDeleting(boolean deleting) {
+        this.deleting = deleting;
+    }
 }
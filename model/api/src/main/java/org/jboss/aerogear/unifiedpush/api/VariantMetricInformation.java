@@ -37,6 +37,15 @@ public class VariantMetricInformation extends BaseModel {
     private Integer servedBatches = 0;
     private Integer totalBatches = 0;
 
+    // delivery timeline, epoch milliseconds
+    private Long firstTokenLoaded;
+    private Long lastTokenLoaded;
+    private Long firstBatchDispatched;
+    private Long lastBatchDispatched;
+    private Long firstNetworkAck;
+    private Long lastNetworkAck;
+    private Long completed;
+
     @JsonIgnore
     private PushMessageInformation pushMessageInformation;
 
@@ -149,4 +158,109 @@ public class VariantMetricInformation extends BaseModel {
     public void setTotalBatches(Integer totalBatches) {
         this.totalBatches = totalBatches;
     }
+
+    /**
+     * When the first batch of device tokens was loaded by the TokenLoader.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getFirstTokenLoaded() {
+        return firstTokenLoaded;
+    }
+
+    public void setFirstTokenLoaded(Long firstTokenLoaded) {
+        this.firstTokenLoaded = firstTokenLoaded;
+    }
+
+    /**
+     * When the last batch of device tokens was loaded by the TokenLoader.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getLastTokenLoaded() {
+        return lastTokenLoaded;
+    }
+
+    public void setLastTokenLoaded(Long lastTokenLoaded) {
+        this.lastTokenLoaded = lastTokenLoaded;
+    }
+
+    /**
+     * When the first batch of device tokens was taken from the queue, to be sent to the push network.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getFirstBatchDispatched() {
+        return firstBatchDispatched;
+    }
+
+    public void setFirstBatchDispatched(Long firstBatchDispatched) {
+        this.firstBatchDispatched = firstBatchDispatched;
+    }
+
+    /**
+     * When the last batch of device tokens was taken from the queue, to be sent to the push network.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getLastBatchDispatched() {
+        return lastBatchDispatched;
+    }
+
+    public void setLastBatchDispatched(Long lastBatchDispatched) {
+        this.lastBatchDispatched = lastBatchDispatched;
+    }
+
+    /**
+     * When the push network first answered a batch, successfully or not.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getFirstNetworkAck() {
+        return firstNetworkAck;
+    }
+
+    public void setFirstNetworkAck(Long firstNetworkAck) {
+        this.firstNetworkAck = firstNetworkAck;
+    }
+
+    /**
+     * When the push network answered the last batch, successfully or not.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getLastNetworkAck() {
+        return lastNetworkAck;
+    }
+
+    public void setLastNetworkAck(Long lastNetworkAck) {
+        this.lastNetworkAck = lastNetworkAck;
+    }
+
+    /**
+     * When all batches of the variant were processed.
+     *
+     * Note: The value is updated asynchronously in MetricsCollector.
+     *
+     * @return epoch milliseconds, or null if the stage was not reached
+     */
+    public Long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Long completed) {
+        this.completed = completed;
+    }
 }
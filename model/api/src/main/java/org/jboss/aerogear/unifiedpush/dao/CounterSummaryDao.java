@@ -0,0 +1,99 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+
+public interface CounterSummaryDao extends GenericBaseDao<CounterSummary, String> {
+
+    /**
+     * Adds the given deltas to the counters of a variant or push application with a single update statement.
+     *
+     * @param id the variantID or pushApplicationID
+     * @param installations delta of the installation counter
+     * @param messages delta of the message counter
+     *
+     * @return the number of updated rows, zero if no counters exist yet for the id
+     */
+    int addToCounters(String id, long installations, long messages);
+
+    /**
+     * Checks if the counters have been reconciled at least once, so that they can be trusted.
+     *
+     * @return true if any counters exist
+     */
+    boolean hasCounters();
+
+    /**
+     * Sum of the installations of all variants.
+     *
+     * @return total number of installations
+     */
+    long sumInstallations();
+
+    /**
+     * Sum of the installations of all variants owned by the given developer.
+     *
+     * @param loginName the name of the owner/developer
+     * @return number of installations
+     */
+    long sumInstallationsForDeveloper(String loginName);
+
+    /**
+     * Sum of the messages of all push applications.
+     *
+     * @return total number of push messages
+     */
+    long sumMessages();
+
+    /**
+     * Sum of the messages of all push applications owned by the given developer.
+     *
+     * @param loginName the name of the owner/developer
+     * @return number of push messages
+     */
+    long sumMessagesForDeveloper(String loginName);
+
+    /**
+     * Loads the installation counters of the given variants.
+     *
+     * @param variantIDs the variants
+     * @return installations keyed by variantID, variants without counters are missing
+     */
+    Map<String, Long> findInstallationsForVariants(List<String> variantIDs);
+
+    /**
+     * Loads the time the counters of the given ids were last reconciled.
+     *
+     * @param ids variantIDs or pushApplicationIDs
+     * @return reconciliation dates keyed by id, null for counters never reconciled; ids without counters are missing
+     */
+    Map<String, Date> findReconciled(Collection<String> ids);
+
+    /**
+     * Deletes the counters of all ids that are not contained in the given list.
+     *
+     * @param ids ids of existing variants and push applications
+     * @return the number of deleted rows
+     */
+    int deleteCountersNotIn(List<String> ids);
+}
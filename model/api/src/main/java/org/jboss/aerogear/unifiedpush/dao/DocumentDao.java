@@ -2,6 +2,7 @@ package org.jboss.aerogear.unifiedpush.dao;
 
 import java.util.List;
 
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
 
@@ -12,6 +13,10 @@ public interface DocumentDao {
 	DocumentMessage findLatestDocumentForAlias(DocumentMetadata message);
 	
 	List<DocumentMessage> findLatestDocumentsForApplication(DocumentMetadata message);
+
+	DocumentContent findLatestDocumentContentForAlias(DocumentMetadata message);
+
+	List<DocumentContent> findLatestDocumentContentsForApplication(DocumentMetadata message);
 	
 	List<DocumentMessage> findDocuments(DocumentMetadata message);
 	
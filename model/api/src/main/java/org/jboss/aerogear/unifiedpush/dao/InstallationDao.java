@@ -17,6 +17,7 @@
 package org.jboss.aerogear.unifiedpush.dao;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jboss.aerogear.unifiedpush.api.Installation;
@@ -98,11 +99,63 @@ public interface InstallationDao extends GenericBaseDao<Installation, String> {
      * @param variantID the id of the variant to find the installations for
      * @param page the page number
      * @param pageSize the size of the pages
+     * @param search optional search term. It matches an installation when its device token, alias, device type,
+     *               operating system, OS version or platform, or a space separated word of one of them, starts with
+     *               the term, ignoring case. An empty term matches all installations.
      *
      * @return all installations found or empty list + the total count of results
      */
     PageResult<Installation, Count> findInstallationsByVariant(String variantID, Integer page, Integer pageSize, String search);
 
+    /**
+     * Find a page of installations for the variant specified, ordered by id. Instead of skipping the previous
+     * pages, the query seeks to the id of the last installation already seen, so deep pages cost the same as the first.
+     *
+     * @param variantID the id of the variant to find the installations for
+     * @param developer the developer, or null for the admin role
+     * @param afterId id of the last installation of the previous page, null for the first page
+     * @param maxResults the size of the page
+     * @param search optional search term, matched like in {@link #findInstallationsByVariant}
+     *
+     * @return the installations of the page
+     */
+    List<Installation> findInstallationsByVariantAfter(String variantID, String developer, String afterId, int maxResults, String search);
+
+    /**
+     * Loads a batch of the installations of the variant specified, ordered by id, with only their id and searchable
+     * fields (device token, alias, device type, operating system, OS version and platform) set. The installations are
+     * read as plain values and not attached to the persistence context, so that loading a large variant in batches
+     * neither fills nor has to clear the context of the caller.
+     *
+     * @param variantID the id of the variant to load the installations of
+     * @param afterId id of the last installation of the previous batch, null for the first batch
+     * @param maxResults the size of the batch
+     *
+     * @return detached installations holding the searchable fields
+     */
+    List<Installation> findSearchableInstallationsAfter(String variantID, String afterId, int maxResults);
+
+    /**
+     * Counts the installations for the variant specified that match the optional search term.
+     *
+     * @param variantID the id of the variant to count the installations for
+     * @param developer the developer, or null for the admin role
+     * @param search optional search term
+     *
+     * @return number of matching installations
+     */
+    long countInstallationsByVariant(String variantID, String developer, String search);
+
+    /**
+     * Loads the given installations of a variant, ordered by id.
+     *
+     * @param variantID the id of the variant the installations belong to
+     * @param ids the ids of the installations
+     *
+     * @return the installations found
+     */
+    List<Installation> findInstallationsByIds(String variantID, List<String> ids);
+
 
     /**
      * Counts the total number of registered devices/clients for the give List of variantIDs
@@ -161,4 +214,23 @@ public interface InstallationDao extends GenericBaseDao<Installation, String> {
 	 * @return aliases that are enabled
 	 */
 	Set<String> filterDisabledDevices(Set<String> aliases);
+
+	/**
+	 * Deletes at most <code>maxResults</code> installations of the given variant, together with
+	 * their category links. Meant to be called repeatedly, each time in a short transaction,
+	 * until it returns zero.
+	 *
+	 * @param variantID the variant whose installations are deleted
+	 * @param maxResults upper bound of installations deleted by this call
+	 * @return the number of installations that have been deleted
+	 */
+	int deleteInstallationsChunk(String variantID, int maxResults);
+
+	/**
+	 * Counts the installations of every variant that has installations. Scans the whole installation table,
+	 * only meant for the periodic reconciliation of the {@link CounterSummaryDao counters}.
+	 *
+	 * @return number of installations keyed by variantID
+	 */
+	Map<String, Long> countInstallationsByVariant();
 }
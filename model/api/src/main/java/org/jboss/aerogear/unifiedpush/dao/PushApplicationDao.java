@@ -96,4 +96,11 @@ public interface PushApplicationDao extends GenericBaseDao<PushApplication, Stri
     PageResult<PushApplication, Count> findAll(Integer page, Integer pageSize);
 
     long getNumberOfPushApplicationsForDeveloper();
+
+    /**
+     * Loads the pushApplicationIDs of all push applications.
+     *
+     * @return list of all push application IDs
+     */
+    List<String> findAllPushApplicationIDs();
 }
@@ -16,8 +16,10 @@
  */
 package org.jboss.aerogear.unifiedpush.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
 import org.jboss.aerogear.unifiedpush.dto.MessageMetrics;
@@ -66,7 +68,7 @@ public interface PushMessageInformationDao extends GenericBaseDao<PushMessageInf
      *
      * @param pushApplicationId ID of the PushApplication
      * @param ascending boolean to define if ASC ordering (by date) or DESC ordering should be executed.
-     * @param search the value of the alert of a push notification
+     * @param search words of the alert, criteria or user-data keys; every word must be the start of an indexed term
      * @param page The number of the page.
      * @param pageSize the number of elements in the result.
      *
@@ -74,6 +76,14 @@ public interface PushMessageInformationDao extends GenericBaseDao<PushMessageInf
      */
     PageResult<PushMessageInformation, MessageMetrics> findAllForPushApplication(String pushApplicationId, String search, boolean ascending, Integer page, Integer pageSize);
 
+    /**
+     * Stores the search index entries of a push message.
+     *
+     * @param pushMessageInformation the push message metadata, already stored
+     * @param terms the words under which the push message can be found
+     */
+    void storeSearchTerms(PushMessageInformation pushMessageInformation, Collection<String> terms);
+
     /**
      * Filters those variantIDs where the variant shows errors/issues for previous message sends
      *
@@ -100,8 +110,49 @@ public interface PushMessageInformationDao extends GenericBaseDao<PushMessageInf
      */
     void deletePushInformationOlderThan(Date oldest);
 
+    /**
+     * Delete at most <code>maxResults</code> of the oldest Push Message Information entries (and their
+     * Variant Metric Information) that are older than the given date. The entries are picked via the
+     * submit date index, so repeated calls walk the history from its oldest end.
+     *
+     * @param oldest the point in time to go back to
+     * @param maxResults upper bound of Push Message Information entries deleted by this call
+     *
+     * @return the number of deleted Push Message Information entries
+     */
+    int deletePushInformationOlderThan(Date oldest, int maxResults);
+
+    /**
+     * Adds the given amount to the app open counter of a Push Message Information entry and moves its open
+     * dates, using a single update statement instead of loading and merging the entity.
+     *
+     * @param id the id of the Push Message Information entry
+     * @param count number of app opens to add
+     * @param firstOpen first open of this batch, only applied when no open was recorded yet
+     * @param lastOpen last open of this batch
+     *
+     * @return the number of updated rows
+     */
+    int incrementAppOpenCounter(String id, long count, Date firstOpen, Date lastOpen);
+
     //Admin queries
     List<String> findVariantIDsWithWarnings();
     List<PushMessageInformation> findLatestActivity(int maxResults);
     long getNumberOfPushMessagesForApplications();
+
+    /**
+     * Counts the push messages of every push application, only meant for the periodic reconciliation
+     * of the {@link CounterSummaryDao counters}.
+     *
+     * @return number of push messages keyed by pushApplicationID
+     */
+    Map<String, Long> countMessagesByPushApplication();
+
+    /**
+     * Counts the push messages of every variant, only meant for the periodic reconciliation
+     * of the {@link CounterSummaryDao counters}.
+     *
+     * @return number of push messages keyed by variantID
+     */
+    Map<String, Long> countMessagesByVariant();
 }
@@ -61,4 +61,11 @@ public interface VariantDao extends GenericBaseDao<Variant, String> {
 
     //Admin queries
     boolean existsVariantIDForAdmin(String variantID);
+
+    /**
+     * Loads the variantIDs of all variants.
+     *
+     * @return list of all variant IDs
+     */
+    List<String> findAllVariantIDs();
 }
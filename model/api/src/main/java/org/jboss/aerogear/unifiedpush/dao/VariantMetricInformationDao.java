@@ -29,5 +29,16 @@ public interface VariantMetricInformationDao extends GenericBaseDao<VariantMetri
      */
     VariantMetricInformation findVariantMetricInformationByVariantID(String variantID, String pushMessageinformationId);
 
+    /**
+     * Adds the given amount to the open counter of the matching VariantMetricInformation, using a single
+     * update statement instead of loading and merging the entity.
+     *
+     * @param variantID that is associated with the VariantMetricInformation instance
+     * @param pushMessageinformationId of the @link{{org.jboss.aerogear.unifiedpush.api.PushMessageInformation}} that owns this instance
+     * @param count number of app opens to add
+     * @return the number of updated rows
+     */
+    int incrementVariantOpenCounter(String variantID, String pushMessageinformationId, long count);
+
 }
 
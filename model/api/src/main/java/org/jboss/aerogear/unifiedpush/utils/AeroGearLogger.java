@@ -24,6 +24,9 @@ import java.util.logging.Logger;
  * This class could be easily replaced by Log4j or SLF4J or any other logging framework
  * The motivation behind this implementation is to fix a security issue while
  * <a href="https://issues.jboss.org/browse/AGPUSH-1086">AGPUSH-1086</a> is not solved.
+ *
+ * Messages are only escaped if their level is enabled. On hot paths, prefer the overloads taking a pattern and its
+ * arguments to building the message: a disabled message then costs a level check and allocates nothing.
  */
 public class AeroGearLogger {
 
@@ -49,71 +52,221 @@ public class AeroGearLogger {
         return new AeroGearLogger(log);
     }
 
+    public boolean isInfoEnabled() {
+        return logger.isLoggable(Level.INFO);
+    }
+
+    public boolean isFineEnabled() {
+        return logger.isLoggable(Level.FINE);
+    }
+
+    public boolean isFinestEnabled() {
+        return logger.isLoggable(Level.FINEST);
+    }
+
     public void info(String message){
-        logger.info(format(message));
+        log(Level.INFO, message);
+    }
+
+    /**
+     * Logs the pattern with each <code>{}</code> replaced by the next argument. The arguments are only turned into
+     * strings and escaped if the level is enabled, the overloads with up to four arguments allocate nothing if not.
+     * Primitive arguments are boxed by the caller, guard the call with {@link #isInfoEnabled()} if that matters.
+     */
+    public void info(String pattern, Object arg) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, format(pattern, arg));
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, format(pattern, arg1, arg2));
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, format(pattern, arg1, arg2, arg3));
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, format(pattern, arg1, arg2, arg3, arg4));
+        }
+    }
+
+    public void info(String pattern, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, format(pattern, args));
+        }
     }
 
     public void warning(String message){
-        logger.log(Level.WARNING, format(message));
+        log(Level.WARNING, message);
+    }
+
+    public void warning(String pattern, Object arg) {
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, format(pattern, arg));
+        }
+    }
+
+    public void warning(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, format(pattern, arg1, arg2));
+        }
     }
 
     public void severe(String message){
-        logger.log(Level.SEVERE, format(message));
+        log(Level.SEVERE, message);
     }
 
     public void severe(String message, Throwable t){
-        logger.log(Level.SEVERE, format(message), t);
+        if (logger.isLoggable(Level.SEVERE)) {
+            logger.log(Level.SEVERE, escape(message), t);
+        }
     }
 
     public void fine(String message){
-        logger.log(Level.FINE, format(message));
+        log(Level.FINE, message);
+    }
+
+    public void fine(String pattern, Object arg) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, format(pattern, arg));
+        }
+    }
+
+    public void fine(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, format(pattern, arg1, arg2));
+        }
+    }
+
+    public void fine(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, format(pattern, arg1, arg2, arg3));
+        }
     }
 
     public void finest(String message){
-        logger.log(Level.FINEST, format(message));
+        log(Level.FINEST, message);
+    }
+
+    public void finest(String pattern, Object arg) {
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.log(Level.FINEST, format(pattern, arg));
+        }
+    }
+
+    public void finest(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.log(Level.FINEST, format(pattern, arg1, arg2));
+        }
+    }
+
+    private void log(Level level, String message) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, escape(message));
+        }
+    }
+
+    /**
+     * Replaces each <code>{}</code> of the pattern by the next argument, and escapes both, see {@link #escape(String)}.
+     * Placeholders without an argument are kept.
+     */
+    static String format(String pattern, Object... args) {
+        final String text = String.valueOf(pattern);
+        final StringBuilder out = new StringBuilder(text.length() + 16 * args.length);
+        int next = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '{' && next < args.length && i + 1 < text.length() && text.charAt(i + 1) == '}') {
+                final String arg = String.valueOf(args[next++]);
+                for (int j = 0; j < arg.length(); j++) {
+                    appendEscaped(out, arg.charAt(j));
+                }
+                i++;
+            } else {
+                appendEscaped(out, c);
+            }
+        }
+        return out.toString();
     }
 
     /**
      * Taken with some modifications from Log4j
      * @see <a href="https://github.com/apache/logging-log4j2/blob/master/log4j-core/src/main/java/org/apache/logging/log4j/core/pattern/EncodingPatternConverter.java">logging-log4j2</a>
      * @param logMessage
-     * @return Encoded string
+     * @return Encoded string, the message itself if there is nothing to encode
      */
-    private String format(final String logMessage) {
-        final StringBuilder message = new StringBuilder(logMessage);
-        final StringBuilder str = new StringBuilder();
-        for (int i = 0; i < message.length(); i++) {
-            final char c = message.charAt(i);
-            switch (c) {
-                case '\r':
-                    str.append("\\r");
-                    break;
-                case '\n':
-                    str.append("\\n");
-                    break;
-                case '&':
-                    str.append("&amp;");
-                    break;
-                case '<':
-                    str.append("&lt;");
-                    break;
-                case '>':
-                    str.append("&gt;");
-                    break;
-                case '"':
-                    str.append("&quot;");
-                    break;
-                case '\'':
-                    str.append("&apos;");
-                    break;
-                case '/':
-                    str.append("&#x2F;");
-                    break;
-                default:
-                    str.append(c);
-                    break;
-            }
+    static String escape(final String logMessage) {
+        if (logMessage == null) {
+            return null;
+        }
+        int i = 0;
+        while (i < logMessage.length() && !needsEscaping(logMessage.charAt(i))) {
+            i++;
+        }
+        if (i == logMessage.length()) {
+            return logMessage;
+        }
+
+        final StringBuilder str = new StringBuilder(logMessage.length() + 16);
+        str.append(logMessage, 0, i);
+        for (; i < logMessage.length(); i++) {
+            appendEscaped(str, logMessage.charAt(i));
         }
         return str.toString();
     }
-}
\ No newline at end of file
+
+    private static boolean needsEscaping(char c) {
+        switch (c) {
+            case '\r':
+            case '\n':
+            case '&':
+            case '<':
+            case '>':
+            case '"':
+            case '\'':
+            case '/':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void appendEscaped(StringBuilder str, char c) {
+        switch (c) {
+            case '\r':
+                str.append("\\r");
+                break;
+            case '\n':
+                str.append("\\n");
+                break;
+            case '&':
+                str.append("&amp;");
+                break;
+            case '<':
+                str.append("&lt;");
+                break;
+            case '>':
+                str.append("&gt;");
+                break;
+            case '"':
+                str.append("&quot;");
+                break;
+            case '\'':
+                str.append("&apos;");
+                break;
+            case '/':
+                str.append("&#x2F;");
+                break;
+            default:
+                str.append(c);
+                break;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.utils;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class SearchTerms {
+
+    /**
+     * Longest term stored in the search index, longer words are truncated.
+     */
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTerms() {
+        // no-op
+    }
+
+    /**
+     * Splits the given text into lower case words, the unit of the push message search index.
+     *
+     * @param text the text, may be null
+     *
+     * @return the distinct words of the text, in order of appearance
+     */
+    public static Set<String> words(String text) {
+        final Set<String> words = new LinkedHashSet<String>();
+        addWords(words, text, Integer.MAX_VALUE);
+        return words;
+    }
+
+    /**
+     * Adds the words of the given text to the terms, until the terms reach the given size.
+     *
+     * @param terms the terms to add to
+     * @param text the text, may be null
+     * @param maxTerms upper bound for the number of terms
+     */
+    public static void addWords(Collection<String> terms, String text, int maxTerms) {
+        if (text == null) {
+            return;
+        }
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ENGLISH))) {
+            if (terms.size() >= maxTerms) {
+                return;
+            }
+            if (!word.isEmpty()) {
+                terms.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word);
+            }
+        }
+    }
+}
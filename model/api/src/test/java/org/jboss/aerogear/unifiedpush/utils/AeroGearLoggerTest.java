@@ -0,0 +1,124 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AeroGearLoggerTest {
+
+    private final List<String> messages = new CopyOnWriteArrayList<String>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private Logger julLogger;
+    private AeroGearLogger logger;
+
+    @Before
+    public void setUp() {
+        julLogger = Logger.getLogger(AeroGearLoggerTest.class.getName());
+        julLogger.setUseParentHandlers(false);
+        julLogger.setLevel(Level.INFO);
+        julLogger.addHandler(handler);
+        logger = AeroGearLogger.getInstance(AeroGearLoggerTest.class);
+    }
+
+    @After
+    public void tearDown() {
+        julLogger.removeHandler(handler);
+    }
+
+    @Test
+    public void escapesForgedEntries() {
+        //when
+        logger.info("Rejected alias <john@example.com> & category\r\nforged=entry");
+
+        //then
+        assertThat(messages).containsExactly("Rejected alias &lt;john@example.com&gt; &amp; category\\r\\nforged=entry");
+    }
+
+    @Test
+    public void plainMessageIsNotCopied() {
+        //given
+        final String message = "Sent push notification to the Apple APNs Server for 1000 tokens";
+
+        //when
+        final String escaped = AeroGearLogger.escape(message);
+
+        //then
+        assertThat(escaped).isSameAs(message);
+    }
+
+    @Test
+    public void escapesArgumentsOfPattern() {
+        //when
+        logger.info("Loaded batch #{}, containing {} tokens, for {} variant ({})", 3, 1000, "ios", "a/b\nc");
+
+        //then
+        assertThat(messages).containsExactly("Loaded batch #3, containing 1000 tokens, for ios variant (a&#x2F;b\\nc)");
+    }
+
+    @Test
+    public void keepsPlaceholdersWithoutArgument() {
+        //when
+        final String message = AeroGearLogger.format("{} of {}", "one");
+
+        //then
+        assertThat(message).isEqualTo("one of {}");
+    }
+
+    @Test
+    public void disabledLevelDoesNotFormatArguments() {
+        //given
+        final Object argument = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("formatted below the level of the logger");
+            }
+        };
+
+        //when
+        logger.fine("Sending payload: {}", argument);
+        logger.finest("Sending payload: {} {}", argument, argument);
+
+        //then
+        assertThat(logger.isFineEnabled()).isFalse();
+        assertThat(messages).isEmpty();
+    }
+}
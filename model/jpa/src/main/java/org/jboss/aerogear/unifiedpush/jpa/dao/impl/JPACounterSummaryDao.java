@@ -0,0 +1,129 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.jpa.dao.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
+
+public class JPACounterSummaryDao extends JPABaseDao<CounterSummary, String> implements CounterSummaryDao {
+
+    @Override
+    public int addToCounters(String id, long installations, long messages) {
+        return entityManager.createQuery("update CounterSummary c"
+                + " set c.installations = c.installations + :installations, c.messages = c.messages + :messages"
+                + " where c.id = :id")
+                .setParameter("installations", installations)
+                .setParameter("messages", messages)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Override
+    public boolean hasCounters() {
+        return !createQuery("select c.id from CounterSummary c", String.class)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    @Override
+    public long sumInstallations() {
+        return nullToZero(createQuery("select sum(c.installations) from CounterSummary c where c.type = :type", Long.class)
+                .setParameter("type", CounterSummary.Type.VARIANT)
+                .getSingleResult());
+    }
+
+    @Override
+    public long sumInstallationsForDeveloper(String loginName) {
+        return nullToZero(createQuery("select sum(c.installations) from CounterSummary c where c.type = :type"
+                + " and c.id in (select t.variantID from Variant t where t.developer = :developer)", Long.class)
+                .setParameter("type", CounterSummary.Type.VARIANT)
+                .setParameter("developer", loginName)
+                .getSingleResult());
+    }
+
+    @Override
+    public long sumMessages() {
+        return nullToZero(createQuery("select sum(c.messages) from CounterSummary c where c.type = :type", Long.class)
+                .setParameter("type", CounterSummary.Type.PUSH_APPLICATION)
+                .getSingleResult());
+    }
+
+    @Override
+    public long sumMessagesForDeveloper(String loginName) {
+        return nullToZero(createQuery("select sum(c.messages) from CounterSummary c where c.type = :type"
+                + " and c.id in (select p.pushApplicationID from PushApplication p where p.developer = :developer)", Long.class)
+                .setParameter("type", CounterSummary.Type.PUSH_APPLICATION)
+                .setParameter("developer", loginName)
+                .getSingleResult());
+    }
+
+    @Override
+    public Map<String, Long> findInstallationsForVariants(List<String> variantIDs) {
+        if (variantIDs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, Long> installations = new HashMap<String, Long>();
+        for (CounterSummary counters : createQuery("select c from CounterSummary c where c.id in :variantIDs")
+                .setParameter("variantIDs", variantIDs)
+                .getResultList()) {
+            installations.put(counters.getId(), counters.getInstallations());
+        }
+        return installations;
+    }
+
+    @Override
+    public Map<String, Date> findReconciled(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, Date> reconciled = new HashMap<String, Date>();
+        for (Object[] counters : entityManager.createQuery("select c.id, c.reconciled from CounterSummary c where c.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            reconciled.put((String) counters[0], (Date) counters[1]);
+        }
+        return reconciled;
+    }
+
+    @Override
+    public int deleteCountersNotIn(List<String> ids) {
+        if (ids.isEmpty()) {
+            return entityManager.createQuery("delete from CounterSummary c").executeUpdate();
+        }
+        return entityManager.createQuery("delete from CounterSummary c where c.id not in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    @Override
+    public Class<CounterSummary> getType() {
+        return CounterSummary.class;
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
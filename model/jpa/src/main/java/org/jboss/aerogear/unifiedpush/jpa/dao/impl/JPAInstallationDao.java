@@ -16,11 +16,14 @@
  */
 package org.jboss.aerogear.unifiedpush.jpa.dao.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -48,26 +51,13 @@ public class JPAInstallationDao extends JPABaseDao<Installation, String> impleme
                     + " JOIN installation.variant v"
                     + " WHERE v.variantID = :variantID";
 
-    public PageResult<Installation, Count> findInstallationsByVariantForDeveloper(String variantID, String developer, Integer page, Integer pageSize, String search) {
+    private static final String[] SEARCHABLE_FIELDS = {
+            "deviceToken", "deviceType", "platform", "operatingSystem", "osVersion", "alias" };
 
+    public PageResult<Installation, Count> findInstallationsByVariantForDeveloper(String variantID, String developer, Integer page, Integer pageSize, String search) {
 
-        final StringBuilder jpqlBase = new StringBuilder(FIND_INSTALLATIONS);
         final Map<String, Object> parameters = new LinkedHashMap<String, Object>();
-        parameters.put("variantID", variantID);
-        if (developer != null) {
-            jpqlBase.append(" AND v.developer = :developer");
-            parameters.put("developer", developer);
-        }
-        if (search != null) {
-            jpqlBase.append(" AND ( installation.deviceToken LIKE :search"
-                    + " OR installation.deviceType LIKE :search"
-                    + " OR installation.platform LIKE :search"
-                    + " OR installation.operatingSystem LIKE :search"
-                    + " OR installation.osVersion LIKE :search"
-                    + " OR installation.alias LIKE :search )");
-            parameters.put("search", "%" + search + "%");
-        }
-
+        final StringBuilder jpqlBase = findInstallationsQuery(variantID, developer, search, parameters);
 
         TypedQuery<Long> countQuery = createQuery("SELECT COUNT(installation) " + jpqlBase.toString(), Long.class);
         TypedQuery<Installation> query = createQuery("SELECT installation " + jpqlBase.toString() + " ORDER BY installation.id").setFirstResult(page * pageSize).setMaxResults(pageSize);
@@ -78,6 +68,95 @@ public class JPAInstallationDao extends JPABaseDao<Installation, String> impleme
         return new PageResult<Installation, Count>(resultList, new Count(count));
     }
 
+    @Override
+    public List<Installation> findInstallationsByVariantAfter(String variantID, String developer, String afterId, int maxResults, String search) {
+        final Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        final StringBuilder jpqlBase = findInstallationsQuery(variantID, developer, search, parameters);
+        if (afterId != null) {
+            // keyset pagination: seek on the primary key instead of skipping the previous pages
+            jpqlBase.append(" AND installation.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+
+        TypedQuery<Installation> query = createQuery("SELECT installation " + jpqlBase.toString() + " ORDER BY installation.id").setMaxResults(maxResults);
+        return setParameters(query, parameters).getResultList();
+    }
+
+    @Override
+    public List<Installation> findSearchableInstallationsAfter(String variantID, String afterId, int maxResults) {
+        final Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        final StringBuilder jpqlBase = findInstallationsQuery(variantID, null, null, parameters);
+        if (afterId != null) {
+            jpqlBase.append(" AND installation.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+
+        // scalar values are not managed, unlike the entities of an entity query
+        final TypedQuery<Object[]> query = createQuery("SELECT installation.id, installation.deviceToken, installation.alias,"
+                + " installation.deviceType, installation.operatingSystem, installation.osVersion, installation.platform "
+                + jpqlBase.toString() + " ORDER BY installation.id", Object[].class).setMaxResults(maxResults);
+        final List<Installation> installations = new ArrayList<Installation>(maxResults);
+        for (Object[] fields : setParameters(query, parameters).getResultList()) {
+            final Installation installation = new Installation();
+            installation.setId((String) fields[0]);
+            installation.setDeviceToken((String) fields[1]);
+            installation.setAlias((String) fields[2]);
+            installation.setDeviceType((String) fields[3]);
+            installation.setOperatingSystem((String) fields[4]);
+            installation.setOsVersion((String) fields[5]);
+            installation.setPlatform((String) fields[6]);
+            installations.add(installation);
+        }
+        return installations;
+    }
+
+    @Override
+    public long countInstallationsByVariant(String variantID, String developer, String search) {
+        final Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        final StringBuilder jpqlBase = findInstallationsQuery(variantID, developer, search, parameters);
+
+        return setParameters(createQuery("SELECT COUNT(installation) " + jpqlBase.toString(), Long.class), parameters).getSingleResult();
+    }
+
+    @Override
+    public List<Installation> findInstallationsByIds(String variantID, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return createQuery("SELECT installation " + FIND_INSTALLATIONS + " AND installation.id IN :ids ORDER BY installation.id")
+                .setParameter("variantID", variantID)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    private StringBuilder findInstallationsQuery(String variantID, String developer, String search, Map<String, Object> parameters) {
+        final StringBuilder jpqlBase = new StringBuilder(FIND_INSTALLATIONS);
+        parameters.put("variantID", variantID);
+        if (developer != null) {
+            jpqlBase.append(" AND v.developer = :developer");
+            parameters.put("developer", developer);
+        }
+        if (search != null && !search.isEmpty()) {
+            // the start of a value or of one of its words, the same rule the in-memory search index applies
+            jpqlBase.append(" AND (");
+            for (int i = 0; i < SEARCHABLE_FIELDS.length; i++) {
+                final String field = "LOWER(installation." + SEARCHABLE_FIELDS[i] + ")";
+                jpqlBase.append(i == 0 ? " " : " OR ")
+                        .append(field).append(" LIKE :searchPrefix ESCAPE '!' OR ")
+                        .append(field).append(" LIKE :searchWordPrefix ESCAPE '!'");
+            }
+            jpqlBase.append(" )");
+            final String term = escapeLike(search.toLowerCase(Locale.ENGLISH));
+            parameters.put("searchPrefix", term + "%");
+            parameters.put("searchWordPrefix", "% " + term + "%");
+        }
+        return jpqlBase;
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     private <X> TypedQuery<X> setParameters(TypedQuery<X> query, Map<String, Object> parameters) {
         for (Entry<String, Object> entry : parameters.entrySet()) {
             query.setParameter(entry.getKey(), entry.getValue());
@@ -264,6 +343,38 @@ public class JPAInstallationDao extends JPABaseDao<Installation, String> impleme
 				.executeUpdate();
 	}
 
+    @Override
+    public Map<String, Long> countInstallationsByVariant() {
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (Object[] row : createQuery("select v.variantID, count(i) from Installation i join i.variant v"
+                + " group by v.variantID", Object[].class).getResultList()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public int deleteInstallationsChunk(String variantID, int maxResults) {
+        final List<String> ids = createQuery("select i.id from Installation i join i.variant v "
+                + "where v.variantID = :variantID", String.class)
+                .setParameter("variantID", variantID)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // bulk JPQL deletes do not touch the join table, so the category links go first:
+        entityManager.createNativeQuery("delete from installation_category where installation_id in (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        return entityManager.createQuery("delete from Installation i where i.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
     @Override
 	public Set<String> filterDisabledDevices(Set<String> aliases) {
 		return new HashSet<>(createQuery("select alias from Installation "
@@ -62,6 +62,11 @@ public class JPAPushApplicationDao extends JPABaseDao<PushApplication, String> i
                 .setParameter("developer", loginName).getResultList();
     }
 
+    @Override
+    public List<String> findAllPushApplicationIDs() {
+        return createQuery("select pa.pushApplicationID from PushApplication pa", String.class).getResultList();
+    }
+
     @Override
     public PushApplication findByPushApplicationIDForDeveloper(String pushApplicationID, String loginName) {
         return getSingleResultForQuery(createQuery(
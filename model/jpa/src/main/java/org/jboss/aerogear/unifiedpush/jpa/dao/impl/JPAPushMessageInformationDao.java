@@ -17,23 +17,30 @@
 package org.jboss.aerogear.unifiedpush.jpa.dao.impl;
 
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
+import org.jboss.aerogear.unifiedpush.api.PushMessageTerm;
 import org.jboss.aerogear.unifiedpush.dao.PageResult;
 import org.jboss.aerogear.unifiedpush.dao.PushMessageInformationDao;
 import org.jboss.aerogear.unifiedpush.dto.MessageMetrics;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+import org.jboss.aerogear.unifiedpush.utils.SearchTerms;
 
 
 public class JPAPushMessageInformationDao extends JPABaseDao<PushMessageInformation, String> implements PushMessageInformationDao {
 
     private static final String ASC = "ASC";
     private static final String DESC = "DESC";
+    private static final int DELETE_BATCH_SIZE = 1000;
 
     private final AeroGearLogger logger = AeroGearLogger.getInstance(JPAPushMessageInformationDao.class);
 
@@ -59,30 +66,40 @@ public class JPAPushMessageInformationDao extends JPABaseDao<PushMessageInformat
     @Override
     public PageResult<PushMessageInformation, MessageMetrics> findAllForPushApplication(String pushApplicationId, String search, boolean ascending, Integer page, Integer pageSize) {
 
-        String baseQuery = "from PushMessageInformation pmi where pmi.pushApplicationId = :pushApplicationId";
-        if (search != null) {
-            baseQuery += " AND pmi.rawJsonMessage LIKE :search";
+        final StringBuilder baseQuery = new StringBuilder("from PushMessageInformation pmi where pmi.pushApplicationId = :pushApplicationId");
+        // every search word is an index range scan on (push_application_id, term), instead of a LIKE over the raw JSON
+        final List<String> words = new ArrayList<String>(SearchTerms.words(search));
+        for (int i = 0; i < words.size(); i++) {
+            baseQuery.append(" AND pmi.id IN (select t.pushMessageInformationId from PushMessageTerm t"
+                    + " where t.pushApplicationId = :pushApplicationId and t.term LIKE :term").append(i).append(")");
         }
         final String queryJPQL = "select pmi " + baseQuery + " ORDER BY pmi.submitDate " + ascendingOrDescending(ascending);
         final String metricsJPQL = "select new org.jboss.aerogear.unifiedpush.dto.MessageMetrics(count(*), sum(totalReceivers), sum(appOpenCounter)) " + baseQuery;
 
         TypedQuery<PushMessageInformation> typedQuery = createQuery(queryJPQL)
                 .setParameter("pushApplicationId", pushApplicationId);
-        if (search != null) {
-            typedQuery.setParameter("search", "%" + search + "%");
+        for (int i = 0; i < words.size(); i++) {
+            typedQuery.setParameter("term" + i, words.get(i) + "%");
         }
         typedQuery.setFirstResult(page * pageSize).setMaxResults(pageSize);
         List<PushMessageInformation> pushMessageInformationList = typedQuery.getResultList();
 
         Query metricsQuery = createUntypedQuery(metricsJPQL).setParameter("pushApplicationId", pushApplicationId);
-        if (search != null) {
-            metricsQuery.setParameter("search", "%" + search + "%");
+        for (int i = 0; i < words.size(); i++) {
+            metricsQuery.setParameter("term" + i, words.get(i) + "%");
         }
         MessageMetrics messageMetrics = (MessageMetrics) metricsQuery.getSingleResult();
 
         return new PageResult<PushMessageInformation, MessageMetrics>(pushMessageInformationList, messageMetrics);
     }
 
+    @Override
+    public void storeSearchTerms(PushMessageInformation pushMessageInformation, Collection<String> terms) {
+        for (String term : terms) {
+            entityManager.persist(new PushMessageTerm(term, pushMessageInformation.getPushApplicationId(), pushMessageInformation.getId()));
+        }
+    }
+
     @Override
     public long getNumberOfPushMessagesForLoginName(String loginName) {
         return createQuery("select count(pmi) from PushMessageInformation pmi where pmi.pushApplicationId " +
@@ -111,16 +128,53 @@ public class JPAPushMessageInformationDao extends JPABaseDao<PushMessageInformat
 
     @Override
     public void deletePushInformationOlderThan(Date oldest) {
-        // TODO: use criteria API...
-        entityManager.createQuery("delete from VariantMetricInformation vmi where vmi.pushMessageInformation.id in (select pmi FROM PushMessageInformation pmi WHERE pmi.submitDate < :oldest)")
+        int affectedRows = 0;
+        int deleted;
+        do {
+            deleted = deletePushInformationOlderThan(oldest, DELETE_BATCH_SIZE);
+            affectedRows += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+
+        logger.info("Deleting ['" + affectedRows + "'] outdated PushMessageInformation objects");
+    }
+
+    @Override
+    public int deletePushInformationOlderThan(Date oldest, int maxResults) {
+        final List<String> ids = createQuery("select pmi.id from PushMessageInformation pmi"
+                + " where pmi.submitDate < :oldest ORDER BY pmi.submitDate " + ASC, String.class)
                 .setParameter("oldest", oldest)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.createQuery("delete from VariantMetricInformation vmi where vmi.pushMessageInformation.id in :ids")
+                .setParameter("ids", ids)
                 .executeUpdate();
 
-        int affectedRows = entityManager.createQuery("delete FROM PushMessageInformation pmi WHERE pmi.submitDate < :oldest")
-                .setParameter("oldest", oldest)
+        entityManager.createQuery("delete from PushMessageTerm t where t.pushMessageInformationId in :ids")
+                .setParameter("ids", ids)
                 .executeUpdate();
 
-        logger.info("Deleting ['" + affectedRows + "'] outdated PushMessageInformation objects");
+        return entityManager.createQuery("delete from PushMessageInformation pmi where pmi.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    @Override
+    public int incrementAppOpenCounter(String id, long count, Date firstOpen, Date lastOpen) {
+        return entityManager.createQuery("update PushMessageInformation pmi"
+                + " set pmi.appOpenCounter = pmi.appOpenCounter + :count,"
+                + " pmi.firstOpenDate = coalesce(pmi.firstOpenDate, :firstOpen),"
+                + " pmi.lastOpenDate = :lastOpen"
+                + " where pmi.id = :id")
+                .setParameter("count", count)
+                .setParameter("firstOpen", firstOpen)
+                .setParameter("lastOpen", lastOpen)
+                .setParameter("id", id)
+                .executeUpdate();
     }
 
     //Admin queries
@@ -144,6 +198,26 @@ public class JPAPushMessageInformationDao extends JPABaseDao<PushMessageInformat
         return createQuery("select count(pmi) from PushMessageInformation pmi", Long.class).getSingleResult();
     }
 
+    @Override
+    public Map<String, Long> countMessagesByPushApplication() {
+        return toCountMap(createQuery("select pmi.pushApplicationId, count(pmi) from PushMessageInformation pmi"
+                + " group by pmi.pushApplicationId", Object[].class).getResultList());
+    }
+
+    @Override
+    public Map<String, Long> countMessagesByVariant() {
+        return toCountMap(createQuery("select vmi.variantID, count(vmi) from VariantMetricInformation vmi"
+                + " group by vmi.variantID", Object[].class).getResultList());
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     /**
      * Helper that returns 'ASC' when true and 'DESC' when false.
      */
@@ -68,6 +68,11 @@ public class JPAVariantDao extends JPABaseDao<Variant, String> implements Varian
                 .setParameter("variantIDs", variantIDs).getResultList();
     }
 
+    @Override
+    public List<String> findAllVariantIDs() {
+        return createQuery("select t.variantID from Variant t", String.class).getResultList();
+    }
+
     //Admin queries
     @Override
     public boolean existsVariantIDForAdmin(String variantID) {
@@ -32,6 +32,17 @@ public class JPAVariantMetricInformationDao extends JPABaseDao<VariantMetricInfo
 
     }
 
+    @Override
+    public int incrementVariantOpenCounter(String variantID, String pushmessageinformationId, long count) {
+        return entityManager.createQuery("update VariantMetricInformation vmi"
+                + " set vmi.variantOpenCounter = vmi.variantOpenCounter + :count"
+                + " where vmi.variantID = :variantId and vmi.pushMessageInformation.id = :pushmessageinformationId")
+                .setParameter("count", count)
+                .setParameter("variantId", variantID)
+                .setParameter("pushmessageinformationId", pushmessageinformationId)
+                .executeUpdate();
+    }
+
     @Override
     public Class<VariantMetricInformation> getType() {
         return VariantMetricInformation.class;
@@ -537,6 +537,38 @@ public class InstallationDaoTest {
         assertThat(pageResult.getAggregate().getCount()).isEqualTo(4);
     }
 
+    @Test
+    public void shouldPageInstallationsByVariantAfterLastId() {
+        //given
+        final List<Installation> firstPage = installationDao.findInstallationsByVariantAfter(androidVariantID, null, null, 2, null);
+
+        //when
+        final List<Installation> secondPage = installationDao.findInstallationsByVariantAfter(androidVariantID, null, firstPage.get(1).getId(), 2, null);
+
+        //then
+        assertThat(firstPage).hasSize(2);
+        assertThat(secondPage).hasSize(2);
+        assertThat(secondPage.get(0).getId().compareTo(firstPage.get(1).getId())).isPositive();
+        assertThat(installationDao.countInstallationsByVariant(androidVariantID, null, null)).isEqualTo(4);
+        assertThat(installationDao.findInstallationsByIds(androidVariantID, Arrays.asList(firstPage.get(0).getId(), secondPage.get(1).getId()))).hasSize(2);
+    }
+
+    @Test
+    public void shouldLoadSearchableInstallationsDetached() {
+        //given
+        final List<Installation> firstBatch = installationDao.findSearchableInstallationsAfter(androidVariantID, null, 2);
+
+        //when
+        final List<Installation> secondBatch = installationDao.findSearchableInstallationsAfter(androidVariantID, firstBatch.get(1).getId(), 2);
+
+        //then
+        assertThat(firstBatch).hasSize(2);
+        assertThat(secondBatch).hasSize(2);
+        assertThat(secondBatch.get(0).getId().compareTo(firstBatch.get(1).getId())).isPositive();
+        assertThat(secondBatch.get(1).getDeviceToken()).isNotNull();
+        assertThat(entityManager.contains(secondBatch.get(1))).isFalse();
+    }
+
     @Test
     public void shouldSelectInstallationsByDeviceTokenSearch() {
         //when
@@ -19,6 +19,10 @@ package org.jboss.aerogear.unifiedpush.jpa;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -253,6 +257,24 @@ public class PushMessageInformationDaoTest {
         assertThat(list).hasSize(1);
     }
 
+    @Test
+    public void testSearchStoredTermsByPrefix() {
+        PushMessageInformation pushMessageInformation = new PushMessageInformation();
+        pushMessageInformation.setPushApplicationId("231231231");
+        pushMessageInformation.setRawJsonMessage("{ \"alert\": \"Hello World\" }");
+        pushMessageInformationDao.create(pushMessageInformation);
+        pushMessageInformationDao.storeSearchTerms(pushMessageInformation, Arrays.asList("hello", "world"));
+        flushAndClear();
+
+        PageResult<PushMessageInformation, MessageMetrics> messageInformations =
+                pushMessageInformationDao.findAllForPushApplication("231231231", "World hel", Boolean.TRUE, 0, 25);
+        assertThat(messageInformations.getResultList()).extracting("id").containsOnly(pushMessageInformation.getId());
+        assertThat(messageInformations.getAggregate().getCount()).isEqualTo(1);
+
+        messageInformations = pushMessageInformationDao.findAllForPushApplication("231231231", "hello foo", Boolean.TRUE, 0, 25);
+        assertThat(messageInformations.getResultList()).isEmpty();
+    }
+
     @Test
     public void testLongRawJsonPayload() {
         PushMessageInformation largePushMessageInformation = new PushMessageInformation();
@@ -284,6 +306,25 @@ public class PushMessageInformationDaoTest {
         assertThat(messageInformations).hasSize(0);
     }
 
+    @Test
+    public void deleteOldPushMessageInformationsInBatches() {
+
+        List<PushMessageInformation> messageInformations = pushMessageInformationDao.findAllForPushApplication("231231231", Boolean.TRUE);
+        assertThat(messageInformations).hasSize(2);
+
+        // only the two messages from 1980 are older than that
+        final Date oldest = new GregorianCalendar(2000, Calendar.JANUARY, 1).getTime();
+        assertThat(pushMessageInformationDao.deletePushInformationOlderThan(oldest, 1)).isEqualTo(1);
+        assertThat(pushMessageInformationDao.deletePushInformationOlderThan(oldest, 1)).isEqualTo(1);
+        assertThat(pushMessageInformationDao.deletePushInformationOlderThan(oldest, 1)).isEqualTo(0);
+
+        flushAndClear();
+
+        messageInformations = pushMessageInformationDao.findAllForPushApplication("231231231", Boolean.TRUE);
+        assertThat(messageInformations).hasSize(0);
+        assertThat(pushMessageInformationDao.findAllForPushApplication("231231232", Boolean.TRUE)).hasSize(1);
+    }
+
     @Test
     public void findVariantMetricByVariantId() {
         VariantMetricInformation variantMetricInformation = variantMetricInformationDao.findVariantMetricInformationByVariantID("213","1");
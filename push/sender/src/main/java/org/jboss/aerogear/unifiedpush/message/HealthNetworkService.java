@@ -27,8 +27,8 @@ import java.util.concurrent.Future;
 public interface HealthNetworkService {
     /**
      * Get the status about the push networks.
-     * If one of them is not reachable Status.WARN
-     * @return a list of HealthDetails with the status of each PushNetwork
+     * If one of them is not reachable, or fails too many deliveries, Status.WARN
+     * @return a list of HealthDetails with the last known status of each PushNetwork and its age
      */
     Future<List<HealthDetails>> networkStatus();
 
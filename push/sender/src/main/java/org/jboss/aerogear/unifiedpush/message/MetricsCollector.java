@@ -22,6 +22,11 @@ import org.jboss.aerogear.unifiedpush.message.event.PushMessageCompletedEvent;
 import org.jboss.aerogear.unifiedpush.message.event.VariantCompletedEvent;
 import org.jboss.aerogear.unifiedpush.message.jms.AbstractJMSMessageConsumer;
 import org.jboss.aerogear.unifiedpush.message.jms.Dequeue;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
@@ -43,6 +48,9 @@ public class MetricsCollector extends AbstractJMSMessageConsumer {
     @Inject
     private PushMessageMetricsService metricsService;
 
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
     @Resource(mappedName = "java:/queue/BatchLoadedQueue")
     private Queue batchLoadedQueue;
 
@@ -67,8 +75,12 @@ public class MetricsCollector extends AbstractJMSMessageConsumer {
      * @param variantMetricInformation the variant metrics info object
      */
     public void collectMetrics(@Observes @Dequeue VariantMetricInformation variantMetricInformation) {
+        final long start = pipelineMetrics.start();
+        final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.METRICS_COLLECT);
         PushMessageInformation pushMessageInformation = metricsService.getPushMessageInformation(variantMetricInformation.getPushMessageInformation().getId());
+        final long lockRequested = event.isEnabled() ? System.currentTimeMillis() : 0;
         metricsService.lock(pushMessageInformation);
+        final long lockWait = event.isEnabled() ? System.currentTimeMillis() - lockRequested : 0;
 
         final String variantID = variantMetricInformation.getVariantID();
 
@@ -102,15 +114,18 @@ public class MetricsCollector extends AbstractJMSMessageConsumer {
 
             if (areAllBatchesLoaded(variantPushMessageID)) {
                 pushMessageInformation.setServedVariants(pushMessageInformation.getServedVariants() + 1);
-                logger.fine(String.format("All batches for variant %s were processed", variantMetricInformation.getVariantID()));
+                variantMetricInformation.setCompleted(System.currentTimeMillis());
+                logger.fine("All batches for variant {} were processed", variantMetricInformation.getVariantID());
                 variantCompleted.fire(new VariantCompletedEvent(pushMessageInformation.getId(), variantMetricInformation.getVariantID()));
 
                 if (areIntegersEqual(pushMessageInformation.getServedVariants(), pushMessageInformation.getTotalVariants())) {
-                    logger.fine(String.format("All batches for application %s were processed", pushMessageInformation.getId()));
+                    logger.fine("All batches for application {} were processed", pushMessageInformation.getId());
                     pushMessageCompleted.fire(new PushMessageCompletedEvent(pushMessageInformation.getId()));
                 }
             }
         }
+        pipelineMetrics.record(PipelineStage.METRICS_COLLECT, null, true, start, 1);
+        FlightRecorderEvents.metricsCollected(event, pushMessageInformation.getId(), variantID, lockWait);
     }
 
     private int countLoadedBatches(String variantID) {
@@ -138,6 +153,26 @@ public class MetricsCollector extends AbstractJMSMessageConsumer {
         if (existing.getReason() == null && update.getReason() != null) {
             existing.setReason(update.getReason());
         }
+        existing.setFirstTokenLoaded(earliest(existing.getFirstTokenLoaded(), update.getFirstTokenLoaded()));
+        existing.setLastTokenLoaded(latest(existing.getLastTokenLoaded(), update.getLastTokenLoaded()));
+        existing.setFirstBatchDispatched(earliest(existing.getFirstBatchDispatched(), update.getFirstBatchDispatched()));
+        existing.setLastBatchDispatched(latest(existing.getLastBatchDispatched(), update.getLastBatchDispatched()));
+        existing.setFirstNetworkAck(earliest(existing.getFirstNetworkAck(), update.getFirstNetworkAck()));
+        existing.setLastNetworkAck(latest(existing.getLastNetworkAck(), update.getLastNetworkAck()));
+    }
+
+    private static Long earliest(Long existing, Long update) {
+        if (existing == null || (update != null && update < existing)) {
+            return update;
+        }
+        return existing;
+    }
+
+    private static Long latest(Long existing, Long update) {
+        if (existing == null || (update != null && update > existing)) {
+            return update;
+        }
+        return existing;
     }
 
     private boolean areIntegersEqual(int i1, int i2) {
@@ -25,6 +25,11 @@ import org.jboss.aerogear.unifiedpush.message.jms.DispatchToQueue;
 import org.jboss.aerogear.unifiedpush.message.sender.NotificationSenderCallback;
 import org.jboss.aerogear.unifiedpush.message.sender.PushNotificationSender;
 import org.jboss.aerogear.unifiedpush.message.sender.SenderTypeLiteral;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 import javax.ejb.Stateless;
@@ -53,6 +58,9 @@ public class NotificationDispatcher {
     @DispatchToQueue
     private Event<VariantMetricInformation> dispatchVariantMetricEvent;
 
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
     /**
      * Receives a {@link UnifiedPushMessage} and list of device tokens that the message should be sent to, selects appropriate sender implementation that
      * the push notifications are submitted to.
@@ -66,14 +74,20 @@ public class NotificationDispatcher {
         final UnifiedPushMessage unifiedPushMessage = msg.getUnifiedPushMessage();
         final Collection<String> deviceTokens = msg.getDeviceTokens();
 
-        logger.info(String.format("Received UnifiedPushMessage from JMS queue, will now trigger the Push Notification delivery for the %s variant (%s)", variant.getType().getTypeName(), variant.getVariantID()));
+        final long dispatched = System.currentTimeMillis();
+        pipelineMetrics.recordMillis(PipelineStage.TOKEN_QUEUE_WAIT, variant.getType(), true,
+                dispatched - msg.getCreatedAt(), deviceTokens.size());
+
+        logger.info("Received UnifiedPushMessage from JMS queue, will now trigger the Push Notification delivery for the {} variant ({})", variant.getType().getTypeName(), variant.getVariantID());
 
         senders.select(new SenderTypeLiteral(variant.getType())).get()
                             .sendPushMessage(variant, deviceTokens, unifiedPushMessage, msg.getPushMessageInformation().getId(),
                                     new SenderServiceCallback(
                                             variant,
                                             deviceTokens.size(),
-                                            msg.getPushMessageInformation()
+                                            msg.getPushMessageInformation(),
+                                            msg.getCreatedAt(),
+                                            dispatched
                                     )
                             );
     }
@@ -82,34 +96,45 @@ public class NotificationDispatcher {
         private final Variant variant;
         private final int tokenSize;
         private final PushMessageInformation pushMessageInformation;
+        private final long loaded;
+        private final long dispatched;
+        private final long start = pipelineMetrics.start();
+        private final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.NETWORK_SEND);
 
-        public SenderServiceCallback(Variant variant, int tokenSize, PushMessageInformation pushMessageInformation) {
+        public SenderServiceCallback(Variant variant, int tokenSize, PushMessageInformation pushMessageInformation, long loaded, long dispatched) {
             this.variant = variant;
             this.tokenSize = tokenSize;
             this.pushMessageInformation = pushMessageInformation;
+            this.loaded = loaded;
+            this.dispatched = dispatched;
         }
 
         @Override
         public void onSuccess() {
-            logger.fine(String.format("Sent '%s' message to '%d' devices", variant.getType().getTypeName(), tokenSize));
-            updateStatusOfPushMessageInformation(pushMessageInformation, variant.getVariantID(), tokenSize, Boolean.TRUE);
+            pipelineMetrics.record(PipelineStage.NETWORK_SEND, variant.getType(), true, start, tokenSize);
+            FlightRecorderEvents.networkSend(event, pushMessageInformation.getId(), variant.getVariantID(), variant.getType(), tokenSize, true);
+            if (logger.isFineEnabled()) {
+                logger.fine("Sent '{}' message to '{}' devices", variant.getType().getTypeName(), tokenSize);
+            }
+            updateStatusOfPushMessageInformation(pushMessageInformation, variant.getVariantID(), tokenSize, Boolean.TRUE, null, loaded, dispatched);
         }
 
         @Override
         public void onError(final String reason) {
-            logger.warning(String.format("Error on '%s' delivery", variant.getType().getTypeName()));
-            updateStatusOfPushMessageInformation(pushMessageInformation, variant.getVariantID(), tokenSize, Boolean.FALSE, reason);
+            pipelineMetrics.record(PipelineStage.NETWORK_SEND, variant.getType(), false, start, tokenSize);
+            FlightRecorderEvents.networkSend(event, pushMessageInformation.getId(), variant.getVariantID(), variant.getType(), tokenSize, false);
+            logger.warning("Error on '{}' delivery", variant.getType().getTypeName());
+            updateStatusOfPushMessageInformation(pushMessageInformation, variant.getVariantID(), tokenSize, Boolean.FALSE, reason, loaded, dispatched);
         }
     }
 
     /**
-     * Helpers to update the given {@link PushMessageInformation} with a {@link VariantMetricInformation} object
+     * Helper to update the given {@link PushMessageInformation} with a {@link VariantMetricInformation} object, the
+     * timeline of the batch is merged with the other batches of the variant by the {@link MetricsCollector}
      */
-    private void updateStatusOfPushMessageInformation(final PushMessageInformation pushMessageInformation, final String variantID, final int receivers, final Boolean deliveryStatus) {
-        this.updateStatusOfPushMessageInformation(pushMessageInformation, variantID, receivers, deliveryStatus, null);
-    }
-
-    private void updateStatusOfPushMessageInformation(final PushMessageInformation pushMessageInformation, final String variantID, final int receivers, final Boolean deliveryStatus, final String reason) {
+    private void updateStatusOfPushMessageInformation(final PushMessageInformation pushMessageInformation, final String variantID, final int receivers, final Boolean deliveryStatus, final String reason,
+                                                      final long loaded, final long dispatched) {
+        final long acknowledged = System.currentTimeMillis();
         final VariantMetricInformation variantMetricInformation = new VariantMetricInformation();
         variantMetricInformation.setPushMessageInformation(pushMessageInformation);
         variantMetricInformation.setVariantID(variantID);
@@ -117,6 +142,12 @@ public class NotificationDispatcher {
         variantMetricInformation.setDeliveryStatus(deliveryStatus);
         variantMetricInformation.setReason(reason);
         variantMetricInformation.setServedBatches(1);
+        variantMetricInformation.setFirstTokenLoaded(loaded);
+        variantMetricInformation.setLastTokenLoaded(loaded);
+        variantMetricInformation.setFirstBatchDispatched(dispatched);
+        variantMetricInformation.setLastBatchDispatched(dispatched);
+        variantMetricInformation.setFirstNetworkAck(acknowledged);
+        variantMetricInformation.setLastNetworkAck(acknowledged);
 
         dispatchVariantMetricEvent.fire(variantMetricInformation);
     }
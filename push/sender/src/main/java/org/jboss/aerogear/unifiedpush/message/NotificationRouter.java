@@ -24,6 +24,9 @@ import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 import org.jboss.aerogear.unifiedpush.message.holder.MessageHolderWithVariants;
 import org.jboss.aerogear.unifiedpush.message.jms.DispatchToQueue;
 import org.jboss.aerogear.unifiedpush.service.GenericVariantService;
+import org.jboss.aerogear.unifiedpush.service.dashboard.CounterDeltas;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
 
 import javax.ejb.Stateless;
@@ -35,7 +38,9 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 /**
@@ -63,6 +68,16 @@ public class NotificationRouter {
     @DispatchToQueue
     private Event<MessageHolderWithVariants> dispatchVariantMessageEvent;
 
+    @Inject
+    @DispatchToQueue
+    private Event<List<MessageHolderWithVariants>> dispatchVariantMessagesEvent;
+
+    @Inject
+    private Event<CounterDeltas.Change> counterChanges;
+
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
     /**
      * Receives a request for sending a {@link UnifiedPushMessage} and queues one message per variant type, both in one transaction.
      *
@@ -73,7 +88,8 @@ public class NotificationRouter {
      */
     @TransactionAttribute(TransactionAttributeType.REQUIRED)
     public void submit(PushApplication pushApplication, InternalUnifiedPushMessage message) {
-        logger.fine("Processing send request with '" + message.getMessage().toString() + "' payload");
+        final long start = pipelineMetrics.start();
+        logger.fine("Processing send request with '{}' payload", message.getMessage());
 
         // collections for all the different variants:
         final VariantMap variants = new VariantMap();
@@ -98,27 +114,106 @@ public class NotificationRouter {
             variants.addAll(pushApplication.getVariants());
         }
 
-        // TODO: Not sure the transformation should be done here...
-        // There are likely better places to check if the metadata is way to long
-        String jsonMessageContent = message.toStrippedJsonString() ;
-        if (jsonMessageContent != null && jsonMessageContent.length() >= 4500) {
-            jsonMessageContent = message.toMinimizedJsonString();
-        }
-
         final PushMessageInformation pushMessageInformation =
                 metricsService.storeNewRequestFrom(
                         pushApplication.getPushApplicationID(),
-                        jsonMessageContent,
+                        jsonMessageContentOf(message),
                         message.getIpAddress(),
                         message.getClientIdentifier(),
-                        variants.getVariantCount()
+                        variants.getVariantCount(),
+                        message
                         );
+        countMessage(pushApplication, variants);
 
         // we split the variants per type since each type may have its own configuration (e.g. batch size)
         for (final Entry<VariantType, List<Variant>> entry : variants.entrySet()) {
-            logger.info(String.format("Internal dispatching of push message for one %s variant", entry.getKey().getTypeName()));
+            logger.info("Internal dispatching of push message for one {} variant", entry.getKey().getTypeName());
             dispatchVariantMessageEvent.fire(new MessageHolderWithVariants(pushMessageInformation, message, entry.getKey(), entry.getValue()));
         }
+        pipelineMetrics.record(PipelineStage.ROUTE, null, true, start, 1);
+    }
+
+    /**
+     * Receives a request for sending several {@link UnifiedPushMessage}s of one push application, and queues one
+     * message per message and variant type, all in one transaction.
+     *
+     * Variants requested by several messages are looked up once, the metadata of all messages is stored with one
+     * flush and all messages are queued with one JMS session.
+     *
+     * @param pushApplication the push application
+     * @param messages the messages
+     * @return the ids of the push message information of the messages, in the order of the messages
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public List<String> submit(PushApplication pushApplication, List<InternalUnifiedPushMessage> messages) {
+        final long start = pipelineMetrics.start();
+        logger.fine("Processing send request with {} messages", messages.size());
+
+        final Map<String, Variant> variantsByID = new HashMap<String, Variant>();
+        final List<VariantMap> variantsOfMessages = new ArrayList<VariantMap>(messages.size());
+        final List<PushMessageInformation> pushMessageInformations = new ArrayList<PushMessageInformation>(messages.size());
+        for (InternalUnifiedPushMessage message : messages) {
+            final VariantMap variants = new VariantMap();
+            final List<String> variantIDs = message.getCriteria().getVariants();
+            if (variantIDs != null) {
+                for (String variantID : variantIDs) {
+                    if (!variantsByID.containsKey(variantID)) {
+                        variantsByID.put(variantID, genericVariantService.findByVariantID(variantID));
+                    }
+                    // does the variant exist ?
+                    final Variant variant = variantsByID.get(variantID);
+                    if (variant != null) {
+                        variants.add(variant);
+                    }
+                }
+            } else {
+                variants.addAll(pushApplication.getVariants());
+            }
+            variantsOfMessages.add(variants);
+
+            pushMessageInformations.add(metricsService.newRequestFrom(
+                    pushApplication.getPushApplicationID(),
+                    jsonMessageContentOf(message),
+                    message.getIpAddress(),
+                    message.getClientIdentifier(),
+                    variants.getVariantCount()));
+        }
+        metricsService.storeNewRequests(pushMessageInformations, messages);
+
+        final List<MessageHolderWithVariants> holders = new ArrayList<MessageHolderWithVariants>();
+        final List<String> pushMessageInformationIDs = new ArrayList<String>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            final VariantMap variants = variantsOfMessages.get(i);
+            countMessage(pushApplication, variants);
+
+            // we split the variants per type since each type may have its own configuration (e.g. batch size)
+            for (final Entry<VariantType, List<Variant>> entry : variants.entrySet()) {
+                holders.add(new MessageHolderWithVariants(pushMessageInformations.get(i), messages.get(i), entry.getKey(), entry.getValue()));
+            }
+            pushMessageInformationIDs.add(pushMessageInformations.get(i).getId());
+        }
+        logger.info("Internal dispatching of {} push messages for {} variant types", messages.size(), holders.size());
+        if (!holders.isEmpty()) {
+            dispatchVariantMessagesEvent.fire(holders);
+        }
+        pipelineMetrics.record(PipelineStage.ROUTE, null, true, start, messages.size());
+        return pushMessageInformationIDs;
+    }
+
+    private void countMessage(PushApplication pushApplication, VariantMap variants) {
+        for (CounterDeltas.Change change : CounterDeltas.Change.messageSubmitted(pushApplication.getPushApplicationID(), variants.getVariantIDs())) {
+            counterChanges.fire(change);
+        }
+    }
+
+    private String jsonMessageContentOf(InternalUnifiedPushMessage message) {
+        // TODO: Not sure the transformation should be done here...
+        // There are likely better places to check if the metadata is way to long
+        String jsonMessageContent = message.toStrippedJsonString() ;
+        if (jsonMessageContent != null && jsonMessageContent.length() >= 4500) {
+            jsonMessageContent = message.toMinimizedJsonString();
+        }
+        return jsonMessageContent;
     }
 
     /**
@@ -130,6 +225,10 @@ public class NotificationRouter {
             super(VariantType.class);
         }
         void add(Variant variant) {
+            // variants being removed in the background do not receive messages anymore
+            if (variant.isDeleting()) {
+                return;
+            }
             List<Variant> list = this.get(variant.getType());
             if (list == null) {
                 list = new ArrayList<Variant>();
@@ -142,6 +241,15 @@ public class NotificationRouter {
                 this.add(variant);
             }
         }
+        List<String> getVariantIDs() {
+            final List<String> variantIDs = new ArrayList<String>();
+            for (Collection<Variant> variants : values()) {
+                for (Variant variant : variants) {
+                    variantIDs.add(variant.getVariantID());
+                }
+            }
+            return variantIDs;
+        }
         int getVariantCount() {
             int count = 0;
             for (Collection<Variant> variants : values()) {
@@ -0,0 +1,44 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message;
+
+import org.jboss.aerogear.unifiedpush.message.jms.QueueStatistics;
+import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
+
+import java.util.List;
+
+/**
+ * Monitors the backlog of the JMS queues of the pipeline
+ */
+public interface QueueMonitoringService {
+    /**
+     * Get the status of the queues.
+     * If one of them holds too many or too old messages, or has no consumers, Status.WARN
+     * @return the HealthDetails of the last sample of the queues, with its age
+     */
+    HealthDetails queueStatus();
+
+    /**
+     * @return the last sample of each queue
+     */
+    List<QueueStatistics> queueStatistics();
+
+    /**
+     * Appends the last sample of the queues as gauges in the Prometheus text format.
+     */
+    void writePrometheus(StringBuilder out);
+}
@@ -30,6 +30,11 @@ import org.jboss.aerogear.unifiedpush.message.jms.Dequeue;
 import org.jboss.aerogear.unifiedpush.message.jms.DispatchToQueue;
 import org.jboss.aerogear.unifiedpush.message.sender.SenderTypeLiteral;
 import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 import javax.ejb.Stateless;
@@ -81,6 +86,9 @@ public class TokenLoader {
     @Inject @Any
     private Instance<SenderConfiguration> senderConfiguration;
 
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
     /**
      * Receives request for processing a {@link UnifiedPushMessage} and loads tokens for devices that match requested parameters from database.
      *
@@ -101,15 +109,16 @@ public class TokenLoader {
         final SenderConfiguration configuration = senderConfiguration.select(new SenderTypeLiteral(variantType)).get();
         int serialId = msg.getLastSerialId();
 
-        logger.fine("Received message from queue: " + message.getMessage().getAlert());
+        logger.fine("Received message from queue: {}", message.getMessage().getAlert());
 
         final Criteria criteria = message.getCriteria();
         final List<String> categories = criteria.getCategories();
         final List<String> aliases = criteria.getAliases();
         final List<String> deviceTypes = criteria.getDeviceTypes();
 
-        logger.info(String.format("Preparing message delivery and loading tokens for the %s 3rd-party Push Network (for %d variants)", variantType, variants.size()));
+        logger.info("Preparing message delivery and loading tokens for the {} 3rd-party Push Network (for {} variants)", variantType, variants.size());
         for (Variant variant : variants) {
+            final long start = pipelineMetrics.start();
             ResultsStream<String> tokenStream =
                 clientInstallationService.findAllDeviceTokenForVariantIDByCriteria(variant.getVariantID(), categories, aliases, deviceTypes, configuration.tokensToLoad(), lastTokenFromPreviousBatch)
                                          .fetchSize(configuration.batchSize())
@@ -119,6 +128,7 @@ public class TokenLoader {
                 String lastTokenInBatch = null;
                 int tokensLoaded = 0;
                 for (int batchNumber = 0; batchNumber < configuration.batchesToLoad(); batchNumber++) {
+                    FlightEvent batchEvent = FlightRecorderEvents.begin(FlightEventType.TOKEN_BATCH_LOADED);
                     Set<String> tokens = new TreeSet<String>();
                     for (int i = 0; i < configuration.batchSize() && tokenStream.next(); i++) {
                         lastTokenInBatch = tokenStream.get();
@@ -126,8 +136,12 @@ public class TokenLoader {
                         tokensLoaded += 1;
                     }
                     if (tokens.size() > 0) {
+                        FlightRecorderEvents.tokenBatchLoaded(batchEvent, msg.getPushMessageInformation().getId(),
+                                variant.getVariantID(), variantType, serialId + 1, tokens.size());
                         dispatchTokensEvent.fire(new MessageHolderWithTokens(msg.getPushMessageInformation(), message, variant, tokens, ++serialId));
-                        logger.info(String.format("Loaded batch #%s, containing %d tokens, for %s variant (%s)", serialId, tokens.size() ,variant.getType().getTypeName(), variant.getVariantID()));
+                        if (logger.isInfoEnabled()) {
+                            logger.info("Loaded batch #{}, containing {} tokens, for {} variant ({})", serialId, tokens.size(), variant.getType().getTypeName(), variant.getVariantID());
+                        }
 
                         // using combined key of variant and PMI (AGPUSH-1585):
                         batchLoaded.fire(new BatchLoadedEvent(variant.getVariantID()+":"+msg.getPushMessageInformation().getId()));
@@ -137,10 +151,10 @@ public class TokenLoader {
                 }
                 // should we load next batch ?
                 if (tokensLoaded >= configuration.tokensToLoad()) {
-                    logger.fine(String.format("Ending token loading transaction for %s variant (%s)", variant.getType().getTypeName(), variant.getVariantID()));
+                    logger.fine("Ending token loading transaction for {} variant ({})", variant.getType().getTypeName(), variant.getVariantID());
                     nextBatchEvent.fire(new MessageHolderWithVariants(msg.getPushMessageInformation(), message, msg.getVariantType(), variants, serialId, lastTokenInBatch));
                 } else {
-                    logger.fine(String.format("All batches for %s variant were loaded (%s)", variant.getType().getTypeName(), msg.getPushMessageInformation().getId()));
+                    logger.fine("All batches for {} variant were loaded ({})", variant.getType().getTypeName(), msg.getPushMessageInformation().getId());
 
                     // using combined key of variant and PMI (AGPUSH-1585):
                     allBatchesLoaded.fire(new AllBatchesLoadedEvent(variant.getVariantID()+":"+msg.getPushMessageInformation().getId()));
@@ -151,10 +165,15 @@ public class TokenLoader {
                         variantMetricInformation.setPushMessageInformation(msg.getPushMessageInformation());
                         variantMetricInformation.setVariantID(variant.getVariantID());
                         variantMetricInformation.setDeliveryStatus(Boolean.TRUE);
+                        final long loaded = System.currentTimeMillis();
+                        variantMetricInformation.setFirstTokenLoaded(loaded);
+                        variantMetricInformation.setLastTokenLoaded(loaded);
                         dispatchVariantMetricEvent.fire(variantMetricInformation);
                     }
                 }
+                pipelineMetrics.record(PipelineStage.TOKEN_LOAD, variantType, true, start, tokensLoaded);
             } catch (ResultStreamException e) {
+                pipelineMetrics.record(PipelineStage.TOKEN_LOAD, variantType, false, start, 0);
                 logger.severe("Failed to load batch of tokens", e);
             }
         }
@@ -71,7 +71,7 @@ public class ApnsServiceCache extends AbstractServiceCache<ApnsService> {
 
                     // trigger asynchronous deletion:
                     if (! transformedTokens.isEmpty()) {
-                        logger.info("Deleting '" + inactiveTokens.size() + "' inactive iOS installations");
+                        logger.info("Deleting '{}' inactive iOS installations", inactiveTokens.size());
                         clientInstallationService.removeInstallationsForVariantByDeviceTokens(variantID, transformedTokens);
                     }
                 } catch (Exception e) {
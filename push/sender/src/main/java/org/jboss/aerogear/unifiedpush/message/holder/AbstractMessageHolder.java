@@ -30,10 +30,12 @@ public abstract class AbstractMessageHolder implements Serializable {
 
     private PushMessageInformation pushMessageInformation;
     private UnifiedPushMessage unifiedPushMessage;
+    private long createdAt;
 
     public AbstractMessageHolder(PushMessageInformation pushMessageInformation, UnifiedPushMessage unifiedPushMessage) {
         this.pushMessageInformation = pushMessageInformation;
         this.unifiedPushMessage = unifiedPushMessage;
+        this.createdAt = System.currentTimeMillis();
     }
 
     public PushMessageInformation getPushMessageInformation() {
@@ -44,4 +46,11 @@ public abstract class AbstractMessageHolder implements Serializable {
         return unifiedPushMessage;
     }
 
+    /**
+     * @return the time the holder was created, i.e. queued, in milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
 }
\ No newline at end of file
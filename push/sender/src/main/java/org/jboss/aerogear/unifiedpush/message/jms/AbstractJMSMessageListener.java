@@ -27,6 +27,9 @@ import javax.jms.Queue;
 import javax.jms.Topic;
 
 import org.jboss.aerogear.unifiedpush.message.exception.MessageDeliveryException;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 /**
@@ -47,9 +50,15 @@ public abstract class AbstractJMSMessageListener<T> implements MessageListener {
         try {
             if (jmsMessage instanceof ObjectMessage) {
                 Object messageObject = ((ObjectMessage) jmsMessage).getObject();
+                FlightEvent event = FlightRecorderEvents.begin(FlightEventType.JMS_DEQUEUE);
+                long queueWait = event.isEnabled() ? System.currentTimeMillis() - jmsMessage.getJMSTimestamp() : 0;
                 try {
                     T message = (T) messageObject;
                     onMessage(message);
+                    if (event.isEnabled()) {
+                        FlightRecorderEvents.jmsDequeued(event, getDestinationName(jmsMessage),
+                                JmsPayloads.pushMessageInformationIdOf(messageObject), messageObject, queueWait);
+                    }
                 } catch (ClassCastException e) {
                     throw new IllegalStateException("Received message of wrong payload type " + messageObject.getClass() + " to destination " + getDestinationName(jmsMessage));
                 }
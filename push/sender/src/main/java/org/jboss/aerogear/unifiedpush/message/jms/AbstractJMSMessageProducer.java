@@ -17,6 +17,9 @@
 package org.jboss.aerogear.unifiedpush.message.jms;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.jms.Connection;
@@ -28,6 +31,9 @@ import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.jboss.aerogear.unifiedpush.message.exception.MessageDeliveryException;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
 
 /**
  * Simplifies sending of messages to a destination
@@ -76,7 +82,21 @@ public abstract class AbstractJMSMessageProducer {
         send(destination, message, propertyName, propertValue, true);
     }
 
+    /**
+     * Sends messages to their destinations in transactional manner, all of them with one session.
+     *
+     * Since transacted session is used, the messages won't be committed until whole enclosing transaction ends.
+     */
+    protected void sendTransacted(Map<Destination, List<Serializable>> messages) {
+        send(messages, null, null, true);
+    }
+
     private void send(Destination destination, Serializable message, String propertyName, String propertValue, boolean transacted) {
+        send(Collections.<Destination, List<Serializable>>singletonMap(destination, Collections.singletonList(message)),
+                propertyName, propertValue, transacted);
+    }
+
+    private void send(Map<Destination, List<Serializable>> messages, String propertyName, String propertValue, boolean transacted) {
         Connection connection = null;
         try {
             if (transacted) {
@@ -85,13 +105,22 @@ public abstract class AbstractJMSMessageProducer {
                 connection = connectionFactory.createConnection();
             }
             Session session = connection.createSession(transacted, Session.AUTO_ACKNOWLEDGE);
-            MessageProducer messageProducer = session.createProducer(destination);
             connection.start();
-            ObjectMessage objectMessage = session.createObjectMessage(message);
-            if (propertyName != null) {
-                objectMessage.setStringProperty(propertyName, propertValue);
+            for (Map.Entry<Destination, List<Serializable>> entry : messages.entrySet()) {
+                MessageProducer messageProducer = session.createProducer(entry.getKey());
+                for (Serializable message : entry.getValue()) {
+                    ObjectMessage objectMessage = session.createObjectMessage(message);
+                    if (propertyName != null) {
+                        objectMessage.setStringProperty(propertyName, propertValue);
+                    }
+                    FlightEvent event = FlightRecorderEvents.begin(FlightEventType.JMS_ENQUEUE);
+                    messageProducer.send(objectMessage);
+                    if (event.isEnabled()) {
+                        FlightRecorderEvents.jmsEnqueued(event, JmsPayloads.queueNameOf(entry.getKey()),
+                                JmsPayloads.pushMessageInformationIdOf(message), message);
+                    }
+                }
             }
-            messageProducer.send(objectMessage);
         } catch (JMSException e) {
             throw new MessageDeliveryException("Failed to queue push message for further processing", e);
         } finally {
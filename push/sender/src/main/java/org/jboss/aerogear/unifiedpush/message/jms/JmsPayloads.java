@@ -0,0 +1,70 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.jms;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Queue;
+
+import org.jboss.aerogear.unifiedpush.api.VariantMetricInformation;
+import org.jboss.aerogear.unifiedpush.message.event.AllBatchesLoadedEvent;
+import org.jboss.aerogear.unifiedpush.message.event.BatchLoadedEvent;
+import org.jboss.aerogear.unifiedpush.message.holder.AbstractMessageHolder;
+
+/**
+ * Helps to relate the payloads of the pipeline queues to their push message, e.g. in flight recorder events.
+ */
+public final class JmsPayloads {
+
+    private JmsPayloads() {
+    }
+
+    /**
+     * @return the id of the push message information the payload belongs to, or null if unknown
+     */
+    public static String pushMessageInformationIdOf(Object payload) {
+        if (payload instanceof AbstractMessageHolder) {
+            return ((AbstractMessageHolder) payload).getPushMessageInformation().getId();
+        }
+        if (payload instanceof VariantMetricInformation) {
+            return ((VariantMetricInformation) payload).getPushMessageInformation().getId();
+        }
+        // the batch events are keyed by variant and push message (AGPUSH-1585)
+        if (payload instanceof BatchLoadedEvent) {
+            return afterSeparator(((BatchLoadedEvent) payload).getVariantID());
+        }
+        if (payload instanceof AllBatchesLoadedEvent) {
+            return afterSeparator(((AllBatchesLoadedEvent) payload).getVariantID());
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of the queue, or the string form of any other destination
+     */
+    public static String queueNameOf(Destination destination) throws JMSException {
+        if (destination instanceof Queue) {
+            return ((Queue) destination).getQueueName();
+        }
+        return String.valueOf(destination);
+    }
+
+    private static String afterSeparator(String key) {
+        final int separator = key == null ? -1 : key.indexOf(':');
+        return separator < 0 ? null : key.substring(separator + 1);
+    }
+}
@@ -16,10 +16,17 @@
  */
 package org.jboss.aerogear.unifiedpush.message.jms;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.Resource;
 import javax.ejb.Stateless;
 import javax.enterprise.event.Observes;
 import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
 import javax.jms.Queue;
 
 import org.jboss.aerogear.unifiedpush.api.VariantType;
@@ -58,6 +65,20 @@ public class MessageHolderWithVariantsProducer extends AbstractJMSMessageProduce
         sendTransacted(selectQueue(msg.getVariantType()), msg);
     }
 
+    public void queueMessagesVariantForProcessing(@Observes @DispatchToQueue List<MessageHolderWithVariants> msgs) {
+        final Map<Destination, List<Serializable>> messages = new LinkedHashMap<Destination, List<Serializable>>();
+        for (MessageHolderWithVariants msg : msgs) {
+            final Queue queue = selectQueue(msg.getVariantType());
+            List<Serializable> queued = messages.get(queue);
+            if (queued == null) {
+                queued = new ArrayList<Serializable>();
+                messages.put(queue, queued);
+            }
+            queued.add(msg);
+        }
+        sendTransacted(messages);
+    }
+
     private Queue selectQueue(VariantType variantType) {
         switch (variantType) {
             case ADM:
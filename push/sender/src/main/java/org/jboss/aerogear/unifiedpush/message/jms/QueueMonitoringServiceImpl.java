@@ -0,0 +1,304 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.jms;
+
+import org.jboss.aerogear.unifiedpush.message.QueueMonitoringService;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.impl.health.BackgroundHealthCheck;
+import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
+import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the backlog of the JMS queues of the pipeline in the background: the messages waiting, the age of the oldest
+ * one, the consumers, and how fast messages are added and consumed.
+ *
+ * A queue holding more messages, or an older message, than configured, or holding messages without a consumer,
+ * degrades the node: its health is reported with a warning, telling whether the senders or the database fall behind.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class QueueMonitoringServiceImpl extends BackgroundHealthCheck<List<QueueStatistics>> implements QueueMonitoringService {
+
+    /**
+     * The queues of hornetq-jms.xml
+     */
+    static final List<String> QUEUES = Collections.unmodifiableList(Arrays.asList(
+            "AdmPushMessageQueue", "APNsPushMessageQueue", "GCMPushMessageQueue", "MPNSPushMessageQueue",
+            "SimplePushMessageQueue", "WNSPushMessageQueue",
+            "AdmTokenBatchQueue", "APNsTokenBatchQueue", "GCMTokenBatchQueue", "MPNSTokenBatchQueue",
+            "SimplePushTokenBatchQueue", "WNSTokenBatchQueue",
+            "MetricsQueue", "BatchLoadedQueue", "AllBatchesLoadedQueue"));
+
+    /**
+     * Queues drained by the {@link org.jboss.aerogear.unifiedpush.message.MetricsCollector} on demand, they have no
+     * consumer between the polls
+     */
+    static final Set<String> POLLED_QUEUES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "BatchLoadedQueue", "AllBatchesLoadedQueue")));
+
+    /**
+     * Interval of the background sampling, see {@link #refresh()}
+     */
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(QueueMonitoringServiceImpl.class);
+
+    @Resource(mappedName = "java:/ConnectionFactory")
+    private ConnectionFactory connectionFactory;
+
+    @Inject
+    private Configuration configuration;
+
+    private final QueueSampler sampler = new QueueSampler(ManagementFactory.getPlatformMBeanServer());
+
+    private long maxMessages;
+    private long maxAgeMillis;
+
+    public QueueMonitoringServiceImpl() {
+        super(REFRESH_INTERVAL_MILLIS);
+    }
+
+    @PostConstruct
+    public void init() {
+        maxMessages = configuration.getProperty(Configuration.PROP_HEALTH_QUEUES_MAX_MESSAGES, 10000);
+        maxAgeMillis = TimeUnit.SECONDS.toMillis(configuration.getProperty(Configuration.PROP_HEALTH_QUEUES_MAX_AGE_SECONDS, 300));
+    }
+
+    /**
+     * Returns the status of the last sample immediately, only the first request waits for the sampling.
+     */
+    @Override
+    public HealthDetails queueStatus() {
+        return currentResults().get(0);
+    }
+
+    @Override
+    public List<QueueStatistics> queueStatistics() {
+        return currentData();
+    }
+
+    @Override
+    public void writePrometheus(StringBuilder out) {
+        writePrometheus(currentData(), out);
+    }
+
+    /**
+     * Job that samples all queues with one connection.
+     *
+     * Note: Occurring every 30 seconds, stale samples are reported with a warning after three missed runs.
+     */
+    @Override
+    @Schedule(hour = "*", minute = "*", second = "*/30", persistent = false)
+    public synchronized void refresh() {
+        final long start = System.currentTimeMillis();
+        final Map<String, QueueStatistics> previous = byName(lastData());
+        final long previousStart = lastCheckedAt();
+
+        final List<QueueStatistics> statistics = new ArrayList<QueueStatistics>(QUEUES.size());
+        HealthDetails health;
+        Connection connection = null;
+        try {
+            connection = connectionFactory.createConnection();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            connection.start();
+            for (String queue : QUEUES) {
+                final QueueStatistics current = sampler.sample(session, queue, maxMessages + 1);
+                rates(previous.get(queue), current, start - previousStart);
+                evaluate(current, !POLLED_QUEUES.contains(queue), maxMessages, maxAgeMillis);
+                statistics.add(current);
+            }
+            health = summarize(statistics);
+        } catch (JMSException e) {
+            logger.warning("Could not sample the JMS queues: " + e.getMessage());
+            statistics.clear();
+            health = new HealthDetails();
+            health.setDescription("JMS queues");
+            health.setTestStatus(Status.WARN);
+            health.setResult("Queues could not be sampled: " + e.getMessage());
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (JMSException e) {
+                    logger.warning("Could not close the JMS connection: " + e.getMessage());
+                }
+            }
+        }
+
+        health.setRuntime(System.currentTimeMillis() - start);
+        publish(Collections.singletonList(health), Collections.unmodifiableList(statistics), start);
+    }
+
+    private static Map<String, QueueStatistics> byName(List<QueueStatistics> statistics) {
+        final Map<String, QueueStatistics> byName = new HashMap<String, QueueStatistics>();
+        if (statistics != null) {
+            for (QueueStatistics queue : statistics) {
+                byName.put(queue.getName(), queue);
+            }
+        }
+        return byName;
+    }
+
+    /**
+     * Computes how many messages were added and consumed per second since the previous sample of the queue.
+     */
+    static void rates(QueueStatistics previous, QueueStatistics current, long millis) {
+        if (previous == null || millis <= 0 || previous.getMessagesAdded() < 0 || current.getMessagesAdded() < 0
+                || current.getMessagesAdded() < previous.getMessagesAdded()) {
+            // unknown, or the broker restarted
+            return;
+        }
+
+        final long added = current.getMessagesAdded() - previous.getMessagesAdded();
+        final long consumed = added - (current.getMessageCount() - previous.getMessageCount());
+        current.setAddedPerSecond(added * 1000.0 / millis);
+        current.setConsumedPerSecond(Math.max(0, consumed) * 1000.0 / millis);
+    }
+
+    /**
+     * Degrades a queue holding too many or too old messages, or messages without a consumer.
+     *
+     * @param listened true if the queue should always have a consumer
+     */
+    static void evaluate(QueueStatistics statistics, boolean listened, long maxMessages, long maxAgeMillis) {
+        final List<String> problems = new ArrayList<String>(3);
+        if (statistics.getMessageCount() > maxMessages) {
+            problems.add(String.format("%d messages waiting", statistics.getMessageCount()));
+        }
+        if (statistics.getOldestMessageAge() > maxAgeMillis) {
+            problems.add(String.format("oldest message waiting %d seconds",
+                    TimeUnit.MILLISECONDS.toSeconds(statistics.getOldestMessageAge())));
+        }
+        if (listened && statistics.getConsumerCount() == 0 && statistics.getMessageCount() > 0) {
+            problems.add("no consumers");
+        }
+
+        if (problems.isEmpty()) {
+            statistics.setStatus(Status.OK);
+            statistics.setProblem(null);
+        } else {
+            statistics.setStatus(Status.WARN);
+            statistics.setProblem(join(problems, ", "));
+        }
+    }
+
+    static HealthDetails summarize(List<QueueStatistics> statistics) {
+        final HealthDetails details = new HealthDetails();
+        details.setDescription("JMS queues");
+
+        final List<String> problems = new ArrayList<String>();
+        long messages = 0;
+        long oldest = 0;
+        for (QueueStatistics queue : statistics) {
+            if (queue.getStatus() != Status.OK) {
+                problems.add(queue.getName() + ": " + queue.getProblem());
+            }
+            messages += Math.max(0, queue.getMessageCount());
+            oldest = Math.max(oldest, queue.getOldestMessageAge());
+        }
+
+        if (problems.isEmpty()) {
+            details.setTestStatus(Status.OK);
+            details.setResult(String.format("%d messages waiting in %d queues, the oldest for %d seconds", messages,
+                    statistics.size(), TimeUnit.MILLISECONDS.toSeconds(oldest)));
+        } else {
+            details.setTestStatus(Status.WARN);
+            details.setResult("Queues falling behind: " + join(problems, "; "));
+        }
+        return details;
+    }
+
+    static void writePrometheus(List<QueueStatistics> statistics, StringBuilder out) {
+        out.append("# HELP ups_jms_queue_messages Messages waiting in the JMS queues of the pipeline\n");
+        out.append("# TYPE ups_jms_queue_messages gauge\n");
+        for (QueueStatistics queue : statistics) {
+            gauge(out, "ups_jms_queue_messages", queue, queue.getMessageCount());
+        }
+        out.append("# HELP ups_jms_queue_delivering_messages Messages delivered to consumers, not acknowledged yet\n");
+        out.append("# TYPE ups_jms_queue_delivering_messages gauge\n");
+        for (QueueStatistics queue : statistics) {
+            gauge(out, "ups_jms_queue_delivering_messages", queue, queue.getDeliveringCount());
+        }
+        out.append("# HELP ups_jms_queue_consumers Consumers of the JMS queues of the pipeline\n");
+        out.append("# TYPE ups_jms_queue_consumers gauge\n");
+        for (QueueStatistics queue : statistics) {
+            gauge(out, "ups_jms_queue_consumers", queue, queue.getConsumerCount());
+        }
+        out.append("# HELP ups_jms_queue_messages_added_total Messages added to the JMS queues since the broker started\n");
+        out.append("# TYPE ups_jms_queue_messages_added_total counter\n");
+        for (QueueStatistics queue : statistics) {
+            gauge(out, "ups_jms_queue_messages_added_total", queue, queue.getMessagesAdded());
+        }
+        out.append("# HELP ups_jms_queue_oldest_message_age_seconds Age of the oldest message in the JMS queues\n");
+        out.append("# TYPE ups_jms_queue_oldest_message_age_seconds gauge\n");
+        for (QueueStatistics queue : statistics) {
+            out.append("ups_jms_queue_oldest_message_age_seconds{queue=\"").append(queue.getName()).append("\"} ")
+                    .append(String.format(Locale.ROOT, "%.3f", queue.getOldestMessageAge() / 1e3)).append('\n');
+        }
+        out.append("# HELP ups_jms_queue_degraded 1 if the JMS queue exceeds a threshold of the queue health\n");
+        out.append("# TYPE ups_jms_queue_degraded gauge\n");
+        for (QueueStatistics queue : statistics) {
+            gauge(out, "ups_jms_queue_degraded", queue, queue.getStatus() == Status.OK ? 0 : 1);
+        }
+    }
+
+    private static void gauge(StringBuilder out, String name, QueueStatistics queue, long value) {
+        if (value >= 0) {
+            out.append(name).append("{queue=\"").append(queue.getName()).append("\"} ").append(value).append('\n');
+        }
+    }
+
+    private static String join(List<String> parts, String separator) {
+        final StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (joined.length() > 0) {
+                joined.append(separator);
+            }
+            joined.append(part);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.jms;
+
+import java.util.Enumeration;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.QueueBrowser;
+import javax.jms.Session;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+/**
+ * Reads the counters of a queue from the JMX management of HornetQ, and the age of its oldest message with a queue
+ * browser.
+ *
+ * Without JMX management (<code>jmx-management-enabled</code> of the messaging subsystem) the messages are counted
+ * by browsing, up to a limit, and the consumers are unknown.
+ */
+class QueueSampler {
+
+    private static final String OBJECT_NAME = "org.hornetq:module=JMS,type=Queue,name=";
+    private static final String[] ATTRIBUTES = {"MessageCount", "DeliveringCount", "ConsumerCount", "MessagesAdded"};
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(QueueSampler.class);
+
+    private final MBeanServer mBeanServer;
+    private volatile boolean managementMissingLogged;
+
+    QueueSampler(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * @param browseLimit the most messages counted by browsing, if the queue is not managed
+     */
+    QueueStatistics sample(Session session, String queueName, long browseLimit) throws JMSException {
+        final QueueStatistics statistics = new QueueStatistics(queueName);
+        final boolean managed = readAttributes(statistics);
+
+        final QueueBrowser browser = session.createBrowser(session.createQueue(queueName));
+        try {
+            final Enumeration<?> messages = browser.getEnumeration();
+            long browsed = 0;
+            if (messages.hasMoreElements()) {
+                final long timestamp = ((Message) messages.nextElement()).getJMSTimestamp();
+                browsed++;
+                // the timestamp is 0 if the producer disabled it
+                statistics.setOldestMessageAge(timestamp == 0 ? 0 : Math.max(0, System.currentTimeMillis() - timestamp));
+            }
+            if (!managed) {
+                while (browsed < browseLimit && messages.hasMoreElements()) {
+                    messages.nextElement();
+                    browsed++;
+                }
+                statistics.setMessageCount(browsed);
+            }
+        } finally {
+            browser.close();
+        }
+        return statistics;
+    }
+
+    private boolean readAttributes(QueueStatistics statistics) {
+        final AttributeList attributes;
+        try {
+            attributes = mBeanServer.getAttributes(new ObjectName(OBJECT_NAME + ObjectName.quote(statistics.getName())), ATTRIBUTES);
+        } catch (InstanceNotFoundException e) {
+            if (!managementMissingLogged) {
+                managementMissingLogged = true;
+                logger.warning("JMX management of the JMS queues is disabled, the messages are counted by browsing and the consumers are unknown. "
+                        + "Enable it with: /subsystem=messaging/hornetq-server=default:write-attribute(name=jmx-management-enabled,value=true)");
+            }
+            return false;
+        } catch (JMException e) {
+            logger.warning("Could not read the JMX attributes of queue " + statistics.getName() + ": " + e.getMessage());
+            return false;
+        }
+
+        for (Attribute attribute : attributes.asList()) {
+            final long value = ((Number) attribute.getValue()).longValue();
+            switch (attribute.getName()) {
+                case "MessageCount":
+                    statistics.setMessageCount(value);
+                    break;
+                case "DeliveringCount":
+                    statistics.setDeliveringCount(value);
+                    break;
+                case "ConsumerCount":
+                    statistics.setConsumerCount((int) value);
+                    break;
+                case "MessagesAdded":
+                    statistics.setMessagesAdded(value);
+                    break;
+                default:
+            }
+        }
+        return statistics.getMessageCount() >= 0;
+    }
+}
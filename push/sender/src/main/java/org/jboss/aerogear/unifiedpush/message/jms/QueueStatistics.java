@@ -0,0 +1,147 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.jms;
+
+import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+
+/**
+ * Sample of a JMS queue of the pipeline: its backlog, the consumers draining it and how fast it grows or shrinks.
+ *
+ * Values the broker did not report are -1, e.g. the consumers when the JMX management of the broker is disabled.
+ */
+public class QueueStatistics {
+
+    private String name;
+    private long messageCount = -1;
+    private long deliveringCount = -1;
+    private int consumerCount = -1;
+    private long messagesAdded = -1;
+    private long oldestMessageAge;
+    private double addedPerSecond = -1;
+    private double consumedPerSecond = -1;
+    private Status status = Status.OK;
+    private String problem;
+
+    public QueueStatistics() {
+    }
+
+    public QueueStatistics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return messages waiting in the queue, including the ones being delivered
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(long messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * @return messages delivered to a consumer, but not acknowledged yet
+     */
+    public long getDeliveringCount() {
+        return deliveringCount;
+    }
+
+    public void setDeliveringCount(long deliveringCount) {
+        this.deliveringCount = deliveringCount;
+    }
+
+    public int getConsumerCount() {
+        return consumerCount;
+    }
+
+    public void setConsumerCount(int consumerCount) {
+        this.consumerCount = consumerCount;
+    }
+
+    /**
+     * @return messages added to the queue since the broker started
+     */
+    public long getMessagesAdded() {
+        return messagesAdded;
+    }
+
+    public void setMessagesAdded(long messagesAdded) {
+        this.messagesAdded = messagesAdded;
+    }
+
+    /**
+     * @return milliseconds the message at the head of the queue is waiting, 0 if the queue is empty
+     */
+    public long getOldestMessageAge() {
+        return oldestMessageAge;
+    }
+
+    public void setOldestMessageAge(long oldestMessageAge) {
+        this.oldestMessageAge = oldestMessageAge;
+    }
+
+    /**
+     * @return messages added per second since the previous sample
+     */
+    public double getAddedPerSecond() {
+        return addedPerSecond;
+    }
+
+    public void setAddedPerSecond(double addedPerSecond) {
+        this.addedPerSecond = addedPerSecond;
+    }
+
+    /**
+     * @return messages consumed per second since the previous sample, lower than {@link #getAddedPerSecond()} while
+     * the consumers fall behind
+     */
+    public double getConsumedPerSecond() {
+        return consumedPerSecond;
+    }
+
+    public void setConsumedPerSecond(double consumedPerSecond) {
+        this.consumedPerSecond = consumedPerSecond;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return why the queue is degraded, null if it is not
+     */
+    public String getProblem() {
+        return problem;
+    }
+
+    public void setProblem(String problem) {
+        this.problem = problem;
+    }
+}
@@ -96,48 +96,7 @@ public class APNsPushNotificationSender implements PushNotificationSender {
         }
         final iOSVariant iOSVariant = (iOSVariant) variant;
 
-        Message message = pushMessage.getMessage();
-        APNs apns = message.getApns();
-        PayloadBuilder builder = APNS.newPayload()
-                // adding recognized key values
-                .alertBody(message.getAlert()) // alert dialog, in iOS or Safari
-                .sound(message.getSound()) // sound to be played by app
-                .alertTitle(apns.getTitle()) // The title of the notification in Safari and Apple Watch
-                .alertAction(apns.getAction()) // The label of the action button, if the user sets the notifications to appear as alerts in Safari.
-                .urlArgs(apns.getUrlArgs())
-                .category(apns.getActionCategory()) // iOS8: User Action category
-                .localizedTitleKey(apns.getLocalizedTitleKey()); //iOS8 : Localized Title Key
-
-        // was a badge included?
-        if (message.getBadge() >= 0) {
-            builder.badge(message.getBadge()); // only set badge if needed
-        }
-
-        //this kind of check should belong in java-apns
-        if(apns.getLocalizedTitleArguments() != null) {
-            builder.localizedArguments(apns.getLocalizedTitleArguments()); //iOS8 : Localized Title Arguments;
-        }
-
-        //this kind of check should belong in java-apns
-        if(apns.getLocalizedKey() != null) {
-            builder.localizedKey(apns.getLocalizedKey()); // Localized Key;
-        }
-
-        //this kind of check should belong in java-apns
-        if(apns.getLocalizedArguments() != null) {
-            builder.localizedArguments(apns.getLocalizedArguments()); // Localized Arguments;
-        }
-
-       // apply the 'content-available:1' value:
-        if (apns.isContentAvailable()) {
-            // content-available is for 'silent' notifications and Newsstand
-            builder = builder.instantDeliveryOrSilentNotification();
-        }
-
-        builder = builder.customFields(message.getUserData()); // adding other (submitted) fields
-
-        //add aerogear-push-id
-        builder = builder.customField(InternalUnifiedPushMessage.PUSH_MESSAGE_ID, pushMessageInformationId);
+        final PayloadBuilder builder = createPayloadBuilder(pushMessage.getMessage(), pushMessageInformationId);
 
         // we are done with adding values here, before building let's check if the msg is too long
         if (builder.isTooLong()) {
@@ -171,11 +130,13 @@ public class APNsPushNotificationSender implements PushNotificationSender {
             throw new SenderResourceNotAvailableException("Unable to obtain a ApnsService instance");
         }
         try {
-            logger.fine("Sending transformed APNs payload: " + apnsMessage);
+            logger.fine("Sending transformed APNs payload: {}", apnsMessage);
             Date expireDate = createFutureDateBasedOnTTL(pushMessage.getConfig().getTimeToLive());
             service.push(tokens, apnsMessage, expireDate);
 
-            logger.info(String.format("Sent push notification to the Apple APNs Server for %d tokens",tokens.size()));
+            if (logger.isInfoEnabled()) {
+                logger.info("Sent push notification to the Apple APNs Server for {} tokens", tokens.size());
+            }
 
             apnsServiceCache.queueFreedUpService(pushMessageInformationId, iOSVariant.getVariantID(), service);
             try {
@@ -199,6 +160,55 @@ public class APNsPushNotificationSender implements PushNotificationSender {
         }
     }
 
+    /**
+     * Transforms the {@link Message} into the APNs payload, the caller checks the length of the payload.
+     */
+    static PayloadBuilder createPayloadBuilder(Message message, String pushMessageInformationId) {
+        APNs apns = message.getApns();
+        PayloadBuilder builder = APNS.newPayload()
+                // adding recognized key values
+                .alertBody(message.getAlert()) // alert dialog, in iOS or Safari
+                .sound(message.getSound()) // sound to be played by app
+                .alertTitle(apns.getTitle()) // The title of the notification in Safari and Apple Watch
+                .alertAction(apns.getAction()) // The label of the action button, if the user sets the notifications to appear as alerts in Safari.
+                .urlArgs(apns.getUrlArgs())
+                .category(apns.getActionCategory()) // iOS8: User Action category
+                .localizedTitleKey(apns.getLocalizedTitleKey()); //iOS8 : Localized Title Key
+
+        // was a badge included?
+        if (message.getBadge() >= 0) {
+            builder.badge(message.getBadge()); // only set badge if needed
+        }
+
+        //this kind of check should belong in java-apns
+        if(apns.getLocalizedTitleArguments() != null) {
+            builder.localizedArguments(apns.getLocalizedTitleArguments()); //iOS8 : Localized Title Arguments;
+        }
+
+        //this kind of check should belong in java-apns
+        if(apns.getLocalizedKey() != null) {
+            builder.localizedKey(apns.getLocalizedKey()); // Localized Key;
+        }
+
+        //this kind of check should belong in java-apns
+        if(apns.getLocalizedArguments() != null) {
+            builder.localizedArguments(apns.getLocalizedArguments()); // Localized Arguments;
+        }
+
+       // apply the 'content-available:1' value:
+        if (apns.isContentAvailable()) {
+            // content-available is for 'silent' notifications and Newsstand
+            builder = builder.instantDeliveryOrSilentNotification();
+        }
+
+        builder = builder.customFields(message.getUserData()); // adding other (submitted) fields
+
+        //add aerogear-push-id
+        builder = builder.customField(InternalUnifiedPushMessage.PUSH_MESSAGE_ID, pushMessageInformationId);
+
+        return builder;
+    }
+
     /**
      * Helper method that creates a future {@link Date}, based on the given ttl/time-to-live value.
      * If no TTL was provided, we use the max date from the APNs library
@@ -232,7 +242,9 @@ public class APNsPushNotificationSender implements PushNotificationSender {
                 @Override
                 public void messageSent(ApnsNotification message, boolean resent) {
                     // Invoked for EVERY devicetoken:
-                    logger.finest("Sending APNs message to: " + message.getDeviceToken());
+                    if (logger.isFinestEnabled()) {
+                        logger.finest("Sending APNs message to: {}", Utilities.encodeHex(message.getDeviceToken()));
+                    }
                 }
 
                 @Override
@@ -249,7 +261,7 @@ public class APNsPushNotificationSender implements PushNotificationSender {
                         ApnsDeliveryErrorException deliveryError = (ApnsDeliveryErrorException) e;
                         if (DeliveryError.INVALID_TOKEN.equals(deliveryError.getDeliveryError())) {
                             final String invalidToken = Utilities.encodeHex(message.getDeviceToken()).toLowerCase();
-                            logger.info("Removing invalid (not allowed) token: " + invalidToken);
+                            logger.info("Removing invalid (not allowed) token: {}", invalidToken);
                             clientInstallationService.removeInstallationForVariantByDeviceToken(iOSVariant.getVariantID(), invalidToken);
                         } else {
                             // for now, we just log the other cases
@@ -260,7 +272,7 @@ public class APNsPushNotificationSender implements PushNotificationSender {
 
                 @Override
                 public void cacheLengthExceeded(int newCacheLength) {
-                    logger.warning("Internal cache size exceeded, new size is: " + newCacheLength);
+                    logger.warning("Internal cache size exceeded, new size is: {}", newCacheLength);
 
                 }
             });
@@ -38,6 +38,28 @@ public class AdmPushNotificationSender implements PushNotificationSender {
     public void sendPushMessage(Variant variant, Collection<String> clientIdentifiers, UnifiedPushMessage pushMessage, String pushMessageInformationId, NotificationSenderCallback senderCallback) {
         final AdmService admService = ADM.newService();
 
+        final PayloadBuilder builder = createPayloadBuilder(pushMessage, pushMessageInformationId);
+
+        final AdmVariant admVariant = (AdmVariant) variant;
+        for(String token : clientIdentifiers) {
+            try {
+                admService.sendMessageToDevice(token, admVariant.getClientId(), admVariant.getClientSecret(),  builder.build());
+                senderCallback.onSuccess();
+            } catch (Exception e) {
+                logger.severe("Error sending payload to ADM server", e);
+                senderCallback.onError(e.getMessage());
+            }
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Sent push notification to Amazon's ADM Server for {} tokens", clientIdentifiers.size());
+        }
+    }
+
+    /**
+     * Transforms the {@link UnifiedPushMessage} into the ADM payload.
+     */
+    static PayloadBuilder createPayloadBuilder(UnifiedPushMessage pushMessage, String pushMessageInformationId) {
         final PayloadBuilder builder = ADM.newPayload();
 
         //flatten the "special keys"
@@ -64,17 +86,6 @@ public class AdmPushNotificationSender implements PushNotificationSender {
         //add the aerogear-push-id
         builder.dataField(InternalUnifiedPushMessage.PUSH_MESSAGE_ID, pushMessageInformationId);
 
-        final AdmVariant admVariant = (AdmVariant) variant;
-        for(String token : clientIdentifiers) {
-            try {
-                admService.sendMessageToDevice(token, admVariant.getClientId(), admVariant.getClientSecret(),  builder.build());
-                senderCallback.onSuccess();
-            } catch (Exception e) {
-                logger.severe("Error sending payload to ADM server", e);
-                senderCallback.onError(e.getMessage());
-            }
-        }
-
-        logger.info(String.format("Sent push notification to Amazon's ADM Server for %d tokens",clientIdentifiers.size()));
+        return builder;
     }
 }
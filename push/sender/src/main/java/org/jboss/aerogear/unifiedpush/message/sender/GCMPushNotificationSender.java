@@ -73,6 +73,31 @@ public class GCMPushNotificationSender implements PushNotificationSender {
         final List<String>  registrationIDs = new ArrayList<String>(tokens);
         final AndroidVariant androidVariant = (AndroidVariant) variant;
 
+        Message gcmMessage = createGcmMessage(pushMessage, pushMessageInformationId);
+
+        // send it out.....
+        try {
+            logger.fine("Sending transformed GCM payload: {}", gcmMessage);
+
+            final Sender sender = new Sender(androidVariant.getGoogleKey());
+
+            // send out a message to a batch of devices...
+            processGCM(androidVariant, registrationIDs, gcmMessage, sender);
+
+            logger.fine("Message batch to GCM has been submitted");
+            callback.onSuccess();
+
+        } catch (Exception e) {
+            // GCM exceptions:
+            logger.severe("Error sending payload to GCM server");
+            callback.onError("Error sending payload to GCM server");
+        }
+    }
+
+    /**
+     * Transforms the {@link UnifiedPushMessage} into the GCM payload.
+     */
+    static Message createGcmMessage(UnifiedPushMessage pushMessage, String pushMessageInformationId) {
         // payload builder:
         Builder gcmBuilder = new Message.Builder();
 
@@ -107,25 +132,7 @@ public class GCMPushNotificationSender implements PushNotificationSender {
         //add the aerogear-push-id
         gcmBuilder.addData(InternalUnifiedPushMessage.PUSH_MESSAGE_ID, pushMessageInformationId);
 
-        Message gcmMessage = gcmBuilder.build();
-
-        // send it out.....
-        try {
-            logger.fine("Sending transformed GCM payload: " + gcmMessage);
-
-            final Sender sender = new Sender(androidVariant.getGoogleKey());
-
-            // send out a message to a batch of devices...
-            processGCM(androidVariant, registrationIDs, gcmMessage, sender);
-
-            logger.fine("Message batch to GCM has been submitted");
-            callback.onSuccess();
-
-        } catch (Exception e) {
-            // GCM exceptions:
-            logger.severe("Error sending payload to GCM server");
-            callback.onError("Error sending payload to GCM server");
-        }
+        return gcmBuilder.build();
     }
 
     /**
@@ -133,7 +140,9 @@ public class GCMPushNotificationSender implements PushNotificationSender {
      */
     private void processGCM(AndroidVariant androidVariant, List<String> registrationIDs, Message gcmMessage, Sender sender) throws IOException {
 
-        logger.info(String.format("Sent push notification to GCM Server for %d registrationIDs",registrationIDs.size()));
+        if (logger.isInfoEnabled()) {
+            logger.info("Sent push notification to GCM Server for {} registrationIDs", registrationIDs.size());
+        }
 
         MulticastResult multicastResult = sender.send(gcmMessage, registrationIDs, 0);
 
@@ -169,7 +178,7 @@ public class GCMPushNotificationSender implements PushNotificationSender {
 
             final String errorCodeName = result.getErrorCodeName();
             if (errorCodeName != null) {
-                logger.info(String.format("Processing [%s] error code from GCM response, for registration ID: [%s]", errorCodeName, registrationIDs.get(i)));
+                logger.info("Processing [{}] error code from GCM response, for registration ID: [{}]", errorCodeName, registrationIDs.get(i));
             }
 
             //after sending, lets find tokens that are inactive from now on and need to be replaced with the new given canonical id.
@@ -197,7 +206,7 @@ public class GCMPushNotificationSender implements PushNotificationSender {
                     installation.setDeviceToken(canonicalRegId);
 
                     //update installation with the new token
-                    logger.info(String.format("Based on returned canonical id from GCM, updating Android installations with registration id [%s] with new token [%s] ", registrationIDs.get(i), canonicalRegId));
+                    logger.info("Based on returned canonical id from GCM, updating Android installations with registration id [{}] with new token [{}] ", registrationIDs.get(i), canonicalRegId);
                     clientInstallationService.updateInstallation(installation);
                 }
 
@@ -217,7 +226,7 @@ public class GCMPushNotificationSender implements PushNotificationSender {
 
         if (! inactiveTokens.isEmpty()) {
             // trigger asynchronous deletion:
-            logger.info(String.format("Based on GCM response data and error codes, deleting %d invalid or duplicated Android installations", inactiveTokens.size()));
+            logger.info("Based on GCM response data and error codes, deleting {} invalid or duplicated Android installations", inactiveTokens.size());
             clientInstallationService.removeInstallationsForVariantByDeviceTokens(variantID, inactiveTokens);
         }
     }
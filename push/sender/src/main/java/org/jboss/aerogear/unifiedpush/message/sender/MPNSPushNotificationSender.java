@@ -45,8 +45,30 @@ public class MPNSPushNotificationSender implements PushNotificationSender {
         }
 
         MpnsService mpnsService = MPNS.newService().build();
-        final Message message = pushMessage.getMessage();
 
+        final MpnsNotification notification;
+        try {
+            notification = createNotification(pushMessage.getMessage(), pushMessageInformationId);
+        } catch (IllegalArgumentException e) {
+            senderCallback.onError(e.getMessage());
+            throw e;
+        }
+
+        for (String identifier : clientIdentifiers) {
+            mpnsService.push(identifier, notification);
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Sent push notification to MPNs for {} tokens", clientIdentifiers.size());
+        }
+
+        senderCallback.onSuccess();
+    }
+
+    /**
+     * Transforms the {@link Message} into the MPNS notification of the requested type.
+     */
+    static MpnsNotification createNotification(Message message, String pushMessageInformationId) {
         MpnsNotification notification;
         if (message.getWindows().getType() != null) {
             switch (message.getWindows().getType()) {
@@ -90,7 +112,6 @@ public class MPNSPushNotificationSender implements PushNotificationSender {
                     notification = tile.build();
                     break;
                 default:
-                    senderCallback.onError("unknown type: " + message.getWindows().getType());
                     throw new IllegalArgumentException("unknown type: " + message.getWindows().getType());
             }
         } else {
@@ -98,14 +119,7 @@ public class MPNSPushNotificationSender implements PushNotificationSender {
                     .parameter(createLaunchParam(message.getWindows().getPage(), message.getAlert(), message.getUserData(), pushMessageInformationId))
                     .title(message.getAlert()).build();
         }
-
-        for (String identifier : clientIdentifiers) {
-            mpnsService.push(identifier, notification);
-        }
-
-        logger.info(String.format("Sent push notification to MPNs for %d tokens",clientIdentifiers.size()));
-
-        senderCallback.onSuccess();
+        return notification;
     }
 
     static String createLaunchParam(String page, String message, Map<String, Object> data, String pushMessageInformationId) {
@@ -59,10 +59,13 @@ public class SimplePushNotificationSender implements PushNotificationSender {
             HttpURLConnection conn = null;
             try {
                 // PUT the version payload to the SimplePushServer
-                logger.finest("Sending out SimplePush payload: " + payload);
+                logger.finest("Sending out SimplePush payload: {}", payload);
                 conn = put(clientURL, payload);
                 int simplePushStatusCode = conn.getResponseCode();
-                logger.finest("SimplePush Status: " + simplePushStatusCode);
+                if (logger.isFinestEnabled()) {
+                    // per token, boxing the status would allocate
+                    logger.finest("SimplePush Status: {}", simplePushStatusCode);
+                }
 
                 if (Status.OK.getStatusCode() != simplePushStatusCode) {
                     hasWarning = true;
@@ -79,7 +82,9 @@ public class SimplePushNotificationSender implements PushNotificationSender {
             }
         }
 
-        logger.info(String.format("Sent push notification to SimplePush Server for %d  tokens",tokens.size()));
+        if (logger.isInfoEnabled()) {
+            logger.info("Sent push notification to SimplePush Server for {} tokens", tokens.size());
+        }
 
         if (hasWarning) {
             callback.onError("Error delivering SimplePush payload");
@@ -95,7 +95,9 @@ public class WNSPushNotificationSender implements PushNotificationSender {
                 responses = wnsService.pushToast(channelUris, optional, createSimpleToastMessage(message));
             }
 
-            logger.info(String.format("Sent push notification to WNS for %d  tokens", channelUris.size()));
+            if (logger.isInfoEnabled()) {
+                logger.info("Sent push notification to WNS for {} tokens", channelUris.size());
+            }
 
             for (WnsNotificationResponse response : responses) {
                 if (response.code == HttpServletResponse.SC_GONE) {
@@ -103,7 +105,7 @@ public class WNSPushNotificationSender implements PushNotificationSender {
                 }
             }
             if (!expiredClientIdentifiers.isEmpty()) {
-                logger.info(String.format("Deleting '%d' expired WNS installations", expiredClientIdentifiers.size()));
+                logger.info("Deleting '{}' expired WNS installations", expiredClientIdentifiers.size());
                 clientInstallationService.removeInstallationsForVariantByDeviceTokens(variant.getVariantID(), expiredClientIdentifiers);
             }
             logger.fine("Message to WNS has been submitted");
@@ -18,19 +18,33 @@ package org.jboss.aerogear.unifiedpush.message.util;
 
 import com.google.android.gcm.server.Constants;
 import com.notnoop.apns.internal.Utilities;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
 import org.jboss.aerogear.unifiedpush.message.HealthNetworkService;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.impl.health.BackgroundHealthCheck;
 import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
-import org.jboss.aerogear.unifiedpush.service.impl.health.Ping;
 import org.jboss.aerogear.unifiedpush.service.impl.health.PushNetwork;
 import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 
+import javax.annotation.PostConstruct;
 import javax.ejb.AsyncResult;
-import javax.ejb.Asynchronous;
-import javax.ejb.Stateless;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.jboss.aerogear.unifiedpush.message.sender.APNsPushNotificationSender.CUSTOM_AEROGEAR_APNS_PUSH_HOST;
 import static org.jboss.aerogear.unifiedpush.message.sender.APNsPushNotificationSender.CUSTOM_AEROGEAR_APNS_PUSH_PORT;
@@ -39,9 +53,17 @@ import static org.jboss.aerogear.unifiedpush.message.util.ConfigurationUtils.try
 
 /**
  * Checks the health of the push networks.
+ *
+ * The networks are probed in parallel in the background, with a connect timeout, and the health requests are served
+ * the last known status along with its age, so that a blackholed network does not hold the health endpoint. The
+ * outcome of the deliveries to each network since the previous check is folded into its status: a network accepting
+ * connections but failing most of the deliveries is reported with a warning.
  */
-@Stateless
-public class HealthNetworkServiceImpl implements HealthNetworkService {
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class HealthNetworkServiceImpl extends BackgroundHealthCheck<Void> implements HealthNetworkService {
     private static final String customAerogearApnsPushHost = tryGetProperty(CUSTOM_AEROGEAR_APNS_PUSH_HOST);
     private static final Integer customAerogearApnsPushPort = tryGetIntegerProperty(CUSTOM_AEROGEAR_APNS_PUSH_PORT);
 
@@ -49,41 +71,145 @@ public class HealthNetworkServiceImpl implements HealthNetworkService {
     public static final String WNS_SEND_ENDPOINT = "db3.notify.windows.com";
     private static final List<PushNetwork> PUSH_NETWORKS = new ArrayList<PushNetwork>(Arrays.asList(
             new PushNetwork[]{
-                    new PushNetwork("Google Cloud Messaging", GCM_SEND_ENDPOINT, 443),
-                    new PushNetwork("Apple Push Network Sandbox", Utilities.SANDBOX_GATEWAY_HOST, Utilities.SANDBOX_GATEWAY_PORT),
-                    new PushNetwork("Apple Push Network Production", Utilities.PRODUCTION_GATEWAY_HOST, Utilities.PRODUCTION_GATEWAY_PORT),
-                    new PushNetwork("Windows Push Network", WNS_SEND_ENDPOINT, 443)
+                    new PushNetwork("Google Cloud Messaging", GCM_SEND_ENDPOINT, 443, VariantType.ANDROID),
+                    new PushNetwork("Apple Push Network Sandbox", Utilities.SANDBOX_GATEWAY_HOST, Utilities.SANDBOX_GATEWAY_PORT, VariantType.IOS),
+                    new PushNetwork("Apple Push Network Production", Utilities.PRODUCTION_GATEWAY_HOST, Utilities.PRODUCTION_GATEWAY_PORT, VariantType.IOS),
+                    new PushNetwork("Windows Push Network", WNS_SEND_ENDPOINT, 443, VariantType.WINDOWS_WNS)
             }
     ));
 
     static {
         if (customAerogearApnsPushHost != null) {
             final int port = customAerogearApnsPushPort != null ? customAerogearApnsPushPort : Utilities.SANDBOX_GATEWAY_PORT;
-            PUSH_NETWORKS.add(new PushNetwork("Proxy host", customAerogearApnsPushHost, port));
+            PUSH_NETWORKS.add(new PushNetwork("Proxy host", customAerogearApnsPushHost, port, VariantType.IOS));
         }
     }
 
-    @Asynchronous
+    /**
+     * Interval of the background check, see {@link #refresh()}
+     */
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Deliveries needed since the previous check before their error rate is taken into account
+     */
+    static final long MIN_DELIVERIES = 100;
+
+    @Inject
+    private Configuration configuration;
+
+    @Inject
+    private PipelineMetrics pipelineMetrics;
+
+    @Inject
+    private PushNetworkProbe probe;
+
+    private int timeoutMillis;
+    private int errorPercent;
+
+    // deliveries counted up to the previous check, by variant type and outcome (0 success, 1 failure)
+    private final long[][] deliveries = new long[VariantType.values().length][2];
+
+    public HealthNetworkServiceImpl() {
+        super(REFRESH_INTERVAL_MILLIS);
+    }
+
+    @PostConstruct
+    public void init() {
+        timeoutMillis = configuration.getProperty(Configuration.PROP_HEALTH_NETWORK_TIMEOUT_MILLIS, 2000);
+        errorPercent = configuration.getProperty(Configuration.PROP_HEALTH_NETWORK_ERROR_PERCENT, 50);
+    }
+
+    /**
+     * Returns the last known status of the push networks immediately, only the first request waits for the check.
+     */
     @Override
     public Future<List<HealthDetails>> networkStatus() {
-        List<HealthDetails> results = new ArrayList<HealthDetails>(PUSH_NETWORKS.size());
+        return new AsyncResult<List<HealthDetails>>(currentResults());
+    }
 
+    /**
+     * Job that probes all push networks in parallel, and waits at most a little longer than the connect timeout for
+     * them (the name resolution may take longer).
+     *
+     * Note: Occurring every 30 seconds, stale results are reported with a warning after three missed runs.
+     */
+    @Override
+    @Schedule(hour = "*", minute = "*", second = "*/30", persistent = false)
+    public synchronized void refresh() {
+        final long start = System.currentTimeMillis();
+        final List<Future<HealthDetails>> probes = new ArrayList<Future<HealthDetails>>(PUSH_NETWORKS.size());
         for (PushNetwork pushNetwork : PUSH_NETWORKS) {
-            HealthDetails details = new HealthDetails();
-            details.start();
-            details.setDescription(pushNetwork.getName());
-            if (Ping.isReachable(pushNetwork.getHost(), pushNetwork.getPort())) {
-                details.setTestStatus(Status.OK);
-                details.setResult("online");
-            } else {
-                details.setResult(String.format("Network not reachable '%s'", pushNetwork.getName()));
-                details.setTestStatus(Status.WARN);
+            probes.add(probe.probe(pushNetwork, timeoutMillis));
+        }
+
+        final long deadline = start + timeoutMillis + 1000;
+        final long[][] delta = deliveriesSinceLastRefresh();
+        final List<HealthDetails> status = new ArrayList<HealthDetails>(PUSH_NETWORKS.size());
+        for (int i = 0; i < PUSH_NETWORKS.size(); i++) {
+            final PushNetwork pushNetwork = PUSH_NETWORKS.get(i);
+            HealthDetails details;
+            try {
+                details = probes.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                probes.get(i).cancel(true);
+                details = unreachable(pushNetwork, start, "timed out");
+            } catch (ExecutionException e) {
+                details = unreachable(pushNetwork, start, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                details = unreachable(pushNetwork, start, "interrupted");
+            }
+
+            if (pushNetwork.getVariantType() != null) {
+                final long[] outcomes = delta[pushNetwork.getVariantType().ordinal()];
+                foldDeliveries(details, outcomes[0], outcomes[1], errorPercent);
             }
+            status.add(details);
+        }
+
+        publish(status, null, start);
+    }
 
-            results.add(details);
-            details.stop();
+    /**
+     * Appends the outcome of the deliveries to the result of the check, and warns if too many of them failed.
+     */
+    static void foldDeliveries(HealthDetails details, long succeeded, long failed, int errorPercent) {
+        final long total = succeeded + failed;
+        if (total == 0) {
+            return;
         }
 
-        return new AsyncResult<List<HealthDetails>>(results);
+        final long percent = failed * 100 / total;
+        details.setResult(String.format("%s, %d%% of %d deliveries failed since the previous check",
+                details.getResult(), percent, total));
+        if (total >= MIN_DELIVERIES && percent >= errorPercent) {
+            details.setTestStatus(Status.WARN);
+        }
+    }
+
+    private long[][] deliveriesSinceLastRefresh() {
+        final VariantType[] types = VariantType.values();
+        final long[][] delta = new long[types.length][2];
+        for (VariantType type : types) {
+            final long[] previous = deliveries[type.ordinal()];
+            final long succeeded = pipelineMetrics.getItems(PipelineStage.NETWORK_SEND, type, true);
+            final long failed = pipelineMetrics.getItems(PipelineStage.NETWORK_SEND, type, false);
+
+            delta[type.ordinal()][0] = succeeded - previous[0];
+            delta[type.ordinal()][1] = failed - previous[1];
+            previous[0] = succeeded;
+            previous[1] = failed;
+        }
+        return delta;
+    }
+
+    private static HealthDetails unreachable(PushNetwork pushNetwork, long start, String reason) {
+        final HealthDetails details = new HealthDetails();
+        details.setDescription(pushNetwork.getName());
+        details.setTestStatus(Status.WARN);
+        details.setResult(String.format("Network not reachable '%s': %s", pushNetwork.getName(), reason));
+        details.setRuntime(System.currentTimeMillis() - start);
+        return details;
     }
 }
@@ -34,6 +34,10 @@ import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.jboss.aerogear.unifiedpush.message.exception.MessageDeliveryException;
+import org.jboss.aerogear.unifiedpush.message.jms.JmsPayloads;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
 
 /**
  * Utility class for sending and receiving JMS messages
@@ -242,7 +246,12 @@ public class JmsClient {
                 for (Entry<String, String> property : properties.entrySet()) {
                     objectMessage.setStringProperty(property.getKey(), property.getValue());
                 }
+                FlightEvent event = FlightRecorderEvents.begin(FlightEventType.JMS_ENQUEUE);
                 messageProducer.send(objectMessage);
+                if (event.isEnabled()) {
+                    FlightRecorderEvents.jmsEnqueued(event, JmsPayloads.queueNameOf(destination),
+                            JmsPayloads.pushMessageInformationIdOf(message), message);
+                }
             } catch (JMSException e) {
                 throw new MessageDeliveryException("Failed to queue push message for further processing", e);
             } finally {
@@ -0,0 +1,51 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.util;
+
+import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
+import org.jboss.aerogear.unifiedpush.service.impl.health.Ping;
+import org.jboss.aerogear.unifiedpush.service.impl.health.PushNetwork;
+import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import java.util.concurrent.Future;
+
+/**
+ * Checks whether a push network accepts connections, the checks of several networks run in parallel.
+ */
+@Stateless
+public class PushNetworkProbe {
+
+    @Asynchronous
+    public Future<HealthDetails> probe(PushNetwork pushNetwork, int timeoutMillis) {
+        HealthDetails details = new HealthDetails();
+        details.start();
+        details.setDescription(pushNetwork.getName());
+        if (Ping.isReachable(pushNetwork.getHost(), pushNetwork.getPort(), timeoutMillis)) {
+            details.setTestStatus(Status.OK);
+            details.setResult("online");
+        } else {
+            details.setResult(String.format("Network not reachable '%s'", pushNetwork.getName()));
+            details.setTestStatus(Status.WARN);
+        }
+        details.stop();
+
+        return new AsyncResult<HealthDetails>(details);
+    }
+}
@@ -40,6 +40,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
@@ -116,6 +117,61 @@ public class TestMetricsCollector extends AbstractJMSTest {
         assertNull(receive().withTimeout(100).withSelector("variantID = '%s'", variantID2+":"+pushMetric.getId()).from(allBatchesLoaded));
     }
 
+    @Test
+    public void testMergeTimingsOfBatches(PushMessageInformationDao pushMessageInformationDao) {
+        // given
+        PushMessageInformation pushMetric = new PushMessageInformation();
+        pushMetric.setTotalVariants(1);
+        String variantID = UUID.randomUUID().toString();
+        String variantPushMessageID = variantID + ":" + pushMetric.getId();
+
+        // the batch arriving last has the earlier first and the later last values of some timings, and none of others
+        VariantMetricInformation firstArrived = new VariantMetricInformation();
+        firstArrived.setPushMessageInformation(pushMetric);
+        firstArrived.setVariantID(variantID);
+        firstArrived.setServedBatches(1);
+        firstArrived.setFirstTokenLoaded(200L);
+        firstArrived.setLastTokenLoaded(300L);
+        firstArrived.setLastBatchDispatched(400L);
+        firstArrived.setFirstNetworkAck(500L);
+        firstArrived.setLastNetworkAck(600L);
+        VariantMetricInformation lastArrived = new VariantMetricInformation();
+        lastArrived.setPushMessageInformation(pushMetric);
+        lastArrived.setVariantID(variantID);
+        lastArrived.setServedBatches(1);
+        lastArrived.setFirstTokenLoaded(100L);
+        lastArrived.setLastTokenLoaded(250L);
+        lastArrived.setFirstBatchDispatched(150L);
+        lastArrived.setLastNetworkAck(700L);
+        when(pushMessageInformationDao.find(pushMetric.getId())).thenReturn(pushMetric);
+
+        send(new BatchLoadedEvent(variantPushMessageID)).withProperty("variantID", variantPushMessageID).to(batchLoadedQueue);
+        send(new BatchLoadedEvent(variantPushMessageID)).withProperty("variantID", variantPushMessageID).to(batchLoadedQueue);
+        send(new AllBatchesLoadedEvent(variantPushMessageID)).withProperty("variantID", variantPushMessageID).to(allBatchesLoaded);
+
+        // when
+        metricsCollector.collectMetrics(firstArrived);
+
+        // then
+        assertNull(firstArrived.getCompleted());
+        assertEquals(0, pushMetric.getServedVariants().intValue());
+
+        // when
+        metricsCollector.collectMetrics(lastArrived);
+
+        // then
+        assertNotNull(firstArrived.getCompleted());
+        assertEquals(1, pushMetric.getServedVariants().intValue());
+        assertEquals(1, pushMetric.getVariantInformations().size());
+        assertEquals(2, firstArrived.getServedBatches().intValue());
+        assertEquals(100L, firstArrived.getFirstTokenLoaded().longValue());
+        assertEquals(300L, firstArrived.getLastTokenLoaded().longValue());
+        assertEquals(150L, firstArrived.getFirstBatchDispatched().longValue());
+        assertEquals(400L, firstArrived.getLastBatchDispatched().longValue());
+        assertEquals(500L, firstArrived.getFirstNetworkAck().longValue());
+        assertEquals(700L, firstArrived.getLastNetworkAck().longValue());
+    }
+
     public void observeVariantCompleted(@Observes VariantCompletedEvent variantCompleted) {
         variantsCompleted.countDown();
     }
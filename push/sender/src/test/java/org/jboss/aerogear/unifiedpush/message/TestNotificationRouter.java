@@ -22,6 +22,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.List;
 
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.event.Observes;
@@ -128,10 +129,25 @@ public class TestNotificationRouter {
         assertEquals("the 2 messages should be dispatched", 2, messageCounter.getCounter());
     }
 
+    @Test
+    public void testSeveralMessagesWithVariantsOfDifferentType() {
+        app.getVariants().add(new AndroidVariant());
+        app.getVariants().add(new iOSVariant());
+        final List<String> ids = router.submit(app, Arrays.asList(message, new InternalUnifiedPushMessage()));
+        assertEquals("every message should have an id", 2, ids.size());
+        assertEquals("the 4 messages should be dispatched", 4, messageCounter.getCounter());
+    }
+
     public void observeMessageHolderWithVariants(@Observes @DispatchToQueue MessageHolderWithVariants msg) {
         messageCounter.increment();
     }
 
+    public void observeMessageHoldersWithVariants(@Observes @DispatchToQueue List<MessageHolderWithVariants> msgs) {
+        for (int i = 0; i < msgs.size(); i++) {
+            messageCounter.increment();
+        }
+    }
+
     @RequestScoped
     public static class Counter {
         private volatile int counter = 0;
@@ -0,0 +1,146 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.jms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
+import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+import org.junit.Test;
+
+public class QueueMonitoringServiceImplTest {
+
+    @Test
+    public void deepQueueWithOldMessagesIsDegraded() {
+        //given
+        final QueueStatistics queue = queue("APNsTokenBatchQueue", 12000, 2, 420000);
+
+        //when
+        QueueMonitoringServiceImpl.evaluate(queue, true, 10000, 300000);
+
+        //then
+        assertThat(queue.getStatus()).isEqualTo(Status.WARN);
+        assertThat(queue.getProblem()).isEqualTo("12000 messages waiting, oldest message waiting 420 seconds");
+    }
+
+    @Test
+    public void listenedQueueWithoutConsumersIsDegraded() {
+        //given
+        final QueueStatistics listened = queue("GCMTokenBatchQueue", 5, 0, 1000);
+        final QueueStatistics polled = queue("BatchLoadedQueue", 5, 0, 1000);
+
+        //when
+        QueueMonitoringServiceImpl.evaluate(listened, true, 10000, 300000);
+        QueueMonitoringServiceImpl.evaluate(polled, false, 10000, 300000);
+
+        //then
+        assertThat(listened.getStatus()).isEqualTo(Status.WARN);
+        assertThat(listened.getProblem()).isEqualTo("no consumers");
+        assertThat(polled.getStatus()).isEqualTo(Status.OK);
+        assertThat(polled.getProblem()).isNull();
+    }
+
+    @Test
+    public void unknownConsumersAreNotDegraded() {
+        //given
+        final QueueStatistics queue = queue("MetricsQueue", 5, -1, 1000);
+
+        //when
+        QueueMonitoringServiceImpl.evaluate(queue, true, 10000, 300000);
+
+        //then
+        assertThat(queue.getStatus()).isEqualTo(Status.OK);
+    }
+
+    @Test
+    public void ratesSincePreviousSample() {
+        //given
+        final QueueStatistics previous = queue("APNsTokenBatchQueue", 100, 2, 0);
+        previous.setMessagesAdded(1000);
+        final QueueStatistics current = queue("APNsTokenBatchQueue", 400, 2, 0);
+        current.setMessagesAdded(1600);
+
+        //when
+        QueueMonitoringServiceImpl.rates(previous, current, 30000);
+
+        //then
+        assertThat(current.getAddedPerSecond()).isEqualTo(20.0);
+        assertThat(current.getConsumedPerSecond()).isEqualTo(10.0);
+    }
+
+    @Test
+    public void noRatesAfterBrokerRestart() {
+        //given
+        final QueueStatistics previous = queue("APNsTokenBatchQueue", 100, 2, 0);
+        previous.setMessagesAdded(1000);
+        final QueueStatistics current = queue("APNsTokenBatchQueue", 0, 2, 0);
+        current.setMessagesAdded(10);
+
+        //when
+        QueueMonitoringServiceImpl.rates(previous, current, 30000);
+
+        //then
+        assertThat(current.getAddedPerSecond()).isEqualTo(-1.0);
+        assertThat(current.getConsumedPerSecond()).isEqualTo(-1.0);
+    }
+
+    @Test
+    public void healthListsDegradedQueues() {
+        //given
+        final QueueStatistics healthy = queue("GCMTokenBatchQueue", 10, 2, 2000);
+        final QueueStatistics degraded = queue("APNsTokenBatchQueue", 12000, 2, 1000);
+        QueueMonitoringServiceImpl.evaluate(healthy, true, 10000, 300000);
+        QueueMonitoringServiceImpl.evaluate(degraded, true, 10000, 300000);
+
+        //when
+        final HealthDetails ok = QueueMonitoringServiceImpl.summarize(Arrays.asList(healthy));
+        final HealthDetails warn = QueueMonitoringServiceImpl.summarize(Arrays.asList(healthy, degraded));
+
+        //then
+        assertThat(ok.getTestStatus()).isEqualTo(Status.OK);
+        assertThat(ok.getResult()).isEqualTo("10 messages waiting in 1 queues, the oldest for 2 seconds");
+        assertThat(warn.getTestStatus()).isEqualTo(Status.WARN);
+        assertThat(warn.getResult()).isEqualTo("Queues falling behind: APNsTokenBatchQueue: 12000 messages waiting");
+    }
+
+    @Test
+    public void unknownValuesAreNotExported() {
+        //given
+        final QueueStatistics queue = queue("MetricsQueue", 5, -1, 1500);
+
+        //when
+        final StringBuilder out = new StringBuilder();
+        QueueMonitoringServiceImpl.writePrometheus(Arrays.asList(queue), out);
+
+        //then
+        assertThat(out.toString())
+                .contains("ups_jms_queue_messages{queue=\"MetricsQueue\"} 5\n")
+                .contains("ups_jms_queue_oldest_message_age_seconds{queue=\"MetricsQueue\"} 1.500\n")
+                .contains("ups_jms_queue_degraded{queue=\"MetricsQueue\"} 0\n")
+                .doesNotContain("ups_jms_queue_consumers{");
+    }
+
+    private static QueueStatistics queue(String name, long messages, int consumers, long oldestMessageAge) {
+        final QueueStatistics queue = new QueueStatistics(name);
+        queue.setMessageCount(messages);
+        queue.setConsumerCount(consumers);
+        queue.setOldestMessageAge(oldestMessageAge);
+        return queue;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.loadtest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+
+/**
+ * Bulk generates installations of realistic shape for load testing: device tokens in the format of the variant's
+ * push network, a device type and operating system, aliases shared by several devices and a few categories per device.
+ *
+ * The rows are written with plain JDBC batches, since going through JPA would take longer than the sends being
+ * measured. The generated data is reproducible for a given seed.
+ */
+public class InstallationGenerator {
+
+    private static final String ALPHANUMERIC = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String HEX = "0123456789abcdef";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMMIT_INTERVAL = 10000;
+
+    /**
+     * Category ids are assigned from here on, to stay clear of the ids handed out by the category sequence
+     */
+    private static final long FIRST_CATEGORY_ID = 1000000L;
+
+    private final DataSource dataSource;
+    private final Random random;
+
+    private int devicesPerAlias = 3;
+    private int maxCategoriesPerDevice = 3;
+    private String[] categories = {"news", "sports", "weather", "traffic", "deals", "alerts", "music", "movies"};
+
+    public InstallationGenerator(DataSource dataSource, long seed) {
+        this.dataSource = dataSource;
+        this.random = new Random(seed);
+    }
+
+    public InstallationGenerator devicesPerAlias(int devicesPerAlias) {
+        this.devicesPerAlias = Math.max(1, devicesPerAlias);
+        return this;
+    }
+
+    public InstallationGenerator categories(int maxCategoriesPerDevice, String... categories) {
+        this.maxCategoriesPerDevice = Math.min(maxCategoriesPerDevice, categories.length);
+        this.categories = categories;
+        return this;
+    }
+
+    /**
+     * Inserts the categories, they are shared by the installations of all variants.
+     *
+     * @return the ids of the inserted categories, in the order of the names
+     */
+    public long[] createCategories() throws SQLException {
+        final long[] ids = new long[categories.length];
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO category (id, name) VALUES (?, ?)")) {
+            for (int i = 0; i < categories.length; i++) {
+                ids[i] = FIRST_CATEGORY_ID + i;
+                insert.setLong(1, ids[i]);
+                insert.setString(2, categories[i]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return ids;
+    }
+
+    /**
+     * Inserts the given number of enabled installations for the variant.
+     *
+     * @param variant     the persisted variant the installations are registered for
+     * @param count       number of installations to insert
+     * @param categoryIds ids of the categories to pick from, see {@link #createCategories()}
+     */
+    public void createInstallations(Variant variant, int count, long[] categoryIds) throws SQLException {
+        final VariantType type = variant.getType();
+
+        try (Connection connection = dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement installation = connection.prepareStatement("INSERT INTO installation "
+                    + "(id, alias, device_token, device_type, enabled, operating_system, os_version, platform, variant_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement category = connection.prepareStatement(
+                    "INSERT INTO installation_category (installation_id, category_id) VALUES (?, ?)")) {
+
+                for (int i = 0; i < count; i++) {
+                    final String id = UUID.randomUUID().toString();
+
+                    installation.setString(1, id);
+                    installation.setString(2, "user" + (i / devicesPerAlias) + "@example.com");
+                    installation.setString(3, token(type, random));
+                    installation.setString(4, deviceType(type));
+                    installation.setBoolean(5, true);
+                    installation.setString(6, operatingSystem(type));
+                    installation.setString(7, (1 + random.nextInt(10)) + "." + random.nextInt(5));
+                    installation.setString(8, type.getTypeName());
+                    installation.setString(9, variant.getId());
+                    installation.addBatch();
+
+                    // pick distinct categories, starting at a random one
+                    final int categoryCount = random.nextInt(maxCategoriesPerDevice + 1);
+                    final int firstCategory = random.nextInt(categoryIds.length);
+                    for (int c = 0; c < categoryCount; c++) {
+                        category.setString(1, id);
+                        category.setLong(2, categoryIds[(firstCategory + c) % categoryIds.length]);
+                        category.addBatch();
+                    }
+
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        installation.executeBatch();
+                        category.executeBatch();
+                    }
+                    if ((i + 1) % COMMIT_INTERVAL == 0) {
+                        connection.commit();
+                    }
+                }
+                installation.executeBatch();
+                category.executeBatch();
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Creates a random device token in the format issued by the push network of the given type.
+     */
+    public static String token(VariantType type, Random random) {
+        switch (type) {
+            case IOS:
+                return random(HEX, 64, random);
+            case ANDROID:
+                return "APA91b" + random(ALPHANUMERIC + "-_", 146, random);
+            case ADM:
+                return "amzn1.adm-registration.v3." + random(ALPHANUMERIC, 200, random);
+            case WINDOWS_WNS:
+                return "https://db5.notify.windows.com/?token=" + random(ALPHANUMERIC, 120, random);
+            case WINDOWS_MPNS:
+                return "http://s.notify.live.net/u/1/db5/" + random(ALPHANUMERIC, 120, random);
+            case SIMPLE_PUSH:
+                return "https://updates.push.services.mozilla.com/update/" + random(ALPHANUMERIC, 64, random);
+            default:
+                throw new IllegalArgumentException("Unsupported variant type: " + type);
+        }
+    }
+
+    private String deviceType(VariantType type) {
+        switch (type) {
+            case IOS:
+                return random.nextInt(4) == 0 ? "iPad" : "iPhone";
+            case ANDROID:
+            case ADM:
+                return random.nextInt(4) == 0 ? "AndroidTablet" : "AndroidPhone";
+            case SIMPLE_PUSH:
+                return "Web";
+            default:
+                return "WindowsPhone";
+        }
+    }
+
+    private static String operatingSystem(VariantType type) {
+        switch (type) {
+            case IOS:
+                return "iOS";
+            case ANDROID:
+            case ADM:
+                return "Android";
+            case SIMPLE_PUSH:
+                return "Firefox OS";
+            default:
+                return "Windows";
+        }
+    }
+
+    private static String random(String chars, int length, Random random) {
+        final char[] value = new char[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = chars.charAt(random.nextInt(chars.length()));
+        }
+        return new String(value);
+    }
+}
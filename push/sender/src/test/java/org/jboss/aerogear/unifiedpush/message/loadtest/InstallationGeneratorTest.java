@@ -0,0 +1,53 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.api.validation.DeviceTokenValidator;
+import org.junit.Test;
+
+public class InstallationGeneratorTest {
+
+    @Test
+    public void generatesValidTokensForEveryVariantType() {
+        final Random random = new Random(42);
+
+        for (VariantType type : VariantType.values()) {
+            for (int i = 0; i < 100; i++) {
+                //when
+                final String token = InstallationGenerator.token(type, random);
+
+                //then
+                assertThat(DeviceTokenValidator.isValidDeviceTokenForVariant(token, type)).as(type + " token " + token).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void generatesSameTokensForSameSeed() {
+        //when
+        final String first = InstallationGenerator.token(VariantType.ANDROID, new Random(7));
+        final String second = InstallationGenerator.token(VariantType.ANDROID, new Random(7));
+
+        //then
+        assertThat(first).isEqualTo(second).startsWith("APA91b").hasSize(152);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.loadtest;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.message.configuration.SenderConfiguration;
+import org.jboss.aerogear.unifiedpush.message.configuration.SenderConfigurationProvider;
+import org.jboss.aerogear.unifiedpush.message.sender.SenderType;
+
+/**
+ * Replaces {@link SenderConfigurationProvider} in the load test deployment, so that several configurations can be
+ * measured within a single deployment: every push network is configured with the configuration set last.
+ */
+@ApplicationScoped
+public class LoadTestSenderConfiguration {
+
+    private volatile SenderConfiguration current = new SenderConfiguration(10, 1000);
+
+    public SenderConfiguration get() {
+        return current;
+    }
+
+    public void set(SenderConfiguration configuration) {
+        this.current = configuration;
+    }
+
+    @Produces @SenderType(VariantType.ANDROID)
+    public SenderConfiguration produceAndroidConfiguration() {
+        return current;
+    }
+
+    @Produces @SenderType(VariantType.ADM)
+    public SenderConfiguration produceAdmConfiguration() {
+        return current;
+    }
+
+    @Produces @SenderType(VariantType.IOS)
+    public SenderConfiguration produceIosConfiguration() {
+        return current;
+    }
+
+    @Produces @SenderType(VariantType.SIMPLE_PUSH)
+    public SenderConfiguration produceSimplePushConfiguration() {
+        return current;
+    }
+
+    @Produces @SenderType(VariantType.WINDOWS_WNS)
+    public SenderConfiguration produceWindowsWnsConfiguration() {
+        return current;
+    }
+
+    @Produces @SenderType(VariantType.WINDOWS_MPNS)
+    public SenderConfiguration produceWindowsMpnsConfiguration() {
+        return current;
+    }
+}
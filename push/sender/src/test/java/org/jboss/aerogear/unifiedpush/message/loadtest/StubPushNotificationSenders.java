@@ -0,0 +1,151 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.loadtest;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
+import org.jboss.aerogear.unifiedpush.message.sender.NotificationSenderCallback;
+import org.jboss.aerogear.unifiedpush.message.sender.PushNotificationSender;
+import org.jboss.aerogear.unifiedpush.message.sender.SenderType;
+
+/**
+ * Stands in for the push networks in the load test deployment: the senders acknowledge every batch, optionally after
+ * a fixed latency, and record how many batches and tokens were sent and when.
+ */
+@ApplicationScoped
+public class StubPushNotificationSenders {
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong firstSend = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastSend = new AtomicLong();
+
+    private volatile long latencyMillis;
+
+    public void reset(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        batches.set(0);
+        tokens.set(0);
+        firstSend.set(Long.MAX_VALUE);
+        lastSend.set(0);
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getTokens() {
+        return tokens.get();
+    }
+
+    /**
+     * @return epoch millis of the first batch handed to a sender, or 0 if there was none
+     */
+    public long getFirstSend() {
+        final long first = firstSend.get();
+        return first == Long.MAX_VALUE ? 0 : first;
+    }
+
+    /**
+     * @return epoch millis of the last batch acknowledged by a sender, or 0 if there was none
+     */
+    public long getLastSend() {
+        return lastSend.get();
+    }
+
+    @Produces @SenderType(VariantType.ANDROID)
+    public PushNotificationSender produceAndroidSender() {
+        return new StubSender(this);
+    }
+
+    @Produces @SenderType(VariantType.ADM)
+    public PushNotificationSender produceAdmSender() {
+        return new StubSender(this);
+    }
+
+    @Produces @SenderType(VariantType.IOS)
+    public PushNotificationSender produceIosSender() {
+        return new StubSender(this);
+    }
+
+    @Produces @SenderType(VariantType.SIMPLE_PUSH)
+    public PushNotificationSender produceSimplePushSender() {
+        return new StubSender(this);
+    }
+
+    @Produces @SenderType(VariantType.WINDOWS_WNS)
+    public PushNotificationSender produceWindowsWnsSender() {
+        return new StubSender(this);
+    }
+
+    @Produces @SenderType(VariantType.WINDOWS_MPNS)
+    public PushNotificationSender produceWindowsMpnsSender() {
+        return new StubSender(this);
+    }
+
+    private void sent(long start, int tokenCount) {
+        batches.incrementAndGet();
+        tokens.addAndGet(tokenCount);
+
+        long first;
+        while (start < (first = firstSend.get()) && !firstSend.compareAndSet(first, start)) {
+            // retry
+        }
+        final long end = System.currentTimeMillis();
+        long last;
+        while (end > (last = lastSend.get()) && !lastSend.compareAndSet(last, end)) {
+            // retry
+        }
+    }
+
+    /**
+     * Not a bean by itself (no default constructor), it is only available through the qualified producers.
+     */
+    static class StubSender implements PushNotificationSender {
+
+        private final StubPushNotificationSenders recorder;
+
+        StubSender(StubPushNotificationSenders recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void sendPushMessage(Variant variant, Collection<String> clientIdentifiers, UnifiedPushMessage pushMessage,
+                                    String pushMessageInformationId, NotificationSenderCallback senderCallback) {
+            final long start = System.currentTimeMillis();
+            final long latency = recorder.latencyMillis;
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    senderCallback.onError("Interrupted");
+                    return;
+                }
+            }
+            recorder.sent(start, clientIdentifiers.size());
+            senderCallback.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import javax.transaction.UserTransaction;
+
+import org.jboss.aerogear.unifiedpush.api.AdmVariant;
+import org.jboss.aerogear.unifiedpush.api.AndroidVariant;
+import org.jboss.aerogear.unifiedpush.api.PushApplication;
+import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
+import org.jboss.aerogear.unifiedpush.api.SimplePushVariant;
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.api.VariantMetricInformation;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.api.WindowsMPNSVariant;
+import org.jboss.aerogear.unifiedpush.api.WindowsWNSVariant;
+import org.jboss.aerogear.unifiedpush.api.iOSVariant;
+import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.jboss.aerogear.unifiedpush.message.InternalUnifiedPushMessage;
+import org.jboss.aerogear.unifiedpush.message.MetricsCollector;
+import org.jboss.aerogear.unifiedpush.message.NotificationDispatcher;
+import org.jboss.aerogear.unifiedpush.message.NotificationRouter;
+import org.jboss.aerogear.unifiedpush.message.TokenLoader;
+import org.jboss.aerogear.unifiedpush.message.configuration.SenderConfiguration;
+import org.jboss.aerogear.unifiedpush.message.event.PushMessageCompletedEvent;
+import org.jboss.aerogear.unifiedpush.message.jms.MessageHolderWithVariantsConsumer;
+import org.jboss.aerogear.unifiedpush.message.sender.NotificationSenderCallback;
+import org.jboss.aerogear.unifiedpush.message.sender.PushNotificationSender;
+import org.jboss.aerogear.unifiedpush.message.sender.SenderType;
+import org.jboss.aerogear.unifiedpush.message.sender.SenderTypeLiteral;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
+import org.jboss.aerogear.unifiedpush.test.archive.UnifiedPushSenderArchive;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the push pipeline (router, token loading, batching, dispatching and metrics collection) against a
+ * database of generated installations, with {@link StubPushNotificationSenders} in place of the push networks.
+ *
+ * For each of the configured {@link SenderConfiguration}s a message is sent to all the installations, and the
+ * following is reported from the delivery timeline of the message: tokens loaded per second, batches dispatched per
+ * second and the time from submitting the message until all of its variants were completed.
+ *
+ * The test is excluded from the regular build, run it with <tt>mvn test -Ptest,loadtest</tt>. It is configured with the
+ * system properties below, which are passed to the container as <tt>loadtest.properties</tt>:
+ * <ul>
+ *     <li><tt>ups.loadtest.installations</tt> - installations per variant (default 20000)</li>
+ *     <li><tt>ups.loadtest.variantTypes</tt> - one variant is created per type (default <tt>android,ios</tt>)</li>
+ *     <li><tt>ups.loadtest.configurations</tt> - <tt>batchesToLoad x batchSize</tt> pairs to measure
+ *     (default <tt>10x1000,3x2000,1x10000</tt>)</li>
+ *     <li><tt>ups.loadtest.senderLatencyMillis</tt> - time a stub sender takes per batch (default 0)</li>
+ *     <li><tt>ups.loadtest.timeoutMinutes</tt> - time a message may take to complete (default 30)</li>
+ *     <li><tt>ups.loadtest.report</tt> - CSV file the results are appended to
+ *     (default <tt>target/pipeline-load-report.csv</tt>)</li>
+ * </ul>
+ */
+@RunWith(Arquillian.class)
+public class TestPipelineLoad {
+
+    private static final String SETTINGS = "loadtest.properties";
+    private static final String PREFIX = "ups.loadtest.";
+
+    /**
+     * the production MDB wiring, so that the queues are consumed just like in the server
+     */
+    private static final String PRODUCTION_EJB_DESCRIPTOR = "../../servers/ups-wildfly/src/main/webapp/WEB-INF/jboss-ejb3.xml";
+
+    private static final Set<String> completedMessages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Deployment
+    public static WebArchive archive() {
+        return UnifiedPushSenderArchive.forTestClass(TestPipelineLoad.class)
+                .withMessaging()
+                    .addClasses(NotificationRouter.class, TokenLoader.class, NotificationDispatcher.class, MetricsCollector.class)
+                    .addPackage(MessageHolderWithVariantsConsumer.class.getPackage())
+                    .addClasses(PushNotificationSender.class, NotificationSenderCallback.class, SenderType.class, SenderTypeLiteral.class)
+                    .addClasses(SenderConfiguration.class)
+                    .addPackage(TestPipelineLoad.class.getPackage())
+                    .addAsWebInfResource(new File(PRODUCTION_EJB_DESCRIPTOR), "jboss-ejb3.xml")
+                    .addAsResource(new StringAsset(settings()), SETTINGS)
+                .addMavenDependencies("org.jboss.aerogear.unifiedpush:unifiedpush-model-jpa")
+                .addMavenDependencies("commons-io:commons-io")
+                .addMavenDependencies("org.keycloak:keycloak-core")
+                .addPackages(true, Configuration.class.getPackage())
+                .addAsLibrary("org.jboss.aerogear.unifiedpush:unifiedpush-model-jpa",
+                        new String[] { "META-INF/persistence.xml", "test-data.sql" },
+                        new String[] { "META-INF/test-persistence.xml", "META-INF/test-data.sql" })
+                .addAsWebInfResource("META-INF/test-ds.xml", "test-ds.xml")
+                .addAsResource("default.properties")
+                .as(WebArchive.class);
+    }
+
+    @Inject
+    private NotificationRouter router;
+
+    @Inject
+    private PushMessageMetricsService metricsService;
+
+    @Inject
+    private PushApplicationDao pushApplicationDao;
+
+    @Inject
+    private VariantDao variantDao;
+
+    @Inject
+    private LoadTestSenderConfiguration senderConfiguration;
+
+    @Inject
+    private StubPushNotificationSenders senders;
+
+    @Resource
+    private UserTransaction transaction;
+
+    @Resource(mappedName = "java:jboss/datasources/UnifiedPushDS")
+    private DataSource dataSource;
+
+    @Test
+    public void measure() throws Exception {
+        final Properties settings = new Properties();
+        try (InputStream in = TestPipelineLoad.class.getClassLoader().getResourceAsStream(SETTINGS)) {
+            settings.load(in);
+        }
+        final int installations = Integer.parseInt(settings.getProperty(PREFIX + "installations", "20000"));
+        final long latency = Long.parseLong(settings.getProperty(PREFIX + "senderLatencyMillis", "0"));
+        final long timeout = TimeUnit.MINUTES.toMillis(Long.parseLong(settings.getProperty(PREFIX + "timeoutMinutes", "30")));
+
+        // given
+        final PushApplication pushApplication = createPushApplication(settings.getProperty(PREFIX + "variantTypes", "android,ios"));
+        final InstallationGenerator generator = new InstallationGenerator(dataSource, 1L);
+        final long[] categories = generator.createCategories();
+        long start = System.currentTimeMillis();
+        for (Variant variant : pushApplication.getVariants()) {
+            generator.createInstallations(variant, installations, categories);
+        }
+        System.out.println(String.format("Generated %d installations for %d variants in %d ms",
+                installations, pushApplication.getVariants().size(), System.currentTimeMillis() - start));
+
+        final StringBuilder report = new StringBuilder();
+        for (String configuration : settings.getProperty(PREFIX + "configurations", "10x1000,3x2000,1x10000").split(",")) {
+            final String[] pair = configuration.trim().split("x");
+            senderConfiguration.set(new SenderConfiguration(Integer.parseInt(pair[0]), Integer.parseInt(pair[1])));
+            senders.reset(latency);
+
+            // when
+            final InternalUnifiedPushMessage message = new InternalUnifiedPushMessage();
+            message.getMessage().setAlert("Load test " + configuration);
+            start = System.currentTimeMillis();
+            final String id = router.submit(pushApplication, Collections.singletonList(message)).get(0);
+            final PushMessageInformation information = awaitCompletion(id, start + timeout);
+
+            // then
+            final long receivers = (long) installations * pushApplication.getVariants().size();
+            assertEquals("all tokens are sent", receivers, senders.getTokens());
+            report.append(reportLine(configuration.trim(), installations, latency, start, information));
+        }
+
+        System.out.println(reportHeader() + report);
+        writeReport(settings.getProperty(PREFIX + "report"), report.toString());
+    }
+
+    public void observePushMessageCompleted(@Observes PushMessageCompletedEvent event) {
+        completedMessages.add(event.getPushMessageInformationId());
+    }
+
+    private PushApplication createPushApplication(String variantTypes) throws Exception {
+        final PushApplication pushApplication = new PushApplication();
+        pushApplication.setName("Load test");
+        pushApplication.setDeveloper("admin");
+
+        transaction.begin();
+        for (String type : variantTypes.split(",")) {
+            final Variant variant = newVariant(VariantType.valueOf(type.trim().toUpperCase()));
+            variant.setName("Load test " + type.trim());
+            variant.setDeveloper("admin");
+            variantDao.create(variant);
+            pushApplication.getVariants().add(variant);
+        }
+        pushApplicationDao.create(pushApplication);
+        transaction.commit();
+        return pushApplication;
+    }
+
+    private static Variant newVariant(VariantType type) {
+        switch (type) {
+            case ANDROID:
+                final AndroidVariant android = new AndroidVariant();
+                android.setGoogleKey("load-test");
+                return android;
+            case IOS:
+                final iOSVariant ios = new iOSVariant();
+                ios.setPassphrase("load-test");
+                ios.setCertificate(new byte[] {0});
+                return ios;
+            case ADM:
+                final AdmVariant adm = new AdmVariant();
+                adm.setClientId("load-test");
+                adm.setClientSecret("load-test");
+                return adm;
+            case WINDOWS_WNS:
+                final WindowsWNSVariant wns = new WindowsWNSVariant();
+                wns.setSid("load-test");
+                wns.setClientSecret("load-test");
+                return wns;
+            case WINDOWS_MPNS:
+                return new WindowsMPNSVariant();
+            default:
+                return new SimplePushVariant();
+        }
+    }
+
+    /**
+     * Waits for the {@link PushMessageCompletedEvent}, and for the completion of the variants to be stored.
+     */
+    private PushMessageInformation awaitCompletion(String id, long deadline) throws InterruptedException {
+        while (System.currentTimeMillis() < deadline) {
+            if (completedMessages.contains(id)) {
+                final PushMessageInformation information = metricsService.getPushMessageInformation(id);
+                if (isCompleted(information)) {
+                    return information;
+                }
+            }
+            Thread.sleep(50);
+        }
+        fail("push message " + id + " was not completed in time");
+        return null;
+    }
+
+    private static boolean isCompleted(PushMessageInformation information) {
+        if (information == null || information.getVariantInformations().isEmpty()) {
+            return false;
+        }
+        for (VariantMetricInformation variantInformation : information.getVariantInformations()) {
+            if (variantInformation.getCompleted() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String reportHeader() {
+        return "configuration,installations,senderLatencyMillis,receivers,batches,"
+                + "tokensLoadedPerSecond,batchesDispatchedPerSecond,endToEndMillis\n";
+    }
+
+    private static String reportLine(String configuration, int installations, long latency, long submitted,
+                                     PushMessageInformation information) {
+        long receivers = 0;
+        long batches = 0;
+        long lastTokenLoaded = submitted;
+        long firstBatchDispatched = Long.MAX_VALUE;
+        long lastBatchDispatched = submitted;
+        long completed = submitted;
+        for (VariantMetricInformation variantInformation : information.getVariantInformations()) {
+            receivers += variantInformation.getReceivers();
+            batches += variantInformation.getServedBatches();
+            lastTokenLoaded = max(lastTokenLoaded, variantInformation.getLastTokenLoaded());
+            if (variantInformation.getFirstBatchDispatched() != null) {
+                firstBatchDispatched = Math.min(firstBatchDispatched, variantInformation.getFirstBatchDispatched());
+            }
+            lastBatchDispatched = max(lastBatchDispatched, variantInformation.getLastBatchDispatched());
+            completed = max(completed, variantInformation.getCompleted());
+        }
+
+        return String.format("%s,%d,%d,%d,%d,%.1f,%.1f,%d%n", configuration, installations, latency, receivers, batches,
+                perSecond(receivers, lastTokenLoaded - submitted),
+                perSecond(batches, firstBatchDispatched == Long.MAX_VALUE ? 0 : lastBatchDispatched - firstBatchDispatched),
+                completed - submitted);
+    }
+
+    private static long max(long value, Long other) {
+        return other == null ? value : Math.max(value, other);
+    }
+
+    private static double perSecond(long count, long millis) {
+        return count * 1000.0 / Math.max(1, millis);
+    }
+
+    private static void writeReport(String file, String lines) throws IOException {
+        final File report = new File(file);
+        final boolean exists = report.exists();
+        if (report.getParentFile() != null) {
+            report.getParentFile().mkdirs();
+        }
+        try (FileWriter writer = new FileWriter(report, true)) {
+            if (!exists) {
+                writer.write(reportHeader());
+            }
+            writer.write(lines);
+        }
+    }
+
+    /**
+     * Collects the <tt>ups.loadtest.*</tt> system properties of the build, since the test itself runs in the container.
+     */
+    private static String settings() {
+        final Properties settings = new Properties();
+        for (Map.Entry<Object, Object> property : System.getProperties().entrySet()) {
+            if (property.getKey().toString().startsWith(PREFIX)) {
+                settings.put(property.getKey(), property.getValue());
+            }
+        }
+        if (!settings.containsKey(PREFIX + "report")) {
+            settings.put(PREFIX + "report", new File("target/pipeline-load-report.csv").getAbsolutePath());
+        }
+
+        final StringWriter writer = new StringWriter();
+        try {
+            settings.store(writer, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+}
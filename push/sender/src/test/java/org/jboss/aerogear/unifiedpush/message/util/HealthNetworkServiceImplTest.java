@@ -0,0 +1,72 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.message.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jboss.aerogear.unifiedpush.service.impl.health.HealthDetails;
+import org.jboss.aerogear.unifiedpush.service.impl.health.Status;
+import org.junit.Test;
+
+public class HealthNetworkServiceImplTest {
+
+    @Test
+    public void reachableNetworkFailingMostDeliveriesIsWarned() {
+        //given
+        final HealthDetails details = online();
+
+        //when
+        HealthNetworkServiceImpl.foldDeliveries(details, 40, 160, 50);
+
+        //then
+        assertThat(details.getTestStatus()).isEqualTo(Status.WARN);
+        assertThat(details.getResult()).isEqualTo("online, 80% of 200 deliveries failed since the previous check");
+    }
+
+    @Test
+    public void fewFailedDeliveriesAreOnlyReported() {
+        //given
+        final HealthDetails details = online();
+
+        //when
+        HealthNetworkServiceImpl.foldDeliveries(details, 5, 5, 50);
+
+        //then
+        assertThat(details.getTestStatus()).isEqualTo(Status.OK);
+        assertThat(details.getResult()).isEqualTo("online, 50% of 10 deliveries failed since the previous check");
+    }
+
+    @Test
+    public void withoutDeliveriesTheProbeDecides() {
+        //given
+        final HealthDetails details = online();
+
+        //when
+        HealthNetworkServiceImpl.foldDeliveries(details, 0, 0, 50);
+
+        //then
+        assertThat(details.getTestStatus()).isEqualTo(Status.OK);
+        assertThat(details.getResult()).isEqualTo("online");
+    }
+
+    private static HealthDetails online() {
+        final HealthDetails details = new HealthDetails();
+        details.setTestStatus(Status.OK);
+        details.setResult("online");
+        return details;
+    }
+}
@@ -31,6 +31,10 @@ import org.jboss.aerogear.unifiedpush.message.jms.Dequeue;
 import org.jboss.aerogear.unifiedpush.message.jms.DispatchToQueue;
 import org.jboss.aerogear.unifiedpush.message.util.ConfigurationUtils;
 import org.jboss.aerogear.unifiedpush.message.util.JmsClient;
+import org.jboss.aerogear.unifiedpush.service.dashboard.CounterDeltas;
+import org.jboss.aerogear.unifiedpush.service.metrics.LatencyHistogram;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineMetrics;
+import org.jboss.aerogear.unifiedpush.service.metrics.PipelineStage;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.EmptyAsset;
@@ -62,6 +66,7 @@ public class UnifiedPushSenderArchive extends UnifiedPushArchiveBase<UnifiedPush
             .addClasses(AbstractJMSMessageProducer.class, AbstractJMSMessageListener.class, AbstractJMSMessageConsumer.class)
             .addClasses(AbstractJMSTest.class, JmsClient.class)
             .addClasses(DispatchToQueue.class, Dequeue.class)
+            .addClasses(CounterDeltas.class, PipelineMetrics.class, PipelineStage.class, LatencyHistogram.class)
             .addAsWebInfResource("hornetq-jms.xml");
     }
 
@@ -49,6 +49,18 @@ public interface ClientInstallationService {
 
     void addInstallationsSynchronously(Variant variant, List<Installation> installations);
 
+    /**
+     * Registers a batch of installations of a variant in one transaction, the same way
+     * {@link #addInstallation(Variant, Installation)} registers a single one: new installations are stored and the
+     * metadata of existing, enabled installations is updated. The existing installations of the batch are looked up
+     * with a single query. The device tokens are expected to be validated already.
+     *
+     * @param variant the variant to store on
+     * @param installations list of installations
+     * @return the outcome of every installation, in the order of the given list
+     */
+    List<RegistrationResult> registerInstallations(Variant variant, List<Installation> installations);
+
     /**
      * Performs an update/merge on the given entity.
      *
@@ -153,4 +165,23 @@ public interface ClientInstallationService {
 	 */
 	void syncInstallationByAliasList(PushApplication application, List<String> aliases);
 
+
+    enum RegistrationResult {
+        /**
+         * The installation was stored
+         */
+        CREATED,
+        /**
+         * The metadata of the existing installation was updated
+         */
+        UPDATED,
+        /**
+         * The existing installation is disabled, its metadata was not updated
+         */
+        DISABLED,
+        /**
+         * The device token is not valid for the variant type, the installation was not stored
+         */
+        INVALID
+    }
 }
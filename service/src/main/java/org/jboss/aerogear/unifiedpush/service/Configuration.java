@@ -19,7 +19,43 @@ public class Configuration {
 
 	public static final String PROPERTIES_FILE_KEY = "aerogear.config";
 	public static final String PROPERTIES_DOCUMENTS_KEY = "aerogear.config.document.path.root";
+	public static final String PROP_DOCUMENT_STORAGE = "aerogear.config.document.storage";
+	public static final String PROP_DOCUMENT_SEGMENT_MAX_SIZE_MB = "aerogear.config.document.segment.max_size_mb";
+	public static final String PROP_DOCUMENT_SEGMENT_FSYNC = "aerogear.config.document.segment.fsync";
+	public static final String PROP_DOCUMENT_SEGMENT_COMPACTION_LIVE_PERCENT = "aerogear.config.document.segment.compaction_live_percent";
+	public static final String PROP_DOCUMENT_COMPRESSION_MIN_BYTES = "aerogear.config.document.compression.min_bytes";
+	public static final String PROP_DOCUMENT_CACHE_MAX_SIZE_MB = "aerogear.config.document.cache.max_size_mb";
+	public static final String PROP_DOCUMENT_CACHE_MAX_AGE_SECONDS = "aerogear.config.document.cache.max_age_seconds";
+	public static final String PROP_DOCUMENT_CACHE_WATCH = "aerogear.config.document.cache.watch";
+	public static final String PROP_DOCUMENT_LAYOUT_MIGRATE = "aerogear.config.document.layout.migrate";
+	public static final String PROP_DOCUMENT_RETENTION_MAX_VERSIONS = "aerogear.config.document.retention.max_versions";
+	public static final String PROP_DOCUMENT_RETENTION_MAX_AGE_DAYS = "aerogear.config.document.retention.max_age_days";
+	public static final String PROP_DOCUMENT_SWEEP_BATCH_SIZE = "aerogear.config.document.sweep.batch_size";
+	public static final String PROP_DOCUMENT_SWEEP_PAUSE_MILLIS = "aerogear.config.document.sweep.pause_millis";
 	public static final String PROP_ENABLE_VERIFICATION = "aerogear.config.verification.enable_verification";
+	public static final String PROP_VERIFICATION_CODE_TTL_MINUTES = "aerogear.config.verification.code.ttl_minutes";
+	public static final String PROP_VERIFICATION_CODE_MAX_PER_DEVICE = "aerogear.config.verification.code.max_per_device";
+	public static final String PROP_VERIFICATION_STORE_MAX_ENTRIES = "aerogear.config.verification.store.max_entries";
+	public static final String PROP_VERIFICATION_ATTEMPTS_MAX = "aerogear.config.verification.attempts.max";
+	public static final String PROP_VERIFICATION_ATTEMPTS_WINDOW_MINUTES = "aerogear.config.verification.attempts.window_minutes";
+	public static final String PROP_SMS_DISPATCH_THREADS = "aerogear.config.sms.dispatch.threads";
+	public static final String PROP_SMS_DISPATCH_QUEUE_SIZE = "aerogear.config.sms.dispatch.queue_size";
+	public static final String PROP_SMS_DISPATCH_MAX_ATTEMPTS = "aerogear.config.sms.dispatch.max_attempts";
+	public static final String PROP_SMS_DISPATCH_BACKOFF_MILLIS = "aerogear.config.sms.dispatch.backoff_millis";
+	public static final String PROP_REGISTRATION_BATCH_MAX_SIZE = "aerogear.config.registration.batch.max_size";
+	public static final String PROP_SENDER_BATCH_MAX_SIZE = "aerogear.config.sender.batch.max_size";
+	public static final String PROP_REMOVAL_CHUNK_SIZE = "aerogear.config.removal.chunk_size";
+	public static final String PROP_METRICS_RETENTION_DAYS = "aerogear.config.metrics.retention_days";
+	public static final String PROP_METRICS_PURGE_BATCH_SIZE = "aerogear.config.metrics.purge.batch_size";
+	public static final String PROP_METRICS_PURGE_PAUSE_MILLIS = "aerogear.config.metrics.purge.pause_millis";
+	public static final String PROP_PIPELINE_METRICS_ENABLED = "aerogear.config.metrics.pipeline.enabled";
+	public static final String PROP_HEALTH_NETWORK_TIMEOUT_MILLIS = "aerogear.config.health.network.timeout_millis";
+	public static final String PROP_HEALTH_NETWORK_ERROR_PERCENT = "aerogear.config.health.network.error_percent";
+	public static final String PROP_HEALTH_QUEUES_MAX_MESSAGES = "aerogear.config.health.queues.max_messages";
+	public static final String PROP_HEALTH_QUEUES_MAX_AGE_SECONDS = "aerogear.config.health.queues.max_age_seconds";
+	public static final String PROP_SEARCH_INDEX_MAX_VARIANT_SIZE = "aerogear.config.search.index.max_variant_size";
+	public static final String PROP_SEARCH_INDEX_MAX_INSTALLATIONS = "aerogear.config.search.index.max_installations";
+	public static final String PROP_SEARCH_INDEX_MAX_AGE_MINUTES = "aerogear.config.search.index.max_age_minutes";
 
 	private Properties properties;
 	private PropertyPlaceholderConfigurer configurer;
@@ -85,6 +121,19 @@ public class Configuration {
 		return Boolean.valueOf(value);
 	}
 
+	public int getProperty(String key, int defaultValue) {
+		String value = getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			logger.warning("Ignoring non numeric value '" + value + "' of " + key + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+
 	public Properties getProperties() {
 		return new PropertiesView(properties, configurer);
 	}
@@ -3,6 +3,7 @@ package org.jboss.aerogear.unifiedpush.service;
 import java.util.List;
 import java.util.Map;
 
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
@@ -17,6 +18,11 @@ public interface DocumentService {
 
 	String getLatestDocumentForAlias(Variant variant, DocumentType publisher, String alias, String qualifier, String id);
 
+	/**
+	 * Like {@link #getLatestDocumentForAlias(Variant, DocumentType, String, String, String)}, without reading the content.
+	 */
+	DocumentContent getLatestDocumentContentForAlias(Variant variant, DocumentType publisher, String alias, String qualifier, String id);
+
 	@Deprecated
 	void saveForAliases(PushApplication pushApplication, Map<String, String> aliasToDocument, String qualifier, String id,
 			boolean overwrite);
@@ -24,4 +30,9 @@ public interface DocumentService {
 	void savePayload(PushApplication pushApp, MessagePayload payload, boolean overwrite);
 
 	List<String> getLatestDocumentsForApplication(PushApplication pushApp, String alias, String qualifer, String id);
+
+	/**
+	 * Like {@link #getLatestDocumentsForApplication(PushApplication, String, String, String)}, without reading the contents.
+	 */
+	List<DocumentContent> getLatestDocumentContentsForApplication(PushApplication pushApp, String alias, String qualifer, String id);
 }
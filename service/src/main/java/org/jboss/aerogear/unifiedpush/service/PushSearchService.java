@@ -95,5 +95,32 @@ public interface PushSearchService {
      */
     PageResult<Installation, Count> findAllInstallationsByVariantForDeveloper(String variantID, Integer page, Integer pageSize, String search);
 
+    /**
+     * Find a page of installations for the variant specified, using keyset pagination: each page starts after the
+     * last installation of the previous one, ordered by id.
+     *
+     * @param variantID the id of the variant to find the installations for
+     * @param afterId id of the last installation of the previous page, null for the first page
+     * @param pageSize the size of the pages
+     * @param search optional search term, matched against the start of the words of the installation metadata
+     *
+     * @return page result containing the list plus a total number of rows
+     */
+    PageResult<Installation, Count> findInstallationsByVariantAfter(String variantID, String afterId, Integer pageSize, String search);
+
+    /**
+     * Find a page of installations for the variant specified, by page number. Unlike
+     * {@link #findAllInstallationsByVariantForDeveloper(String, Integer, Integer, String)} the page is served from the
+     * in-memory search index of the variant when it fits, instead of an offset query plus a count.
+     *
+     * @param variantID the id of the variant to find the installations for
+     * @param page the page number
+     * @param pageSize the size of the pages
+     * @param search optional search term, matched against the start of the words of the installation metadata
+     *
+     * @return page result containing the list plus a total number of rows
+     */
+    PageResult<Installation, Count> findInstallationsByVariantPage(String variantID, Integer page, Integer pageSize, String search);
+
 
 }
@@ -0,0 +1,59 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service;
+
+import org.jboss.aerogear.unifiedpush.api.PushApplication;
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress;
+
+/**
+ * Removes variants and push applications in the background. The affected variants are
+ * marked as deleting right away, their installations are then deleted in bounded chunks,
+ * each in its own short transaction, and the variant (or push application) row goes last.
+ */
+public interface VariantRemovalService {
+
+    /**
+     * Marks the given variant as deleting and schedules the removal of its installations
+     * and of the variant itself.
+     *
+     * @param variant the variant to remove
+     *
+     * @return progress of the scheduled (or already running) removal
+     */
+    RemovalProgress removeVariant(Variant variant);
+
+    /**
+     * Marks all variants of the given push application as deleting and schedules the removal
+     * of their installations, followed by the push application itself.
+     *
+     * @param pushApp the push application to remove
+     *
+     * @return progress of the scheduled (or already running) removal
+     */
+    RemovalProgress removePushApplication(PushApplication pushApp);
+
+    /**
+     * Returns the progress of a removal, keyed by the variantID or the pushApplicationID
+     * that was passed for removal.
+     *
+     * @param id variantID or pushApplicationID
+     *
+     * @return the progress or null if no removal is known for the given id
+     */
+    RemovalProgress getProgress(String id);
+}
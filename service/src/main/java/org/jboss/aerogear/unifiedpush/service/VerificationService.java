@@ -2,6 +2,7 @@ package org.jboss.aerogear.unifiedpush.service;
 
 import org.jboss.aerogear.unifiedpush.api.Installation;
 import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.service.impl.verification.VerificationStatistics;
 
 /**
  * Service used to manage installation verification cycle.
@@ -26,6 +27,19 @@ public interface VerificationService {
 	 * @return a {@link VerificationResult} signaling the outcome of the verification attempt.
 	 */
 	VerificationResult verifyDevice(Installation installation, Variant variant, String verificationCode);
+
+	/**
+	 * Tells whether the attempts of a device are currently rejected, before loading its installation.
+	 * @param variant the installation's variant
+	 * @param deviceToken device token of the installation trying to verify itself
+	 * @return true if the device failed too many attempts recently
+	 */
+	boolean isThrottled(Variant variant, String deviceToken);
+
+	/**
+	 * @return counters of the issued and verified codes of this node
+	 */
+	VerificationStatistics getStatistics();
 	
 	public enum VerificationResult {
 		/**
@@ -41,6 +55,10 @@ public interface VerificationService {
 		 * Whether this installation was never issued a verification request before or the verification
 		 * data has expired is unspecified.
 		 */
-		UNKNOWN
+		UNKNOWN,
+		/**
+		 * The device failed too many verification attempts recently, the code was not checked.
+		 */
+		THROTTLED
 	}
 }
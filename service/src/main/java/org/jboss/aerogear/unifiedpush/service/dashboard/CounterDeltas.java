@@ -0,0 +1,220 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.dashboard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+
+/**
+ * Buffers changes of the installation and message counters, fired as {@link Change} events by the registration,
+ * deletion and routing paths. The {@link DashboardCountersScheduler} periodically writes them into the counter
+ * summary table, so that the hot paths never contend on the counter rows themselves.
+ *
+ * Changes are kept per second they were recorded in, so that changes recorded before the counters were last
+ * reconciled, and therefore already part of the reconciled counts, can be told apart from later ones.
+ */
+@ApplicationScoped
+public class CounterDeltas {
+
+    private final ConcurrentMap<String, Delta> deltas = new ConcurrentHashMap<String, Delta>();
+
+    /**
+     * Buffers a change once the transaction that made it has committed, or right away when made outside of a
+     * transaction, so that rolled back registrations are never counted.
+     */
+    public void record(@Observes(during = TransactionPhase.AFTER_SUCCESS) Change change) {
+        record(change, System.currentTimeMillis());
+    }
+
+    void record(Change change, long recorded) {
+        add(change.getId(), change.getType(), recorded, change.getInstallations(), change.getMessages());
+    }
+
+    /**
+     * Takes all buffered changes, one per id and second they were recorded in, oldest first. Entries without changes
+     * since the previous drain are removed.
+     *
+     * @return the buffered changes, never null
+     */
+    public List<Change> drain() {
+        final List<Change> changes = new ArrayList<Change>();
+        for (Map.Entry<String, Delta> entry : deltas.entrySet()) {
+            if (!entry.getValue().drain(entry.getKey(), changes) && entry.getValue().retireIfIdle()) {
+                deltas.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return changes;
+    }
+
+    private void add(String id, CounterSummary.Type type, long recorded, long installations, long messages) {
+        while (true) {
+            Delta delta = deltas.get(id);
+            if (delta == null) {
+                final Delta created = new Delta(type);
+                delta = deltas.putIfAbsent(id, created);
+                if (delta == null) {
+                    delta = created;
+                }
+            }
+            if (delta.add(recorded, installations, messages)) {
+                return;
+            }
+            // retired by a concurrent drain, retry with a fresh one
+        }
+    }
+
+    /**
+     * Pending change of the counters of one variant or push application.
+     */
+    public static final class Change {
+        private final String id;
+        private final CounterSummary.Type type;
+        private final long installations;
+        private final long messages;
+        private final long recorded;
+
+        Change(String id, CounterSummary.Type type, long installations, long messages) {
+            this(id, type, installations, messages, 0);
+        }
+
+        Change(String id, CounterSummary.Type type, long installations, long messages, long recorded) {
+            this.id = id;
+            this.type = type;
+            this.installations = installations;
+            this.messages = messages;
+            this.recorded = recorded;
+        }
+
+        public static Change installationsAdded(String variantID, long count) {
+            return new Change(variantID, CounterSummary.Type.VARIANT, count, 0);
+        }
+
+        public static Change installationsRemoved(String variantID, long count) {
+            return new Change(variantID, CounterSummary.Type.VARIANT, -count, 0);
+        }
+
+        /**
+         * Counts one push message for the push application and each of the variants it is routed to.
+         *
+         * @param pushApplicationID the push application that submitted the message
+         * @param variantIDs the variants the message is routed to
+         * @return one change per counter
+         */
+        public static List<Change> messageSubmitted(String pushApplicationID, Collection<String> variantIDs) {
+            final List<Change> changes = new ArrayList<Change>(variantIDs.size() + 1);
+            changes.add(new Change(pushApplicationID, CounterSummary.Type.PUSH_APPLICATION, 0, 1));
+            for (String variantID : variantIDs) {
+                changes.add(new Change(variantID, CounterSummary.Type.VARIANT, 0, 1));
+            }
+            return changes;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public CounterSummary.Type getType() {
+            return type;
+        }
+
+        public long getInstallations() {
+            return installations;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        /**
+         * @return the time the last of the combined changes was recorded in milliseconds, 0 for a fired change
+         */
+        public long getRecorded() {
+            return recorded;
+        }
+    }
+
+    private static final class Delta {
+        private final CounterSummary.Type type;
+        // by the second they were recorded in, oldest first
+        private final List<Slice> slices = new ArrayList<Slice>(2);
+        private boolean retired;
+
+        Delta(CounterSummary.Type type) {
+            this.type = type;
+        }
+
+        synchronized boolean add(long recorded, long installations, long messages) {
+            if (retired) {
+                return false;
+            }
+            final long second = recorded / 1000;
+            Slice slice = slices.isEmpty() ? null : slices.get(slices.size() - 1);
+            if (slice == null || slice.second != second) {
+                slice = new Slice(second);
+                slices.add(slice);
+            }
+            slice.installations += installations;
+            slice.messages += messages;
+            slice.recorded = Math.max(slice.recorded, recorded);
+            return true;
+        }
+
+        /**
+         * @return false if there were no changes to drain
+         */
+        synchronized boolean drain(String id, List<Change> changes) {
+            if (slices.isEmpty()) {
+                return false;
+            }
+            for (Slice slice : slices) {
+                if (slice.installations != 0 || slice.messages != 0) {
+                    changes.add(new Change(id, type, slice.installations, slice.messages, slice.recorded));
+                }
+            }
+            slices.clear();
+            return true;
+        }
+
+        synchronized boolean retireIfIdle() {
+            if (slices.isEmpty()) {
+                retired = true;
+            }
+            return retired;
+        }
+    }
+
+    private static final class Slice {
+        private final long second;
+        private long installations;
+        private long messages;
+        private long recorded;
+
+        Slice(long second) {
+            this.second = second;
+        }
+    }
+}
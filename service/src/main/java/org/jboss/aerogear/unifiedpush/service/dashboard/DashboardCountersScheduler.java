@@ -0,0 +1,175 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.dashboard;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
+import org.jboss.aerogear.unifiedpush.dao.PushMessageInformationDao;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+/**
+ * Maintains the counter summary table, which answers the dashboard and installation count queries.
+ */
+@Singleton
+public class DashboardCountersScheduler {
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(DashboardCountersScheduler.class);
+
+    @Inject
+    private CounterDeltas counterDeltas;
+
+    @Inject
+    private CounterSummaryDao counterSummaryDao;
+
+    @Inject
+    private VariantDao variantDao;
+
+    @Inject
+    private PushApplicationDao pushApplicationDao;
+
+    @Inject
+    private InstallationDao installationDao;
+
+    @Inject
+    private PushMessageInformationDao pushMessageInformationDao;
+
+    /**
+     * Job that writes the buffered counter changes, one increment statement per variant or push application.
+     * Changes recorded before the counters were last reconciled, by any node, are part of the reconciled counts and
+     * are dropped.
+     *
+     * Note: Occurring every 10 seconds. Changes lost on a crash are corrected by the next reconciliation.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/10", persistent = false)
+    public void flushCounterChanges() {
+        final List<CounterDeltas.Change> changes = counterDeltas.drain();
+        if (changes.isEmpty() || !counterSummaryDao.hasCounters()) {
+            // nothing to do, or never reconciled: the first reconciliation computes everything from scratch
+            return;
+        }
+
+        final Map<String, CounterSummary.Type> types = new LinkedHashMap<String, CounterSummary.Type>();
+        for (CounterDeltas.Change change : changes) {
+            types.put(change.getId(), change.getType());
+        }
+        final Map<String, Date> reconciled = counterSummaryDao.findReconciled(types.keySet());
+
+        final Map<String, long[]> sums = new LinkedHashMap<String, long[]>();
+        for (CounterDeltas.Change change : changes) {
+            final Date since = reconciled.get(change.getId());
+            if (since != null && change.getRecorded() < since.getTime()) {
+                continue;
+            }
+            long[] sum = sums.get(change.getId());
+            if (sum == null) {
+                sum = new long[2];
+                sums.put(change.getId(), sum);
+            }
+            sum[0] += change.getInstallations();
+            sum[1] += change.getMessages();
+        }
+
+        for (Map.Entry<String, long[]> sum : sums.entrySet()) {
+            final long installations = sum.getValue()[0];
+            final long messages = sum.getValue()[1];
+            if (reconciled.containsKey(sum.getKey())) {
+                if (installations != 0 || messages != 0) {
+                    counterSummaryDao.addToCounters(sum.getKey(), installations, messages);
+                }
+            } else {
+                // created after the last reconciliation, so the buffered changes are all there is
+                final CounterSummary counters = new CounterSummary(sum.getKey(), types.get(sum.getKey()));
+                counters.setInstallations(installations);
+                counters.setMessages(messages);
+                counterSummaryDao.create(counters);
+            }
+        }
+    }
+
+    /**
+     * Job that recomputes all counters from the actual tables, correcting any drift (e.g. from a crash,
+     * bulk deletes or the retention of push message information).
+     *
+     * Note: Occurring every 30 minutes, this is the only place that scans the installation table.
+     */
+    @Schedule(hour = "*", minute = "*/30", persistent = false)
+    public void reconcileCounters() {
+        final long start = System.currentTimeMillis();
+        // changes recorded before are committed, so they are part of the counts below; the flush jobs of all nodes
+        // drop them by this date. Changes committed while the counts run may be counted twice until the next run.
+        final Date now = new Date();
+
+        final Map<String, Long> installations = installationDao.countInstallationsByVariant();
+        final Map<String, Long> variantMessages = pushMessageInformationDao.countMessagesByVariant();
+        final Map<String, Long> applicationMessages = pushMessageInformationDao.countMessagesByPushApplication();
+
+        final List<String> ids = new ArrayList<String>();
+        for (String variantID : variantDao.findAllVariantIDs()) {
+            reconcile(variantID, CounterSummary.Type.VARIANT, valueOf(installations, variantID), valueOf(variantMessages, variantID), now);
+            ids.add(variantID);
+        }
+        for (String pushApplicationID : pushApplicationDao.findAllPushApplicationIDs()) {
+            reconcile(pushApplicationID, CounterSummary.Type.PUSH_APPLICATION, 0, valueOf(applicationMessages, pushApplicationID), now);
+            ids.add(pushApplicationID);
+        }
+        counterSummaryDao.deleteCountersNotIn(ids);
+
+        logger.fine("Reconciled counters of " + ids.size() + " variants and push applications in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Writes the remaining counter changes on a regular shutdown.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushCounterChanges();
+    }
+
+    private void reconcile(String id, CounterSummary.Type type, long installations, long messages, Date now) {
+        CounterSummary counters = counterSummaryDao.find(id);
+        if (counters == null) {
+            counters = new CounterSummary(id, type);
+            counters.setInstallations(installations);
+            counters.setMessages(messages);
+            counters.setReconciled(now);
+            counterSummaryDao.create(counters);
+        } else {
+            counters.setInstallations(installations);
+            counters.setMessages(messages);
+            counters.setReconciled(now);
+        }
+    }
+
+    private static long valueOf(Map<String, Long> counts, String id) {
+        final Long count = counts.get(id);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,93 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.GZIPInputStream;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+
+/**
+ * Base of the stored document contents, decompressing contents stored with {@link DocumentContent#GZIP} while they
+ * are read from the opened content.
+ */
+abstract class AbstractDocumentContent implements DocumentContent {
+	private final DocumentMetadata metadata;
+	private final String contentEncoding;
+
+	AbstractDocumentContent(DocumentMetadata metadata, String contentEncoding) {
+		this.metadata = metadata;
+		this.contentEncoding = contentEncoding;
+	}
+
+	@Override
+	public DocumentMetadata getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return contentEncoding;
+	}
+
+	@Override
+	public void writeTo(WritableByteChannel target) throws IOException {
+		if (contentEncoding == null) {
+			writeEncodedTo(target);
+			return;
+		}
+
+		try (OpenDocumentContent opened = open()) {
+			opened.writeTo(target);
+		}
+	}
+
+	/**
+	 * Content opened by {@link DocumentContent#open()}, writing from the channel or segment pinned when opened.
+	 */
+	abstract static class Opened extends AbstractDocumentContent implements OpenDocumentContent {
+		private final long size;
+
+		Opened(DocumentContent content) {
+			super(content.getMetadata(), content.getContentEncoding());
+			this.size = content.getSize();
+		}
+
+		@Override
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public OpenDocumentContent open() {
+			return this;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel target) throws IOException {
+			if (getContentEncoding() == null) {
+				writeEncodedTo(target);
+				return;
+			}
+
+			try (InputStream in = new GZIPInputStream(Channels.newInputStream(readEncoded()))) {
+				final OutputStream out = Channels.newOutputStream(target);
+				final byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+			}
+		}
+
+		/**
+		 * @return a new channel reading the stored content from its start, closing it leaves this content open
+		 */
+		abstract ReadableByteChannel readEncoded() throws IOException;
+	}
+}
@@ -0,0 +1,380 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+
+/**
+ * LRU cache of the latest document versions, bounded by the bytes of the cached documents. Lookups of a single alias
+ * and listings of all aliases are cached under their own keys; a missing document is cached as well, since devices
+ * poll for documents that do not exist yet.
+ *
+ * Storing a document invalidates its keys synchronously. Documents stored by other nodes sharing the document root
+ * are only noticed when watching is enabled (changes to the pointer files of {@link DocumentIndex}), or when the
+ * entries expire.
+ */
+@ApplicationScoped
+public class DocumentCache {
+	private static final Logger logger = Logger.getLogger(DocumentCache.class.getName());
+
+	private static final String KEY_TOKEN = "/";
+	// alias of the listings of all aliases
+	private static final String ALL_ALIASES = "";
+	// larger entries would evict most of the cache
+	private static final int MAX_ENTRY_FRACTION = 8;
+	// approximate overhead of an entry besides the document bytes
+	private static final int ENTRY_OVERHEAD = 128;
+	private static final int STAMP_STRIPES = 64;
+
+	@Inject
+	private Configuration configuration;
+
+	private long maxBytes;
+	private long maxAgeMillis;
+
+	// guarded by this
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+
+	// incremented on every invalidation, loads started before are not cached
+	private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private WatchService watchService;
+	private final ConcurrentMap<Path, Boolean> watched = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		configure(configuration.getProperty(Configuration.PROP_DOCUMENT_CACHE_MAX_SIZE_MB, 64) * 1024L * 1024L,
+				configuration.getProperty(Configuration.PROP_DOCUMENT_CACHE_MAX_AGE_SECONDS, 300) * 1000L);
+
+		if (maxBytes > 0 && configuration.getProperty(Configuration.PROP_DOCUMENT_CACHE_WATCH, false)) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+			} catch (IOException e) {
+				logger.warning("Unable to watch the document root, relying on the cache max age: " + e.getMessage());
+			}
+		}
+	}
+
+	void configure(long maxBytes, long maxAgeMillis) {
+		this.maxBytes = maxBytes;
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	@PreDestroy
+	public void close() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// Nothing we can do.
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return maxBytes > 0;
+	}
+
+	public boolean isWatching() {
+		return watchService != null;
+	}
+
+	public static String key(DocumentMetadata metadata, String alias) {
+		return key(metadata.getPushApplication().getPushApplicationID(), metadata.getPublisher().name(), alias,
+				part(metadata.getQualifier()), part(metadata.getId()));
+	}
+
+	public static String allAliasesKey(DocumentMetadata metadata) {
+		return key(metadata, ALL_ALIASES);
+	}
+
+	/**
+	 * @return the cached documents, an empty list if none exist, or null if the key is not cached
+	 */
+	public List<DocumentContent> get(String key, DocumentMetadata metadata) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry != null && maxAgeMillis > 0 && System.currentTimeMillis() - entry.loaded > maxAgeMillis) {
+				remove(key);
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+
+		final List<DocumentContent> documents = new ArrayList<>(entry.contents.length);
+		for (int i = 0; i < entry.contents.length; i++) {
+			final DocumentMetadata docMeta = new DocumentMetadata(metadata);
+			docMeta.setTimestamp(entry.timestamps[i]);
+			documents.add(new CachedDocumentContent(entry.contents[i], entry.encodings[i], docMeta));
+		}
+		return documents;
+	}
+
+	/**
+	 * @return the stamp to pass to {@link #put(String, long, List)} after loading the documents of the key
+	 */
+	public long stamp(String key) {
+		return stamps.get(stripe(key));
+	}
+
+	/**
+	 * Caches the loaded documents, unless they are too large or the key was invalidated since the stamp was taken.
+	 *
+	 * @return the documents to serve, read from the cache if they were cached
+	 */
+	public List<DocumentContent> put(String key, long stamp, List<DocumentContent> documents) {
+		long size = ENTRY_OVERHEAD + key.length() * 2;
+		for (DocumentContent document : documents) {
+			size += ENTRY_OVERHEAD + document.getSize();
+		}
+		if (size > maxBytes / MAX_ENTRY_FRACTION) {
+			return documents;
+		}
+
+		final byte[][] contents = new byte[documents.size()][];
+		final long[] timestamps = new long[documents.size()];
+		final String[] encodings = new String[documents.size()];
+		final List<DocumentContent> cached = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			final DocumentContent document = documents.get(i);
+			contents[i] = read(document);
+			timestamps[i] = document.getMetadata().getTimestamp() == null ? 0 : document.getMetadata().getTimestamp();
+			encodings[i] = document.getContentEncoding();
+			cached.add(new CachedDocumentContent(contents[i], encodings[i], document.getMetadata()));
+		}
+
+		synchronized (this) {
+			if (stamps.get(stripe(key)) == stamp) {
+				remove(key);
+				entries.put(key, new Entry(contents, timestamps, encodings, size));
+				bytes += size;
+				evict();
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Invalidates the cached lookups of a stored document.
+	 */
+	public void invalidate(DocumentMetadata metadata) {
+		final String qualifier = metadata.getQualifier() == null ? part(null) : metadata.getQualifier().toUpperCase();
+		invalidate(metadata.getPushApplication().getPushApplicationID(), metadata.getPublisher().name(),
+				metadata.getAlias(), qualifier, part(metadata.getId()));
+	}
+
+	/**
+	 * Watches a pointer directory of the index of a push application and publisher (one shard of the index
+	 * directory) for documents stored by other nodes.
+	 */
+	public void watch(Path pointerDirectory) {
+		if (watchService == null || watched.containsKey(pointerDirectory)) {
+			return;
+		}
+		try {
+			pointerDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			watched.put(pointerDirectory, Boolean.TRUE);
+		} catch (IOException e) {
+			// no alias of the shard indexed yet, registered with the next lookup
+			logger.fine("Unable to watch " + pointerDirectory + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Invalidates the keys of the pointer files changed since the last call.
+	 */
+	public void pollChanges() {
+		if (watchService == null) {
+			return;
+		}
+		WatchKey watchKey;
+		while ((watchKey = watchService.poll()) != null) {
+			final Path pointerDirectory = (Path) watchKey.watchable();
+			// <publisher>/<index directory>/<shard>
+			final Path publisherDirectory = pointerDirectory.getParent().getParent();
+			final String publisher = publisherDirectory.getFileName().toString();
+			final String pushApplicationID = publisherDirectory.getParent().getFileName().toString();
+
+			for (WatchEvent<?> event : watchKey.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					clear();
+					continue;
+				}
+				final String[] key = DocumentIndex.parseKey(((Path) event.context()).getFileName().toString());
+				if (key != null) {
+					invalidate(pushApplicationID, publisher, key[0], key[1], key[2]);
+				}
+			}
+			if (!watchKey.reset()) {
+				watched.remove(pointerDirectory);
+			}
+		}
+	}
+
+	public DocumentCacheStatistics getStatistics() {
+		synchronized (this) {
+			return new DocumentCacheStatistics(hits.get(), misses.get(), evictions.get(), invalidations.get(),
+					entries.size(), bytes, maxBytes);
+		}
+	}
+
+	private void invalidate(String pushApplicationID, String publisher, String alias, String qualifier, String id) {
+		final String key = key(pushApplicationID, publisher, alias, qualifier, id);
+		final String allAliases = key(pushApplicationID, publisher, ALL_ALIASES, qualifier, id);
+		synchronized (this) {
+			stamps.incrementAndGet(stripe(key));
+			stamps.incrementAndGet(stripe(allAliases));
+			if (remove(key) | remove(allAliases)) {
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+
+	private synchronized void clear() {
+		for (int i = 0; i < STAMP_STRIPES; i++) {
+			stamps.incrementAndGet(i);
+		}
+		invalidations.addAndGet(entries.size());
+		entries.clear();
+		bytes = 0;
+	}
+
+	private boolean remove(String key) {
+		final Entry removed = entries.remove(key);
+		if (removed != null) {
+			bytes -= removed.size;
+		}
+		return removed != null;
+	}
+
+	private void evict() {
+		final Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+		while (bytes > maxBytes && eldest.hasNext()) {
+			bytes -= eldest.next().getValue().size;
+			eldest.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	private static byte[] read(DocumentContent document) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream((int) document.getSize());
+		try {
+			// kept compressed, as stored
+			document.writeEncodedTo(Channels.newChannel(out));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static String key(String pushApplicationID, String publisher, String alias, String qualifier, String id) {
+		return pushApplicationID + KEY_TOKEN + publisher + KEY_TOKEN + alias + KEY_TOKEN + qualifier + KEY_TOKEN + id;
+	}
+
+	private static int stripe(String key) {
+		return (key.hashCode() & Integer.MAX_VALUE) % STAMP_STRIPES;
+	}
+
+	private static String part(Object obj) {
+		return obj == null ? DocumentMetadata.NULL_ID : obj.toString();
+	}
+
+	private static final class Entry {
+		private final byte[][] contents;
+		private final long[] timestamps;
+		private final String[] encodings;
+		private final long size;
+		private final long loaded = System.currentTimeMillis();
+
+		Entry(byte[][] contents, long[] timestamps, String[] encodings, long size) {
+			this.contents = contents;
+			this.timestamps = timestamps;
+			this.encodings = encodings;
+			this.size = size;
+		}
+	}
+
+	private static final class CachedDocumentContent extends AbstractDocumentContent {
+		private final byte[] content;
+
+		CachedDocumentContent(byte[] content, String contentEncoding, DocumentMetadata metadata) {
+			super(metadata, contentEncoding);
+			this.content = content;
+		}
+
+		@Override
+		public long getSize() {
+			return content.length;
+		}
+
+		@Override
+		public void writeEncodedTo(WritableByteChannel target) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining()) {
+				target.write(buffer);
+			}
+		}
+
+		@Override
+		public OpenDocumentContent open() {
+			// held in memory, nothing to pin
+			return new Opened(this) {
+				@Override
+				public void writeEncodedTo(WritableByteChannel target) throws IOException {
+					CachedDocumentContent.this.writeEncodedTo(target);
+				}
+
+				@Override
+				ReadableByteChannel readEncoded() {
+					return Channels.newChannel(new ByteArrayInputStream(content));
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+	}
+}
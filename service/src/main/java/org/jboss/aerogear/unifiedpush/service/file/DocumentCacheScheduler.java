@@ -0,0 +1,27 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+
+/**
+ * Applies documents stored by other nodes to the {@link DocumentCache}, when watching is enabled.
+ */
+@Singleton
+public class DocumentCacheScheduler {
+
+	@Inject
+	private DocumentCache documentCache;
+
+	/**
+	 * Job that invalidates the cached documents changed on the shared document root.
+	 *
+	 * Note: Occurring every second.
+	 */
+	@Schedule(hour = "*", minute = "*", second = "*", persistent = false)
+	public void pollChanges() {
+		if (documentCache.isWatching()) {
+			documentCache.pollChanges();
+		}
+	}
+}
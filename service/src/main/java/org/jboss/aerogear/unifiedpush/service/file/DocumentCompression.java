@@ -0,0 +1,36 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses documents at rest when they are large enough to benefit.
+ */
+final class DocumentCompression {
+	static final String GZIP_SUFFIX = ".gz";
+
+	// compressed documents must save at least a tenth of the space
+	private static final int MAX_RATIO_PERCENT = 90;
+
+	private DocumentCompression() {
+	}
+
+	/**
+	 * @return the gzip compressed content, or null if the content is smaller than minBytes (0 disables compression) or
+	 *         does not compress well
+	 */
+	static byte[] compress(byte[] content, int minBytes) {
+		if (minBytes <= 0 || content.length < minBytes) {
+			return null;
+		}
+
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(content);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return compressed.size() * 100L < content.length * (long) MAX_RATIO_PERCENT ? compressed.toByteArray() : null;
+	}
+}
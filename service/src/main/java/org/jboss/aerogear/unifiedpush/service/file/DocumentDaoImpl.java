@@ -2,17 +2,25 @@ package org.jboss.aerogear.unifiedpush.service.file;
 
 import static org.jboss.aerogear.unifiedpush.api.DocumentMessage.NULL_PART;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.ejb.Stateless;
@@ -20,11 +28,16 @@ import javax.ejb.TransactionAttribute;
 import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
 import org.jboss.aerogear.unifiedpush.dao.DocumentDao;
 import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEvent;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightEventType;
+import org.jboss.aerogear.unifiedpush.service.metrics.FlightRecorderEvents;
 
 @Stateless
 @TransactionAttribute(TransactionAttributeType.SUPPORTS)
@@ -39,11 +52,53 @@ public class DocumentDaoImpl implements DocumentDao {
 	@Inject
 	private Configuration configuration;
 
+	@Inject
+	private DocumentIndex documentIndex;
+
+	@Inject
+	private SegmentDocumentStore segmentStore;
+
+	@Inject
+	private DocumentCache documentCache;
+
 	@Override
 	public void create(DocumentMessage message, boolean overwrite) {
-		Path directoryPath = getDocumentPath(message.getMetadata());
-		fileManager.save(Paths.get(directoryPath.toString(), getDocumentFileName(message.getMetadata(), overwrite)),
-				message.getContent().getBytes(StandardCharsets.UTF_8));
+		final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.DOCUMENT_WRITE);
+		if (segmentStore.isEnabled()) {
+			segmentStore.create(message);
+		} else {
+			createFile(message, overwrite);
+		}
+		documentCache.invalidate(message.getMetadata());
+		FlightRecorderEvents.documentWritten(event, message.getMetadata().getPublisher(),
+				message.getMetadata().getAlias(), message.getContent().length());
+	}
+
+	private void createFile(DocumentMessage message, boolean overwrite) {
+		final DocumentMetadata metadata = message.getMetadata();
+		final byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+		final byte[] compressed = DocumentCompression.compress(content,
+				configuration.getProperty(Configuration.PROP_DOCUMENT_COMPRESSION_MIN_BYTES, 1024));
+
+		// the suffix records the compression, see FileDocumentContent
+		final String baseName = getDocumentFileName(metadata, overwrite);
+		final String fileName = baseName + (compressed == null ? "" : DocumentCompression.GZIP_SUFFIX);
+		final Path documentPath = Paths.get(getDocumentPath(metadata).toString(), fileName);
+		fileManager.save(documentPath, compressed == null ? content : compressed);
+
+		if (overwrite) {
+			// an overwritten document that crossed the compression threshold was stored under the other suffix
+			final String formerName = compressed == null ? baseName + DocumentCompression.GZIP_SUFFIX : baseName;
+			try {
+				Files.deleteIfExists(documentPath.resolveSibling(formerName));
+			} catch (IOException e) {
+				logger.warning("Unable to delete the replaced document " + formerName + ": " + e.getMessage());
+			}
+		}
+
+		final String qualifier = metadata.getQualifier() == null ? NULL_PART : metadata.getQualifier().toUpperCase();
+		documentIndex.update(getPublisherPath(metadata), DocumentIndex.key(metadata.getAlias(), qualifier,
+				getFileNamePart(metadata.getId())), documentPath, System.currentTimeMillis());
 	}
 
 	@Override
@@ -56,78 +111,163 @@ public class DocumentDaoImpl implements DocumentDao {
 	 * @return - List<String> of document content.
 	 */
 	public List<DocumentMessage> findDocuments(DocumentMetadata message) {
-		return getDocuments(getDocumentPath(message), message, null);
+		final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.DOCUMENT_READ);
+		final List<DocumentMessage> documents = loadDocuments(message);
+		FlightRecorderEvents.documentRead(event, message.getPublisher(), message.getAlias(), documents.size());
+		return documents;
+	}
+
+	private List<DocumentMessage> loadDocuments(DocumentMetadata message) {
+		if (segmentStore.isEnabled()) {
+			return toMessages(segmentStore.findAll(message));
+		}
+		final Map<String, File> files = new LinkedHashMap<>();
+		listDocuments(getDocumentPath(message), message, files);
+
+		// documents of the former layout, until moved to their shard (a document moved meanwhile is listed once)
+		final Path legacyPath = getLegacyDocumentPath(message);
+		if (legacyPath != null && Files.isDirectory(legacyPath)) {
+			listDocuments(legacyPath, message, files);
+		}
+
+		final List<DocumentMessage> documents = new ArrayList<>(files.size());
+		for (File file : files.values()) {
+			documents.add(toMessage(new FileDocumentContent(file.toPath(), message)));
+		}
+		return documents;
 	}
 
 	@Override
 	public DocumentMessage findLatestDocumentForAlias(DocumentMetadata metadata) {
-		return findLatestDocumentInDirectory(getDocumentPath(metadata), metadata);
+		final DocumentContent latest = findLatestDocumentContentForAlias(metadata);
+		return latest == null ? null : toMessage(latest);
 	}
 
 	@Override
 	public List<DocumentMessage> findLatestDocumentsForApplication(DocumentMetadata message) {
-		try {
-			final Path fullDirectoryPath = getFullDirectoryPath(Paths
-					.get(message.getPushApplication().getPushApplicationID(), DocumentType.INSTALLATION.toString()));
+		return toMessages(findLatestDocumentContentsForApplication(message));
+	}
 
-			if (!fullDirectoryPath.toFile().exists()) {
-				return Collections.emptyList();
-			}
+	@Override
+	public DocumentContent findLatestDocumentContentForAlias(DocumentMetadata metadata) {
+		return findLatestDocument(metadata, metadata.getAlias());
+	}
 
-			List<File> aliasDirectories;
-
-			// NULL ALIAS -> Get latest document for all aliases.
-			if (DocumentMetadata.NULL_ALIAS.equals(message.getAlias())){
-				aliasDirectories = fileManager.list(
-						fullDirectoryPath, new FileFilter() {
-							@Override
-							public boolean accept(File pathname) {
-								return pathname.isDirectory();
-							}
-						});
-			} else {
-				aliasDirectories = new ArrayList<File>();
-				aliasDirectories.add(new File (fullDirectoryPath.toString(), message.getAlias()));
-			}
+	@Override
+	public List<DocumentContent> findLatestDocumentContentsForApplication(DocumentMetadata message) {
+		final DocumentMetadata installationMetadata = new DocumentMetadata(message);
+		installationMetadata.setPublisher(DocumentType.INSTALLATION);
+
+		// NULL ALIAS -> Get latest document for all aliases.
+		if (!DocumentMetadata.NULL_ALIAS.equals(message.getAlias())) {
+			final DocumentContent latest = findLatestDocument(installationMetadata, message.getAlias());
+			return latest == null ? Collections.<DocumentContent>emptyList() : Collections.singletonList(latest);
+		}
 
+		if (!documentCache.isEnabled()) {
+			return findLatestForAllAliases(installationMetadata, message);
+		}
 
-			List<DocumentMessage> documents = new LinkedList<>();
+		final String cacheKey = DocumentCache.allAliasesKey(installationMetadata);
+		final List<DocumentContent> cached = documentCache.get(cacheKey, installationMetadata);
+		if (cached != null) {
+			return cached;
+		}
+		final long stamp = documentCache.stamp(cacheKey);
+		final List<DocumentContent> documents = findLatestForAllAliases(installationMetadata, message);
+		watchIndex(installationMetadata, null);
+		return documentCache.put(cacheKey, stamp, documents);
+	}
 
-			for (File aliasDirectory : aliasDirectories) {
-				final DocumentMessage latest = findLatestDocumentInDirectory(aliasDirectory.toPath(), message);
-				if (latest != null) {
-					documents.add(latest);
-				}
-			}
+	private List<DocumentContent> findLatestForAllAliases(DocumentMetadata installationMetadata, DocumentMetadata message) {
+		final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.DOCUMENT_READ);
+		final List<DocumentContent> documents = loadLatestForAllAliases(installationMetadata, message);
+		FlightRecorderEvents.documentRead(event, installationMetadata.getPublisher(), message.getAlias(), documents.size());
+		return documents;
+	}
 
-			return documents;
+	private List<DocumentContent> loadLatestForAllAliases(DocumentMetadata installationMetadata, DocumentMetadata message) {
+		if (segmentStore.isEnabled()) {
+			return segmentStore.findLatestForAllAliases(installationMetadata);
+		}
 
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException(e);
+		final List<DocumentContent> documents = new LinkedList<>();
+		for (Path document : documentIndex.findAll(getPublisherPath(installationMetadata),
+				getFileNamePart(message.getQualifier()), getFileNamePart(message.getId()))) {
+			documents.add(new FileDocumentContent(document, message));
 		}
+		return documents;
+	}
 
+	private DocumentContent findLatestDocument(DocumentMetadata metadata, String alias) {
+		if (!documentCache.isEnabled()) {
+			return loadLatestDocument(metadata, alias);
+		}
+
+		final String cacheKey = DocumentCache.key(metadata, alias);
+		List<DocumentContent> latest = documentCache.get(cacheKey, metadata);
+		if (latest == null) {
+			final long stamp = documentCache.stamp(cacheKey);
+			final DocumentContent loaded = loadLatestDocument(metadata, alias);
+			watchIndex(metadata, alias);
+			latest = documentCache.put(cacheKey, stamp,
+					loaded == null ? Collections.<DocumentContent>emptyList() : Collections.singletonList(loaded));
+		}
+		return latest.isEmpty() ? null : latest.get(0);
 	}
 
-	private DocumentMessage findLatestDocumentInDirectory(Path directoryPath, DocumentMetadata metadata) {
-		List<DocumentMessage> documents = getDocuments(directoryPath, metadata, new DocumentNameFilterImpl(metadata));
+	/**
+	 * Watches the index shard of the alias, or all shards for a listing of all aliases (null alias).
+	 */
+	private void watchIndex(DocumentMetadata metadata, String alias) {
+		if (!documentCache.isWatching() || segmentStore.isEnabled()) {
+			return;
+		}
+		if (alias != null) {
+			documentCache.watch(DocumentIndex.pointerDirectory(getPublisherPath(metadata), alias));
+			return;
+		}
+		for (Path pointerDirectory : DocumentIndex.pointerDirectories(getPublisherPath(metadata))) {
+			documentCache.watch(pointerDirectory);
+		}
+	}
 
-		if (documents != null && documents.size() >= 1) {
-			Collections.sort(documents, new Comparator<DocumentMessage>() {
+	private DocumentContent loadLatestDocument(DocumentMetadata metadata, String alias) {
+		final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.DOCUMENT_READ);
+		final DocumentContent latest = readLatestDocument(metadata, alias);
+		FlightRecorderEvents.documentRead(event, metadata.getPublisher(), alias, latest == null ? 0 : 1);
+		return latest;
+	}
 
-				@Override
-				public int compare(DocumentMessage o1, DocumentMessage o2) {
-					return Long.compare(o1.getMetadata().getTimestamp(), o2.getMetadata().getTimestamp());
-				}
-			});
+	private DocumentContent readLatestDocument(DocumentMetadata metadata, String alias) {
+		if (segmentStore.isEnabled()) {
+			return segmentStore.findLatest(metadata, alias);
+		}
+
+		final Path latest = documentIndex.find(getPublisherPath(metadata),
+				DocumentIndex.key(alias, getFileNamePart(metadata.getQualifier()), getFileNamePart(metadata.getId())));
+		return latest == null ? null : new FileDocumentContent(latest, metadata);
+	}
 
-			return documents.get(documents.size() - 1);
+	private List<DocumentMessage> toMessages(List<DocumentContent> contents) {
+		final List<DocumentMessage> documents = new ArrayList<>(contents.size());
+		for (DocumentContent content : contents) {
+			documents.add(toMessage(content));
 		}
+		return documents;
+	}
 
-		return null;
+	private DocumentMessage toMessage(DocumentContent content) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream((int) content.getSize());
+		try {
+			content.writeTo(Channels.newChannel(out));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return new DocumentMessage(new String(out.toByteArray(), StandardCharsets.UTF_8), content.getMetadata());
 	}
 
-	private List<DocumentMessage> getDocuments(Path directoryPath, final DocumentMetadata metadata,
-			final DocumentNameFilter filter) {
+	private void listDocuments(Path directoryPath, final DocumentMetadata metadata, Map<String, File> documents) {
 		File directory = directoryPath.toFile();
 		List<File> files;
 		try {
@@ -138,12 +278,6 @@ public class DocumentDaoImpl implements DocumentDao {
 						return false;
 					}
 					String[] parts = pathname.getName().split(DOCUMENT_TOKEN);
-					String id = parts.length < 6 ? DocumentMetadata.NULL_ID : parts[5];
-					if (filter != null && !filter.accept(parts[0], DocumentType.valueOf(parts[1]), parts[2], parts[3],
-									parts[4], id)) {
-						return false;
-					}
-
 					return metadata.getPushApplication().getPushApplicationID().equals(parts[0])
 							&& metadata.getPublisher().name().equals(parts[1]);
 				}
@@ -155,16 +289,11 @@ public class DocumentDaoImpl implements DocumentDao {
 			files = new ArrayList<>();
 		}
 
-		List<DocumentMessage> documents = new ArrayList<>(files.size());
 		for (File file : files) {
-			DocumentMetadata docMeta = new DocumentMetadata(metadata);
-			docMeta.setTimestamp(file.lastModified());
-			DocumentMessage document = new DocumentMessage(
-					new String(fileManager.read(file.toPath()), StandardCharsets.UTF_8), docMeta);
-			documents.add(document);
+			if (!documents.containsKey(file.getName())) {
+				documents.put(file.getName(), file);
+			}
 		}
-
-		return documents;
 	}
 
 	private Path getDocumentPath(DocumentMetadata message) {
@@ -174,8 +303,19 @@ public class DocumentDaoImpl implements DocumentDao {
 			return getFullDirectoryPath(
 					Paths.get(message.getPushApplication().getPushApplicationID(), message.getPublisher().name()));
 
-		return getFullDirectoryPath(Paths.get(message.getPushApplication().getPushApplicationID(),
-				message.getPublisher().name(), message.getAlias()));
+		return DocumentLayout.aliasDirectory(getPublisherPath(message), message.getAlias());
+	}
+
+	private Path getLegacyDocumentPath(DocumentMetadata message) {
+		if (message.getPublisher() == DocumentType.APPLICATION
+				&& message.getAlias().equalsIgnoreCase(DocumentMetadata.NULL_ALIAS))
+			return null;
+
+		return getPublisherPath(message).resolve(message.getAlias());
+	}
+
+	private Path getPublisherPath(DocumentMetadata message) {
+		return getFullDirectoryPath(Paths.get(message.getPushApplication().getPushApplicationID(), message.getPublisher().name()));
 	}
 
 	private Path getFullDirectoryPath(Path path) {
@@ -196,30 +336,58 @@ public class DocumentDaoImpl implements DocumentDao {
 		return obj == null ? NULL_PART : obj.toString();
 	}
 
-	private static interface DocumentNameFilter {
-		boolean accept(String pushApp, DocumentType type, String alias, String qualifier, String time, String id);
-	}
+	/**
+	 * Document version stored in its own file, opened when written.
+	 */
+	private class FileDocumentContent extends AbstractDocumentContent {
+		private final Path document;
+		private final long size;
+
+		FileDocumentContent(Path document, DocumentMetadata metadata) {
+			super(withTimestamp(metadata, document.toFile().lastModified()),
+					document.toString().endsWith(DocumentCompression.GZIP_SUFFIX) ? GZIP : null);
+			this.document = document;
+			this.size = document.toFile().length();
+		}
 
-	private class DocumentNameFilterImpl implements DocumentNameFilter {
-		private final DocumentMetadata documentMetadata;
+		@Override
+		public long getSize() {
+			return size;
+		}
 
-		public DocumentNameFilterImpl(DocumentMetadata documentMetadata) {
-			this.documentMetadata = documentMetadata;
+		@Override
+		public void writeEncodedTo(WritableByteChannel target) throws IOException {
+			try (FileChannel channel = fileManager.open(document)) {
+				Transfers.transfer(channel, 0, channel.size(), target);
+			}
 		}
 
 		@Override
-		public boolean accept(String pushApp, DocumentType type, String alias, String qualifier, String time,
-				String id) {
-			if (!documentMetadata.getAlias().equalsIgnoreCase(DocumentMetadata.NULL_ALIAS)
-					&& !documentMetadata.getAlias().equals(alias))
-				return false;
-			if (documentMetadata.getPushApplication() != null
-					&& !documentMetadata.getPushApplication().getPushApplicationID().equals(pushApp))
-				return false;
-
-			return documentMetadata.getPublisher() == type
-					&& qualifier.equals(getFileNamePart(documentMetadata.getQualifier()))
-					&& id.equals(getFileNamePart(documentMetadata.getId()));
+		public OpenDocumentContent open() throws IOException {
+			// the open channel still reads the file when it is unlinked by a sweep or a move to its shard
+			final FileChannel channel = fileManager.open(document);
+			return new Opened(this) {
+				@Override
+				public void writeEncodedTo(WritableByteChannel target) throws IOException {
+					Transfers.transfer(channel, 0, channel.size(), target);
+				}
+
+				@Override
+				ReadableByteChannel readEncoded() throws IOException {
+					return Transfers.region(channel, 0, channel.size());
+				}
+
+				@Override
+				public void close() throws IOException {
+					channel.close();
+				}
+			};
 		}
 	}
+
+	private static DocumentMetadata withTimestamp(DocumentMetadata metadata, long timestamp) {
+		final DocumentMetadata docMeta = new DocumentMetadata(metadata);
+		docMeta.setTimestamp(timestamp);
+		return docMeta;
+	}
 }
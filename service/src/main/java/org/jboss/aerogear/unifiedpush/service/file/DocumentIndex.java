@@ -0,0 +1,363 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+
+/**
+ * Index of the latest document version per alias, qualifier and id, kept next to the documents of one push
+ * application and publisher. Every key is a small pointer file holding the timestamp and the location of the latest
+ * version, in the shard directory of its alias (see {@link DocumentLayout}) within the {@value #INDEX_DIRECTORY}
+ * directory.
+ * Finding the latest version is a single read, and listing the latest versions of all aliases only reads the index
+ * directories instead of every document of every alias.
+ *
+ * Documents stored before the index existed are indexed once, the first time the index of their push application
+ * and publisher is used. Pointers of the former flat index directory are still read until
+ * {@link DocumentTree#migrate(Path)} moves them to their shard.
+ */
+@ApplicationScoped
+public class DocumentIndex {
+	private static final Logger logger = Logger.getLogger(DocumentIndex.class.getName());
+
+	static final String INDEX_DIRECTORY = ".index";
+	private static final String COMPLETE_MARKER = ".complete";
+	private static final String KEY_TOKEN = "__";
+	private static final int LOCK_STRIPES = 64;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	public DocumentIndex() {
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	public static String key(String alias, String qualifier, String id) {
+		return alias + KEY_TOKEN + qualifier + KEY_TOKEN + id;
+	}
+
+	/**
+	 * @param name name of a pointer file
+	 * @return the alias, qualifier and id of the key, or null if the name is not a key
+	 */
+	public static String[] parseKey(String name) {
+		final String[] parts = name.split(KEY_TOKEN);
+		return parts.length == 3 ? parts : null;
+	}
+
+	/**
+	 * Points the key at the given document version, unless a newer version is indexed already.
+	 *
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param key the key, see {@link #key(String, String, String)}
+	 * @param document the document version
+	 * @param timestamp time the version was stored
+	 */
+	public void update(Path publisherDirectory, String key, Path document, long timestamp) {
+		ensureIndexed(publisherDirectory);
+		updatePointer(publisherDirectory, key, publisherDirectory.relativize(document).toString(), timestamp);
+	}
+
+	/**
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param key the key, see {@link #key(String, String, String)}
+	 * @return the latest document version of the key, or null if there is none
+	 */
+	public Path find(Path publisherDirectory, String key) {
+		ensureIndexed(publisherDirectory);
+		final Pointer pointer = readPointer(publisherDirectory.resolve(INDEX_DIRECTORY), key);
+		if (pointer == null) {
+			return null;
+		}
+		final Path document = publisherDirectory.resolve(pointer.location);
+		return Files.exists(document) ? document : null;
+	}
+
+	/**
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param qualifier the qualifier of the documents
+	 * @param id the id of the documents
+	 * @return the latest document versions of every alias with the given qualifier and id
+	 */
+	public List<Path> findAll(Path publisherDirectory, String qualifier, String id) {
+		ensureIndexed(publisherDirectory);
+		final List<Path> documents = new ArrayList<>();
+		final String suffix = KEY_TOKEN + qualifier + KEY_TOKEN + id;
+		final DirectoryStream.Filter<Path> filter = new DirectoryStream.Filter<Path>() {
+			@Override
+			public boolean accept(Path entry) {
+				return entry.getFileName().toString().endsWith(suffix);
+			}
+		};
+		final Set<String> keys = new HashSet<>();
+		try {
+			for (Path directory : pointerDirectories(publisherDirectory)) {
+				try (DirectoryStream<Path> pointerFiles = Files.newDirectoryStream(directory, filter)) {
+					for (Path pointerFile : pointerFiles) {
+						keys.add(pointerFile.getFileName().toString());
+						addDocument(publisherDirectory, readPointer(pointerFile), documents);
+					}
+				} catch (NoSuchFileException e) {
+					// no alias of the shard stored yet
+				}
+			}
+			// pointers of the flat index directory not migrated yet
+			try (DirectoryStream<Path> pointerFiles = Files.newDirectoryStream(publisherDirectory.resolve(INDEX_DIRECTORY),
+					filter)) {
+				for (Path pointerFile : pointerFiles) {
+					if (!Files.isDirectory(pointerFile) && !keys.contains(pointerFile.getFileName().toString())) {
+						addDocument(publisherDirectory, readPointer(pointerFile), documents);
+					}
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// nothing stored yet
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return documents;
+	}
+
+	private static void addDocument(Path publisherDirectory, Pointer pointer, List<Path> documents) {
+		if (pointer != null) {
+			final Path document = publisherDirectory.resolve(pointer.location);
+			if (Files.exists(document)) {
+				documents.add(document);
+			}
+		}
+	}
+
+	/**
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param alias the alias of the documents
+	 * @return the directory holding the pointer files of the alias
+	 */
+	static Path pointerDirectory(Path publisherDirectory, String alias) {
+		return publisherDirectory.resolve(INDEX_DIRECTORY).resolve(DocumentLayout.shard(alias));
+	}
+
+	/**
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @return the directories holding the pointer files of all aliases, one per shard
+	 */
+	static List<Path> pointerDirectories(Path publisherDirectory) {
+		final List<Path> directories = new ArrayList<>(DocumentLayout.SHARDS);
+		for (String shard : DocumentLayout.shards()) {
+			directories.add(publisherDirectory.resolve(INDEX_DIRECTORY).resolve(shard));
+		}
+		return directories;
+	}
+
+	/**
+	 * Indexes the documents stored before the index existed, unless done already.
+	 */
+	void ensureIndexed(Path publisherDirectory) {
+		final Path indexDirectory = publisherDirectory.resolve(INDEX_DIRECTORY);
+		if (Files.exists(indexDirectory.resolve(COMPLETE_MARKER))) {
+			return;
+		}
+
+		synchronized (lockFor(publisherDirectory.toString())) {
+			if (Files.exists(indexDirectory.resolve(COMPLETE_MARKER))) {
+				return;
+			}
+			// documents of the publisher itself (global documents), of its alias directories and of the alias
+			// directories within shard directories, see DocumentLayout
+			final File[] entries = publisherDirectory.toFile().listFiles();
+			if (entries != null) {
+				logger.info("Indexing existing documents of " + publisherDirectory);
+				for (File entry : entries) {
+					if (!entry.getName().equals(INDEX_DIRECTORY)) {
+						indexExisting(publisherDirectory, entry, 2);
+					}
+				}
+			}
+			try {
+				Files.createDirectories(indexDirectory);
+				if (!Files.exists(indexDirectory.resolve(COMPLETE_MARKER))) {
+					Files.createFile(indexDirectory.resolve(COMPLETE_MARKER));
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private void indexExisting(Path publisherDirectory, File document, int depth) {
+		if (document.isDirectory()) {
+			final File[] documents = depth > 0 ? document.listFiles() : null;
+			if (documents != null) {
+				for (File child : documents) {
+					indexExisting(publisherDirectory, child, depth - 1);
+				}
+			}
+			return;
+		}
+		final String[] key = parseDocumentName(document.getName());
+		if (key != null) {
+			updatePointer(publisherDirectory, key(key[0], key[1], key[2]),
+					publisherDirectory.relativize(document.toPath()).toString(), document.lastModified());
+		}
+	}
+
+	/**
+	 * @param name name of a document file
+	 * @return the alias, qualifier and id of the document, or null if the name is not a document name
+	 */
+	static String[] parseDocumentName(String name) {
+		// push application, publisher, alias, qualifier, time and optional id, see DocumentDaoImpl
+		if (name.endsWith(DocumentCompression.GZIP_SUFFIX)) {
+			name = name.substring(0, name.length() - DocumentCompression.GZIP_SUFFIX.length());
+		}
+		final String[] parts = name.split(KEY_TOKEN);
+		if (parts.length < 5) {
+			return null;
+		}
+		return new String[] { parts[2], parts[3], parts.length < 6 ? DocumentMetadata.NULL_ID : parts[5] };
+	}
+
+	/**
+	 * Points the key of a moved document at its new location, if it pointed at the old one.
+	 *
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param from old location of the document
+	 * @param to new location of the document
+	 */
+	public void relocate(Path publisherDirectory, Path from, Path to) {
+		final String[] key = parseDocumentName(from.getFileName().toString());
+		if (key == null) {
+			return;
+		}
+		final Path indexDirectory = publisherDirectory.resolve(INDEX_DIRECTORY);
+		final String indexKey = key(key[0], key[1], key[2]);
+		final Path pointerFile = pointerFile(indexDirectory, indexKey);
+		synchronized (lockFor(pointerFile.toString())) {
+			final Pointer current = readPointer(indexDirectory, indexKey);
+			if (current != null && current.location.equals(publisherDirectory.relativize(from).toString())) {
+				writePointer(pointerFile, current.timestamp, publisherDirectory.relativize(to).toString());
+			}
+		}
+	}
+
+	/**
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @return the pointer files of the former flat index directory
+	 */
+	List<Path> legacyPointers(Path publisherDirectory) throws IOException {
+		final List<Path> pointerFiles = new ArrayList<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(publisherDirectory.resolve(INDEX_DIRECTORY))) {
+			for (Path entry : entries) {
+				if (parseKey(entry.getFileName().toString()) != null && !Files.isDirectory(entry)) {
+					pointerFiles.add(entry);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// nothing stored yet
+		}
+		return pointerFiles;
+	}
+
+	/**
+	 * Moves a pointer file of the former flat index directory to the shard of its alias, unless the shard points at
+	 * a newer version already.
+	 *
+	 * @param legacyPointer a pointer file returned by {@link #legacyPointers(Path)}
+	 */
+	void migratePointer(Path legacyPointer) throws IOException {
+		final Path indexDirectory = legacyPointer.getParent();
+		final Path pointerFile = pointerFile(indexDirectory, legacyPointer.getFileName().toString());
+		synchronized (lockFor(pointerFile.toString())) {
+			final Pointer legacy = readPointer(legacyPointer);
+			if (legacy == null) {
+				return;
+			}
+			final Pointer current = readPointer(pointerFile);
+			if (current == null || current.timestamp < legacy.timestamp) {
+				writePointer(pointerFile, legacy.timestamp, legacy.location);
+			}
+			Files.deleteIfExists(legacyPointer);
+		}
+	}
+
+	private void updatePointer(Path publisherDirectory, String key, String location, long timestamp) {
+		final Path indexDirectory = publisherDirectory.resolve(INDEX_DIRECTORY);
+		final Path pointerFile = pointerFile(indexDirectory, key);
+		synchronized (lockFor(pointerFile.toString())) {
+			final Pointer current = readPointer(indexDirectory, key);
+			if (current != null && current.timestamp > timestamp) {
+				return;
+			}
+			writePointer(pointerFile, timestamp, location);
+		}
+	}
+
+	private static Path pointerFile(Path indexDirectory, String key) {
+		final int aliasEnd = key.indexOf(KEY_TOKEN);
+		return indexDirectory.resolve(DocumentLayout.shard(aliasEnd < 0 ? key : key.substring(0, aliasEnd))).resolve(key);
+	}
+
+	/**
+	 * Reads the pointer of the key from the shard of its alias, or from the former flat index directory if it was not
+	 * migrated yet.
+	 */
+	private Pointer readPointer(Path indexDirectory, String key) {
+		final Pointer pointer = readPointer(pointerFile(indexDirectory, key));
+		return pointer != null ? pointer : readPointer(indexDirectory.resolve(key));
+	}
+
+	private void writePointer(Path pointerFile, long timestamp, String location) {
+		final Path directory = pointerFile.getParent();
+		try {
+			Files.createDirectories(directory);
+			// replaced atomically, readers never see a partially written pointer
+			final Path temp = directory.resolve(".tmp-" + UUID.randomUUID());
+			Files.write(temp, (timestamp + "\n" + location).getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, pointerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Pointer readPointer(Path pointerFile) {
+		final String content;
+		try {
+			content = new String(Files.readAllBytes(pointerFile), StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		final int separator = content.indexOf('\n');
+		return new Pointer(Long.parseLong(content.substring(0, separator)), content.substring(separator + 1));
+	}
+
+	private Object lockFor(String name) {
+		return locks[(name.hashCode() & Integer.MAX_VALUE) % locks.length];
+	}
+
+	private static final class Pointer {
+		private final long timestamp;
+		private final String location;
+
+		Pointer(long timestamp, String location) {
+			this.timestamp = timestamp;
+			this.location = location;
+		}
+	}
+}
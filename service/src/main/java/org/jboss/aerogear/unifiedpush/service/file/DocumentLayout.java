@@ -0,0 +1,47 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Directory layout of the documents of one push application and publisher. Alias directories are spread over
+ * {@value #SHARDS} shard directories named by a hash of the alias, instead of all living in the publisher directory:
+ *
+ * <pre>
+ * &lt;root&gt;/&lt;push application&gt;/&lt;publisher&gt;/&lt;shard&gt;/&lt;alias&gt;/&lt;document&gt;
+ * </pre>
+ *
+ * Global documents (without alias) stay in the publisher directory. The pointer files of {@link DocumentIndex} are
+ * sharded the same way within its index directory. Alias directories and pointer files of the former layout, directly
+ * in the publisher and index directory, are moved by {@link DocumentTree#migrate(Path)}.
+ */
+final class DocumentLayout {
+	static final int SHARDS = 256;
+
+	private DocumentLayout() {
+	}
+
+	static String shard(String alias) {
+		final CRC32 crc = new CRC32();
+		crc.update(alias.getBytes(StandardCharsets.UTF_8));
+		return String.format("%02x", crc.getValue() % SHARDS);
+	}
+
+	/**
+	 * @return the names of all shard directories
+	 */
+	static List<String> shards() {
+		final List<String> shards = new ArrayList<>(SHARDS);
+		for (int i = 0; i < SHARDS; i++) {
+			shards.add(String.format("%02x", i));
+		}
+		return shards;
+	}
+
+	static Path aliasDirectory(Path publisherDirectory, String alias) {
+		return publisherDirectory.resolve(shard(alias)).resolve(alias);
+	}
+}
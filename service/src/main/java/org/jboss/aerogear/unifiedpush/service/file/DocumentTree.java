@@ -0,0 +1,296 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintenance of the document files of one push application and publisher: moves alias directories of the former
+ * layout to their shard (see {@link DocumentLayout}), and deletes document versions beyond the retention limits.
+ *
+ * Both walk the tree while documents are read and stored. The latest version of every document, the one the
+ * {@link DocumentIndex} points at, is never deleted, and a moved document is linked to its new location and indexed
+ * there before the old file is removed. After every batch of files the walk pauses, so that it does not starve the
+ * reads of the document tree.
+ */
+final class DocumentTree {
+
+	/**
+	 * Retention limits of the versions of a document, by qualifier.
+	 */
+	interface Retention {
+		/**
+		 * @return the number of versions kept, 0 keeps all versions
+		 */
+		int maxVersions(String qualifier);
+
+		/**
+		 * @return the age in milliseconds after which versions are deleted, 0 keeps all versions
+		 */
+		long maxAgeMillis(String qualifier);
+	}
+
+	private static final Comparator<Version> NEWEST_FIRST = new Comparator<Version>() {
+		@Override
+		public int compare(Version v1, Version v2) {
+			return v1.timestamp < v2.timestamp ? 1 : (v1.timestamp == v2.timestamp ? 0 : -1);
+		}
+	};
+
+	private final DocumentIndex documentIndex;
+	private final int batchSize;
+	private final long pauseMillis;
+
+	private long processed;
+	private boolean interrupted;
+
+	DocumentTree(DocumentIndex documentIndex, int batchSize, long pauseMillis) {
+		this.documentIndex = documentIndex;
+		this.batchSize = Math.max(1, batchSize);
+		this.pauseMillis = pauseMillis;
+	}
+
+	/**
+	 * @return the number of files examined and deleted so far
+	 */
+	long getProcessed() {
+		return processed;
+	}
+
+	/**
+	 * @return true if the thread was interrupted during a pause, the walk stops at the next file
+	 */
+	boolean isInterrupted() {
+		return interrupted;
+	}
+
+	/**
+	 * Moves the pointer files of the former flat index directory to their shard, and the documents of alias
+	 * directories of the former layout to the alias directories within shards.
+	 *
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @return the number of documents moved
+	 */
+	int migrate(Path publisherDirectory) throws IOException {
+		// the index has to know the documents before their pointers are moved
+		documentIndex.ensureIndexed(publisherDirectory);
+
+		// pointers first, relocating a document only updates the pointer in its shard
+		for (Path pointer : documentIndex.legacyPointers(publisherDirectory)) {
+			if (interrupted) {
+				return 0;
+			}
+			documentIndex.migratePointer(pointer);
+			pace();
+		}
+
+		int moved = 0;
+		// shard directories created meanwhile hold no documents and are skipped
+		try (DirectoryStream<Path> directories = directories(publisherDirectory)) {
+			for (Path directory : directories) {
+				moved += migrateDirectory(publisherDirectory, directory);
+				if (interrupted) {
+					break;
+				}
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * Deletes the versions of the documents exceeding the retention limits.
+	 *
+	 * @param publisherDirectory directory of the documents of one push application and publisher
+	 * @param retention the limits, by qualifier
+	 * @param now the current time in milliseconds
+	 * @return the number of versions deleted
+	 */
+	int sweep(Path publisherDirectory, Retention retention, long now) throws IOException {
+		// global documents
+		int deleted = sweepDirectory(publisherDirectory, publisherDirectory, retention, now, null);
+
+		try (DirectoryStream<Path> directories = directories(publisherDirectory)) {
+			for (Path directory : directories) {
+				// documents of an alias directory of the former layout, or the alias directories of a shard
+				final List<Path> aliasDirectories = new ArrayList<>();
+				deleted += sweepDirectory(publisherDirectory, directory, retention, now, aliasDirectories);
+				for (Path aliasDirectory : aliasDirectories) {
+					if (interrupted) {
+						return deleted;
+					}
+					deleted += sweepDirectory(publisherDirectory, aliasDirectory, retention, now, null);
+				}
+				if (interrupted) {
+					break;
+				}
+			}
+		}
+		return deleted;
+	}
+
+	private int migrateDirectory(Path publisherDirectory, Path directory) throws IOException {
+		int moved = 0;
+		boolean legacy = false;
+		try (DirectoryStream<Path> documents = Files.newDirectoryStream(directory)) {
+			for (Path document : documents) {
+				if (interrupted) {
+					return moved;
+				}
+				if (Files.isDirectory(document)) {
+					// alias directory of a shard
+					continue;
+				}
+				legacy = true;
+				final String name = document.getFileName().toString();
+				final String[] key = DocumentIndex.parseDocumentName(name);
+				if (key != null && move(publisherDirectory, document,
+						DocumentLayout.aliasDirectory(publisherDirectory, key[0]).resolve(name))) {
+					moved++;
+				}
+				pace();
+			}
+		} catch (NoSuchFileException e) {
+			// removed meanwhile
+			return moved;
+		}
+
+		if (legacy) {
+			try {
+				Files.deleteIfExists(directory);
+			} catch (DirectoryNotEmptyException e) {
+				// stored again by a node of the former version, moved with the next run
+			}
+		}
+		return moved;
+	}
+
+	private boolean move(Path publisherDirectory, Path document, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		try {
+			Files.createLink(target, document);
+		} catch (FileAlreadyExistsException e) {
+			// linked by an interrupted run, or stored again in the new layout
+		} catch (UnsupportedOperationException e) {
+			Files.move(document, target);
+			documentIndex.relocate(publisherDirectory, document, target);
+			return true;
+		}
+		documentIndex.relocate(publisherDirectory, document, target);
+		Files.deleteIfExists(document);
+		return true;
+	}
+
+	private int sweepDirectory(Path publisherDirectory, Path directory, Retention retention, long now,
+			List<Path> subdirectories) throws IOException {
+		final Map<String, List<Version>> versions = new HashMap<>();
+		try (DirectoryStream<Path> documents = Files.newDirectoryStream(directory)) {
+			for (Path document : documents) {
+				if (Files.isDirectory(document)) {
+					if (subdirectories != null && !isHidden(document)) {
+						subdirectories.add(document);
+					}
+					continue;
+				}
+				final String[] key = DocumentIndex.parseDocumentName(document.getFileName().toString());
+				if (key == null) {
+					continue;
+				}
+				final String indexKey = DocumentIndex.key(key[0], key[1], key[2]);
+				List<Version> documentVersions = versions.get(indexKey);
+				if (documentVersions == null) {
+					documentVersions = new ArrayList<>();
+					versions.put(indexKey, documentVersions);
+				}
+				documentVersions.add(new Version(document, document.toFile().lastModified()));
+				pace();
+			}
+		} catch (NoSuchFileException e) {
+			// removed meanwhile
+			return 0;
+		}
+
+		int deleted = 0;
+		for (Map.Entry<String, List<Version>> entry : versions.entrySet()) {
+			final List<Version> documentVersions = entry.getValue();
+			if (documentVersions.size() > 1) {
+				deleted += sweepVersions(publisherDirectory, entry.getKey(), documentVersions, retention, now);
+			}
+			if (interrupted) {
+				break;
+			}
+		}
+		return deleted;
+	}
+
+	private int sweepVersions(Path publisherDirectory, String key, List<Version> versions, Retention retention,
+			long now) throws IOException {
+		final String qualifier = DocumentIndex.parseKey(key)[1];
+		final int maxVersions = retention.maxVersions(qualifier);
+		final long maxAgeMillis = retention.maxAgeMillis(qualifier);
+		if (maxVersions <= 0 && maxAgeMillis <= 0) {
+			return 0;
+		}
+
+		Collections.sort(versions, NEWEST_FIRST);
+		final Path latest = documentIndex.find(publisherDirectory, key);
+		int deleted = 0;
+		// the newest version is kept regardless of its age
+		for (int i = 1; i < versions.size() && !interrupted; i++) {
+			final Version version = versions.get(i);
+			final boolean expired = (maxVersions > 0 && i >= maxVersions)
+					|| (maxAgeMillis > 0 && now - version.timestamp > maxAgeMillis);
+			if (expired && !version.path.equals(latest)) {
+				Files.deleteIfExists(version.path);
+				deleted++;
+				pace();
+			}
+		}
+		return deleted;
+	}
+
+	private DirectoryStream<Path> directories(Path publisherDirectory) throws IOException {
+		return Files.newDirectoryStream(publisherDirectory, new DirectoryStream.Filter<Path>() {
+			@Override
+			public boolean accept(Path entry) {
+				return Files.isDirectory(entry) && !isHidden(entry);
+			}
+		});
+	}
+
+	private static boolean isHidden(Path path) {
+		// the index directory
+		return path.getFileName().toString().startsWith(".");
+	}
+
+	private void pace() {
+		if (++processed % batchSize != 0 || pauseMillis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(pauseMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			interrupted = true;
+		}
+	}
+
+	private static final class Version {
+		private final Path path;
+		private final long timestamp;
+
+		Version(Path path, long timestamp) {
+			this.path = path;
+			this.timestamp = timestamp;
+		}
+	}
+}
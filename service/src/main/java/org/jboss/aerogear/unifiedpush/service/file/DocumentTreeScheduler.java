@@ -0,0 +1,119 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+import javax.ejb.DependsOn;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+
+/**
+ * Moves the documents of the former directory layout to their shard, and deletes the document versions exceeding
+ * the retention limits, when documents are stored in files.
+ */
+@Singleton
+@DependsOn(value = { "Configuration" })
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class DocumentTreeScheduler {
+	private static final Logger logger = Logger.getLogger(DocumentTreeScheduler.class.getName());
+
+	private static final int DEFAULT_BATCH_SIZE = 500;
+	private static final int DEFAULT_PAUSE_MILLIS = 200;
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	@Inject
+	private Configuration configuration;
+
+	@Inject
+	private DocumentIndex documentIndex;
+
+	@Inject
+	private SegmentDocumentStore segmentStore;
+
+	/**
+	 * Job that walks the document tree of every push application and publisher.
+	 *
+	 * The walk pauses after every batch of files, the batch size and the pause are configurable. Versions are only
+	 * deleted when a version count or age limit is configured, per qualifier or for all qualifiers.
+	 *
+	 * Note: Occurring every hour.
+	 */
+	@Schedule(hour = "*", minute = "20", persistent = false)
+	public void maintain() {
+		if (segmentStore.isEnabled()) {
+			// segments keep the latest version only
+			return;
+		}
+
+		final File[] applications = new File(configuration.getProperty(Configuration.PROPERTIES_DOCUMENTS_KEY)).listFiles();
+		if (applications == null) {
+			return;
+		}
+
+		final boolean migrate = configuration.getProperty(Configuration.PROP_DOCUMENT_LAYOUT_MIGRATE, true);
+		final DocumentTree tree = new DocumentTree(documentIndex,
+				configuration.getProperty(Configuration.PROP_DOCUMENT_SWEEP_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+				configuration.getProperty(Configuration.PROP_DOCUMENT_SWEEP_PAUSE_MILLIS, DEFAULT_PAUSE_MILLIS));
+		final DocumentTree.Retention retention = new ConfiguredRetention();
+
+		final long start = System.currentTimeMillis();
+		int moved = 0;
+		int deleted = 0;
+		for (File application : applications) {
+			if (!application.isDirectory() || application.getName().equals(SegmentDocumentStore.SEGMENTS_DIRECTORY)) {
+				continue;
+			}
+			for (DocumentType publisher : DocumentType.values()) {
+				final Path publisherDirectory = application.toPath().resolve(publisher.name());
+				if (!publisherDirectory.toFile().isDirectory()) {
+					continue;
+				}
+				try {
+					if (migrate) {
+						moved += tree.migrate(publisherDirectory);
+					}
+					deleted += tree.sweep(publisherDirectory, retention, start);
+				} catch (IOException e) {
+					logger.severe("Unable to maintain documents of " + publisherDirectory + ": " + e.getMessage());
+				}
+				if (tree.isInterrupted()) {
+					logger.warning("Maintenance of the document tree interrupted, continuing with the next run");
+					return;
+				}
+			}
+		}
+
+		logger.info("Examined " + tree.getProcessed() + " document files in " + (System.currentTimeMillis() - start)
+				+ " ms, moved " + moved + " to their shard and deleted " + deleted + " outdated versions");
+	}
+
+	/**
+	 * Limits of {@link Configuration#PROP_DOCUMENT_RETENTION_MAX_VERSIONS} and
+	 * {@link Configuration#PROP_DOCUMENT_RETENTION_MAX_AGE_DAYS}, overridden per qualifier by the same keys suffixed
+	 * with <code>.QUALIFIER</code>.
+	 */
+	private class ConfiguredRetention implements DocumentTree.Retention {
+
+		@Override
+		public int maxVersions(String qualifier) {
+			return limit(Configuration.PROP_DOCUMENT_RETENTION_MAX_VERSIONS, qualifier);
+		}
+
+		@Override
+		public long maxAgeMillis(String qualifier) {
+			return limit(Configuration.PROP_DOCUMENT_RETENTION_MAX_AGE_DAYS, qualifier) * MILLIS_PER_DAY;
+		}
+
+		private int limit(String key, String qualifier) {
+			return configuration.getProperty(key + "." + qualifier, configuration.getProperty(key, 0));
+		}
+	}
+}
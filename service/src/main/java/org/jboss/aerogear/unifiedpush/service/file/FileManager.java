@@ -3,6 +3,7 @@ package org.jboss.aerogear.unifiedpush.service.file;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -25,6 +26,14 @@ public interface FileManager {
 	 */
 	byte[] read(Path path);
 
+	/**
+	 * Opens a channel for reading the file denoted in the path, to stream it instead of reading it as a whole.
+	 * The caller closes the channel.
+	 * @param path path of file
+	 * @return read only channel of the file
+	 */
+	FileChannel open(Path path);
+
 	/**
 	 * Returns the list of files under the directory denoted in the path and match the given file filter.
 	 * @param path directory path
@@ -0,0 +1,208 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.jboss.aerogear.unifiedpush.api.DocumentMessage.NULL_PART;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+
+/**
+ * Document storage backed by a {@link SegmentLog} under the {@value #SEGMENTS_DIRECTORY} directory of the document
+ * root, used by {@link DocumentDaoImpl} when {@link Configuration#PROP_DOCUMENT_STORAGE} is {@value #STORAGE_SEGMENT}.
+ * Only the latest version of a document is kept, keyed by push application, publisher, alias, qualifier and id.
+ */
+@ApplicationScoped
+public class SegmentDocumentStore {
+	private static final Logger logger = Logger.getLogger(SegmentDocumentStore.class.getName());
+
+	static final String STORAGE_SEGMENT = "segment";
+	static final String SEGMENTS_DIRECTORY = "segments";
+	private static final String KEY_TOKEN = "/";
+	// record flag of documents stored gzip compressed
+	private static final byte FLAG_GZIP = 1;
+
+	@Inject
+	private Configuration configuration;
+
+	private boolean enabled;
+	private SegmentLog log;
+
+	@PostConstruct
+	public void open() {
+		enabled = STORAGE_SEGMENT.equalsIgnoreCase(configuration.getProperty(Configuration.PROP_DOCUMENT_STORAGE));
+		if (!enabled) {
+			return;
+		}
+
+		final String root = configuration.getProperty(Configuration.PROPERTIES_DOCUMENTS_KEY);
+		final long maxSegmentBytes = configuration.getProperty(Configuration.PROP_DOCUMENT_SEGMENT_MAX_SIZE_MB, 64) * 1024L * 1024L;
+		try {
+			log = new SegmentLog(Paths.get(root, SEGMENTS_DIRECTORY), maxSegmentBytes, fsyncPolicy());
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open document segments in " + root, e);
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				logger.warning("Unable to close document segments: " + e.getMessage());
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void create(DocumentMessage message) {
+		final DocumentMetadata metadata = message.getMetadata();
+		final String qualifier = metadata.getQualifier() == null ? NULL_PART : metadata.getQualifier().toUpperCase();
+		final byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+		final byte[] compressed = DocumentCompression.compress(content,
+				configuration.getProperty(Configuration.PROP_DOCUMENT_COMPRESSION_MIN_BYTES, 1024));
+		try {
+			log.append(key(metadata, metadata.getAlias(), qualifier, getPart(metadata.getId())),
+					compressed == null ? content : compressed, System.currentTimeMillis(),
+					compressed == null ? 0 : FLAG_GZIP);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the latest document of the alias, qualifier and id of the metadata, or null if there is none
+	 */
+	public DocumentContent findLatest(DocumentMetadata metadata, String alias) {
+		return find(key(metadata, alias, getPart(metadata.getQualifier()), getPart(metadata.getId())), metadata);
+	}
+
+	/**
+	 * @return the latest document of every alias with the qualifier and id of the metadata
+	 */
+	public List<DocumentContent> findLatestForAllAliases(DocumentMetadata metadata) {
+		final String suffix = KEY_TOKEN + getPart(metadata.getQualifier()) + KEY_TOKEN + getPart(metadata.getId());
+		final List<DocumentContent> documents = new ArrayList<>();
+		for (String key : log.keys(prefix(metadata))) {
+			if (key.endsWith(suffix)) {
+				documents.add(find(key, metadata));
+			}
+		}
+		return documents;
+	}
+
+	/**
+	 * @return the latest document of every qualifier and id of the alias of the metadata
+	 */
+	public List<DocumentContent> findAll(DocumentMetadata metadata) {
+		final List<DocumentContent> documents = new ArrayList<>();
+		for (String key : log.keys(prefix(metadata) + metadata.getAlias() + KEY_TOKEN)) {
+			documents.add(find(key, metadata));
+		}
+		return documents;
+	}
+
+	public void sync() throws IOException {
+		log.sync();
+	}
+
+	public int compact() throws IOException {
+		return log.compact(configuration.getProperty(Configuration.PROP_DOCUMENT_SEGMENT_COMPACTION_LIVE_PERCENT, 50));
+	}
+
+	private DocumentContent find(String key, DocumentMetadata metadata) {
+		final SegmentLog.Record record = log.find(key);
+		if (record == null) {
+			return null;
+		}
+
+		final DocumentMetadata docMeta = new DocumentMetadata(metadata);
+		docMeta.setTimestamp(record.getTimestamp());
+		return new SegmentDocumentContent(record, docMeta);
+	}
+
+	private SegmentLog.FsyncPolicy fsyncPolicy() {
+		final String value = configuration.getProperty(Configuration.PROP_DOCUMENT_SEGMENT_FSYNC);
+		if (value == null) {
+			return SegmentLog.FsyncPolicy.INTERVAL;
+		}
+		try {
+			return SegmentLog.FsyncPolicy.valueOf(value.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warning("Ignoring unknown fsync policy '" + value + "', using interval");
+			return SegmentLog.FsyncPolicy.INTERVAL;
+		}
+	}
+
+	private static String prefix(DocumentMetadata metadata) {
+		return metadata.getPushApplication().getPushApplicationID() + KEY_TOKEN + metadata.getPublisher().name()
+				+ KEY_TOKEN;
+	}
+
+	private static String key(DocumentMetadata metadata, String alias, String qualifier, String id) {
+		return prefix(metadata) + alias + KEY_TOKEN + qualifier + KEY_TOKEN + id;
+	}
+
+	private static String getPart(Object obj) {
+		return obj == null ? NULL_PART : obj.toString();
+	}
+
+	private static class SegmentDocumentContent extends AbstractDocumentContent {
+		private final SegmentLog.Record record;
+
+		SegmentDocumentContent(SegmentLog.Record record, DocumentMetadata metadata) {
+			super(metadata, (record.getFlags() & FLAG_GZIP) != 0 ? GZIP : null);
+			this.record = record;
+		}
+
+		@Override
+		public long getSize() {
+			return record.getSize();
+		}
+
+		@Override
+		public void writeEncodedTo(WritableByteChannel target) throws IOException {
+			record.transferTo(target);
+		}
+
+		@Override
+		public OpenDocumentContent open() throws IOException {
+			final SegmentLog.Reader reader = record.open();
+			return new Opened(this) {
+				@Override
+				public void writeEncodedTo(WritableByteChannel target) throws IOException {
+					reader.transferTo(target);
+				}
+
+				@Override
+				ReadableByteChannel readEncoded() throws IOException {
+					return reader.newChannel();
+				}
+
+				@Override
+				public void close() throws IOException {
+					reader.close();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,520 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key value log, stored in segment files of a bounded size. Every write appends a record to the active
+ * segment; an in-memory index points every key at its latest record. Segments that mostly hold superseded records are
+ * compacted by copying their live records to the active segment and deleting them.
+ *
+ * A record is a fixed header (magic, CRC32 of the rest of the record, timestamp, flags, key length and value length)
+ * followed by the UTF-8 key and the value. On open, the segments are scanned to rebuild the index, and a torn record
+ * at the end of the last segment (e.g. after a crash) is truncated.
+ *
+ * The log must only be opened by a single process at a time.
+ */
+public class SegmentLog implements Closeable {
+	private static final Logger logger = Logger.getLogger(SegmentLog.class.getName());
+
+	public enum FsyncPolicy {
+		/** Force every append to disk before returning. */
+		ALWAYS,
+		/** Force appends to disk whenever {@link SegmentLog#sync()} is called. */
+		INTERVAL,
+		/** Leave it to the operating system. */
+		NEVER
+	}
+
+	static final int MAGIC = 0x41444f43;
+	static final int HEADER_SIZE = 25;
+	static final String SEGMENT_SUFFIX = ".seg";
+	private static final int MAX_KEY_LENGTH = 4096;
+	private static final int READ_ATTEMPTS = 3;
+
+	private final Path directory;
+	private final long maxSegmentBytes;
+	private final FsyncPolicy fsyncPolicy;
+
+	private final ConcurrentSkipListMap<String, Location> index = new ConcurrentSkipListMap<>();
+	private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	// Guards appends, the active segment and all index updates.
+	private final Object appendLock = new Object();
+	private volatile Segment active;
+	private boolean dirty;
+
+	public SegmentLog(Path directory, long maxSegmentBytes, FsyncPolicy fsyncPolicy) throws IOException {
+		this.directory = directory;
+		this.maxSegmentBytes = maxSegmentBytes;
+		this.fsyncPolicy = fsyncPolicy;
+
+		Files.createDirectories(directory);
+		recover();
+	}
+
+	/**
+	 * Appends a new value for the key.
+	 */
+	public void append(String key, byte[] value, long timestamp) throws IOException {
+		append(key, value, timestamp, (byte) 0);
+	}
+
+	/**
+	 * Appends a new value for the key, with flags describing the value to the caller.
+	 */
+	public void append(String key, byte[] value, long timestamp, byte flags) throws IOException {
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		if (keyBytes.length > MAX_KEY_LENGTH) {
+			throw new IllegalArgumentException("Key too long: " + key);
+		}
+
+		synchronized (appendLock) {
+			index(key, write(keyBytes, value, timestamp, flags));
+			if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+				active.channel().force(false);
+			} else {
+				dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * @return the latest record of the key, or null if there is none
+	 */
+	public Record find(String key) {
+		final Location location = index.get(key);
+		return location == null ? null : new Record(key, location);
+	}
+
+	/**
+	 * @return the keys starting with the given prefix, in order
+	 */
+	public List<String> keys(String prefix) {
+		return new ArrayList<>(index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+	}
+
+	/**
+	 * Forces the appends since the last call to disk, unless the fsync policy is {@link FsyncPolicy#NEVER}.
+	 */
+	public void sync() throws IOException {
+		synchronized (appendLock) {
+			if (dirty && fsyncPolicy != FsyncPolicy.NEVER) {
+				active.channel().force(false);
+			}
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Compacts the sealed segments with less live data than the given percentage of their size.
+	 *
+	 * @return the number of segments removed
+	 */
+	public synchronized int compact(int livePercent) throws IOException {
+		final Set<Long> candidates = new HashSet<>();
+		for (Segment segment : segments.values()) {
+			if (segment != active && segment.liveBytes.get() * 100 < segment.size * livePercent) {
+				candidates.add(segment.id);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return 0;
+		}
+
+		for (Map.Entry<String, Location> entry : index.entrySet()) {
+			final Location location = entry.getValue();
+			if (!candidates.contains(location.segmentId)) {
+				continue;
+			}
+			final byte[] value = read(segments.get(location.segmentId).channel(), location);
+			synchronized (appendLock) {
+				// skip records superseded while copying
+				if (index.get(entry.getKey()) == location) {
+					index(entry.getKey(), write(entry.getKey().getBytes(StandardCharsets.UTF_8), value,
+							location.timestamp, location.flags));
+				}
+			}
+		}
+
+		// the copies must be durable before the originals are gone
+		synchronized (appendLock) {
+			active.channel().force(false);
+			dirty = false;
+		}
+
+		for (Long id : candidates) {
+			final Segment segment = segments.remove(id);
+			segment.delete();
+			logger.fine("Compacted segment " + segment.path);
+		}
+		return candidates.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (appendLock) {
+			if (dirty && fsyncPolicy != FsyncPolicy.NEVER) {
+				active.channel().force(false);
+			}
+			for (Segment segment : segments.values()) {
+				segment.close();
+			}
+		}
+	}
+
+	int segmentCount() {
+		return segments.size();
+	}
+
+	private Location write(byte[] key, byte[] value, long timestamp, byte flags) throws IOException {
+		final int length = HEADER_SIZE + key.length + value.length;
+		if (active.size > 0 && active.size + length > maxSegmentBytes) {
+			roll();
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.putInt(MAGIC).putInt(0).putLong(timestamp).put(flags).putInt(key.length).putInt(value.length);
+		buffer.put(key).put(value);
+		buffer.putInt(4, checksum(buffer.array(), 8, length - 8));
+		buffer.flip();
+
+		final long offset = active.size;
+		final FileChannel channel = active.channel();
+		long position = offset;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		active.size = position;
+
+		return new Location(active.id, offset, length, value.length, timestamp, flags);
+	}
+
+	private void index(String key, Location location) {
+		final Location previous = index.put(key, location);
+		segments.get(location.segmentId).liveBytes.addAndGet(location.length);
+		if (previous != null) {
+			final Segment segment = segments.get(previous.segmentId);
+			if (segment != null) {
+				segment.liveBytes.addAndGet(-previous.length);
+			}
+		}
+	}
+
+	private void roll() throws IOException {
+		if (fsyncPolicy != FsyncPolicy.NEVER) {
+			active.channel().force(false);
+		}
+		active = open(active.id + 1);
+	}
+
+	private Segment open(long id) throws IOException {
+		final Segment segment = new Segment(id, directory.resolve(String.format("%020d", id) + SEGMENT_SUFFIX));
+		segments.put(id, segment);
+		return segment;
+	}
+
+	private static byte[] read(FileChannel channel, Location location) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+		readFully(channel, buffer, location.valueOffset());
+		return buffer.array();
+	}
+
+	private void recover() throws IOException {
+		final List<Long> ids = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+			for (Path path : stream) {
+				final String name = path.getFileName().toString();
+				try {
+					ids.add(Long.valueOf(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+				} catch (NumberFormatException e) {
+					logger.warning("Ignoring unexpected file " + path);
+				}
+			}
+		}
+		Collections.sort(ids);
+
+		for (int i = 0; i < ids.size(); i++) {
+			final Segment segment = open(ids.get(i));
+			final long valid = scan(segment);
+			final long size = segment.channel().size();
+			if (valid < size) {
+				if (i == ids.size() - 1) {
+					logger.warning("Truncating torn record at " + valid + " of " + segment.path);
+					segment.channel().truncate(valid);
+					segment.channel().force(true);
+				} else {
+					logger.severe("Ignoring corrupt data from " + valid + " to " + size + " of " + segment.path);
+				}
+			}
+			segment.size = valid;
+		}
+
+		active = segments.isEmpty() ? open(1) : segments.lastEntry().getValue();
+	}
+
+	/**
+	 * Indexes the records of the segment, up to the first incomplete or corrupt one.
+	 *
+	 * @return the end of the last valid record
+	 */
+	private long scan(Segment segment) throws IOException {
+		final FileChannel channel = segment.channel();
+		final long size = channel.size();
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		long position = 0;
+
+		while (position + HEADER_SIZE <= size) {
+			header.clear();
+			readFully(channel, header, position);
+			final long timestamp = header.getLong(8);
+			final byte flags = header.get(16);
+			final int keyLength = header.getInt(17);
+			final int valueLength = header.getInt(21);
+			if (header.getInt(0) != MAGIC || keyLength < 0 || keyLength > MAX_KEY_LENGTH || valueLength < 0
+					|| position + HEADER_SIZE + keyLength + valueLength > size) {
+				break;
+			}
+
+			final int length = HEADER_SIZE + keyLength + valueLength;
+			final ByteBuffer record = ByteBuffer.allocate(length);
+			readFully(channel, record, position);
+			if (checksum(record.array(), 8, length - 8) != header.getInt(4)) {
+				break;
+			}
+
+			final String key = new String(record.array(), HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+			index(key, new Location(segment.id, position, length, valueLength, timestamp, flags));
+			position += length;
+		}
+		return position;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	private static int checksum(byte[] data, int offset, int length) {
+		final CRC32 crc = new CRC32();
+		crc.update(data, offset, length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Value of a key at the time it was looked up. The value is only read on demand.
+	 */
+	public final class Record {
+		private final String key;
+		private volatile Location location;
+
+		Record(String key, Location location) {
+			this.key = key;
+			this.location = location;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public long getTimestamp() {
+			return location.timestamp;
+		}
+
+		public int getSize() {
+			return location.valueLength;
+		}
+
+		public byte getFlags() {
+			return location.flags;
+		}
+
+		public byte[] getValue() throws IOException {
+			final Segment segment = acquire();
+			try {
+				return read(segment.channel(), location);
+			} finally {
+				segment.release();
+			}
+		}
+
+		/**
+		 * Copies the value to the channel, without copying it to the heap where the operating system allows it.
+		 */
+		public void transferTo(WritableByteChannel target) throws IOException {
+			final Segment segment = acquire();
+			try {
+				final Location current = location;
+				Transfers.transfer(segment.channel(), current.valueOffset(), current.valueLength, target);
+			} finally {
+				segment.release();
+			}
+		}
+
+		/**
+		 * Pins the segment of the record until the returned reader is closed, so that a compaction cannot delete it
+		 * meanwhile.
+		 */
+		public Reader open() throws IOException {
+			final Segment segment = acquire();
+			return new Reader(segment, location);
+		}
+
+		/**
+		 * Pins the segment of the record. A compaction may have moved the record since the lookup, the copy is used
+		 * then.
+		 */
+		private Segment acquire() throws IOException {
+			for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+				final Segment segment = segments.get(location.segmentId);
+				if (segment != null && segment.acquire()) {
+					return segment;
+				}
+				final Location moved = index.get(key);
+				if (moved == null) {
+					break;
+				}
+				location = moved;
+			}
+			throw new IOException("Unable to read " + key);
+		}
+	}
+
+	/**
+	 * Value of a record whose segment is pinned, see {@link Record#open()}.
+	 */
+	public static final class Reader implements Closeable {
+		private final Segment segment;
+		private final Location location;
+		private boolean closed;
+
+		Reader(Segment segment, Location location) {
+			this.segment = segment;
+			this.location = location;
+		}
+
+		public void transferTo(WritableByteChannel target) throws IOException {
+			Transfers.transfer(segment.channel(), location.valueOffset(), location.valueLength, target);
+		}
+
+		/**
+		 * @return a channel reading the value from its start, valid until this reader is closed
+		 */
+		public ReadableByteChannel newChannel() throws IOException {
+			return Transfers.region(segment.channel(), location.valueOffset(), location.valueLength);
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				segment.release();
+			}
+		}
+	}
+
+	private static final class Location {
+		private final long segmentId;
+		private final long offset;
+		private final int length;
+		private final int valueLength;
+		private final long timestamp;
+		private final byte flags;
+
+		Location(long segmentId, long offset, int length, int valueLength, long timestamp, byte flags) {
+			this.segmentId = segmentId;
+			this.offset = offset;
+			this.length = length;
+			this.valueLength = valueLength;
+			this.timestamp = timestamp;
+			this.flags = flags;
+		}
+
+		long valueOffset() {
+			return offset + length - valueLength;
+		}
+	}
+
+	private static final class Segment {
+		private final long id;
+		private final Path path;
+		private final AtomicLong liveBytes = new AtomicLong();
+		private volatile long size;
+		private boolean deleted;
+		private int readers;
+		private FileChannel channel;
+
+		Segment(long id, Path path) throws IOException {
+			this.id = id;
+			this.path = path;
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		}
+
+		/**
+		 * A reader interrupted during a read closes the channel, so it is reopened unless the segment is gone.
+		 */
+		synchronized FileChannel channel() throws IOException {
+			if (!channel.isOpen()) {
+				if (deleted) {
+					throw new ClosedChannelException();
+				}
+				channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			}
+			return channel;
+		}
+
+		synchronized boolean acquire() {
+			if (deleted) {
+				return false;
+			}
+			readers++;
+			return true;
+		}
+
+		synchronized void release() throws IOException {
+			readers--;
+			if (deleted && readers == 0) {
+				channel.close();
+			}
+		}
+
+		synchronized void close() throws IOException {
+			channel.close();
+		}
+
+		/**
+		 * Deletes the file. Readers still holding the segment keep reading the open channel, the last one closes it.
+		 */
+		synchronized void delete() throws IOException {
+			deleted = true;
+			Files.deleteIfExists(path);
+			if (readers == 0) {
+				channel.close();
+			}
+		}
+	}
+}
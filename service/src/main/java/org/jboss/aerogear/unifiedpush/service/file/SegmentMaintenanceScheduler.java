@@ -0,0 +1,94 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.DependsOn;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+/**
+ * Flushes and compacts the document segments, when documents are stored in segments.
+ *
+ * Timers are only created when segment storage is enabled. Bean managed concurrency lets the sync run while a
+ * compaction is in progress, {@link SegmentLog} does its own locking.
+ */
+@Singleton
+@Startup
+@DependsOn(value = { "Configuration" })
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class SegmentMaintenanceScheduler {
+	private static final Logger logger = Logger.getLogger(SegmentMaintenanceScheduler.class.getName());
+
+	private static final String SYNC = "sync";
+	private static final String COMPACT = "compact";
+
+	private static final long SYNC_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+	private static final long COMPACT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	@Inject
+	private SegmentDocumentStore segmentStore;
+
+	@Resource
+	private TimerService timerService;
+
+	@PostConstruct
+	public void schedule() {
+		if (!segmentStore.isEnabled()) {
+			return;
+		}
+		timerService.createIntervalTimer(SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, new TimerConfig(SYNC, false));
+		timerService.createIntervalTimer(COMPACT_INTERVAL_MILLIS, COMPACT_INTERVAL_MILLIS,
+				new TimerConfig(COMPACT, false));
+	}
+
+	@Timeout
+	public void timeout(Timer timer) {
+		if (SYNC.equals(timer.getInfo())) {
+			sync();
+		} else if (COMPACT.equals(timer.getInfo())) {
+			compact();
+		}
+	}
+
+	/**
+	 * Job that forces the documents appended during the last second to disk (fsync policy interval).
+	 */
+	public void sync() {
+		try {
+			segmentStore.sync();
+		} catch (IOException e) {
+			logger.severe("Unable to sync document segments: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Job that compacts the segments mostly holding replaced documents.
+	 *
+	 * Note: Occurring every 5 minutes.
+	 */
+	public void compact() {
+		final long start = System.currentTimeMillis();
+		try {
+			final int compacted = segmentStore.compact();
+			if (compacted > 0) {
+				logger.info("Compacted " + compacted + " document segments in " + (System.currentTimeMillis() - start) + " ms");
+			}
+		} catch (IOException e) {
+			logger.severe("Unable to compact document segments: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Copies file regions to channels with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which lets
+ * the operating system move the bytes without copying them to the heap where possible.
+ */
+final class Transfers {
+
+	private Transfers() {
+	}
+
+	static void transfer(FileChannel source, long position, long count, WritableByteChannel target) throws IOException {
+		long transferred = 0;
+		while (transferred < count) {
+			final long written = source.transferTo(position + transferred, count - transferred, target);
+			if (written <= 0 && position + transferred >= source.size()) {
+				throw new EOFException("Unexpected end of file at " + (position + transferred));
+			}
+			transferred += written;
+		}
+	}
+
+	/**
+	 * @return a channel reading the file region with positional reads, leaving the position of the source alone so
+	 *         that the source can be shared. Closing it does not close the source.
+	 */
+	static ReadableByteChannel region(final FileChannel source, final long position, final long count) {
+		return new ReadableByteChannel() {
+			private long read;
+			private boolean open = true;
+
+			@Override
+			public int read(ByteBuffer target) throws IOException {
+				if (read >= count) {
+					return -1;
+				}
+				final int limit = target.limit();
+				if (target.remaining() > count - read) {
+					target.limit(target.position() + (int) (count - read));
+				}
+				try {
+					final int bytes = source.read(target, position + read);
+					if (bytes < 0) {
+						throw new EOFException("Unexpected end of file at " + (position + read));
+					}
+					read += bytes;
+					return bytes;
+				} finally {
+					target.limit(limit);
+				}
+			}
+
+			@Override
+			public boolean isOpen() {
+				return open;
+			}
+
+			@Override
+			public void close() {
+				open = false;
+			}
+		};
+	}
+}
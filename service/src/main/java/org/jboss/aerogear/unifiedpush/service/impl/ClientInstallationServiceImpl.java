@@ -17,12 +17,16 @@
 package org.jboss.aerogear.unifiedpush.service.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.ejb.Asynchronous;
 import javax.ejb.DependsOn;
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
@@ -41,6 +45,8 @@ import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
 import org.jboss.aerogear.unifiedpush.service.Configuration;
 import org.jboss.aerogear.unifiedpush.service.VerificationService;
 import org.jboss.aerogear.unifiedpush.service.annotations.LoggedIn;
+import org.jboss.aerogear.unifiedpush.service.dashboard.CounterDeltas;
+import org.jboss.aerogear.unifiedpush.service.impl.search.InstallationSearchIndex;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 /**
@@ -74,6 +80,12 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
     @Inject
 	private Configuration configuration;
 
+    @Inject
+    private Event<CounterDeltas.Change> counterChanges;
+
+    @Inject
+    private Event<InstallationSearchIndex.Change> indexChanges;
+
 	@Override
 	public Variant associateInstallation(Installation installation, Variant currentVariant) {
 		if (installation.getAlias() == null) {
@@ -125,7 +137,7 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
         	// Prevent a device (with alias) to registered multiple times
         	// using different tokens.
             if (entity.getAlias() != null && entity.getAlias().length() != 0)
-            	removePreviousInstallations(entity.getAlias());
+            	removePreviousInstallations(variant, entity.getAlias());
 
             // Verification process required, disable device.
             if (shouldVerifiy)
@@ -196,6 +208,72 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
         installationDao.flushAndClear();
     }
 
+    @Override
+    public List<RegistrationResult> registerInstallations(Variant variant, List<Installation> installations) {
+        final boolean shouldVerifiy = configuration.getProperty(Configuration.PROP_ENABLE_VERIFICATION, false);
+
+        final Set<String> deviceTokens = new HashSet<String>();
+        for (Installation entity : installations) {
+            // ensure lower case for iOS, before looking up the stored tokens
+            if (variant.getType().equals(VariantType.IOS)) {
+                entity.setDeviceToken(entity.getDeviceToken().toLowerCase());
+            }
+            deviceTokens.add(entity.getDeviceToken());
+        }
+        Map<String, Installation> existing = findInstallationsByDeviceToken(variant, deviceTokens);
+
+        // Prevent a device (with alias) to registered multiple times using different tokens, devices of the
+        // batch sharing an alias are all kept.
+        final Set<String> aliases = new HashSet<String>();
+        for (Installation entity : installations) {
+            if (!existing.containsKey(entity.getDeviceToken()) && entity.getAlias() != null && entity.getAlias().length() != 0) {
+                aliases.add(entity.getAlias());
+            }
+        }
+        int removed = 0;
+        for (String alias : aliases) {
+            removed += removePreviousInstallations(variant, alias);
+        }
+        if (removed > 0) {
+            existing = findInstallationsByDeviceToken(variant, deviceTokens);
+        }
+
+        final List<RegistrationResult> results = new ArrayList<RegistrationResult>(installations.size());
+        for (Installation entity : installations) {
+            // Needed for the Admin UI Only. Help for setting up Routes
+            entity.setPlatform(variant.getType().getTypeName());
+
+            final Installation installation = existing.get(entity.getDeviceToken());
+            if (installation == null) {
+                // Verification process required, disable device.
+                if (shouldVerifiy)
+                    entity.setEnabled(false);
+
+                storeInstallationAndSetReferences(variant, entity);
+                // a token repeated within the batch updates the installation just stored
+                existing.put(entity.getDeviceToken(), entity);
+                results.add(RegistrationResult.CREATED);
+            } else if (installation.isEnabled()) {
+                this.updateInstallation(installation, entity);
+                results.add(RegistrationResult.UPDATED);
+            } else {
+                results.add(RegistrationResult.DISABLED);
+            }
+
+            if (shouldVerifiy)
+                verificationService.initiateDeviceVerification(entity, variant);
+        }
+        return results;
+    }
+
+    private Map<String, Installation> findInstallationsByDeviceToken(Variant variant, Set<String> deviceTokens) {
+        final Map<String, Installation> installations = new HashMap<String, Installation>();
+        for (Installation installation : installationDao.findInstallationsForVariantByDeviceTokens(variant.getVariantID(), deviceTokens)) {
+            installations.put(installation.getDeviceToken(), installation);
+        }
+        return installations;
+    }
+
     @Override
     public void removeInstallations(List<Installation> installations) {
         // uh... :)
@@ -206,6 +284,7 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
 
     public void updateInstallation(Installation installation) {
         installationDao.update(installation);
+        indexChanges.fire(InstallationSearchIndex.Change.put(installation));
     }
 
     @Override
@@ -234,6 +313,8 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
     @Override
     public void removeInstallation(Installation installation) {
         installationDao.delete(installation);
+        counterChanges.fire(CounterDeltas.Change.installationsRemoved(installation.getVariant().getVariantID(), 1));
+        indexChanges.fire(InstallationSearchIndex.Change.remove(installation));
     }
 
     @Override
@@ -357,10 +438,19 @@ public class ClientInstallationServiceImpl implements ClientInstallationService
         mergeCategories(entity, entity.getCategories());
         // store Installation entity
         installationDao.create(entity);
+        counterChanges.fire(CounterDeltas.Change.installationsAdded(variant.getVariantID(), 1));
+        indexChanges.fire(InstallationSearchIndex.Change.put(entity));
     }
 
-    private void removePreviousInstallations(String alias) {
-		installationDao.removeInstallationsByAlias(alias);
+    private int removePreviousInstallations(Variant variant, String alias) {
+		final int removed = installationDao.removeInstallationsByAlias(alias);
+		// an alias is usually re-registered with the variant it was registered with before,
+		// installations of other variants are corrected by the next counter reconciliation
+		counterChanges.fire(CounterDeltas.Change.installationsRemoved(variant.getVariantID(), removed));
+		if (removed > 0) {
+			indexChanges.fire(InstallationSearchIndex.Change.invalidate(variant.getVariantID()));
+		}
+		return removed;
 	}
 
     private void disableInstallations(List<Installation> installations) {
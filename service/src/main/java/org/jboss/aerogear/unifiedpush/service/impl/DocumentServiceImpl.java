@@ -7,6 +7,7 @@ import java.util.Map;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
 import org.jboss.aerogear.unifiedpush.api.DocumentMessage;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
 import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
@@ -51,6 +52,14 @@ public class DocumentServiceImpl implements DocumentService {
 		return null;
 	}
 
+	@Override
+	public DocumentContent getLatestDocumentContentForAlias(Variant variant, DocumentType publisher, String alias,
+			String qualifier, String id) {
+		PushApplication pushApplication = pushApplicationService.findByVariantID(variant.getVariantID());
+		return documentDao
+				.findLatestDocumentContentForAlias(createMetadata(pushApplication, publisher, alias, qualifier, id, true));
+	}
+
 	@Override
 	public List<String> getLatestDocumentsForApplication(PushApplication pushApp, String alias, String qualifier,
 			String id) {
@@ -63,6 +72,13 @@ public class DocumentServiceImpl implements DocumentService {
 		return contents;
 	}
 
+	@Override
+	public List<DocumentContent> getLatestDocumentContentsForApplication(PushApplication pushApp, String alias,
+			String qualifier, String id) {
+		return documentDao.findLatestDocumentContentsForApplication(createMetadata(pushApp, DocumentType.INSTALLATION,
+				DocumentMetadata.getAlias(alias), DocumentMetadata.getQualifier(qualifier), DocumentMetadata.getId(id), true));
+	}
+
 	@Override
 	public void savePayload(PushApplication pushApplication, MessagePayload message, boolean overwrite) {
 		// Store documents according to aliases
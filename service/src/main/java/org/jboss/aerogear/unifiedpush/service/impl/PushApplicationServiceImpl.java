@@ -16,7 +16,9 @@
  */
 package org.jboss.aerogear.unifiedpush.service.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +31,9 @@ import javax.inject.Inject;
 import org.jboss.aerogear.unifiedpush.api.Alias;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
 import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.api.VariantType;
 import org.jboss.aerogear.unifiedpush.dao.AliasDao;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
 import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
 import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
 import org.jboss.aerogear.unifiedpush.service.PushApplicationService;
@@ -47,6 +51,9 @@ public class PushApplicationServiceImpl implements PushApplicationService {
     @Inject
     private ClientInstallationService clientInstallationService;
 
+    @Inject
+    private CounterSummaryDao counterSummaryDao;
+
     @Inject
     @LoggedIn
     private Instance<String> loginName;
@@ -74,7 +81,33 @@ public class PushApplicationServiceImpl implements PushApplicationService {
 
     @Override
     public Map<String, Long> countInstallationsByType(String pushApplicationID) {
-        return pushApplicationDao.countInstallationsByType(pushApplicationID);
+        final PushApplication pushApp = pushApplicationDao.findByPushApplicationID(pushApplicationID);
+        if (pushApp == null) {
+            return pushApplicationDao.countInstallationsByType(pushApplicationID);
+        }
+
+        final List<String> variantIDs = new ArrayList<String>();
+        for (Variant variant : pushApp.getVariants()) {
+            variantIDs.add(variant.getVariantID());
+        }
+        final Map<String, Long> counters = variantIDs.isEmpty()
+                ? Collections.<String, Long>emptyMap() : counterSummaryDao.findInstallationsForVariants(variantIDs);
+        if (counters.size() < variantIDs.size()) {
+            // counters of at least one variant were not reconciled yet, fall back to the exact query
+            return pushApplicationDao.countInstallationsByType(pushApplicationID);
+        }
+
+        final Map<String, Long> results = new HashMap<String, Long>();
+        for (VariantType type : VariantType.values()) {
+            results.put(type.getTypeName(), 0L);
+        }
+        for (Variant variant : pushApp.getVariants()) {
+            final Long value = counters.get(variant.getVariantID());
+            final String typeName = variant.getType().getTypeName();
+            results.put(typeName, results.get(typeName) + value);
+            results.put(variant.getVariantID(), value);
+        }
+        return results;
     }
 
     @Override
@@ -27,6 +27,7 @@ import org.jboss.aerogear.unifiedpush.api.Installation;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
 import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
 import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
 import org.jboss.aerogear.unifiedpush.dao.PageResult;
 import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
@@ -38,6 +39,7 @@ import org.jboss.aerogear.unifiedpush.service.annotations.LoggedIn;
 import org.jboss.aerogear.unifiedpush.service.dashboard.Application;
 import org.jboss.aerogear.unifiedpush.service.dashboard.ApplicationVariant;
 import org.jboss.aerogear.unifiedpush.service.dashboard.DashboardData;
+import org.jboss.aerogear.unifiedpush.service.impl.search.InstallationSearchIndex;
 
 /**
  * Implementation of the <code>PushSearchService</code> internally used for 'developer' role,
@@ -57,6 +59,12 @@ public class PushSearchByDeveloperServiceImpl implements PushSearchService {
     @Inject
     private PushMessageInformationDao pushMessageInformationDao;
 
+    @Inject
+    private CounterSummaryDao counterSummaryDao;
+
+    @Inject
+    private InstallationSearchIndex installationSearchIndex;
+
     @Inject
     @LoggedIn
     private Instance<String> loginName;
@@ -122,11 +130,28 @@ public class PushSearchByDeveloperServiceImpl implements PushSearchService {
         return installationDao.findInstallationsByVariantForDeveloper(variantID,loginName.get(), page, pageSize, search);
     }
 
+    @Override
+    public PageResult<Installation, Count> findInstallationsByVariantAfter(String variantID, String afterId, Integer pageSize, String search) {
+        return installationSearchIndex.findInstallations(variantID, loginName.get(), afterId, pageSize, search);
+    }
+
+    @Override
+    public PageResult<Installation, Count> findInstallationsByVariantPage(String variantID, Integer page, Integer pageSize, String search) {
+        return installationSearchIndex.findInstallationsPage(variantID, loginName.get(), page.intValue(), pageSize, search);
+    }
+
     private long totalMessages() {
+        // the summary counters are only trusted once they have been reconciled
+        if (counterSummaryDao.hasCounters()) {
+            return counterSummaryDao.sumMessagesForDeveloper(loginName.get());
+        }
         return pushMessageInformationDao.getNumberOfPushMessagesForLoginName(loginName.get());
     }
 
     private long totalDeviceNumber() {
+        if (counterSummaryDao.hasCounters()) {
+            return counterSummaryDao.sumInstallationsForDeveloper(loginName.get());
+        }
         return installationDao.getNumberOfDevicesForLoginName(loginName.get());
     }
 
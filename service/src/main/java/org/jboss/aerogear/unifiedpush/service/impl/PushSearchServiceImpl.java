@@ -26,6 +26,7 @@ import org.jboss.aerogear.unifiedpush.api.Installation;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
 import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
 import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
 import org.jboss.aerogear.unifiedpush.dao.PageResult;
 import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
@@ -36,6 +37,7 @@ import org.jboss.aerogear.unifiedpush.service.PushSearchService;
 import org.jboss.aerogear.unifiedpush.service.dashboard.Application;
 import org.jboss.aerogear.unifiedpush.service.dashboard.ApplicationVariant;
 import org.jboss.aerogear.unifiedpush.service.dashboard.DashboardData;
+import org.jboss.aerogear.unifiedpush.service.impl.search.InstallationSearchIndex;
 
 /**
  * Implementation of the <code>PushSearchService</code> internally used for 'admin' role,
@@ -55,6 +57,12 @@ public class PushSearchServiceImpl implements PushSearchService {
     @Inject
     private PushMessageInformationDao pushMessageInformationDao;
 
+    @Inject
+    private CounterSummaryDao counterSummaryDao;
+
+    @Inject
+    private InstallationSearchIndex installationSearchIndex;
+
     @Override
     public PageResult<PushApplication, Count> findAllPushApplicationsForDeveloper(Integer page, Integer pageSize) {
         return pushApplicationDao.findAll(page, pageSize);
@@ -75,6 +83,16 @@ public class PushSearchServiceImpl implements PushSearchService {
         return installationDao.findInstallationsByVariant(variantID, page, pageSize, search);
     }
 
+    @Override
+    public PageResult<Installation, Count> findInstallationsByVariantAfter(String variantID, String afterId, Integer pageSize, String search) {
+        return installationSearchIndex.findInstallations(variantID, null, afterId, pageSize, search);
+    }
+
+    @Override
+    public PageResult<Installation, Count> findInstallationsByVariantPage(String variantID, Integer page, Integer pageSize, String search) {
+        return installationSearchIndex.findInstallationsPage(variantID, null, page.intValue(), pageSize, search);
+    }
+
 
     /**
      * Receives the dashboard data for the given user
@@ -118,10 +136,17 @@ public class PushSearchServiceImpl implements PushSearchService {
     }
 
     private long totalMessages() {
+        // the summary counters are only trusted once they have been reconciled
+        if (counterSummaryDao.hasCounters()) {
+            return counterSummaryDao.sumMessages();
+        }
         return pushMessageInformationDao.getNumberOfPushMessagesForApplications();
     }
 
     private long totalDeviceNumber() {
+        if (counterSummaryDao.hasCounters()) {
+            return counterSummaryDao.sumInstallations();
+        }
         return installationDao.getTotalNumberOfDevices();
     }
 
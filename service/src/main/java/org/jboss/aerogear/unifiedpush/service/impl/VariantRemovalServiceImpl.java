@@ -0,0 +1,107 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ejb.DependsOn;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.PushApplication;
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.service.VariantRemovalService;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalProgress;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.RemovalTracker;
+import org.jboss.aerogear.unifiedpush.service.impl.removal.VariantRemovalWorker;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+@Stateless
+@DependsOn(value = {"Configuration"})
+public class VariantRemovalServiceImpl implements VariantRemovalService {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(VariantRemovalServiceImpl.class);
+
+    @Inject
+    private VariantDao variantDao;
+
+    @Inject
+    private VariantRemovalWorker worker;
+
+    @Inject
+    private RemovalTracker tracker;
+
+    @Inject
+    private Configuration configuration;
+
+    @Override
+    public RemovalProgress removeVariant(Variant variant) {
+        markAsDeleting(variant);
+
+        final RemovalProgress progress = tracker.start(variant.getVariantID());
+        if (progress == null) {
+            return tracker.get(variant.getVariantID());
+        }
+
+        logger.info("Scheduled removal of variant: " + variant.getVariantID());
+        worker.remove(progress, null, Collections.singletonList(variant.getVariantID()), getChunkSize());
+
+        return progress;
+    }
+
+    @Override
+    public RemovalProgress removePushApplication(PushApplication pushApp) {
+        final List<String> variantIDs = new ArrayList<String>();
+        for (Variant variant : pushApp.getVariants()) {
+            markAsDeleting(variant);
+            variantIDs.add(variant.getVariantID());
+        }
+
+        final RemovalProgress progress = tracker.start(pushApp.getPushApplicationID());
+        if (progress == null) {
+            return tracker.get(pushApp.getPushApplicationID());
+        }
+
+        logger.info("Scheduled removal of push application: " + pushApp.getPushApplicationID());
+        worker.remove(progress, pushApp.getPushApplicationID(), variantIDs, getChunkSize());
+
+        return progress;
+    }
+
+    @Override
+    public RemovalProgress getProgress(String id) {
+        return tracker.get(id);
+    }
+
+    private void markAsDeleting(Variant variant) {
+        if (!variant.isDeleting()) {
+            variant.setDeleting(true);
+            variantDao.update(variant);
+        }
+    }
+
+    private int getChunkSize() {
+        final int chunkSize = configuration.getProperty(Configuration.PROP_REMOVAL_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+        return chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+}
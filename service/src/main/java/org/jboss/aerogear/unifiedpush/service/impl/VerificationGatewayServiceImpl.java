@@ -1,17 +1,29 @@
 package org.jboss.aerogear.unifiedpush.service.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jboss.aerogear.unifiedpush.api.verification.VerificationPublisher;
 import org.jboss.aerogear.unifiedpush.service.Configuration;
 import org.jboss.aerogear.unifiedpush.service.VerificationGatewayService;
+import org.jboss.aerogear.unifiedpush.service.sms.SmsDispatchQueue;
+import org.jboss.aerogear.unifiedpush.service.sms.SmsMessage;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 /**
  * Default implementation of {@link VerificationGatewayService}. Note that this class does not implement the underlying
  * SMS sending mechanism. Rather, it uses an implementation of {@link VerificationPublisher} to do so.
+ *
+ * Messages are handed to a {@link SmsDispatchQueue} once the transaction of the caller commits, unless the dispatch
+ * threads are configured to 0, in which case they are sent by the calling thread.
  * 
  * @see VerificationPublisher
  */
@@ -21,30 +33,65 @@ public class VerificationGatewayServiceImpl implements VerificationGatewayServic
 	private final AeroGearLogger logger = AeroGearLogger.getInstance(VerificationGatewayServiceImpl.class);
 
 	private final static String VERIFICATION_IMPL_KEY = "aerogear.config.verification.impl.class";
+	private final static long SHUTDOWN_TIMEOUT_MILLIS = 5000;
 	
 	@Inject
 	private Configuration configuration;
+
+	@Inject
+	private Event<SmsMessage> dispatchEvent;
 	
-	private VerificationPublisher publisher;
+	private volatile VerificationPublisher publisher;
+	private volatile SmsDispatchQueue dispatchQueue;
 	
 	/**
 	 * Initializes the SMS sender. We cache the sender since an implementation might set up
 	 * its own (being, currently, outside of JBoss's resource management scope) resource upkeep.
+	 * Calling it again once the sender is set up does nothing, so a retry never starts a second dispatch queue.
 	 */
 	@PostConstruct
-	public void initializeSender() {
+	public synchronized void initializeSender() {
+		if (publisher != null) {
+			return;
+		}
+
 		final String className = configuration.getProperty(VERIFICATION_IMPL_KEY);
 		if (className == null) {
 			logger.warning("cannot find sms sender implementation class");
 			return;
 		}
 		
+		final VerificationPublisher instance;
 		try {
-			publisher = (VerificationPublisher) Class.forName(className).newInstance();
+			instance = (VerificationPublisher) Class.forName(className).newInstance();
 		} catch (InstantiationException | IllegalAccessException
 				| ClassNotFoundException e) {
 			throw new RuntimeException("cannot instantiate class " + className);
 		}
+
+		final int threads = configuration.getProperty(Configuration.PROP_SMS_DISPATCH_THREADS, 4);
+		if (threads > 0 && dispatchQueue == null) {
+			dispatchQueue = new SmsDispatchQueue(instance, threads,
+					configuration.getProperty(Configuration.PROP_SMS_DISPATCH_QUEUE_SIZE, 1000),
+					configuration.getProperty(Configuration.PROP_SMS_DISPATCH_MAX_ATTEMPTS, 3),
+					configuration.getProperty(Configuration.PROP_SMS_DISPATCH_BACKOFF_MILLIS, 1000));
+		}
+		// published last, callers seeing a publisher also see its queue
+		publisher = instance;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (dispatchQueue != null) {
+			dispatchQueue.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+		}
+		if (publisher instanceof Closeable) {
+			try {
+				((Closeable) publisher).close();
+			} catch (IOException e) {
+				// Nothing we can do.
+			}
+		}
 	}
 	
 	/**
@@ -56,8 +103,21 @@ public class VerificationGatewayServiceImpl implements VerificationGatewayServic
 			// Retry initialization
 			initializeSender();
 		}
-			
-		publisher.send(alias, message, configuration.getProperties());
+
+		if (dispatchQueue == null) {
+			publisher.send(alias, message, configuration.getProperties());
+		} else {
+			dispatchEvent.fire(new SmsMessage(alias, message));
+		}
+	}
+
+	/**
+	 * Queues the messages of committed transactions, or right away when sent outside of a transaction.
+	 */
+	public void dispatch(@Observes(during = TransactionPhase.AFTER_SUCCESS) SmsMessage message) {
+		if (!dispatchQueue.offer(message, configuration.getProperties())) {
+			logger.warning("SMS dispatch queue is full, dropping the message, the device has to request it again");
+		}
 	}
 
 
@@ -1,11 +1,13 @@
 package org.jboss.aerogear.unifiedpush.service.impl;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.DependsOn;
+import javax.ejb.Schedule;
 import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.inject.Inject;
@@ -18,37 +20,65 @@ import org.infinispan.manager.CacheContainer;
 import org.jboss.aerogear.unifiedpush.api.Installation;
 import org.jboss.aerogear.unifiedpush.api.Variant;
 import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
 import org.jboss.aerogear.unifiedpush.service.VerificationGatewayService;
 import org.jboss.aerogear.unifiedpush.service.VerificationService;
+import org.jboss.aerogear.unifiedpush.service.impl.verification.VerificationCodeStore;
+import org.jboss.aerogear.unifiedpush.service.impl.verification.VerificationStatistics;
 import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
 
 @Singleton
 @Startup
+@DependsOn(value = { "Configuration" })
+// the code store is thread safe
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class VerificationServiceImpl implements VerificationService {
 	private final static int VERIFICATION_CODE_LENGTH = 5;
+	private final static long MILLIS_PER_MINUTE = 60 * 1000L;
 	private final AeroGearLogger logger = AeroGearLogger.getInstance(VerificationServiceImpl.class);
 
-	private ConcurrentMap<Object, Set<Object>> deviceToToken;
+	private VerificationCodeStore codes;
 	
 	@Inject
 	private VerificationGatewayService smsService;
     @Inject
     private InstallationDao installationDao;
+    @Inject
+    private Configuration configuration;
 	
 	@PostConstruct
 	private void startup() {
-		CacheContainer container;
+		ConcurrentMap<Object, Object> deviceToCodes;
 	    
 		try {
 			Context ctx = new InitialContext();
-			container = (CacheContainer) ctx.lookup("java:jboss/infinispan/container/installation-verification");
+			CacheContainer container = (CacheContainer) ctx.lookup("java:jboss/infinispan/container/installation-verification");
 
-			deviceToToken = container.getCache("verification");
+			deviceToCodes = container.getCache("verification");
 		} catch (NamingException e) {
 			logger.warning("Unable to locate infinispan cache installation-verification, rolling back to ConcurrentHashMap impl!");
-			deviceToToken = new ConcurrentHashMap<>();
+			deviceToCodes = new ConcurrentHashMap<>();
+		}
+
+		codes = new VerificationCodeStore(deviceToCodes,
+				configuration.getProperty(Configuration.PROP_VERIFICATION_STORE_MAX_ENTRIES, 100000),
+				configuration.getProperty(Configuration.PROP_VERIFICATION_CODE_MAX_PER_DEVICE, 3),
+				configuration.getProperty(Configuration.PROP_VERIFICATION_CODE_TTL_MINUTES, 30) * MILLIS_PER_MINUTE,
+				configuration.getProperty(Configuration.PROP_VERIFICATION_ATTEMPTS_MAX, 5),
+				configuration.getProperty(Configuration.PROP_VERIFICATION_ATTEMPTS_WINDOW_MINUTES, 15) * MILLIS_PER_MINUTE);
+	}
+
+	/**
+	 * Removes the codes of abandoned registrations.
+	 *
+	 * Note: Occurring every 10 minutes.
+	 */
+	@Schedule(hour = "*", minute = "*/10", persistent = false)
+	public void purgeExpiredCodes() {
+		final int purged = codes.purgeExpired(System.currentTimeMillis());
+		if (purged > 0) {
+			logger.fine("Removed " + purged + " expired verification entries");
 		}
-	    
 	}
 	
 	@Override
@@ -61,18 +91,10 @@ public class VerificationServiceImpl implements VerificationService {
 	public String initiateDeviceVerification(Installation installation, Variant variant) {
 		// create a random string made up of numbers
 		String verificationCode = RandomStringUtils.random(VERIFICATION_CODE_LENGTH, false, true);
+		// stored first, the code might arrive before this method returns
+		codes.add(buildKey(variant.getVariantID(), installation.getDeviceToken()), verificationCode,
+				System.currentTimeMillis());
 		smsService.sendVerificationMessage(installation.getAlias(), verificationCode);
-		String key = buildKey(variant.getVariantID(), installation.getDeviceToken());
-		Set<Object> codes;
-		
-		if (!deviceToToken.containsKey(key)){
-			codes = new HashSet<Object>();
-		}else{
-			codes = deviceToToken.get(key);
-		}
-	
-		codes.add(verificationCode);
-		deviceToToken.putIfAbsent(key, codes);
 		
 		return verificationCode;
 	}
@@ -80,9 +102,17 @@ public class VerificationServiceImpl implements VerificationService {
 	@Override
 	public VerificationResult verifyDevice(Installation installation, Variant variant, String verificationCode){
 		final String key = buildKey(variant.getVariantID(), installation.getDeviceToken());
-		Set<Object> codes = deviceToToken.get(key);
 		
-		if (codes == null) {
+		switch (codes.verify(key, verificationCode, System.currentTimeMillis())) {
+		case MATCH:
+			installation.setEnabled(true);
+			installationDao.update(installation);
+			return VerificationResult.SUCCESS;
+		case MISMATCH:
+			return VerificationResult.FAIL;
+		case THROTTLED:
+			return VerificationResult.THROTTLED;
+		default:
 			// Installation was already enabled
 			if (installation.isEnabled()){
 				return VerificationResult.SUCCESS;
@@ -90,13 +120,17 @@ public class VerificationServiceImpl implements VerificationService {
 			
 			logger.warning("Verification attempt was made without calling /registry/device, installation id: " + installation.getId());
 			return VerificationResult.UNKNOWN;
-		} else if (codes.contains(verificationCode)) {
-			installation.setEnabled(true);
-			installationDao.update(installation);
-			deviceToToken.remove(key);
-			return VerificationResult.SUCCESS;
 		}
-		return VerificationResult.FAIL;
+	}
+
+	@Override
+	public boolean isThrottled(Variant variant, String deviceToken) {
+		return codes.isThrottled(buildKey(variant.getVariantID(), deviceToken), System.currentTimeMillis());
+	}
+
+	@Override
+	public VerificationStatistics getStatistics() {
+		return codes.getStatistics();
 	}
 
 	private String buildKey(String variantID, String deviceToken) {
@@ -4,8 +4,10 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -50,6 +52,18 @@ public class FileManagerImpl implements FileManager {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FileChannel open(Path path) {
+		try {
+			return FileChannel.open(path, StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	/**
 	 * Throw Checked exception to prevent transaction rollback when used from service layer.
 	 */
@@ -0,0 +1,123 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.health;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base of the health checks run in the background: the health requests are served the last results along with their
+ * age, only the first request waits for a check.
+ *
+ * Subclasses run the check in a scheduled, synchronized {@link #refresh()}, and publish its results. Results older
+ * than three intervals of the check are reported with a warning.
+ *
+ * @param <T> data of the check kept along with the results, e.g. to compare the next check with
+ */
+public abstract class BackgroundHealthCheck<T> {
+
+    private final long refreshIntervalMillis;
+
+    private volatile Snapshot<T> snapshot;
+
+    protected BackgroundHealthCheck(long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * Runs the check and publishes its results, synchronized on this instance.
+     */
+    public abstract void refresh();
+
+    protected void publish(List<HealthDetails> results, T data, long checkedAt) {
+        snapshot = new Snapshot<T>(results, data, checkedAt);
+    }
+
+    /**
+     * @return the data of the last check, null before the first check
+     */
+    protected T lastData() {
+        final Snapshot<T> current = snapshot;
+        return current == null ? null : current.data;
+    }
+
+    /**
+     * @return when the last check started, 0 before the first check
+     */
+    protected long lastCheckedAt() {
+        final Snapshot<T> current = snapshot;
+        return current == null ? 0 : current.checkedAt;
+    }
+
+    /**
+     * @return the data of the last check, running the first check if needed
+     */
+    protected T currentData() {
+        return current().data;
+    }
+
+    /**
+     * @return copies of the results of the last check with their age, running the first check if needed
+     */
+    protected List<HealthDetails> currentResults() {
+        final Snapshot<T> current = current();
+        final long age = System.currentTimeMillis() - current.checkedAt;
+        final List<HealthDetails> results = new ArrayList<HealthDetails>(current.results.size());
+        for (HealthDetails result : current.results) {
+            final HealthDetails details = new HealthDetails();
+            details.setDescription(result.getDescription());
+            details.setTestStatus(result.getTestStatus());
+            details.setResult(result.getResult());
+            details.setRuntime(result.getRuntime());
+            details.setAge(age);
+            if (age > 3 * refreshIntervalMillis) {
+                details.setTestStatus(Status.WARN);
+                details.setResult(String.format("%s, last checked %d seconds ago", result.getResult(),
+                        TimeUnit.MILLISECONDS.toSeconds(age)));
+            }
+            results.add(details);
+        }
+        return results;
+    }
+
+    private Snapshot<T> current() {
+        if (snapshot == null) {
+            firstCheck();
+        }
+        return snapshot;
+    }
+
+    private synchronized void firstCheck() {
+        if (snapshot == null) {
+            refresh();
+        }
+    }
+
+    private static final class Snapshot<T> {
+        private final List<HealthDetails> results;
+        private final T data;
+        private final long checkedAt;
+
+        Snapshot(List<HealthDetails> results, T data, long checkedAt) {
+            this.results = Collections.unmodifiableList(results);
+            this.data = data;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class HealthDetails {
     private String result;
     private long runtime;
     private long startTime;
+    private long age;
 
     public void start() {
         startTime = System.currentTimeMillis();
@@ -68,4 +69,15 @@ public class HealthDetails {
     public void setRuntime(long runtime) {
         this.runtime = runtime;
     }
+
+    /**
+     * @return milliseconds since the check was run, 0 if it was run for this request
+     */
+    public long getAge() {
+        return age;
+    }
+
+    public void setAge(long age) {
+        this.age = age;
+    }
 }
@@ -17,15 +17,26 @@
 package org.jboss.aerogear.unifiedpush.service.impl.health;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 
 public class Ping {
+    private static final int DEFAULT_TIMEOUT_MILLIS = 5000;
 
     public static boolean isReachable(String host, int port) {
+        return isReachable(host, port, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param timeoutMillis the connect timeout, a blackholed host does not hold the caller longer than that
+     *                      (the name resolution is not covered)
+     */
+    public static boolean isReachable(String host, int port, int timeoutMillis) {
         Socket socket = null;
         boolean reachable;
         try {
-            socket = new Socket(host, port);
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
             reachable = true;
         } catch (IOException e) {
             reachable = false;
@@ -16,6 +16,8 @@
  */
 package org.jboss.aerogear.unifiedpush.service.impl.health;
 
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+
 /**
  * Readonly holder of Push network information
  */
@@ -23,11 +25,17 @@ public class PushNetwork {
     private String name;
     private String host;
     private int port;
+    private VariantType variantType;
 
     public PushNetwork(String name, String host, int port) {
+        this(name, host, port, null);
+    }
+
+    public PushNetwork(String name, String host, int port, VariantType variantType) {
         this.name = name;
         this.host = host;
         this.port = port;
+        this.variantType = variantType;
     }
 
     public String getName() {
@@ -41,4 +49,11 @@ public class PushNetwork {
     public int getPort() {
         return port;
     }
+
+    /**
+     * @return the type of the variants delivered through this network, or null if unknown
+     */
+    public VariantType getVariantType() {
+        return variantType;
+    }
 }
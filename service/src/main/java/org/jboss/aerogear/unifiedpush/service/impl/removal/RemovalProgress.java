@@ -0,0 +1,90 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.removal;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a background removal of a variant or of a whole push application.
+ */
+public class RemovalProgress {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Date startedAt = new Date();
+    private final AtomicLong removedInstallations = new AtomicLong();
+    private volatile State state = State.RUNNING;
+    private volatile Date finishedAt;
+    private volatile String reason;
+
+    public RemovalProgress(String id) {
+        this.id = id;
+    }
+
+    /**
+     * variantID or pushApplicationID of the removed entity
+     */
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRemovedInstallations() {
+        return removedInstallations.get();
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    void installationsRemoved(int count) {
+        removedInstallations.addAndGet(count);
+    }
+
+    void completed() {
+        finish(State.COMPLETED, null);
+    }
+
+    void failed(String reason) {
+        finish(State.FAILED, reason);
+    }
+
+    private void finish(State state, String reason) {
+        this.reason = reason;
+        this.finishedAt = new Date();
+        this.state = state;
+    }
+}
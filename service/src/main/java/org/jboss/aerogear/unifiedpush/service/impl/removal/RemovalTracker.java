@@ -0,0 +1,76 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.removal;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Keeps track of the background removals running on this node. Finished removals are
+ * kept for a while, so that clients polling for the progress can see the outcome.
+ */
+@ApplicationScoped
+public class RemovalTracker {
+
+    private static final long FINISHED_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final ConcurrentMap<String, RemovalProgress> removals = new ConcurrentHashMap<String, RemovalProgress>();
+
+    /**
+     * Registers a new removal for the given id.
+     *
+     * @param id variantID or pushApplicationID
+     *
+     * @return the new progress, or null if a removal for this id is already running
+     */
+    public RemovalProgress start(String id) {
+        pruneFinished();
+
+        final RemovalProgress progress = new RemovalProgress(id);
+        while (true) {
+            final RemovalProgress existing = removals.putIfAbsent(id, progress);
+            if (existing == null) {
+                return progress;
+            }
+            if (existing.isRunning()) {
+                return null;
+            }
+            // a finished removal is replaced by the retried one
+            if (removals.replace(id, existing, progress)) {
+                return progress;
+            }
+        }
+    }
+
+    public RemovalProgress get(String id) {
+        return removals.get(id);
+    }
+
+    private void pruneFinished() {
+        final long threshold = System.currentTimeMillis() - FINISHED_RETENTION_MILLIS;
+        for (Iterator<RemovalProgress> it = removals.values().iterator(); it.hasNext();) {
+            final RemovalProgress progress = it.next();
+            if (!progress.isRunning() && progress.getFinishedAt().getTime() < threshold) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.removal;
+
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.ejb.Asynchronous;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.PushApplication;
+import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.jboss.aerogear.unifiedpush.service.dashboard.CounterDeltas;
+import org.jboss.aerogear.unifiedpush.service.impl.search.InstallationSearchIndex;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+/**
+ * Deletes the installations of variants marked as deleting in bounded chunks. The loop itself
+ * runs outside of any transaction, every chunk is committed in its own short transaction, so no
+ * lock is held for longer than it takes to delete a single chunk.
+ */
+@Stateless
+public class VariantRemovalWorker {
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(VariantRemovalWorker.class);
+
+    @Resource
+    private SessionContext context;
+
+    @Inject
+    private InstallationDao installationDao;
+
+    @Inject
+    private VariantDao variantDao;
+
+    @Inject
+    private PushApplicationDao pushApplicationDao;
+
+    @Inject
+    private Event<CounterDeltas.Change> counterChanges;
+
+    @Inject
+    private Event<InstallationSearchIndex.Change> indexChanges;
+
+    /**
+     * Removes the installations of all given variants chunk by chunk. Afterwards either the variants
+     * are deleted or, if a pushApplicationID is given, the push application along with its variants.
+     *
+     * @param progress progress of this removal, updated after every chunk
+     * @param pushApplicationID the push application to delete at the end, or null to delete the variants only
+     * @param variantIDs the variants whose installations are removed
+     * @param chunkSize maximum number of installations deleted per transaction
+     */
+    @Asynchronous
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void remove(RemovalProgress progress, String pushApplicationID, List<String> variantIDs, int chunkSize) {
+        // go through the container, so that each chunk gets its own transaction:
+        final VariantRemovalWorker self = context.getBusinessObject(VariantRemovalWorker.class);
+
+        try {
+            for (String variantID : variantIDs) {
+                int removed;
+                do {
+                    removed = self.deleteInstallationsChunk(variantID, chunkSize);
+                    progress.installationsRemoved(removed);
+                } while (removed > 0);
+
+                logger.fine(String.format("Removed installations of variant [%s], %d installations removed so far",
+                        variantID, progress.getRemovedInstallations()));
+
+                if (pushApplicationID == null) {
+                    self.deleteVariant(variantID);
+                }
+            }
+
+            if (pushApplicationID != null) {
+                self.deletePushApplication(pushApplicationID);
+            }
+
+            progress.completed();
+            logger.info(String.format("Removal of [%s] completed, %d installations removed",
+                    progress.getId(), progress.getRemovedInstallations()));
+        } catch (RuntimeException e) {
+            progress.failed(e.getMessage());
+            logger.severe(String.format("Removal of [%s] failed after %d installations, it can be resumed by deleting it again",
+                    progress.getId(), progress.getRemovedInstallations()), e);
+        }
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int deleteInstallationsChunk(String variantID, int chunkSize) {
+        final int removed = installationDao.deleteInstallationsChunk(variantID, chunkSize);
+        counterChanges.fire(CounterDeltas.Change.installationsRemoved(variantID, removed));
+        indexChanges.fire(InstallationSearchIndex.Change.invalidate(variantID));
+        return removed;
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void deleteVariant(String variantID) {
+        final Variant variant = variantDao.findByVariantID(variantID);
+        if (variant != null) {
+            variantDao.delete(variant);
+        }
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void deletePushApplication(String pushApplicationID) {
+        final PushApplication pushApp = pushApplicationDao.findByPushApplicationID(pushApplicationID);
+        if (pushApp != null) {
+            pushApplicationDao.delete(pushApp);
+        }
+    }
+}
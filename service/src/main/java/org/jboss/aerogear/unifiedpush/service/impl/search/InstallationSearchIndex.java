@@ -0,0 +1,354 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.search;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.Installation;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.dao.PageResult;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.jboss.aerogear.unifiedpush.dto.Count;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+/**
+ * Lists and searches the installations of a variant for the admin UI.
+ *
+ * Pages are addressed by the id of the last installation of the previous page (keyset pagination), or by page number
+ * for the admin UI. Searches are answered from an in-memory {@link VariantIndex}, which is built on first use for a
+ * variant and afterwards maintained by the installation write paths. Every node keeps its own indexes, so they are
+ * rebuilt after {@link Configuration#PROP_SEARCH_INDEX_MAX_AGE_MINUTES} to pick up changes made on other nodes.
+ * Unfiltered listings, and variants with more installations than the index takes, are read from the database.
+ */
+@ApplicationScoped
+public class InstallationSearchIndex {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int DEFAULT_MAX_VARIANT_SIZE = 100000;
+    private static final int DEFAULT_MAX_INSTALLATIONS = 1000000;
+    private static final int DEFAULT_MAX_AGE_MINUTES = 10;
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(InstallationSearchIndex.class);
+
+    // access ordered, the least recently searched variants are evicted first
+    private final Map<String, VariantIndex> indexes = new LinkedHashMap<String, VariantIndex>(16, 0.75f, true);
+    private final ConcurrentMap<String, Long> oversizedVariants = new ConcurrentHashMap<String, Long>();
+    private final ConcurrentMap<String, Object> buildLocks = new ConcurrentHashMap<String, Object>();
+
+    @Inject
+    private InstallationDao installationDao;
+
+    @Inject
+    private VariantDao variantDao;
+
+    @Inject
+    private CounterSummaryDao counterSummaryDao;
+
+    @Inject
+    private Configuration configuration;
+
+    private int maxVariantSize;
+    private int maxInstallations;
+    private long maxAgeMillis;
+
+    @PostConstruct
+    public void init() {
+        maxVariantSize = configuration.getProperty(Configuration.PROP_SEARCH_INDEX_MAX_VARIANT_SIZE, DEFAULT_MAX_VARIANT_SIZE);
+        maxInstallations = configuration.getProperty(Configuration.PROP_SEARCH_INDEX_MAX_INSTALLATIONS, DEFAULT_MAX_INSTALLATIONS);
+        maxAgeMillis = TimeUnit.MINUTES.toMillis(
+                configuration.getProperty(Configuration.PROP_SEARCH_INDEX_MAX_AGE_MINUTES, DEFAULT_MAX_AGE_MINUTES));
+    }
+
+    /**
+     * Finds a page of installations of the given variant.
+     *
+     * @param variantID the id of the variant
+     * @param developer the developer, or null for the admin role
+     * @param afterId id of the last installation of the previous page, null for the first page
+     * @param pageSize the size of the page
+     * @param search optional search term, matched like in {@link InstallationDao#findInstallationsByVariant}
+     *
+     * @return the installations of the page, plus the total number of matching installations
+     */
+    public PageResult<Installation, Count> findInstallations(String variantID, String developer, String afterId, int pageSize, String search) {
+        search = emptyToNull(search);
+        if (developer != null && !variantDao.existsVariantIDForDeveloper(variantID, developer)) {
+            return new PageResult<Installation, Count>(Collections.<Installation>emptyList(), new Count(0L));
+        }
+
+        if (search == null) {
+            final List<Installation> installations = installationDao.findInstallationsByVariantAfter(variantID, null, afterId, pageSize, null);
+            return new PageResult<Installation, Count>(installations, new Count(countInstallations(variantID)));
+        }
+
+        final VariantIndex index = indexFor(variantID);
+        if (index == null) {
+            final List<Installation> installations = installationDao.findInstallationsByVariantAfter(variantID, null, afterId, pageSize, search);
+            return new PageResult<Installation, Count>(installations,
+                    new Count(installationDao.countInstallationsByVariant(variantID, null, search)));
+        }
+
+        final SearchPage page = index.search(search, afterId, pageSize);
+        return new PageResult<Installation, Count>(installationDao.findInstallationsByIds(variantID, page.getInstallationIDs()),
+                new Count(page.getTotal()));
+    }
+
+    /**
+     * Finds a page of installations of the given variant by page number, for clients that page by number rather than by
+     * cursor. A search is read from the index of the variant, so there is neither an offset scan nor a count in the
+     * database; an unfiltered listing is read from the database.
+     *
+     * @param variantID the id of the variant
+     * @param developer the developer, or null for the admin role
+     * @param page the page number, starting at 0
+     * @param pageSize the size of the page
+     * @param search optional search term, matched like in {@link InstallationDao#findInstallationsByVariant}
+     *
+     * @return the installations of the page, plus the total number of matching installations
+     */
+    public PageResult<Installation, Count> findInstallationsPage(String variantID, String developer, int page, int pageSize, String search) {
+        search = emptyToNull(search);
+        if (developer != null && !variantDao.existsVariantIDForDeveloper(variantID, developer)) {
+            return new PageResult<Installation, Count>(Collections.<Installation>emptyList(), new Count(0L));
+        }
+
+        final VariantIndex index = search == null ? null : indexFor(variantID);
+        if (index == null) {
+            return installationDao.findInstallationsByVariantForDeveloper(variantID, developer, page, pageSize, search);
+        }
+
+        final SearchPage result = index.page(search, (long) page * pageSize, pageSize);
+        return new PageResult<Installation, Count>(installationDao.findInstallationsByIds(variantID, result.getInstallationIDs()),
+                new Count(result.getTotal()));
+    }
+
+    /**
+     * Applies a change of the installations once the transaction that made it has committed, or right away when made
+     * outside of a transaction, so that the shared indexes never hold rolled back changes. Stored and updated
+     * installations are added to the index of their variant and deleted ones removed from it, if that variant is
+     * indexed; bulk changes drop the index of the variant, which is rebuilt on the next search.
+     */
+    public void apply(@Observes(during = TransactionPhase.AFTER_SUCCESS) Change change) {
+        if (change.getKind() == Change.Kind.INVALIDATE) {
+            invalidate(change.getVariantID());
+            return;
+        }
+        final VariantIndex index = existingIndex(change.getVariantID());
+        if (index == null) {
+            return;
+        }
+        if (change.getKind() == Change.Kind.PUT) {
+            index.put(change.getInstallation());
+        } else {
+            index.remove(change.getInstallation().getId());
+        }
+    }
+
+    private void invalidate(String variantID) {
+        synchronized (indexes) {
+            indexes.remove(variantID);
+        }
+    }
+
+    private static String emptyToNull(String search) {
+        return search == null || search.isEmpty() ? null : search;
+    }
+
+    private long countInstallations(String variantID) {
+        final Long count = counterSummaryDao.findInstallationsForVariants(Collections.singletonList(variantID)).get(variantID);
+        if (count != null) {
+            return count;
+        }
+        return installationDao.countInstallationsByVariant(variantID, null, null);
+    }
+
+    private VariantIndex existingIndex(String variantID) {
+        synchronized (indexes) {
+            return indexes.get(variantID);
+        }
+    }
+
+    private VariantIndex indexFor(String variantID) {
+        final VariantIndex existing = existingIndex(variantID);
+        if (existing != null && existing.isReady() && !isExpired(existing.getCreated())) {
+            return existing;
+        }
+        final Long oversized = oversizedVariants.get(variantID);
+        if (oversized != null && !isExpired(oversized)) {
+            return null;
+        }
+
+        // serializing the builds of a variant keeps concurrent first searches from loading it twice, without blocking
+        // the searches of other variants
+        final Object lock = buildLock(variantID);
+        synchronized (lock) {
+            final VariantIndex current = existingIndex(variantID);
+            if (current != null && current != existing && current.isReady()) {
+                return current;
+            }
+            // the counters are checked first, so that a large variant is not loaded only to find out it does not fit
+            if (countInstallations(variantID) > maxVariantSize) {
+                markOversized(variantID);
+                return null;
+            }
+            return build(variantID);
+        }
+    }
+
+    private Object buildLock(String variantID) {
+        final Object lock = new Object();
+        final Object existing = buildLocks.putIfAbsent(variantID, lock);
+        return existing != null ? existing : lock;
+    }
+
+    private VariantIndex build(String variantID) {
+        final VariantIndex index = new VariantIndex();
+        // registered before loading, so that writes happening during the build are applied to it
+        synchronized (indexes) {
+            indexes.put(variantID, index);
+        }
+
+        String afterId = null;
+        List<Installation> batch;
+        do {
+            batch = installationDao.findSearchableInstallationsAfter(variantID, afterId, BUILD_BATCH_SIZE);
+            for (Installation installation : batch) {
+                index.put(installation);
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+
+            // the counters may lag behind the installations
+            if (index.size() > maxVariantSize) {
+                invalidate(variantID);
+                markOversized(variantID);
+                return null;
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+
+        index.ready();
+        oversizedVariants.remove(variantID);
+        evictOverCapacity(index);
+        return index;
+    }
+
+    private void markOversized(String variantID) {
+        logger.info("Variant " + variantID + " has too many installations to be searched in memory");
+        oversizedVariants.put(variantID, System.currentTimeMillis());
+    }
+
+    private void evictOverCapacity(VariantIndex keep) {
+        synchronized (indexes) {
+            long total = 0;
+            for (VariantIndex index : indexes.values()) {
+                total += index.size();
+            }
+            final Iterator<VariantIndex> eldestFirst = indexes.values().iterator();
+            while (total > maxInstallations && eldestFirst.hasNext()) {
+                final VariantIndex index = eldestFirst.next();
+                if (index != keep) {
+                    total -= index.size();
+                    eldestFirst.remove();
+                }
+            }
+        }
+    }
+
+    private boolean isExpired(long created) {
+        return System.currentTimeMillis() - created > maxAgeMillis;
+    }
+
+    /**
+     * Pending change of the installations of a variant, fired by the installation write paths.
+     */
+    public static final class Change {
+
+        enum Kind {
+            PUT, REMOVE, INVALIDATE
+        }
+
+        private final Kind kind;
+        private final String variantID;
+        private final Installation installation;
+
+        private Change(Kind kind, String variantID, Installation installation) {
+            this.kind = kind;
+            this.variantID = variantID;
+            this.installation = installation;
+        }
+
+        /**
+         * A stored or updated installation. Its searchable fields are copied, so that later changes of the entity within
+         * the same transaction do not leak into the index.
+         */
+        public static Change put(Installation installation) {
+            final Installation searchable = new Installation();
+            searchable.setId(installation.getId());
+            searchable.setDeviceToken(installation.getDeviceToken());
+            searchable.setAlias(installation.getAlias());
+            searchable.setDeviceType(installation.getDeviceType());
+            searchable.setOperatingSystem(installation.getOperatingSystem());
+            searchable.setOsVersion(installation.getOsVersion());
+            searchable.setPlatform(installation.getPlatform());
+            return new Change(Kind.PUT, installation.getVariant().getVariantID(), searchable);
+        }
+
+        /**
+         * A deleted installation.
+         */
+        public static Change remove(Installation installation) {
+            final Installation removed = new Installation();
+            removed.setId(installation.getId());
+            return new Change(Kind.REMOVE, installation.getVariant().getVariantID(), removed);
+        }
+
+        /**
+         * Installations of the variant changed in bulk.
+         */
+        public static Change invalidate(String variantID) {
+            return new Change(Kind.INVALIDATE, variantID, null);
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getVariantID() {
+            return variantID;
+        }
+
+        Installation getInstallation() {
+            return installation;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.search;
+
+import java.util.List;
+
+/**
+ * A page of installation ids found by the {@link InstallationSearchIndex}.
+ */
+public class SearchPage {
+
+    private final List<String> installationIDs;
+    private final long total;
+
+    public SearchPage(List<String> installationIDs, long total) {
+        this.installationIDs = installationIDs;
+        this.total = total;
+    }
+
+    /**
+     * @return the ids of the installations on this page, ordered by id
+     */
+    public List<String> getInstallationIDs() {
+        return installationIDs;
+    }
+
+    /**
+     * @return the number of all matching installations
+     */
+    public long getTotal() {
+        return total;
+    }
+}
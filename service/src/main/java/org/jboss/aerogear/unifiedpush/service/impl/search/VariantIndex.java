@@ -0,0 +1,165 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jboss.aerogear.unifiedpush.api.Installation;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+
+/**
+ * In-memory search index over the installations of a single variant. Every searchable value (device token, alias,
+ * device type, operating system, OS version and platform) is indexed as a whole and from each of its space separated
+ * words on, so a search term matches an installation when the start of one of those values or words does, ignoring
+ * case. This is the rule the database search of {@link InstallationDao#findInstallationsByVariant} applies.
+ *
+ * Instances are thread safe.
+ */
+class VariantIndex {
+
+    private final Map<String, String[]> termsById = new HashMap<String, String[]>();
+    private final NavigableSet<String> allIds = new TreeSet<String>();
+    private final NavigableMap<String, NavigableSet<String>> idsByTerm = new TreeMap<String, NavigableSet<String>>();
+    private final long created = System.currentTimeMillis();
+    private volatile boolean ready;
+
+    synchronized void put(Installation installation) {
+        remove(installation.getId());
+
+        final TreeSet<String> terms = new TreeSet<String>();
+        addTerms(terms, installation.getDeviceToken());
+        addTerms(terms, installation.getAlias());
+        addTerms(terms, installation.getDeviceType());
+        addTerms(terms, installation.getOperatingSystem());
+        addTerms(terms, installation.getOsVersion());
+        addTerms(terms, installation.getPlatform());
+
+        for (String term : terms) {
+            NavigableSet<String> ids = idsByTerm.get(term);
+            if (ids == null) {
+                ids = new TreeSet<String>();
+                idsByTerm.put(term, ids);
+            }
+            ids.add(installation.getId());
+        }
+        termsById.put(installation.getId(), terms.toArray(new String[terms.size()]));
+        allIds.add(installation.getId());
+    }
+
+    synchronized void remove(String installationID) {
+        final String[] terms = termsById.remove(installationID);
+        if (terms == null) {
+            return;
+        }
+        allIds.remove(installationID);
+        for (String term : terms) {
+            final NavigableSet<String> ids = idsByTerm.get(term);
+            ids.remove(installationID);
+            if (ids.isEmpty()) {
+                idsByTerm.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param search the search term, null for all installations
+     * @param afterId id of the last installation of the previous page, null for the first page
+     * @param maxResults the size of the page
+     * @return the matching installation ids of the requested page, plus the total number of matches
+     */
+    synchronized SearchPage search(String search, String afterId, int maxResults) {
+        final NavigableSet<String> matches = matches(search);
+        return new SearchPage(next((afterId == null ? matches : matches.tailSet(afterId, false)).iterator(), maxResults),
+                matches.size());
+    }
+
+    /**
+     * Searches the index, addressing the page by offset for clients paging by page number.
+     *
+     * @param search the search term, null for all installations
+     * @param offset the number of matches to skip
+     * @param maxResults the size of the page
+     * @return the matching installation ids of the requested page, plus the total number of matches
+     */
+    synchronized SearchPage page(String search, long offset, int maxResults) {
+        final NavigableSet<String> matches = matches(search);
+        final Iterator<String> iterator = matches.iterator();
+        for (long skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        return new SearchPage(next(iterator, maxResults), matches.size());
+    }
+
+    synchronized int size() {
+        return termsById.size();
+    }
+
+    void ready() {
+        ready = true;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    long getCreated() {
+        return created;
+    }
+
+    private NavigableSet<String> matches(String search) {
+        if (search == null) {
+            return allIds;
+        }
+        final String prefix = search.toLowerCase(Locale.ENGLISH);
+        final NavigableSet<String> matches = new TreeSet<String>();
+        for (NavigableSet<String> termIds : idsByTerm.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matches.addAll(termIds);
+        }
+        return matches;
+    }
+
+    private static List<String> next(Iterator<String> iterator, int maxResults) {
+        final List<String> page = new ArrayList<String>();
+        while (page.size() < maxResults && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    private static void addTerms(TreeSet<String> terms, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        final String lowerCase = value.toLowerCase(Locale.ENGLISH);
+        terms.add(lowerCase);
+        // the rest of the value from every word on, as "LIKE '% term%'" matches it in the database
+        for (int space = lowerCase.indexOf(' '); space >= 0; space = lowerCase.indexOf(' ', space + 1)) {
+            terms.add(lowerCase.substring(space + 1));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.verification;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verification codes issued to devices, keyed by variant and device token.
+ *
+ * An entry holds the latest codes of a device, at most <code>maxCodes</code>, and expires <code>ttlMillis</code> after
+ * the latest code was issued. Failed attempts are remembered within a sliding window: once a device failed
+ * <code>maxAttempts</code> times within <code>attemptWindowMillis</code>, its attempts are rejected without checking
+ * the code until the oldest failure leaves the window. Issuing another code does not reset the failures.
+ *
+ * Entries are immutable and updated with compare-and-set operations, so that the store can be backed by a
+ * {@link java.util.concurrent.ConcurrentHashMap} or by a cache shared among the nodes. When <code>maxEntries</code> is reached, expired
+ * entries are removed, otherwise the entry expiring first among a sample of entries is evicted.
+ */
+public class VerificationCodeStore {
+
+    public enum Outcome {
+        MATCH, MISMATCH, UNKNOWN, THROTTLED
+    }
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    // values of other types, e.g. stored by a former version in a shared cache, are treated as expired
+    private final ConcurrentMap<Object, Object> entries;
+    private final int maxEntries;
+    private final int maxCodes;
+    private final long ttlMillis;
+    private final int maxAttempts;
+    private final long attemptWindowMillis;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public VerificationCodeStore(ConcurrentMap<Object, Object> entries, int maxEntries, int maxCodes, long ttlMillis,
+            int maxAttempts, long attemptWindowMillis) {
+        this.entries = entries;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxCodes = Math.max(1, maxCodes);
+        this.ttlMillis = ttlMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.attemptWindowMillis = attemptWindowMillis;
+    }
+
+    /**
+     * Adds a code issued to the device, replacing its oldest code if it holds <code>maxCodes</code> already.
+     */
+    public void add(String key, String code, long now) {
+        for (;;) {
+            final Object current = entries.get(key);
+            final Entry entry = live(current, now);
+            final Entry updated = entry == null
+                    ? new Entry(new String[] { code }, now + ttlMillis, new long[0])
+                    : entry.withCode(code, maxCodes, now + ttlMillis);
+
+            final boolean stored;
+            if (current == null) {
+                ensureCapacity(now);
+                stored = entries.putIfAbsent(key, updated) == null;
+            } else {
+                stored = entries.replace(key, current, updated);
+                if (stored && entry == null) {
+                    expirations.incrementAndGet();
+                }
+            }
+            if (stored) {
+                issued.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks a code sent back by the device. A matching code removes the entry of the device, a wrong code counts
+     * as a failed attempt.
+     */
+    public Outcome verify(String key, String code, long now) {
+        for (;;) {
+            final Object current = entries.get(key);
+            if (current == null) {
+                return Outcome.UNKNOWN;
+            }
+            final Entry entry = live(current, now);
+            if (entry == null) {
+                if (entries.remove(key, current)) {
+                    expirations.incrementAndGet();
+                }
+                return Outcome.UNKNOWN;
+            }
+            if (entry.failuresSince(now - attemptWindowMillis) >= maxAttempts) {
+                throttled.incrementAndGet();
+                return Outcome.THROTTLED;
+            }
+
+            if (entry.hasCode(code)) {
+                if (entries.remove(key, current)) {
+                    matches.incrementAndGet();
+                    return Outcome.MATCH;
+                }
+            } else if (entries.replace(key, current, entry.withFailure(now, now - attemptWindowMillis))) {
+                mismatches.incrementAndGet();
+                return Outcome.MISMATCH;
+            }
+            // updated meanwhile
+        }
+    }
+
+    /**
+     * @return true if the attempts of the device are currently rejected
+     */
+    public boolean isThrottled(String key, long now) {
+        final Entry entry = live(entries.get(key), now);
+        return entry != null && entry.failuresSince(now - attemptWindowMillis) >= maxAttempts;
+    }
+
+    /**
+     * @return the number of expired entries removed
+     */
+    public int purgeExpired(long now) {
+        int purged = 0;
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            if (live(entry.getValue(), now) == null && entries.remove(entry.getKey(), entry.getValue())) {
+                purged++;
+            }
+        }
+        expirations.addAndGet(purged);
+        return purged;
+    }
+
+    public VerificationStatistics getStatistics() {
+        return new VerificationStatistics(issued.get(), matches.get(), mismatches.get(), throttled.get(),
+                expirations.get(), evictions.get(), entries.size(), maxEntries);
+    }
+
+    private void ensureCapacity(long now) {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        Object eldestKey = null;
+        Object eldestValue = null;
+        long eldestExpiry = Long.MAX_VALUE;
+        final Iterator<Map.Entry<Object, Object>> sample = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && sample.hasNext(); i++) {
+            final Map.Entry<Object, Object> candidate = sample.next();
+            final Entry entry = live(candidate.getValue(), now);
+            if (entry == null) {
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    expirations.incrementAndGet();
+                    return;
+                }
+            } else if (entry.expiresAt < eldestExpiry) {
+                eldestKey = candidate.getKey();
+                eldestValue = candidate.getValue();
+                eldestExpiry = entry.expiresAt;
+            }
+        }
+        if (eldestKey != null && entries.remove(eldestKey, eldestValue)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Entry live(Object value, long now) {
+        if (value instanceof Entry && ((Entry) value).expiresAt > now) {
+            return (Entry) value;
+        }
+        return null;
+    }
+
+    /**
+     * Codes and failed attempts of a device.
+     */
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] codes;
+        private final long expiresAt;
+        private final long[] failures;
+
+        Entry(String[] codes, long expiresAt, long[] failures) {
+            this.codes = codes;
+            this.expiresAt = expiresAt;
+            this.failures = failures;
+        }
+
+        boolean hasCode(String code) {
+            for (String candidate : codes) {
+                if (candidate.equals(code)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int failuresSince(long since) {
+            int count = 0;
+            for (long failure : failures) {
+                if (failure > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        Entry withCode(String code, int maxCodes, long expiresAt) {
+            final int kept = Math.min(codes.length, maxCodes - 1);
+            final String[] updated = new String[kept + 1];
+            System.arraycopy(codes, codes.length - kept, updated, 0, kept);
+            updated[kept] = code;
+            return new Entry(updated, expiresAt, failures);
+        }
+
+        Entry withFailure(long now, long since) {
+            final long[] updated = new long[failuresSince(since) + 1];
+            int i = 0;
+            for (long failure : failures) {
+                if (failure > since) {
+                    updated[i++] = failure;
+                }
+            }
+            updated[i] = now;
+            return new Entry(codes, expiresAt, updated);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            final Entry other = (Entry) obj;
+            return expiresAt == other.expiresAt && Arrays.equals(codes, other.codes)
+                    && Arrays.equals(failures, other.failures);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(codes) + Arrays.hashCode(failures);
+        }
+    }
+}
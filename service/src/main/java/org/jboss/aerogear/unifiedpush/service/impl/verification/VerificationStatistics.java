@@ -0,0 +1,75 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.verification;
+
+/**
+ * Counters of the {@link VerificationCodeStore} since startup, and its current size.
+ */
+public class VerificationStatistics {
+    private final long issued;
+    private final long matches;
+    private final long mismatches;
+    private final long throttled;
+    private final long expirations;
+    private final long evictions;
+    private final int entries;
+    private final int maxEntries;
+
+    public VerificationStatistics(long issued, long matches, long mismatches, long throttled, long expirations,
+            long evictions, int entries, int maxEntries) {
+        this.issued = issued;
+        this.matches = matches;
+        this.mismatches = mismatches;
+        this.throttled = throttled;
+        this.expirations = expirations;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getIssued() {
+        return issued;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    public long getThrottled() {
+        return throttled;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
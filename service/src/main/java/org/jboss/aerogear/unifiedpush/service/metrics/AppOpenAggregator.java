@@ -0,0 +1,185 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Accumulates app open events in memory, one counter per (push message, variant), so that a popular push
+ * does not make every opening device contend on the same two database rows. The counters are drained by
+ * the {@link AppOpenFlushScheduler}, which writes them with one increment statement per counter.
+ *
+ * Opens recorded since the last flush only live in memory: if the node crashes, at most one flush interval
+ * worth of open events is lost. To bound memory as well, events for new counters are dropped (and counted)
+ * once {@link #MAX_COUNTERS} distinct counters are pending. Only opens of known push messages are recorded, see
+ * {@link KnownPushMessages}, so the bound is not taken by made up ids.
+ */
+@ApplicationScoped
+public class AppOpenAggregator {
+
+    static final int MAX_COUNTERS = 100000;
+
+    private final ConcurrentMap<Key, Counter> counters = new ConcurrentHashMap<Key, Counter>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Records one app open caused by the given push message on a device of the given variant.
+     *
+     * @param pushMessageInformationId id of the push message that was opened
+     * @param variantID variant of the opening device
+     */
+    public void record(String pushMessageInformationId, String variantID) {
+        final Key key = new Key(pushMessageInformationId, variantID);
+        final long now = System.currentTimeMillis();
+
+        while (true) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                if (counters.size() >= MAX_COUNTERS) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                final Counter created = new Counter();
+                counter = counters.putIfAbsent(key, created);
+                if (counter == null) {
+                    counter = created;
+                }
+            }
+            if (counter.increment(now)) {
+                return;
+            }
+            // the counter was retired by a concurrent drain, retry with a fresh one
+        }
+    }
+
+    /**
+     * Takes all accumulated open events. Counters that did not see an event since the previous drain are removed.
+     *
+     * @return the accumulated counts, never null
+     */
+    public List<AppOpenCount> drain() {
+        final List<AppOpenCount> counts = new ArrayList<AppOpenCount>();
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<Key, Counter> entry : counters.entrySet()) {
+            final Key key = entry.getKey();
+            final Counter counter = entry.getValue();
+            // timestamps of an increment racing with this drain may not be visible yet
+            final long firstOpen = orNow(counter.firstOpen.get(), now);
+            final long lastOpen = orNow(counter.lastOpen, now);
+            final long count = counter.drain();
+
+            if (count > 0) {
+                counts.add(new AppOpenCount(key.pushMessageInformationId, key.variantID, count,
+                        new Date(firstOpen), new Date(lastOpen)));
+            } else if (counter.retire()) {
+                counters.remove(key, counter);
+            }
+        }
+        return counts;
+    }
+
+    private static long orNow(long timestamp, long now) {
+        return timestamp > 0 ? timestamp : now;
+    }
+
+    /**
+     * @return number of open events dropped because too many counters were pending
+     */
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of counters currently held in memory
+     */
+    public int getPendingCounters() {
+        return counters.size();
+    }
+
+    private static final class Counter {
+        // a negative value marks a retired counter, which no longer accepts increments
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong firstOpen = new AtomicLong();
+        private volatile long lastOpen;
+
+        boolean increment(long now) {
+            while (true) {
+                final long current = count.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    firstOpen.compareAndSet(0, now);
+                    lastOpen = now;
+                    return true;
+                }
+            }
+        }
+
+        long drain() {
+            while (true) {
+                final long current = count.get();
+                if (current <= 0) {
+                    return 0;
+                }
+                if (count.compareAndSet(current, 0)) {
+                    firstOpen.set(0);
+                    return current;
+                }
+            }
+        }
+
+        boolean retire() {
+            return count.compareAndSet(0, -1);
+        }
+    }
+
+    private static final class Key {
+        private final String pushMessageInformationId;
+        private final String variantID;
+
+        Key(String pushMessageInformationId, String variantID) {
+            this.pushMessageInformationId = pushMessageInformationId;
+            this.variantID = variantID;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return pushMessageInformationId.equals(other.pushMessageInformationId) && variantID.equals(other.variantID);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pushMessageInformationId.hashCode() + variantID.hashCode();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.Date;
+
+/**
+ * App opens of one variant for one push message, accumulated since the last flush.
+ */
+public class AppOpenCount {
+
+    private final String pushMessageInformationId;
+    private final String variantID;
+    private final long count;
+    private final Date firstOpen;
+    private final Date lastOpen;
+
+    public AppOpenCount(String pushMessageInformationId, String variantID, long count, Date firstOpen, Date lastOpen) {
+        this.pushMessageInformationId = pushMessageInformationId;
+        this.variantID = variantID;
+        this.count = count;
+        this.firstOpen = firstOpen;
+        this.lastOpen = lastOpen;
+    }
+
+    public String getPushMessageInformationId() {
+        return pushMessageInformationId;
+    }
+
+    public String getVariantID() {
+        return variantID;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Date getFirstOpen() {
+        return firstOpen;
+    }
+
+    public Date getLastOpen() {
+        return lastOpen;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class AppOpenFlushScheduler {
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(AppOpenFlushScheduler.class);
+
+    @Inject
+    private AppOpenAggregator aggregator;
+
+    @Inject
+    private PushMessageMetricsService service;
+
+    private long reportedDroppedEvents;
+
+    /**
+     * Job that writes the app opens accumulated by the {@link AppOpenAggregator} to the database.
+     *
+     * Note: Occurring every 10 seconds, which is also the upper bound of open events lost if the node crashes.
+     * The timer is not persistent, a missed run simply leaves the opens for the next one.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/10", persistent = false)
+    public void flushAppOpens() {
+        final List<AppOpenCount> counts = aggregator.drain();
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        try {
+            service.flushAppOpens(counts);
+            logger.fine("Flushed app open counters of " + counts.size() + " variants");
+        } catch (RuntimeException e) {
+            logger.severe("Could not flush app open counters of " + counts.size() + " variants, they are lost", e);
+        }
+
+        final long droppedEvents = aggregator.getDroppedEvents();
+        if (droppedEvents > reportedDroppedEvents) {
+            logger.warning("App open events dropped so far, because too many counters were pending: " + droppedEvents);
+            reportedDroppedEvents = droppedEvents;
+        }
+    }
+
+    /**
+     * Writes the remaining app opens on a regular shutdown.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushAppOpens();
+    }
+}
@@ -16,24 +16,75 @@
  */
 package org.jboss.aerogear.unifiedpush.service.metrics;
 
+import java.util.Date;
+
+import javax.ejb.DependsOn;
 import javax.ejb.Schedule;
 import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+import org.jboss.aerogear.unifiedpush.utils.DateUtils;
+
 @Singleton
+@DependsOn(value = {"Configuration"})
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
 public class DeleteOldPushMessageInformationScheduler {
 
+    // default for the maximum days the message information objects are stored before wiped out automatically
+    private static final int DEFAULT_RETENTION_DAYS = 30;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_PAUSE_MILLIS = 200;
+
+    private final AeroGearLogger logger = AeroGearLogger.getInstance(DeleteOldPushMessageInformationScheduler.class);
+
     @Inject
     private PushMessageMetricsService service;
 
+    @Inject
+    private Configuration configuration;
+
     /**
      * Job that triggers a delete of outdated metric information from the Server.
      *
+     * The purge runs in batches, each one committed in its own short transaction, with a pause in between,
+     * so that metric writers are not blocked by one long running delete. The retention period, the batch size
+     * and the pause are configurable.
+     *
      * Note: Occurring every day at midnight in the default time zone associated with the container
      * in which the application is executing. These are the default values from the @Schedule annotation.
      */
     @Schedule
     public void deleteOutdatedMetrics(){
-        service.deleteOutdatedPushInformationData();
+        final int retentionDays = configuration.getProperty(Configuration.PROP_METRICS_RETENTION_DAYS, DEFAULT_RETENTION_DAYS);
+        final int batchSize = Math.max(1, configuration.getProperty(Configuration.PROP_METRICS_PURGE_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        final long pauseMillis = configuration.getProperty(Configuration.PROP_METRICS_PURGE_PAUSE_MILLIS, DEFAULT_PAUSE_MILLIS);
+
+        final Date oldest = DateUtils.calculatePastDate(retentionDays);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = service.deleteOutdatedPushInformationData(oldest, batchSize);
+            total += deleted;
+        } while (deleted == batchSize && pause(pauseMillis));
+
+        logger.info("Deleted ['" + total + "'] PushMessageInformation objects older than " + retentionDays + " days");
+    }
+
+    private boolean pause(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Purge of outdated PushMessageInformation objects interrupted, continuing with the next run");
+            return false;
+        }
     }
 }
@@ -0,0 +1,50 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+/**
+ * An event of the delivery pipeline begun by {@link FlightRecorderEvents#begin(FlightEventType)}, committed to the
+ * flight recording by one of the other methods of {@link FlightRecorderEvents}.
+ */
+public final class FlightEvent {
+
+    /**
+     * Returned while no recording is running, committing it does nothing.
+     */
+    static final FlightEvent DISABLED = new FlightEvent(null, null);
+
+    private final JfrBridge bridge;
+    private final Object event;
+
+    FlightEvent(JfrBridge bridge, Object event) {
+        this.bridge = bridge;
+        this.event = event;
+    }
+
+    /**
+     * @return true if the event will be written to a running recording
+     */
+    public boolean isEnabled() {
+        return event != null;
+    }
+
+    void commit(Object... values) {
+        if (event != null) {
+            bridge.commit(event, values);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+/**
+ * Types of the flight recorder events of the delivery pipeline, see {@link FlightRecorderEvents}.
+ *
+ * The events are named <tt>org.jboss.aerogear.unifiedpush.&lt;name&gt;</tt>, the values of an event are committed in
+ * the order of its fields.
+ */
+public enum FlightEventType {
+
+    /**
+     * Loading a batch of device tokens from the database, before it is queued for sending.
+     */
+    TOKEN_BATCH_LOADED("TokenBatchLoaded", "Token Batch Loaded", "Pipeline",
+            Field.text("pushMessageId", "Push Message"),
+            Field.text("variantId", "Variant"),
+            Field.text("variantType", "Variant Type"),
+            Field.number("serialId", "Batch"),
+            Field.number("tokens", "Tokens")),
+
+    /**
+     * Sending a message to a queue of the pipeline.
+     */
+    JMS_ENQUEUE("JmsEnqueue", "JMS Enqueue", "Pipeline",
+            Field.text("queue", "Queue"),
+            Field.text("pushMessageId", "Push Message"),
+            Field.text("payload", "Payload")),
+
+    /**
+     * Processing a message received from a queue of the pipeline, with the time it waited in the queue.
+     */
+    JMS_DEQUEUE("JmsDequeue", "JMS Dequeue", "Pipeline",
+            Field.text("queue", "Queue"),
+            Field.text("pushMessageId", "Push Message"),
+            Field.text("payload", "Payload"),
+            Field.millis("queueWait", "Queue Wait")),
+
+    /**
+     * Sending a batch of device tokens to the push network, until the sender reported the outcome.
+     */
+    NETWORK_SEND("NetworkSend", "Network Send", "Pipeline",
+            Field.text("pushMessageId", "Push Message"),
+            Field.text("variantId", "Variant"),
+            Field.text("variantType", "Variant Type"),
+            Field.number("tokens", "Tokens"),
+            Field.flag("success", "Success")),
+
+    /**
+     * Merging the metrics of a batch into the push message information, with the time spent waiting for its lock.
+     */
+    METRICS_COLLECT("MetricsCollect", "Metrics Collection", "Pipeline",
+            Field.text("pushMessageId", "Push Message"),
+            Field.text("variantId", "Variant"),
+            Field.millis("lockWait", "Lock Wait")),
+
+    /**
+     * Looking up documents in the document store (cache hits are not recorded).
+     */
+    DOCUMENT_READ("DocumentRead", "Document Read", "Documents",
+            Field.text("publisher", "Publisher"),
+            Field.text("alias", "Alias"),
+            Field.number("documents", "Documents")),
+
+    /**
+     * Storing a document in the document store.
+     */
+    DOCUMENT_WRITE("DocumentWrite", "Document Write", "Documents",
+            Field.text("publisher", "Publisher"),
+            Field.text("alias", "Alias"),
+            Field.number("length", "Length"));
+
+    public static final String NAME_PREFIX = "org.jboss.aerogear.unifiedpush.";
+
+    private final String name;
+    private final String label;
+    private final String category;
+    private final Field[] fields;
+
+    private FlightEventType(String name, String label, String category, Field... fields) {
+        this.name = name;
+        this.label = label;
+        this.category = category;
+        this.fields = fields;
+    }
+
+    /**
+     * @return the name of the event type in a recording
+     */
+    public String getName() {
+        return NAME_PREFIX + name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Field[] getFields() {
+        return fields.clone();
+    }
+
+    /**
+     * A value of an event.
+     */
+    public static final class Field {
+        private final String name;
+        private final String label;
+        private final Class<?> type;
+        private final boolean millis;
+
+        private Field(String name, String label, Class<?> type, boolean millis) {
+            this.name = name;
+            this.label = label;
+            this.type = type;
+            this.millis = millis;
+        }
+
+        static Field text(String name, String label) {
+            return new Field(name, label, String.class, false);
+        }
+
+        static Field number(String name, String label) {
+            return new Field(name, label, int.class, false);
+        }
+
+        static Field flag(String name, String label) {
+            return new Field(name, label, boolean.class, false);
+        }
+
+        static Field millis(String name, String label) {
+            return new Field(name, label, long.class, true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return true if the value is a time span in milliseconds
+         */
+        public boolean isMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+
+/**
+ * Custom flight recorder events of the delivery pipeline, to correlate GC, lock contention and I/O with the delivery
+ * of push messages in a recording.
+ *
+ * The events are written while a recording is running on a JVM providing the <tt>jdk.jfr</tt> API (JDK 8u262 and
+ * later). Otherwise {@link #begin(FlightEventType)} returns a disabled event after a volatile read, and committing it
+ * returns right away, without allocating anything.
+ *
+ * Usage: an event is begun before the recorded work, and committed with its values after it:
+ * <pre>
+ * final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.NETWORK_SEND);
+ * ...
+ * FlightRecorderEvents.networkSend(event, pushMessageId, variantId, variantType, tokens, success);
+ * </pre>
+ */
+public final class FlightRecorderEvents {
+
+    private static final JfrBridge BRIDGE = JfrBridge.create();
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return true if the events are defined and a recording is running
+     */
+    public static boolean isRecording() {
+        return BRIDGE != null && BRIDGE.isRecording();
+    }
+
+    /**
+     * Stops writing events and releases the flight recorder listener, on undeployment. See {@link FlightRecorderLifecycle}.
+     */
+    static void close() {
+        if (BRIDGE != null) {
+            BRIDGE.close();
+        }
+    }
+
+    /**
+     * Begins an event, its duration lasts until it is committed.
+     */
+    public static FlightEvent begin(FlightEventType type) {
+        if (!isRecording()) {
+            return FlightEvent.DISABLED;
+        }
+        return BRIDGE.begin(type);
+    }
+
+    public static void tokenBatchLoaded(FlightEvent event, String pushMessageId, String variantId, VariantType variantType,
+                                        int serialId, int tokens) {
+        if (event.isEnabled()) {
+            event.commit(pushMessageId, variantId, typeName(variantType), serialId, tokens);
+        }
+    }
+
+    public static void jmsEnqueued(FlightEvent event, String queue, String pushMessageId, Object payload) {
+        if (event.isEnabled()) {
+            event.commit(queue, pushMessageId, payloadType(payload));
+        }
+    }
+
+    /**
+     * @param queueWaitMillis time since the message was sent to the queue
+     */
+    public static void jmsDequeued(FlightEvent event, String queue, String pushMessageId, Object payload, long queueWaitMillis) {
+        if (event.isEnabled()) {
+            event.commit(queue, pushMessageId, payloadType(payload), queueWaitMillis);
+        }
+    }
+
+    public static void networkSend(FlightEvent event, String pushMessageId, String variantId, VariantType variantType,
+                                   int tokens, boolean success) {
+        if (event.isEnabled()) {
+            event.commit(pushMessageId, variantId, typeName(variantType), tokens, success);
+        }
+    }
+
+    /**
+     * @param lockWaitMillis time spent waiting for the lock of the push message information
+     */
+    public static void metricsCollected(FlightEvent event, String pushMessageId, String variantId, long lockWaitMillis) {
+        if (event.isEnabled()) {
+            event.commit(pushMessageId, variantId, lockWaitMillis);
+        }
+    }
+
+    public static void documentRead(FlightEvent event, Object publisher, String alias, int documents) {
+        if (event.isEnabled()) {
+            event.commit(publisher == null ? null : publisher.toString(), alias, documents);
+        }
+    }
+
+    public static void documentWritten(FlightEvent event, Object publisher, String alias, int length) {
+        if (event.isEnabled()) {
+            event.commit(publisher == null ? null : publisher.toString(), alias, length);
+        }
+    }
+
+    private static String typeName(VariantType variantType) {
+        return variantType == null ? null : variantType.getTypeName();
+    }
+
+    private static String payloadType(Object payload) {
+        return payload == null ? null : payload.getClass().getSimpleName();
+    }
+}
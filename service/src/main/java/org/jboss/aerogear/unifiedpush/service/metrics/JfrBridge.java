@@ -0,0 +1,226 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.aerogear.unifiedpush.utils.AeroGearLogger;
+
+/**
+ * Defines the {@link FlightEventType}s with <tt>jdk.jfr.EventFactory</tt> and writes their events, through
+ * reflection since the code is compiled for Java 7. The API is available from JDK 8u262 on.
+ */
+final class JfrBridge {
+
+    private static final AeroGearLogger logger = AeroGearLogger.getInstance(JfrBridge.class);
+
+    private final Object[] factories;
+    private final Method newEvent;
+    private final Method isEnabled;
+    private final Method begin;
+    private final Method end;
+    private final Method shouldCommit;
+    private final Method set;
+    private final Method commit;
+
+    private final Method isInitialized;
+    private final Method getFlightRecorder;
+    private final Method getRecordings;
+    private final Method getState;
+    private final Method removeListener;
+
+    // registered with the JVM wide flight recorder, it holds the class loader of the deployment until removed
+    private final Object listener;
+
+    private volatile boolean closed;
+    private volatile boolean recording;
+
+    private JfrBridge(ClassLoader loader) throws ReflectiveOperationException {
+        final Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory", true, loader);
+        final Class<?> event = Class.forName("jdk.jfr.Event", true, loader);
+        final Class<?> flightRecorder = Class.forName("jdk.jfr.FlightRecorder", true, loader);
+        final Class<?> recording = Class.forName("jdk.jfr.Recording", true, loader);
+
+        newEvent = eventFactory.getMethod("newEvent");
+        isEnabled = event.getMethod("isEnabled");
+        begin = event.getMethod("begin");
+        end = event.getMethod("end");
+        shouldCommit = event.getMethod("shouldCommit");
+        set = event.getMethod("set", int.class, Object.class);
+        commit = event.getMethod("commit");
+
+        isInitialized = flightRecorder.getMethod("isInitialized");
+        getFlightRecorder = flightRecorder.getMethod("getFlightRecorder");
+        getRecordings = flightRecorder.getMethod("getRecordings");
+        getState = recording.getMethod("getState");
+
+        final Method create = eventFactory.getMethod("create", List.class, List.class);
+        final FlightEventType[] types = FlightEventType.values();
+        factories = new Object[types.length];
+        for (FlightEventType type : types) {
+            factories[type.ordinal()] = create.invoke(null, eventAnnotations(loader, type), fields(loader, type));
+        }
+
+        // keeps track of the running recordings, so that no event is created without one
+        final Class<?> listenerType = Class.forName("jdk.jfr.FlightRecorderListener", true, loader);
+        removeListener = flightRecorder.getMethod("removeListener", listenerType);
+        listener = Proxy.newProxyInstance(loader, new Class<?>[] { listenerType }, new RecordingListener());
+        flightRecorder.getMethod("addListener", listenerType).invoke(null, listener);
+        updateRecording();
+    }
+
+    /**
+     * @return the bridge, or null if the flight recorder API is not available
+     */
+    static JfrBridge create() {
+        try {
+            return new JfrBridge(JfrBridge.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            logger.fine("Flight recorder events are not available on this JVM");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warning("Could not define the flight recorder events: " + e);
+        }
+        return null;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Stops writing events and unregisters the recording listener, so that the deployment can be unloaded.
+     */
+    void close() {
+        closed = true;
+        recording = false;
+        try {
+            removeListener.invoke(null, listener);
+        } catch (ReflectiveOperationException e) {
+            logger.warning("Could not remove the flight recorder listener: " + e);
+        }
+    }
+
+    /**
+     * @return the begun event, or {@link FlightEvent#DISABLED} if the event type is not enabled in any recording
+     */
+    FlightEvent begin(FlightEventType type) {
+        try {
+            final Object event = newEvent.invoke(factories[type.ordinal()]);
+            if (!(Boolean) isEnabled.invoke(event)) {
+                return FlightEvent.DISABLED;
+            }
+            begin.invoke(event);
+            return new FlightEvent(this, event);
+        } catch (ReflectiveOperationException e) {
+            failed(e);
+            return FlightEvent.DISABLED;
+        }
+    }
+
+    void commit(Object event, Object[] values) {
+        try {
+            end.invoke(event);
+            if ((Boolean) shouldCommit.invoke(event)) {
+                for (int i = 0; i < values.length; i++) {
+                    set.invoke(event, i, values[i]);
+                }
+                commit.invoke(event);
+            }
+        } catch (ReflectiveOperationException e) {
+            failed(e);
+        }
+    }
+
+    private void failed(ReflectiveOperationException e) {
+        // not expected once the types are defined, stop recording rather than failing on every event
+        recording = false;
+        logger.warning("Could not write flight recorder event, no more events are written until the next recording: "
+                + (e instanceof InvocationTargetException ? e.getCause() : e));
+    }
+
+    private void updateRecording() throws ReflectiveOperationException {
+        if (closed) {
+            return;
+        }
+        boolean running = false;
+        if ((Boolean) isInitialized.invoke(null)) {
+            for (Object recording : (List<?>) getRecordings.invoke(getFlightRecorder.invoke(null))) {
+                running |= "RUNNING".equals(getState.invoke(recording).toString());
+            }
+        }
+        recording = running;
+    }
+
+    private class RecordingListener implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "recorderInitialized":
+                case "recordingStateChanged":
+                    updateRecording();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnifiedPush flight recorder listener";
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static List<Object> eventAnnotations(ClassLoader loader, FlightEventType type) throws ReflectiveOperationException {
+        final List<Object> annotations = new ArrayList<Object>();
+        annotations.add(annotation(loader, "jdk.jfr.Name", type.getName()));
+        annotations.add(annotation(loader, "jdk.jfr.Label", type.getLabel()));
+        annotations.add(annotation(loader, "jdk.jfr.Category", new String[] { "AeroGear UnifiedPush", type.getCategory() }));
+        annotations.add(annotation(loader, "jdk.jfr.StackTrace", false));
+        return annotations;
+    }
+
+    private static List<Object> fields(ClassLoader loader, FlightEventType type) throws ReflectiveOperationException {
+        final Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor", true, loader);
+        final List<Object> fields = new ArrayList<Object>();
+        for (FlightEventType.Field field : type.getFields()) {
+            final List<Object> annotations = new ArrayList<Object>();
+            annotations.add(annotation(loader, "jdk.jfr.Label", field.getLabel()));
+            if (field.isMillis()) {
+                annotations.add(annotation(loader, "jdk.jfr.Timespan", "MILLISECONDS"));
+            }
+            fields.add(valueDescriptor.getConstructor(Class.class, String.class, List.class)
+                    .newInstance(field.getType(), field.getName(), Collections.unmodifiableList(annotations)));
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object annotation(ClassLoader loader, String annotationType, Object value) throws ReflectiveOperationException {
+        final Class<? extends Annotation> annotation = (Class<? extends Annotation>) Class.forName(annotationType, true, loader);
+        return Class.forName("jdk.jfr.AnnotationElement", true, loader)
+                .getConstructor(Class.class, Object.class)
+                .newInstance(annotation, value);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Bounded set of the ids of recently sent or opened push messages, so that app opens are only aggregated for
+ * push messages that exist, without a database lookup per open. Ids sent to this node are remembered when the
+ * message is stored, ids of other nodes after their first successful lookup. The oldest ids are evicted once
+ * {@link #MAX_IDS} are held; lookups take no lock, eviction only happens when an id is added.
+ */
+@ApplicationScoped
+public class KnownPushMessages {
+
+    static final int MAX_IDS = 10000;
+
+    private final ConcurrentMap<String, Boolean> ids = new ConcurrentHashMap<String, Boolean>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param pushMessageInformationId id of a stored push message
+     */
+    public void add(String pushMessageInformationId) {
+        if (ids.putIfAbsent(pushMessageInformationId, Boolean.TRUE) != null) {
+            return;
+        }
+        insertionOrder.add(pushMessageInformationId);
+        if (size.incrementAndGet() > MAX_IDS) {
+            final String eldest = insertionOrder.poll();
+            if (eldest != null) {
+                ids.remove(eldest);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param pushMessageInformationId id of a push message
+     * @return true if the push message was remembered and not evicted since
+     */
+    public boolean contains(String pushMessageInformationId) {
+        return ids.containsKey(pushMessageInformationId);
+    }
+}
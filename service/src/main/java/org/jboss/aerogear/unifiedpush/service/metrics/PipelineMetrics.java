@@ -0,0 +1,177 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.jboss.aerogear.unifiedpush.service.Configuration;
+
+/**
+ * Latencies and item counters of the {@link PipelineStage}s on this node, per variant type and outcome.
+ *
+ * All series are allocated up front, recording looks up a series by index and updates a {@link LatencyHistogram}
+ * and a counter, so that the instrumentation of the hot paths allocates nothing and takes no lock. Stages that are not
+ * specific to a variant type are recorded without one.
+ *
+ * The metrics are written in the Prometheus text format: the latencies as summaries with quantiles, in seconds, and
+ * the items (e.g. device tokens) processed by the stages as counters.
+ */
+@ApplicationScoped
+public class PipelineMetrics {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final VariantType[] VARIANT_TYPES = VariantType.values();
+    private static final PipelineStage[] STAGES = PipelineStage.values();
+
+    @Inject
+    private Configuration configuration;
+
+    private boolean enabled = true;
+
+    // by stage, variant type (0 without one) and outcome (0 success, 1 failure)
+    private final Series[][][] series = new Series[STAGES.length][VARIANT_TYPES.length + 1][2];
+
+    public PipelineMetrics() {
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            for (int type = 0; type <= VARIANT_TYPES.length; type++) {
+                series[stage][type][0] = new Series();
+                series[stage][type][1] = new Series();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        enabled = configuration.getProperty(Configuration.PROP_PIPELINE_METRICS_ENABLED, true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the start of a measured stage, to pass to {@link #record(PipelineStage, VariantType, boolean, long, int)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a stage measured since the value returned by {@link #start()}.
+     *
+     * @param type the variant type, or null if the stage is not specific to a type
+     * @param success the outcome of the stage
+     * @param startNanos the value returned by {@link #start()}
+     * @param items the number of items processed by the stage
+     */
+    public void record(PipelineStage stage, VariantType type, boolean success, long startNanos, int items) {
+        if (enabled) {
+            series(stage, type, success).record((System.nanoTime() - startNanos) / 1000, items);
+        }
+    }
+
+    /**
+     * Records a stage measured with wall clock time, e.g. spanning nodes.
+     */
+    public void recordMillis(PipelineStage stage, VariantType type, boolean success, long millis, int items) {
+        if (enabled) {
+            series(stage, type, success).record(TimeUnit.MILLISECONDS.toMicros(millis), items);
+        }
+    }
+
+    /**
+     * @return the latencies recorded for the stage, variant type and outcome since startup
+     */
+    public LatencyHistogram.Snapshot getLatencies(PipelineStage stage, VariantType type, boolean success) {
+        return series(stage, type, success).latencies.snapshot();
+    }
+
+    /**
+     * @return the items counted for the stage, variant type and outcome since startup
+     */
+    public long getItems(PipelineStage stage, VariantType type, boolean success) {
+        return series(stage, type, success).items.get();
+    }
+
+    /**
+     * Appends the recorded series in the Prometheus text exposition format (version 0.0.4).
+     */
+    public void writePrometheus(StringBuilder out) {
+        out.append("# HELP ups_pipeline_latency_seconds Latency of the push delivery stages\n");
+        out.append("# TYPE ups_pipeline_latency_seconds summary\n");
+        final StringBuilder items = new StringBuilder();
+        items.append("# HELP ups_pipeline_items_total Items processed by the push delivery stages\n");
+        items.append("# TYPE ups_pipeline_items_total counter\n");
+
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            for (int type = 0; type <= VARIANT_TYPES.length; type++) {
+                for (int outcome = 0; outcome < 2; outcome++) {
+                    final Series current = series[stage][type][outcome];
+                    final LatencyHistogram.Snapshot snapshot = current.latencies.snapshot();
+                    if (snapshot.getCount() == 0) {
+                        continue;
+                    }
+                    final String labels = "stage=\"" + STAGES[stage].getLabel() + "\",variant_type=\""
+                            + (type == 0 ? "" : VARIANT_TYPES[type - 1].getTypeName()) + "\",outcome=\""
+                            + (outcome == 0 ? "success" : "failure") + "\"";
+
+                    for (double quantile : QUANTILES) {
+                        out.append("ups_pipeline_latency_seconds{").append(labels).append(",quantile=\"")
+                                .append(quantile).append("\"} ")
+                                .append(seconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+                    }
+                    out.append("ups_pipeline_latency_seconds_sum{").append(labels).append("} ")
+                            .append(seconds(snapshot.getSum())).append('\n');
+                    out.append("ups_pipeline_latency_seconds_count{").append(labels).append("} ")
+                            .append(snapshot.getCount()).append('\n');
+                    items.append("ups_pipeline_items_total{").append(labels).append("} ")
+                            .append(current.items.get()).append('\n');
+                }
+            }
+        }
+        out.append(items);
+    }
+
+    private Series series(PipelineStage stage, VariantType type, boolean success) {
+        return series[stage.ordinal()][type == null ? 0 : type.ordinal() + 1][success ? 0 : 1];
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1e6);
+    }
+
+    private static final class Series {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong items = new AtomicLong();
+
+        void record(long micros, int count) {
+            latencies.record(micros);
+            items.addAndGet(count);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+/**
+ * Stages of the delivery of a push message, from the send request to the collected metrics.
+ */
+public enum PipelineStage {
+
+    /**
+     * Handling of a send request by the REST endpoint, including the routing.
+     */
+    SEND_REQUEST("send_request"),
+
+    /**
+     * Storing the push message information and queueing the message per variant type.
+     */
+    ROUTE("route"),
+
+    /**
+     * Loading the device tokens of a variant and queueing them in batches, per received message.
+     */
+    TOKEN_LOAD("token_load"),
+
+    /**
+     * Time a batch of tokens waited in its queue before it was dispatched.
+     */
+    TOKEN_QUEUE_WAIT("token_queue_wait"),
+
+    /**
+     * Sending a batch of tokens to the push network, until the sender reported the outcome.
+     */
+    NETWORK_SEND("network_send"),
+
+    /**
+     * Updating the push message information with the metrics of a batch.
+     */
+    METRICS_COLLECT("metrics_collect");
+
+    private final String label;
+
+    private PipelineStage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the value of the stage label of the metrics
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -16,18 +16,28 @@
  */
 package org.jboss.aerogear.unifiedpush.service.metrics;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
-import org.jboss.aerogear.unifiedpush.api.VariantMetricInformation;
 import org.jboss.aerogear.unifiedpush.dao.PageResult;
 import org.jboss.aerogear.unifiedpush.dao.PushMessageInformationDao;
 import org.jboss.aerogear.unifiedpush.dao.VariantMetricInformationDao;
 import org.jboss.aerogear.unifiedpush.dto.MessageMetrics;
-import org.jboss.aerogear.unifiedpush.utils.DateUtils;
+import org.jboss.aerogear.unifiedpush.message.Criteria;
+import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
+import org.jboss.aerogear.unifiedpush.utils.SearchTerms;
 
 /**
  * Service class to handle different aspects of the Push Message Information metadata for the "Push Message History" view
@@ -36,9 +46,8 @@ import org.jboss.aerogear.unifiedpush.utils.DateUtils;
 @Stateless
 public class PushMessageMetricsService {
 
-    // that's what we currently use as the maximum days the message information objects are stored
-    // before wiped out automatically by the DeleteOldPushMessageInformationScheduler
-    private final static int DAYS_OF_MAX_OLDEST_INFO_MSG = 30;
+    // bounds the index entries of messages with long alerts or large alias lists
+    private static final int MAX_SEARCH_TERMS = 100;
 
     @Inject
     private PushMessageInformationDao pushMessageInformationDao;
@@ -46,6 +55,12 @@ public class PushMessageMetricsService {
     @Inject
     private VariantMetricInformationDao variantMetricInformationDao;
 
+    @Inject
+    private AppOpenAggregator appOpenAggregator;
+
+    @Inject
+    private KnownPushMessages knownPushMessages;
+
     /**
      * Starts the capturing of metadata around a push message request.
      *
@@ -57,6 +72,44 @@ public class PushMessageMetricsService {
      * @return the metadata object for the started push message request job
      */
     public PushMessageInformation storeNewRequestFrom(String pushAppId, String json, String ipAddress, String clientIdentifier, int totalVariantCount) {
+        return storeNewRequestFrom(pushAppId, json, ipAddress, clientIdentifier, totalVariantCount, Collections.<String>emptySet());
+    }
+
+    /**
+     * Starts the capturing of metadata around a push message request, and makes the request searchable by the words
+     * of its alert, its criteria and the keys of its user-data.
+     *
+     * @param pushAppId the ip of the push application which is owing the push message job
+     * @param json the raw JSON data
+     * @param ipAddress remote address of the job submitter
+     * @param clientIdentifier the String representating who triggered the push message
+     * @param message the submitted push message
+     *
+     * @return the metadata object for the started push message request job
+     */
+    public PushMessageInformation storeNewRequestFrom(String pushAppId, String json, String ipAddress, String clientIdentifier, int totalVariantCount, UnifiedPushMessage message) {
+        return storeNewRequestFrom(pushAppId, json, ipAddress, clientIdentifier, totalVariantCount, searchTermsOf(message));
+    }
+
+    /**
+     * Starts the capturing of metadata around several push message requests, stored with a single flush.
+     *
+     * @param informations the metadata objects, see {@link #newRequestFrom(String, String, String, String, int)}
+     * @param messages the submitted push messages, in the order of the metadata objects
+     */
+    public void storeNewRequests(List<PushMessageInformation> informations, List<? extends UnifiedPushMessage> messages) {
+        for (int i = 0; i < informations.size(); i++) {
+            pushMessageInformationDao.create(informations.get(i));
+            pushMessageInformationDao.storeSearchTerms(informations.get(i), searchTermsOf(messages.get(i)));
+            knownPushMessages.add(informations.get(i).getId());
+        }
+        pushMessageInformationDao.flushAndClear();
+    }
+
+    /**
+     * @return the metadata object for a push message request job, not stored yet
+     */
+    public PushMessageInformation newRequestFrom(String pushAppId, String json, String ipAddress, String clientIdentifier, int totalVariantCount) {
         final PushMessageInformation information = new PushMessageInformation();
 
         information.setRawJsonMessage(json);
@@ -65,13 +118,48 @@ public class PushMessageMetricsService {
         information.setClientIdentifier(clientIdentifier);
         information.setServedVariants(0);
         information.setTotalVariants(totalVariantCount);
+        return information;
+    }
+
+    private PushMessageInformation storeNewRequestFrom(String pushAppId, String json, String ipAddress, String clientIdentifier, int totalVariantCount, Collection<String> searchTerms) {
+        final PushMessageInformation information = newRequestFrom(pushAppId, json, ipAddress, clientIdentifier, totalVariantCount);
 
         pushMessageInformationDao.create(information);
+        pushMessageInformationDao.storeSearchTerms(information, searchTerms);
         pushMessageInformationDao.flushAndClear();
+        knownPushMessages.add(information.getId());
 
         return information;
     }
 
+    static Collection<String> searchTermsOf(UnifiedPushMessage message) {
+        final Collection<String> terms = new LinkedHashSet<String>();
+        if (message.getMessage() != null) {
+            SearchTerms.addWords(terms, message.getMessage().getAlert(), MAX_SEARCH_TERMS);
+            if (message.getMessage().getUserData() != null) {
+                for (String key : message.getMessage().getUserData().keySet()) {
+                    SearchTerms.addWords(terms, key, MAX_SEARCH_TERMS);
+                }
+            }
+        }
+        final Criteria criteria = message.getCriteria();
+        if (criteria != null) {
+            addWords(terms, criteria.getAliases());
+            addWords(terms, criteria.getCategories());
+            addWords(terms, criteria.getDeviceTypes());
+            addWords(terms, criteria.getVariants());
+        }
+        return terms;
+    }
+
+    private static void addWords(Collection<String> terms, List<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                SearchTerms.addWords(terms, value, MAX_SEARCH_TERMS);
+            }
+        }
+    }
+
 
     /**
      * Delegates a database update for the given {@link org.jboss.aerogear.unifiedpush.api.PushMessageInformation} object.
@@ -127,40 +215,80 @@ public class PushMessageMetricsService {
     }
 
     /**
-     *  We trigger a delete of all {@link org.jboss.aerogear.unifiedpush.api.PushMessageInformation} objects that are
-     *  <i>older</i> than 30 days!
+     * Deletes one batch of the oldest {@link org.jboss.aerogear.unifiedpush.api.PushMessageInformation} objects
+     * that are <i>older</i> than the given date, in a transaction of its own. Invoked repeatedly by the
+     * {@link DeleteOldPushMessageInformationScheduler} until nothing is left to delete.
+     *
+     * @param oldest the point in time to go back to
+     * @param batchSize maximum number of objects deleted by this call
+     *
+     * @return the number of deleted objects
      */
-    public void deleteOutdatedPushInformationData() {
-        final Date historyDate = DateUtils.calculatePastDate(DAYS_OF_MAX_OLDEST_INFO_MSG);
-        pushMessageInformationDao.deletePushInformationOlderThan(historyDate);
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int deleteOutdatedPushInformationData(Date oldest, int batchSize) {
+        return pushMessageInformationDao.deletePushInformationOlderThan(oldest, batchSize);
     }
 
     public PushMessageInformation getPushMessageInformation(String id) {
         return pushMessageInformationDao.find(id);
     }
 
+    /**
+     * Records that the app has been opened due to the given push message. The open is accumulated in memory
+     * by the {@link AppOpenAggregator} and written by the {@link AppOpenFlushScheduler}. Opens of unknown push
+     * messages are ignored, so that made up ids cannot take the counters of the aggregator.
+     *
+     * @param aerogearPushId id of the push message that caused the open
+     * @param variantID the variant of the device
+     */
     public void updateAnalytics(String aerogearPushId, String variantID) {
-        PushMessageInformation pushMessageInformation = this.getPushMessageInformation(aerogearPushId);
-
-        if (pushMessageInformation != null) { //if we are here, app has been opened due to a push message
+        if (!knownPushMessages.contains(aerogearPushId)) {
+            if (pushMessageInformationDao.find(aerogearPushId) == null) {
+                return;
+            }
+            knownPushMessages.add(aerogearPushId);
+        }
+        appOpenAggregator.record(aerogearPushId, variantID);
+    }
 
-            //if the firstOpenDate is not null that means it's no the first one, let's update the lastDateOpen
-            if (pushMessageInformation.getFirstOpenDate() != null) {
-                pushMessageInformation.setLastOpenDate(new Date());
-            } else {
-                pushMessageInformation.setFirstOpenDate(new Date());
-                pushMessageInformation.setLastOpenDate(new Date());
+    /**
+     * Writes accumulated app opens with one increment statement per push message and per variant, instead of
+     * loading and merging the entities for every single open.
+     *
+     * @param counts the accumulated app opens
+     */
+    public void flushAppOpens(List<AppOpenCount> counts) {
+        // sorted, so that concurrent flushes from several nodes lock rows in the same order
+        final Map<String, List<AppOpenCount>> countsByMessage = new TreeMap<String, List<AppOpenCount>>();
+        for (AppOpenCount count : counts) {
+            List<AppOpenCount> messageCounts = countsByMessage.get(count.getPushMessageInformationId());
+            if (messageCounts == null) {
+                messageCounts = new ArrayList<AppOpenCount>();
+                countsByMessage.put(count.getPushMessageInformationId(), messageCounts);
             }
-            //update the general counter
-            pushMessageInformation.incrementAppOpenCounter();
+            messageCounts.add(count);
+        }
 
-            //update the variant counter
-            VariantMetricInformation variantMetricInformation = variantMetricInformationDao.findVariantMetricInformationByVariantID(variantID, pushMessageInformation.getId());
-            variantMetricInformation.incrementVariantOpenCounter();
-            variantMetricInformationDao.update(variantMetricInformation);
+        for (Map.Entry<String, List<AppOpenCount>> entry : countsByMessage.entrySet()) {
+            long total = 0;
+            Date firstOpen = null;
+            Date lastOpen = null;
+            for (AppOpenCount count : entry.getValue()) {
+                total += count.getCount();
+                if (firstOpen == null || count.getFirstOpen().before(firstOpen)) {
+                    firstOpen = count.getFirstOpen();
+                }
+                if (lastOpen == null || count.getLastOpen().after(lastOpen)) {
+                    lastOpen = count.getLastOpen();
+                }
+            }
 
-            this.updatePushMessageInformation(pushMessageInformation);
+            // unknown (or already purged) push messages simply do not match any row
+            if (pushMessageInformationDao.incrementAppOpenCounter(entry.getKey(), total, firstOpen, lastOpen) > 0) {
+                for (AppOpenCount count : entry.getValue()) {
+                    variantMetricInformationDao.incrementVariantOpenCounter(count.getVariantID(), entry.getKey(), count.getCount());
+                }
+            }
         }
-
     }
 }
@@ -1,5 +1,6 @@
 package org.jboss.aerogear.unifiedpush.service.sms;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -9,17 +10,21 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.jboss.aerogear.unifiedpush.api.verification.VerificationPublisher;
 
 /**
- * Sends SMS over Clickatell's HTTP API.
+ * Sends SMS over Clickatell's HTTP API. Connections to the API are pooled and kept alive between messages, the pool is
+ * created with the properties of the first message.
  */
-public class ClickatellSMSSender implements VerificationPublisher {
+public class ClickatellSMSSender implements VerificationPublisher, Closeable {
 	private static final int PHONE_NUMBER_LENGTH = 10;
 	private static final String COUNTRY_CODE_KEY_PREFIX = "aerogear.config.sms.sender.clickatell.countrycode";
 	
@@ -34,9 +39,16 @@ public class ClickatellSMSSender implements VerificationPublisher {
 	private final static String ENCODING_KEY = "aerogear.config.sms.sender.clickatell.encoding";
 	private final static String MESSAGE_TMPL = "aerogear.config.sms.sender.clickatell.template";
 
+	private final static String API_URL_KEY = "aerogear.config.sms.sender.clickatell.api_url";
+	private final static String MAX_CONNECTIONS_KEY = "aerogear.config.sms.sender.clickatell.max_connections";
+	private final static String TIMEOUT_KEY = "aerogear.config.sms.sender.clickatell.timeout_millis";
+
 	private final static String API_URL = "https://api.clickatell.com/http/sendmsg";
+	private final static int DEFAULT_MAX_CONNECTIONS = 20;
+	private final static int DEFAULT_TIMEOUT_MILLIS = 10000;
 
 	private String template;
+	private CloseableHttpClient client;
     
 	/**
 	 * Sends off an sms message to the number.
@@ -64,7 +76,7 @@ public class ClickatellSMSSender implements VerificationPublisher {
 			String fromNumber = getFromNumber(parsedNumber, properties);
 			String formattedNumber = formatNumber(parsedNumber);
 				
-			StringBuilder apiCall = new StringBuilder(API_URL)
+			StringBuilder apiCall = new StringBuilder(properties.getProperty(API_URL_KEY, API_URL))
 			.append("?user=").append(username)
 			.append("&password=").append(password)
 			.append("&api_id=").append(apiId)
@@ -80,11 +92,19 @@ public class ClickatellSMSSender implements VerificationPublisher {
 				apiCall.append("&mo=1");
 			}
 			
-			invokeAPI(apiCall.toString());
+			invokeAPI(getClient(properties), apiCall.toString());
 		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException("failed to encode api call", e);
+			throw new SmsGatewayException("failed to encode api call", e, false);
 		} catch (IOException e) {
-			throw new RuntimeException("api call failed", e);
+			throw new SmsGatewayException("api call failed", e, true);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (client != null) {
+			client.close();
+			client = null;
 		}
 	}
 	
@@ -107,19 +127,39 @@ public class ClickatellSMSSender implements VerificationPublisher {
 		return properties.getProperty(COUNTRY_CODE_KEY_PREFIX + number.getCountryCode());
 	}
 	
-	private void invokeAPI(String apiCall) throws IOException {
-		// TODO: use a connection pool.
-		try (CloseableHttpClient client = HttpClients.createDefault()) {
-			HttpGet get = new HttpGet(apiCall);
-			try (CloseableHttpResponse response = client.execute(get)) {
-				HttpEntity entity = response.getEntity();
-				int status = response.getStatusLine().getStatusCode();
-				String responseText = EntityUtils.toString(entity);
-				if (status != org.apache.http.HttpStatus.SC_OK || isError(responseText)) {
-					logger.warning("Using clickatell api format: " + apiCall);
-					throw new RuntimeException("Received status code " + status + " from clickatell, with response " + 
-							responseText);
-				}
+	private synchronized CloseableHttpClient getClient(Properties properties) {
+		if (client == null) {
+			final int maxConnections = getIntProperty(properties, MAX_CONNECTIONS_KEY, DEFAULT_MAX_CONNECTIONS);
+			final int timeout = getIntProperty(properties, TIMEOUT_KEY, DEFAULT_TIMEOUT_MILLIS);
+
+			final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+			connectionManager.setMaxTotal(maxConnections);
+			// all messages go to the same host
+			connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+			client = HttpClients.custom()
+					.setConnectionManager(connectionManager)
+					.setDefaultRequestConfig(RequestConfig.custom()
+							.setConnectTimeout(timeout)
+							.setSocketTimeout(timeout)
+							.setConnectionRequestTimeout(timeout)
+							.build())
+					.build();
+		}
+		return client;
+	}
+
+	private void invokeAPI(CloseableHttpClient client, String apiCall) throws IOException {
+		HttpGet get = new HttpGet(apiCall);
+		try (CloseableHttpResponse response = client.execute(get)) {
+			HttpEntity entity = response.getEntity();
+			int status = response.getStatusLine().getStatusCode();
+			// consuming the response releases the connection to the pool
+			String responseText = EntityUtils.toString(entity);
+			if (status != HttpStatus.SC_OK || isError(responseText)) {
+				logger.warning("Using clickatell api format: " + apiCall);
+				throw new SmsGatewayException("Received status code " + status + " from clickatell, with response " +
+						responseText, status >= HttpStatus.SC_INTERNAL_SERVER_ERROR);
 			}
 		}
 	}
@@ -140,6 +180,19 @@ public class ClickatellSMSSender implements VerificationPublisher {
 		return response.startsWith(ERROR_PREFIX);
 	}
 
+	private int getIntProperty(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			logger.log(Level.WARNING, "Ignoring non numeric value '" + value + "' of " + key + ", using " + defaultValue);
+			return defaultValue;
+		}
+	}
+
 	private String getProperty(Properties properties, String key) {
 		String value = properties.getProperty(key);
 		if (value == null) {
@@ -0,0 +1,131 @@
+package org.jboss.aerogear.unifiedpush.service.sms;
+
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.aerogear.unifiedpush.api.verification.VerificationPublisher;
+
+/**
+ * Sends SMS messages in the background, so that a slow gateway does not hold the registration threads and their
+ * transactions.
+ *
+ * At most <code>threads</code> messages are sent concurrently, and at most <code>capacity</code> messages wait or
+ * are being sent; further messages are rejected. A message failing with a retryable {@link SmsGatewayException} is
+ * sent again after a backoff doubling with every attempt. Any other failure, e.g. an invalid number or a request
+ * rejected by the gateway, would fail again and drops the message.
+ */
+public class SmsDispatchQueue {
+	private static final Logger logger = Logger.getLogger(SmsDispatchQueue.class.getName());
+
+	private final VerificationPublisher publisher;
+	private final int capacity;
+	private final int maxAttempts;
+	private final long backoffMillis;
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicInteger pending = new AtomicInteger();
+
+	public SmsDispatchQueue(VerificationPublisher publisher, int threads, int capacity, int maxAttempts,
+			long backoffMillis) {
+		this.publisher = publisher;
+		this.capacity = Math.max(1, capacity);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoffMillis = backoffMillis;
+
+		executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				final Thread thread = new Thread(runnable, "sms-dispatch-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Queues the message for sending.
+	 *
+	 * @return false if the queue is full or shut down, the message is not sent
+	 */
+	public boolean offer(SmsMessage message, Properties properties) {
+		if (pending.incrementAndGet() > capacity) {
+			pending.decrementAndGet();
+			return false;
+		}
+		try {
+			executor.execute(new Dispatch(message, properties));
+			return true;
+		} catch (RejectedExecutionException e) {
+			pending.decrementAndGet();
+			return false;
+		}
+	}
+
+	/**
+	 * @return the number of messages waiting or being sent
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * Stops accepting messages, and waits for the messages being sent. Messages waiting for a retry are dropped.
+	 */
+	public void shutdown(long timeoutMillis) {
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				logger.warning("Dropping " + executor.shutdownNow().size() + " SMS messages on shutdown");
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private class Dispatch implements Runnable {
+		private final SmsMessage message;
+		private final Properties properties;
+		private int attempt;
+
+		Dispatch(SmsMessage message, Properties properties) {
+			this.message = message;
+			this.properties = properties;
+		}
+
+		@Override
+		public void run() {
+			attempt++;
+			try {
+				publisher.send(message.getPhoneNumber(), message.getText(), properties);
+			} catch (RuntimeException e) {
+				final boolean retryable = e instanceof SmsGatewayException && ((SmsGatewayException) e).isRetryable();
+				if (retryable && attempt < maxAttempts && retry()) {
+					logger.fine("Sending SMS failed on attempt " + attempt + ", retrying: " + e.getMessage());
+					return;
+				}
+				logger.log(Level.WARNING, "Sending SMS failed after " + attempt + " attempts", e);
+			}
+			pending.decrementAndGet();
+		}
+
+		private boolean retry() {
+			try {
+				executor.schedule(this, backoffMillis << (attempt - 1), TimeUnit.MILLISECONDS);
+				return true;
+			} catch (RejectedExecutionException e) {
+				// shutting down
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package org.jboss.aerogear.unifiedpush.service.sms;
+
+/**
+ * Failure to hand a message to an SMS gateway. Retryable failures are the ones the gateway might not repeat, e.g. a
+ * server error or a connection lost, rejected requests are not retried.
+ */
+public class SmsGatewayException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final boolean retryable;
+
+	public SmsGatewayException(String message, boolean retryable) {
+		super(message);
+		this.retryable = retryable;
+	}
+
+	public SmsGatewayException(String message, Throwable cause, boolean retryable) {
+		super(message, cause);
+		this.retryable = retryable;
+	}
+
+	public boolean isRetryable() {
+		return retryable;
+	}
+}
@@ -0,0 +1,22 @@
+package org.jboss.aerogear.unifiedpush.service.sms;
+
+/**
+ * An SMS waiting to be dispatched.
+ */
+public class SmsMessage {
+	private final String phoneNumber;
+	private final String text;
+
+	public SmsMessage(String phoneNumber, String text) {
+		this.phoneNumber = phoneNumber;
+		this.text = text;
+	}
+
+	public String getPhoneNumber() {
+		return phoneNumber;
+	}
+
+	public String getText() {
+		return text;
+	}
+}
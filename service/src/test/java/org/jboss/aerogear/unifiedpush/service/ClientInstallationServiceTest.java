@@ -40,6 +40,7 @@ import org.jboss.aerogear.unifiedpush.api.Variant;
 import org.jboss.aerogear.unifiedpush.api.iOSVariant;
 import org.jboss.aerogear.unifiedpush.dao.ResultStreamException;
 import org.jboss.aerogear.unifiedpush.dao.ResultsStream;
+import org.jboss.aerogear.unifiedpush.service.ClientInstallationService.RegistrationResult;
 import org.jboss.arquillian.transaction.api.annotation.TransactionMode;
 import org.jboss.arquillian.transaction.api.annotation.Transactional;
 import org.junit.Test;
@@ -111,6 +112,34 @@ public class ClientInstallationServiceTest extends AbstractBaseServiceTest {
         assertThat(findAllDeviceTokenForVariantIDByCriteria(androidVariant.getVariantID(), null, null, null)).hasSize(2);
     }
 
+    @Test
+    @Transactional(TransactionMode.ROLLBACK)
+    public void registerBatchOfDevices() {
+        Installation device = new Installation();
+        device.setDeviceToken(TestUtils.generateFakedDeviceTokenString());
+        clientInstallationService.addInstallationSynchronously(androidVariant, device);
+
+        // update the existing device, register a new one twice:
+        Installation existingDevice = new Installation();
+        existingDevice.setDeviceToken(device.getDeviceToken());
+        existingDevice.setAlias("username");
+        Installation newDevice = new Installation();
+        newDevice.setDeviceToken(TestUtils.generateFakedDeviceTokenString());
+        Installation repeatedDevice = new Installation();
+        repeatedDevice.setDeviceToken(newDevice.getDeviceToken());
+        repeatedDevice.setDeviceType("tablet");
+
+        final List<RegistrationResult> results = clientInstallationService.registerInstallations(androidVariant,
+                Arrays.asList(existingDevice, newDevice, repeatedDevice));
+
+        assertThat(results).containsExactly(RegistrationResult.UPDATED, RegistrationResult.CREATED, RegistrationResult.UPDATED);
+        assertThat(findAllDeviceTokenForVariantIDByCriteria(androidVariant.getVariantID(), null, null, null)).hasSize(2);
+        assertThat(clientInstallationService.findInstallationForVariantByDeviceToken(androidVariant.getVariantID(),
+                device.getDeviceToken()).getAlias()).isEqualTo("username");
+        assertThat(clientInstallationService.findInstallationForVariantByDeviceToken(androidVariant.getVariantID(),
+                newDevice.getDeviceToken()).getDeviceType()).isEqualTo("tablet");
+    }
+
     @Test
     @Transactional(TransactionMode.ROLLBACK)
     public void registerDevicesWithCategories() {
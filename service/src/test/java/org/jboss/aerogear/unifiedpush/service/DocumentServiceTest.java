@@ -14,6 +14,7 @@ import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
 import org.jboss.aerogear.unifiedpush.api.Installation;
 import org.jboss.aerogear.unifiedpush.api.PushApplication;
 import org.jboss.aerogear.unifiedpush.api.Variant;
+import org.jboss.aerogear.unifiedpush.dao.DocumentDao;
 import org.jboss.aerogear.unifiedpush.document.MessagePayload;
 import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
 import org.jboss.aerogear.unifiedpush.service.VerificationService.VerificationResult;
@@ -41,6 +42,8 @@ public class DocumentServiceTest extends AbstractBaseServiceTest {
 	private PushApplicationService applicationService;
 	@Inject
 	private VerificationService verificationService;
+	@Inject
+	private DocumentDao documentDao;
 
 	@Override
 	protected void specificSetup() {
@@ -222,6 +225,34 @@ public class DocumentServiceTest extends AbstractBaseServiceTest {
 		Assert.assertTrue(document != null && document.equals("{TEST JSON 2}"));
 	}
 
+	@Test
+	@Transactional(TransactionMode.ROLLBACK)
+	public void saveDocumentOverwriteAcrossCompressionThresholdTest() {
+		Variant variant = genericVariantService.findByVariantID(DEFAULT_VARIENT_ID);
+		PushApplication pushApp = applicationService.findByVariantID(variant.getVariantID());
+
+		String alias = "alias3";
+		StringBuilder large = new StringBuilder();
+		while (large.length() <= configuration.getProperty(Configuration.PROP_DOCUMENT_COMPRESSION_MIN_BYTES, 1024)) {
+			large.append("{TEST JSON}");
+		}
+
+		DocumentMetadata metadata = new DocumentMetadata();
+		metadata.setPushApplication(pushApp);
+		metadata.setPublisher(DocumentType.INSTALLATION);
+		metadata.setAlias(alias);
+		metadata.setQualifier(DEFAULT_DEVICE_QUALIFIER);
+
+		// stored plain, then compressed, then plain again
+		for (String content : Arrays.asList("{TEST JSON}", large.toString(), "{TEST JSON 2}")) {
+			documentService.saveForPushApplication(pushApp, alias, content, DEFAULT_DEVICE_QUALIFIER, "test_id", true);
+
+			List<String> docs = documentService.getLatestDocumentsForApplication(pushApp, alias, DEFAULT_DEVICE_QUALIFIER, "test_id");
+			Assert.assertEquals(Arrays.asList(content), docs);
+			Assert.assertEquals(1, documentDao.findDocuments(metadata).size());
+		}
+	}
+
 	@Test
 	@Transactional(TransactionMode.ROLLBACK)
 	public void testFindLatestDocumentsForApplication() {
@@ -24,7 +24,9 @@ import javax.inject.Inject;
 
 import org.jboss.aerogear.unifiedpush.api.PushMessageInformation;
 import org.jboss.aerogear.unifiedpush.api.VariantMetricInformation;
+import org.jboss.aerogear.unifiedpush.dao.PushMessageInformationDao;
 import org.jboss.aerogear.unifiedpush.dao.VariantMetricInformationDao;
+import org.jboss.aerogear.unifiedpush.service.metrics.AppOpenAggregator;
 import org.jboss.aerogear.unifiedpush.service.metrics.PushMessageMetricsService;
 import org.jboss.arquillian.transaction.api.annotation.TransactionMode;
 import org.jboss.arquillian.transaction.api.annotation.Transactional;
@@ -38,6 +40,12 @@ public class PushMessageMetricServiceTest extends AbstractBaseServiceTest{
     @Inject
     private VariantMetricInformationDao variantMetricInformationDao;
 
+    @Inject
+    private PushMessageInformationDao pushMessageInformationDao;
+
+    @Inject
+    private AppOpenAggregator appOpenAggregator;
+
     private PushMessageInformation pushMessageInformation;
 
     @Override
@@ -61,17 +69,32 @@ public class PushMessageMetricServiceTest extends AbstractBaseServiceTest{
     @Transactional(TransactionMode.ROLLBACK)
     public void updateAnalyticsTest() {
         pushMessageMetricsService.updateAnalytics(pushMessageInformation.getId(),"321");
+        pushMessageMetricsService.flushAppOpens(appOpenAggregator.drain());
+        pushMessageInformationDao.flushAndClear();
+
         PushMessageInformation updatedPushInformation = pushMessageMetricsService.getPushMessageInformation(pushMessageInformation.getId());
         assertThat(updatedPushInformation.getAppOpenCounter()).isEqualTo(1);
+        assertThat(updatedPushInformation.getFirstOpenDate()).isNotNull();
         VariantMetricInformation updatedVariantMetric = variantMetricInformationDao.findVariantMetricInformationByVariantID("321", updatedPushInformation.getId());
         assertThat(updatedVariantMetric.getVariantOpenCounter()).isEqualTo(1);
 
         pushMessageMetricsService.updateAnalytics(pushMessageInformation.getId(),"321");
+        pushMessageMetricsService.updateAnalytics(pushMessageInformation.getId(),"321");
+        pushMessageMetricsService.flushAppOpens(appOpenAggregator.drain());
+        pushMessageInformationDao.flushAndClear();
+
         PushMessageInformation updatedPushInformation1 = pushMessageMetricsService.getPushMessageInformation(pushMessageInformation.getId());
-        assertThat(updatedPushInformation1.getAppOpenCounter()).isEqualTo(2);
+        assertThat(updatedPushInformation1.getAppOpenCounter()).isEqualTo(3);
         VariantMetricInformation updatedVariantMetric1 = variantMetricInformationDao.findVariantMetricInformationByVariantID("321", updatedPushInformation.getId());
-        assertThat(updatedVariantMetric1.getVariantOpenCounter()).isEqualTo(2);
+        assertThat(updatedVariantMetric1.getVariantOpenCounter()).isEqualTo(3);
 
     }
 
+    @Test
+    @Transactional(TransactionMode.ROLLBACK)
+    public void updateAnalyticsIgnoresUnknownMessagesTest() {
+        pushMessageMetricsService.updateAnalytics("unknown-push-message-id", "321");
+
+        assertThat(appOpenAggregator.drain()).isEmpty();
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.dashboard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+import org.junit.Test;
+
+public class CounterDeltasTest {
+
+    private final CounterDeltas deltas = new CounterDeltas();
+
+    @Test
+    public void changesAreCombinedPerId() {
+        //given
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 1), 1000);
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 1), 1000);
+        deltas.record(CounterDeltas.Change.installationsRemoved("variant-1", 3), 1500);
+        for (CounterDeltas.Change change : CounterDeltas.Change.messageSubmitted("app-1", Arrays.asList("variant-1", "variant-2"))) {
+            deltas.record(change, 1999);
+        }
+
+        //when
+        final List<CounterDeltas.Change> changes = deltas.drain();
+
+        //then
+        assertThat(changes).hasSize(3);
+        for (CounterDeltas.Change change : changes) {
+            if (change.getId().equals("variant-1")) {
+                assertThat(change.getType()).isEqualTo(CounterSummary.Type.VARIANT);
+                assertThat(change.getInstallations()).isEqualTo(-1);
+                assertThat(change.getMessages()).isEqualTo(1);
+                assertThat(change.getRecorded()).isEqualTo(1999);
+            } else if (change.getId().equals("app-1")) {
+                assertThat(change.getType()).isEqualTo(CounterSummary.Type.PUSH_APPLICATION);
+                assertThat(change.getInstallations()).isZero();
+                assertThat(change.getMessages()).isEqualTo(1);
+            } else {
+                assertThat(change.getId()).isEqualTo("variant-2");
+                assertThat(change.getMessages()).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    public void drainResetsChanges() {
+        //given
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 5), 1000);
+        deltas.drain();
+
+        //when
+        final List<CounterDeltas.Change> idle = deltas.drain();
+
+        //then
+        assertThat(idle).isEmpty();
+
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 2), 2000);
+        assertThat(deltas.drain().get(0).getInstallations()).isEqualTo(2);
+    }
+
+    @Test
+    public void changesAreKeptApartPerSecond() {
+        //given
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 1), 1000);
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 2), 1400);
+        deltas.record(CounterDeltas.Change.installationsAdded("variant-1", 4), 2100);
+
+        //when
+        final List<CounterDeltas.Change> changes = deltas.drain();
+
+        //then
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0).getInstallations()).isEqualTo(3);
+        assertThat(changes.get(0).getRecorded()).isEqualTo(1400);
+        assertThat(changes.get(1).getInstallations()).isEqualTo(4);
+        assertThat(changes.get(1).getRecorded()).isEqualTo(2100);
+    }
+}
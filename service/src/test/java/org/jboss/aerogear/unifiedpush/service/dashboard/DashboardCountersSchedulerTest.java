@@ -0,0 +1,148 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.dashboard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import org.jboss.aerogear.unifiedpush.api.CounterSummary;
+import org.jboss.aerogear.unifiedpush.dao.CounterSummaryDao;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.dao.PushApplicationDao;
+import org.jboss.aerogear.unifiedpush.dao.PushMessageInformationDao;
+import org.jboss.aerogear.unifiedpush.dao.VariantDao;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class DashboardCountersSchedulerTest {
+
+    private static final String VARIANT_ID = "variant-1";
+
+    @Spy
+    private CounterDeltas counterDeltas = new CounterDeltas();
+
+    @Mock
+    private CounterSummaryDao counterSummaryDao;
+
+    @Mock
+    private VariantDao variantDao;
+
+    @Mock
+    private PushApplicationDao pushApplicationDao;
+
+    @Mock
+    private InstallationDao installationDao;
+
+    @Mock
+    private PushMessageInformationDao pushMessageInformationDao;
+
+    @InjectMocks
+    private DashboardCountersScheduler scheduler;
+
+    private final CounterSummary counters = new CounterSummary(VARIANT_ID, CounterSummary.Type.VARIANT);
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        counters.setInstallations(10);
+        when(counterSummaryDao.hasCounters()).thenReturn(true);
+        when(counterSummaryDao.find(VARIANT_ID)).thenReturn(counters);
+        when(counterSummaryDao.findReconciled(anyCollectionOf(String.class))).thenAnswer(new Answer<Map<String, Date>>() {
+            @Override
+            public Map<String, Date> answer(InvocationOnMock invocation) {
+                return Collections.singletonMap(VARIANT_ID, counters.getReconciled());
+            }
+        });
+        when(variantDao.findAllVariantIDs()).thenReturn(Collections.singletonList(VARIANT_ID));
+        when(pushApplicationDao.findAllPushApplicationIDs()).thenReturn(Collections.<String>emptyList());
+        when(pushMessageInformationDao.countMessagesByVariant()).thenReturn(Collections.<String, Long>emptyMap());
+        when(pushMessageInformationDao.countMessagesByPushApplication()).thenReturn(Collections.<String, Long>emptyMap());
+    }
+
+    @Test
+    public void dropsChangesCountedByTheReconciliation() {
+        //given
+        final long start = System.currentTimeMillis();
+        // committed before the counts, still buffered when they run
+        counterDeltas.record(CounterDeltas.Change.installationsAdded(VARIANT_ID, 1), start - 1);
+        when(installationDao.countInstallationsByVariant()).thenAnswer(new Answer<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> answer(InvocationOnMock invocation) {
+                // committed after the reconciliation date, not part of the counts
+                counterDeltas.record(CounterDeltas.Change.installationsAdded(VARIANT_ID, 2), start + 60000);
+                return Collections.singletonMap(VARIANT_ID, 11L);
+            }
+        });
+
+        //when
+        scheduler.reconcileCounters();
+        scheduler.flushCounterChanges();
+
+        //then
+        assertThat(counters.getInstallations()).isEqualTo(11);
+        verify(counterSummaryDao).addToCounters(VARIANT_ID, 2, 0);
+        verify(counterSummaryDao, never()).addToCounters(VARIANT_ID, 3, 0);
+    }
+
+    @Test
+    public void dropsChangesCountedByTheReconciliationOfAnotherNode() {
+        //given
+        counters.setReconciled(new Date(System.currentTimeMillis() + 60000));
+        counterDeltas.record(CounterDeltas.Change.installationsAdded(VARIANT_ID, 1));
+
+        //when
+        scheduler.flushCounterChanges();
+
+        //then
+        verify(counterSummaryDao, never()).addToCounters(anyString(), anyLong(), anyLong());
+        verify(counterSummaryDao, never()).create(any(CounterSummary.class));
+    }
+
+    @Test
+    public void createsCountersOfNewVariants() {
+        //given
+        when(counterSummaryDao.findReconciled(anyCollectionOf(String.class))).thenReturn(Collections.<String, Date>emptyMap());
+        counterDeltas.record(CounterDeltas.Change.installationsAdded(VARIANT_ID, 1), 1000);
+        counterDeltas.record(CounterDeltas.Change.installationsAdded(VARIANT_ID, 2), 5000);
+
+        //when
+        scheduler.flushCounterChanges();
+
+        //then
+        final ArgumentCaptor<CounterSummary> created = ArgumentCaptor.forClass(CounterSummary.class);
+        verify(counterSummaryDao).create(created.capture());
+        assertThat(created.getValue().getId()).isEqualTo(VARIANT_ID);
+        assertThat(created.getValue().getInstallations()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,129 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata.DocumentType;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+import org.jboss.aerogear.unifiedpush.api.PushApplication;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentCacheTest {
+
+	private final DocumentCache cache = new DocumentCache();
+	private DocumentMetadata metadata;
+
+	@Before
+	public void setUp() {
+		cache.configure(8 * 1024, 0);
+
+		final PushApplication pushApplication = new PushApplication();
+		pushApplication.setPushApplicationID("app");
+		metadata = new DocumentMetadata();
+		metadata.setPushApplication(pushApplication);
+		metadata.setPublisher(DocumentType.INSTALLATION);
+		metadata.setAlias("alias1");
+		metadata.setQualifier("TEST");
+		metadata.setId(DocumentMetadata.NULL_ID);
+	}
+
+	@Test
+	public void servesCachedDocumentUntilStored() throws IOException {
+		//given
+		final String key = DocumentCache.key(metadata, "alias1");
+		cache.put(key, cache.stamp(key), Collections.singletonList(content("{\"a\":1}")));
+
+		//when
+		final List<DocumentContent> cached = cache.get(key, metadata);
+		cache.invalidate(metadata);
+
+		//then
+		assertThat(string(cached.get(0))).isEqualTo("{\"a\":1}");
+		assertThat(cache.get(key, metadata)).isNull();
+		assertThat(cache.getStatistics().getHits()).isEqualTo(1);
+		assertThat(cache.getStatistics().getMisses()).isEqualTo(1);
+		assertThat(cache.getStatistics().getInvalidations()).isEqualTo(1);
+	}
+
+	@Test
+	public void doesNotCacheDocumentsLoadedBeforeInvalidation() {
+		//given
+		final String key = DocumentCache.key(metadata, "alias1");
+		final long stamp = cache.stamp(key);
+		cache.invalidate(metadata);
+
+		//when
+		cache.put(key, stamp, Collections.singletonList(content("stale")));
+
+		//then
+		assertThat(cache.get(key, metadata)).isNull();
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedBeyondMaxBytes() {
+		//given
+		final char[] document = new char[600];
+		for (int i = 0; i < 20; i++) {
+			final String key = DocumentCache.key(metadata, "alias" + i);
+			cache.put(key, cache.stamp(key), Collections.singletonList(content(new String(document))));
+		}
+
+		//then
+		assertThat(cache.getStatistics().getBytes()).isLessThanOrEqualTo(8 * 1024);
+		assertThat(cache.getStatistics().getEvictions()).isGreaterThan(0);
+		assertThat(cache.get(DocumentCache.key(metadata, "alias0"), metadata)).isNull();
+		assertThat(cache.get(DocumentCache.key(metadata, "alias19"), metadata)).isNotNull();
+	}
+
+	private DocumentContent content(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return new DocumentContent() {
+			@Override
+			public DocumentMetadata getMetadata() {
+				return metadata;
+			}
+
+			@Override
+			public long getSize() {
+				return bytes.length;
+			}
+
+			@Override
+			public String getContentEncoding() {
+				return null;
+			}
+
+			@Override
+			public void writeTo(WritableByteChannel target) throws IOException {
+				writeEncodedTo(target);
+			}
+
+			@Override
+			public void writeEncodedTo(WritableByteChannel target) throws IOException {
+				target.write(ByteBuffer.wrap(bytes));
+			}
+
+			@Override
+			public OpenDocumentContent open() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private static String string(DocumentContent content) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		content.writeTo(Channels.newChannel(out));
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,88 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.jboss.aerogear.unifiedpush.api.DocumentContent;
+import org.jboss.aerogear.unifiedpush.api.DocumentMetadata;
+import org.jboss.aerogear.unifiedpush.api.OpenDocumentContent;
+import org.junit.Test;
+
+public class DocumentCompressionTest {
+
+	@Test
+	public void compressesLargeDocuments() throws IOException {
+		//given
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 200; i++) {
+			json.append("{\"name\":\"device\",\"value\":").append(i).append("},");
+		}
+		final byte[] content = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+		//when
+		final byte[] compressed = DocumentCompression.compress(content, 1024);
+
+		//then
+		assertThat(compressed.length).isLessThan(content.length / 4);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		stored(compressed).writeTo(Channels.newChannel(out));
+		assertThat(out.toByteArray()).isEqualTo(content);
+
+		final ByteArrayOutputStream opened = new ByteArrayOutputStream();
+		try (OpenDocumentContent document = stored(compressed).open()) {
+			assertThat(document.getContentEncoding()).isEqualTo(DocumentContent.GZIP);
+			document.writeTo(Channels.newChannel(opened));
+		}
+		assertThat(opened.toByteArray()).isEqualTo(content);
+	}
+
+	@Test
+	public void keepsSmallDocuments() {
+		final byte[] content = "{\"name\":\"device\"}".getBytes(StandardCharsets.UTF_8);
+
+		assertThat(DocumentCompression.compress(content, 1024)).isNull();
+		assertThat(DocumentCompression.compress(content, 0)).isNull();
+	}
+
+	private static DocumentContent stored(final byte[] compressed) {
+		return new AbstractDocumentContent(new DocumentMetadata(), DocumentContent.GZIP) {
+			@Override
+			public long getSize() {
+				return compressed.length;
+			}
+
+			@Override
+			public void writeEncodedTo(WritableByteChannel target) throws IOException {
+				target.write(ByteBuffer.wrap(compressed));
+			}
+
+			@Override
+			public OpenDocumentContent open() {
+				final DocumentContent stored = this;
+				return new Opened(this) {
+					@Override
+					public void writeEncodedTo(WritableByteChannel target) throws IOException {
+						stored.writeEncodedTo(target);
+					}
+
+					@Override
+					ReadableByteChannel readEncoded() {
+						return Channels.newChannel(new ByteArrayInputStream(compressed));
+					}
+
+					@Override
+					public void close() {
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,74 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentIndexTest {
+
+	private final DocumentIndex index = new DocumentIndex();
+	private Path publisherDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		publisherDirectory = Files.createTempDirectory("documents").resolve("app").resolve("INSTALLATION");
+		Files.createDirectories(publisherDirectory);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(publisherDirectory.getParent().getParent().toFile());
+	}
+
+	@Test
+	public void pointsAtTheLatestVersion() throws IOException {
+		//given
+		final Path older = store("alias1", "app__INSTALLATION__alias1__TEST__1__NULL");
+		final Path newer = store("alias1", "app__INSTALLATION__alias1__TEST__2__NULL");
+
+		//when
+		index.update(publisherDirectory, DocumentIndex.key("alias1", "TEST", "NULL"), newer, 2000);
+		index.update(publisherDirectory, DocumentIndex.key("alias1", "TEST", "NULL"), older, 1000);
+
+		//then
+		assertThat(index.find(publisherDirectory, DocumentIndex.key("alias1", "TEST", "NULL")).toFile()).isEqualTo(newer.toFile());
+		assertThat(DocumentIndex.pointerDirectory(publisherDirectory, "alias1")
+				.resolve(DocumentIndex.key("alias1", "TEST", "NULL")).toFile()).exists();
+		assertThat(index.find(publisherDirectory, DocumentIndex.key("alias1", "OTHER", "NULL")) == null).isTrue();
+	}
+
+	@Test
+	public void indexesExistingDocumentsOnFirstUse() throws IOException {
+		//given
+		final Path older = store("alias1", "app__INSTALLATION__alias1__TEST__1__id");
+		final Path newer = store("alias1", "app__INSTALLATION__alias1__TEST__2__id");
+		final Path other = store("alias2", "app__INSTALLATION__alias2__TEST__1__id");
+		older.toFile().setLastModified(1000);
+		newer.toFile().setLastModified(2000);
+
+		//when
+		final Path latest = index.find(publisherDirectory, DocumentIndex.key("alias1", "TEST", "id"));
+
+		//then
+		assertThat(latest.toFile()).isEqualTo(newer.toFile());
+		assertThat(index.findAll(publisherDirectory, "TEST", "id")).containsOnly(newer, other);
+		assertThat(index.findAll(publisherDirectory, "TEST", "NULL")).isEmpty();
+	}
+
+	private Path store(String alias, String fileName) throws IOException {
+		final File directory = publisherDirectory.resolve(alias).toFile();
+		directory.mkdirs();
+		final Path document = directory.toPath().resolve(fileName);
+		Files.write(document, fileName.getBytes(StandardCharsets.UTF_8));
+		return document;
+	}
+}
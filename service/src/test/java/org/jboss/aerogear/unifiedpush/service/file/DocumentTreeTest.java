@@ -0,0 +1,118 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentTreeTest {
+
+	private final DocumentIndex index = new DocumentIndex();
+	private Path publisherDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		publisherDirectory = Files.createTempDirectory("documents").resolve("app").resolve("INSTALLATION");
+		Files.createDirectories(publisherDirectory);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(publisherDirectory.getParent().getParent().toFile());
+	}
+
+	@Test
+	public void movesLegacyAliasDirectoriesToTheirShard() throws IOException {
+		//given
+		final Path older = store(publisherDirectory.resolve("alias1"), "app__INSTALLATION__alias1__TEST__1__NULL", 1000);
+		final Path newer = store(publisherDirectory.resolve("alias1"), "app__INSTALLATION__alias1__TEST__2__NULL", 2000);
+		final Path sharded = DocumentLayout.aliasDirectory(publisherDirectory, "alias2");
+		store(sharded, "app__INSTALLATION__alias2__TEST__1__NULL", 1000);
+
+		//when
+		final int moved = new DocumentTree(index, 1, 0).migrate(publisherDirectory);
+
+		//then
+		final Path aliasDirectory = DocumentLayout.aliasDirectory(publisherDirectory, "alias1");
+		assertThat(moved).isEqualTo(2);
+		assertThat(older.getParent().toFile()).doesNotExist();
+		assertThat(aliasDirectory.resolve(older.getFileName()).toFile()).exists();
+		assertThat(index.find(publisherDirectory, DocumentIndex.key("alias1", "TEST", "NULL")).toFile())
+				.isEqualTo(aliasDirectory.resolve(newer.getFileName()).toFile());
+		assertThat(index.find(publisherDirectory, DocumentIndex.key("alias2", "TEST", "NULL")).toFile())
+				.isEqualTo(sharded.resolve("app__INSTALLATION__alias2__TEST__1__NULL").toFile());
+	}
+
+	@Test
+	public void movesFlatIndexPointersToTheirShard() throws IOException {
+		//given
+		final Path aliasDirectory = DocumentLayout.aliasDirectory(publisherDirectory, "alias1");
+		final Path document = store(aliasDirectory, "app__INSTALLATION__alias1__TEST__1__NULL", 1000);
+		final Path indexDirectory = Files.createDirectories(publisherDirectory.resolve(DocumentIndex.INDEX_DIRECTORY));
+		Files.createFile(indexDirectory.resolve(".complete"));
+		final String key = DocumentIndex.key("alias1", "TEST", "NULL");
+		Files.write(indexDirectory.resolve(key),
+				("1000\n" + publisherDirectory.relativize(document)).getBytes(StandardCharsets.UTF_8));
+		assertThat(index.find(publisherDirectory, key).toFile()).isEqualTo(document.toFile());
+
+		//when
+		new DocumentTree(index, 1, 0).migrate(publisherDirectory);
+
+		//then
+		assertThat(indexDirectory.resolve(key).toFile()).doesNotExist();
+		assertThat(DocumentIndex.pointerDirectory(publisherDirectory, "alias1").resolve(key).toFile()).exists();
+		assertThat(index.find(publisherDirectory, key).toFile()).isEqualTo(document.toFile());
+		assertThat(index.findAll(publisherDirectory, "TEST", "NULL")).containsExactly(document);
+	}
+
+	@Test
+	public void deletesVersionsBeyondTheRetentionLimits() throws IOException {
+		//given
+		final Path aliasDirectory = DocumentLayout.aliasDirectory(publisherDirectory, "alias1");
+		final Path v1 = store(aliasDirectory, "app__INSTALLATION__alias1__TEST__1__NULL", 1000);
+		final Path v2 = store(aliasDirectory, "app__INSTALLATION__alias1__TEST__2__NULL", 2000);
+		final Path v3 = store(aliasDirectory, "app__INSTALLATION__alias1__TEST__3__NULL", 3000);
+		final Path other1 = store(aliasDirectory, "app__INSTALLATION__alias1__OTHER__1__NULL", 1000);
+		final Path other2 = store(aliasDirectory, "app__INSTALLATION__alias1__OTHER__2__NULL", 2000);
+		final Path global1 = store(publisherDirectory, "app__INSTALLATION__NULL__OTHER__1__NULL", 1000);
+		final Path global2 = store(publisherDirectory, "app__INSTALLATION__NULL__OTHER__2__NULL", 2000);
+
+		//when
+		final int deleted = new DocumentTree(index, 2, 0).sweep(publisherDirectory, new DocumentTree.Retention() {
+			@Override
+			public int maxVersions(String qualifier) {
+				return qualifier.equals("TEST") ? 2 : 0;
+			}
+
+			@Override
+			public long maxAgeMillis(String qualifier) {
+				// every version is expired, the latest is kept anyway
+				return qualifier.equals("OTHER") ? 1 : 0;
+			}
+		}, 10000);
+
+		//then
+		assertThat(deleted).isEqualTo(3);
+		assertThat(v1.toFile()).doesNotExist();
+		assertThat(v2.toFile()).exists();
+		assertThat(v3.toFile()).exists();
+		assertThat(other1.toFile()).doesNotExist();
+		assertThat(other2.toFile()).exists();
+		assertThat(global1.toFile()).doesNotExist();
+		assertThat(global2.toFile()).exists();
+	}
+
+	private static Path store(Path directory, String name, long timestamp) throws IOException {
+		Files.createDirectories(directory);
+		final Path document = Files.write(directory.resolve(name), name.getBytes(StandardCharsets.UTF_8));
+		document.toFile().setLastModified(timestamp);
+		return document;
+	}
+}
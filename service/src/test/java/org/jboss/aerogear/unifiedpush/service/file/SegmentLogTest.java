@@ -0,0 +1,176 @@
+package org.jboss.aerogear.unifiedpush.service.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentLogTest {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("segments");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void findsLatestValueAfterReopen() throws IOException {
+		//given
+		try (SegmentLog log = new SegmentLog(directory, 1024, SegmentLog.FsyncPolicy.ALWAYS)) {
+			log.append("app/INSTALLATION/alias1/TEST/NULL", bytes("first"), 1000);
+			log.append("app/INSTALLATION/alias2/TEST/NULL", bytes("other"), 1500);
+			log.append("app/INSTALLATION/alias1/TEST/NULL", bytes("second"), 2000, (byte) 1);
+		}
+
+		//when
+		try (SegmentLog log = new SegmentLog(directory, 1024, SegmentLog.FsyncPolicy.ALWAYS)) {
+			final SegmentLog.Record record = log.find("app/INSTALLATION/alias1/TEST/NULL");
+
+			//then
+			assertThat(string(record.getValue())).isEqualTo("second");
+			assertThat(record.getTimestamp()).isEqualTo(2000);
+			assertThat(record.getFlags()).isEqualTo((byte) 1);
+			assertThat(log.keys("app/INSTALLATION/")).containsExactly("app/INSTALLATION/alias1/TEST/NULL",
+					"app/INSTALLATION/alias2/TEST/NULL");
+			assertThat(log.find("app/APPLICATION/NULL/TEST/NULL")).isNull();
+		}
+	}
+
+	@Test
+	public void truncatesTornRecordOnOpen() throws IOException {
+		//given
+		try (SegmentLog log = new SegmentLog(directory, 1024, SegmentLog.FsyncPolicy.ALWAYS)) {
+			log.append("key1", bytes("complete"), 1000);
+			log.append("key2", bytes("torn"), 2000);
+		}
+		final Path segment = directory.resolve(String.format("%020d", 1) + SegmentLog.SEGMENT_SUFFIX);
+		final long size = Files.size(segment);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 2);
+		}
+
+		//when
+		try (SegmentLog log = new SegmentLog(directory, 1024, SegmentLog.FsyncPolicy.ALWAYS)) {
+			log.append("key3", bytes("appended"), 3000);
+
+			//then
+			assertThat(string(log.find("key1").getValue())).isEqualTo("complete");
+			assertThat(log.find("key2")).isNull();
+			assertThat(string(log.find("key3").getValue())).isEqualTo("appended");
+		}
+	}
+
+	@Test
+	public void compactsSegmentsOfReplacedValues() throws IOException {
+		//given
+		final SegmentLog log = new SegmentLog(directory, 128, SegmentLog.FsyncPolicy.NEVER);
+		for (int i = 0; i < 20; i++) {
+			log.append("key" + (i % 2), bytes("value" + i), i);
+		}
+		final int segments = log.segmentCount();
+
+		//when
+		final int compacted = log.compact(50);
+
+		//then
+		assertThat(compacted).isGreaterThan(0);
+		assertThat(log.segmentCount()).isLessThan(segments);
+		assertThat(string(log.find("key0").getValue())).isEqualTo("value18");
+		assertThat(string(log.find("key1").getValue())).isEqualTo("value19");
+		log.close();
+
+		final SegmentLog reopened = new SegmentLog(directory, 128, SegmentLog.FsyncPolicy.NEVER);
+		assertThat(string(reopened.find("key0").getValue())).isEqualTo("value18");
+		assertThat(reopened.find("key1").getTimestamp()).isEqualTo(19);
+		reopened.close();
+	}
+
+	@Test
+	public void transfersRecordLookedUpBeforeCompaction() throws IOException {
+		//given
+		final SegmentLog log = new SegmentLog(directory, 128, SegmentLog.FsyncPolicy.NEVER);
+		log.append("kept", bytes("kept value"), 1);
+		for (int i = 0; i < 10; i++) {
+			log.append("replaced", bytes("value" + i), i);
+		}
+		final SegmentLog.Record record = log.find("kept");
+
+		//when
+		log.compact(50);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		record.transferTo(Channels.newChannel(out));
+
+		//then
+		assertThat(string(out.toByteArray())).isEqualTo("kept value");
+		assertThat(record.getSize()).isEqualTo(10);
+		log.close();
+	}
+
+	@Test
+	public void opensRecordUntilClosedDespiteCompaction() throws IOException {
+		//given
+		final SegmentLog log = new SegmentLog(directory, 128, SegmentLog.FsyncPolicy.NEVER);
+		log.append("replaced", bytes("first value"), 0);
+		final SegmentLog.Reader reader = log.find("replaced").open();
+		for (int i = 1; i < 10; i++) {
+			log.append("replaced", bytes("value" + i), i);
+		}
+
+		//when
+		log.compact(50);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		reader.transferTo(Channels.newChannel(out));
+		reader.close();
+
+		//then
+		assertThat(string(out.toByteArray())).isEqualTo("first value");
+		assertThat(string(log.find("replaced").getValue())).isEqualTo("value9");
+		log.close();
+	}
+
+	@Test
+	public void readsOpenedRecordThroughChannels() throws IOException {
+		//given
+		final SegmentLog log = new SegmentLog(directory, 1024, SegmentLog.FsyncPolicy.NEVER);
+		log.append("before", bytes("other value"), 0);
+		log.append("key", bytes("streamed value"), 1);
+		log.append("after", bytes("other value"), 2);
+
+		//when
+		final SegmentLog.Reader reader = log.find("key").open();
+		final byte[] first = IOUtils.toByteArray(Channels.newInputStream(reader.newChannel()));
+		final byte[] second = IOUtils.toByteArray(Channels.newInputStream(reader.newChannel()));
+		reader.close();
+
+		//then
+		assertThat(string(first)).isEqualTo("streamed value");
+		assertThat(string(second)).isEqualTo("streamed value");
+		log.close();
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String string(byte[] value) {
+		return new String(value, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BackgroundHealthCheckTest {
+
+    @Test
+    public void firstRequestRunsTheCheck() {
+        //given
+        final CountingCheck check = new CountingCheck(System.currentTimeMillis());
+
+        //when
+        final List<HealthDetails> results = check.results();
+        check.results();
+
+        //then
+        assertThat(check.runs).isEqualTo(1);
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getTestStatus()).isEqualTo(Status.OK);
+        assertThat(results.get(0).getResult()).isEqualTo("online");
+    }
+
+    @Test
+    public void staleResultsAreWarned() {
+        //given
+        final CountingCheck check = new CountingCheck(System.currentTimeMillis() - 40000);
+        check.refresh();
+
+        //when
+        final HealthDetails details = check.results().get(0);
+
+        //then
+        assertThat(details.getTestStatus()).isEqualTo(Status.WARN);
+        assertThat(details.getResult()).startsWith("online, last checked ");
+        assertThat(details.getAge()).isGreaterThanOrEqualTo(40000);
+    }
+
+    private static class CountingCheck extends BackgroundHealthCheck<Void> {
+        private final long checkedAt;
+        private int runs;
+
+        CountingCheck(long checkedAt) {
+            super(10000);
+            this.checkedAt = checkedAt;
+        }
+
+        @Override
+        public synchronized void refresh() {
+            runs++;
+            final HealthDetails details = new HealthDetails();
+            details.setTestStatus(Status.OK);
+            details.setResult("online");
+            publish(Collections.singletonList(details), null, checkedAt);
+        }
+
+        List<HealthDetails> results() {
+            return currentResults();
+        }
+    }
+}
@@ -18,6 +18,9 @@ package org.jboss.aerogear.unifiedpush.service.impl.health;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
 import org.junit.Test;
 
 public class PingTest {
@@ -33,4 +36,20 @@ public class PingTest {
         //then
         assertThat(reachable).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsReachableWithTimeout() throws Exception {
+        //given
+        final int port;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+
+            //when
+            final boolean reachable = Ping.isReachable("127.0.0.1", port, 1000);
+
+            //then
+            assertThat(reachable).isTrue();
+        }
+        assertThat(Ping.isReachable("127.0.0.1", port, 1000)).isFalse();
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.removal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RemovalTrackerTest {
+
+    private final RemovalTracker tracker = new RemovalTracker();
+
+    @Test
+    public void runningRemovalIsNotStartedTwice() {
+        //given
+        final RemovalProgress progress = tracker.start("variant");
+
+        //when
+        final RemovalProgress second = tracker.start("variant");
+
+        //then
+        assertThat(progress).isNotNull();
+        assertThat(second).isNull();
+        assertThat(tracker.get("variant")).isSameAs(progress);
+    }
+
+    @Test
+    public void finishedRemovalCanBeRetried() {
+        //given
+        final RemovalProgress failed = tracker.start("variant");
+        failed.installationsRemoved(10);
+        failed.failed("lock timeout");
+
+        //when
+        final RemovalProgress retry = tracker.start("variant");
+
+        //then
+        assertThat(failed.getState()).isEqualTo(RemovalProgress.State.FAILED);
+        assertThat(failed.getRemovedInstallations()).isEqualTo(10);
+        assertThat(retry).isNotNull().isNotSameAs(failed);
+        assertThat(retry.isRunning()).isTrue();
+        assertThat(tracker.get("variant")).isSameAs(retry);
+    }
+
+    @Test
+    public void completedRemovalKeepsCount() {
+        //given
+        final RemovalProgress progress = tracker.start("pushApp");
+
+        //when
+        progress.installationsRemoved(1000);
+        progress.installationsRemoved(42);
+        progress.completed();
+
+        //then
+        assertThat(progress.getState()).isEqualTo(RemovalProgress.State.COMPLETED);
+        assertThat(progress.getRemovedInstallations()).isEqualTo(1042);
+        assertThat(progress.getFinishedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.aerogear.unifiedpush.api.AndroidVariant;
+import org.jboss.aerogear.unifiedpush.api.Installation;
+import org.jboss.aerogear.unifiedpush.dao.InstallationDao;
+import org.jboss.aerogear.unifiedpush.dao.PageResult;
+import org.jboss.aerogear.unifiedpush.dto.Count;
+import org.jboss.aerogear.unifiedpush.service.AbstractBaseServiceTest;
+import org.jboss.aerogear.unifiedpush.service.ClientInstallationService;
+import org.jboss.aerogear.unifiedpush.service.GenericVariantService;
+import org.jboss.arquillian.transaction.api.annotation.TransactionMode;
+import org.jboss.arquillian.transaction.api.annotation.Transactional;
+import org.junit.Test;
+
+public class InstallationSearchIndexTest extends AbstractBaseServiceTest {
+
+    private static final String[] SEARCHES = {
+            "abc", "ABC1", "foo@", "bar.org", "android", "tablet", "android ta", "d ta", "ablet",
+            "ios 9", "9.3", "100%", "100_", "my_", "x" };
+
+    @Inject
+    private InstallationSearchIndex installationSearchIndex;
+
+    @Inject
+    private InstallationDao installationDao;
+
+    @Inject
+    private ClientInstallationService clientInstallationService;
+
+    @Inject
+    private GenericVariantService variantService;
+
+    private AndroidVariant variant;
+
+    @Override
+    protected void specificSetup() {
+        variant = new AndroidVariant();
+        variant.setGoogleKey("Key");
+        variant.setName("Search");
+        variant.setDeveloper("me");
+        variantService.addVariant(variant);
+    }
+
+    @Test
+    @Transactional(TransactionMode.ROLLBACK)
+    public void indexAndDatabaseFindTheSameInstallations() {
+        //given
+        register("abcdef", "foo@bar.org", "Android Tablet", "Android", "5.1");
+        register("abc123", "baz@bar.org", "Android Phone", "Android", "6.0");
+        register("ABC999", "my_alias", "Tablet", "iOS 9.3", "9.3");
+        register("xyz100", "100% sure", "Phone", "iOS 10", "10.0");
+        register("xyz200", "1000 ways", "Watch", null, null);
+
+        for (String search : SEARCHES) {
+            //when
+            final PageResult<Installation, Count> indexed = installationSearchIndex.findInstallations(
+                    variant.getVariantID(), null, null, 10, search);
+            final List<Installation> queried = installationDao.findInstallationsByVariantAfter(
+                    variant.getVariantID(), null, null, 10, search);
+
+            //then
+            assertThat(ids(indexed.getResultList())).as(search).isEqualTo(ids(queried));
+            assertThat(indexed.getAggregate().getCount()).as(search)
+                    .isEqualTo(installationDao.countInstallationsByVariant(variant.getVariantID(), null, search));
+        }
+    }
+
+    private void register(String deviceToken, String alias, String deviceType, String operatingSystem, String osVersion) {
+        final Installation installation = new Installation();
+        installation.setDeviceToken(deviceToken);
+        installation.setAlias(alias);
+        installation.setDeviceType(deviceType);
+        installation.setOperatingSystem(operatingSystem);
+        installation.setOsVersion(osVersion);
+        clientInstallationService.addInstallationSynchronously(variant, installation);
+    }
+
+    private static List<String> ids(List<Installation> installations) {
+        final List<String> ids = new ArrayList<String>();
+        for (Installation installation : installations) {
+            ids.add(installation.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jboss.aerogear.unifiedpush.api.Installation;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VariantIndexTest {
+
+    private final VariantIndex index = new VariantIndex();
+
+    @Before
+    public void setUp() {
+        index.put(installation("1", "abcdef", "foo@bar.org", "Android Tablet"));
+        index.put(installation("2", "abc123", "baz@bar.org", "Android Phone"));
+        index.put(installation("3", "xyz", null, "iPhone"));
+    }
+
+    @Test
+    public void matchesPrefixesOfValuesAndWords() {
+        //when
+        final SearchPage token = index.search("abc", null, 10);
+        final SearchPage alias = index.search("baz@", null, 10);
+        final SearchPage word = index.search("TABLET", null, 10);
+        final SearchPage words = index.search("android ta", null, 10);
+
+        //then
+        assertThat(token.getInstallationIDs()).containsExactly("1", "2");
+        assertThat(alias.getInstallationIDs()).containsExactly("2");
+        assertThat(word.getInstallationIDs()).containsExactly("1");
+        assertThat(words.getInstallationIDs()).containsExactly("1");
+    }
+
+    @Test
+    public void splitsWordsOnSpacesOnly() {
+        //when
+        final SearchPage domain = index.search("bar.org", null, 10);
+        final SearchPage inner = index.search("ablet", null, 10);
+
+        //then
+        assertThat(domain.getTotal()).isZero();
+        assertThat(inner.getTotal()).isZero();
+    }
+
+    @Test
+    public void pagesAfterTheGivenId() {
+        //when
+        final SearchPage first = index.search("android", null, 1);
+        final SearchPage second = index.search("android", "1", 1);
+
+        //then
+        assertThat(first.getInstallationIDs()).containsExactly("1");
+        assertThat(second.getInstallationIDs()).containsExactly("2");
+        assertThat(second.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    public void pagesByOffset() {
+        //when
+        final SearchPage all = index.page(null, 1, 10);
+        final SearchPage matches = index.page("android", 1, 10);
+        final SearchPage beyond = index.page("android", 2, 10);
+
+        //then
+        assertThat(all.getInstallationIDs()).containsExactly("2", "3");
+        assertThat(all.getTotal()).isEqualTo(3);
+        assertThat(matches.getInstallationIDs()).containsExactly("2");
+        assertThat(matches.getTotal()).isEqualTo(2);
+        assertThat(beyond.getInstallationIDs()).isEmpty();
+    }
+
+    @Test
+    public void updatesAndRemovalsReplaceTerms() {
+        //given
+        index.put(installation("1", "changed", "foo@bar.org", "Android Tablet"));
+
+        //when
+        index.remove("2");
+
+        //then
+        assertThat(index.search("abc", null, 10).getTotal()).isZero();
+        assertThat(index.search("chan", null, 10).getInstallationIDs()).containsExactly("1");
+        assertThat(index.page(null, 0, 10).getInstallationIDs()).containsExactly("1", "3");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private static Installation installation(String id, String deviceToken, String alias, String deviceType) {
+        final Installation installation = new Installation();
+        installation.setId(id);
+        installation.setDeviceToken(deviceToken);
+        installation.setAlias(alias);
+        installation.setDeviceType(deviceType);
+        return installation;
+    }
+}
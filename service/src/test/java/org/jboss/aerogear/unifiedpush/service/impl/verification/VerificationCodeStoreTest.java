@@ -0,0 +1,104 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.impl.verification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.aerogear.unifiedpush.service.impl.verification.VerificationCodeStore.Outcome;
+import org.junit.Test;
+
+public class VerificationCodeStoreTest {
+
+    private static final long TTL = 1000;
+    private static final long WINDOW = 500;
+
+    private final VerificationCodeStore store = new VerificationCodeStore(new ConcurrentHashMap<Object, Object>(), 2, 2,
+            TTL, 3, WINDOW);
+
+    @Test
+    public void keepsTheLatestCodesUntilTheyExpire() {
+        //given
+        store.add("device", "1", 0);
+        store.add("device", "2", 100);
+        store.add("device", "3", 200);
+
+        //when
+        final Outcome oldest = store.verify("device", "1", 300);
+        final Outcome expired = store.verify("device", "3", 200 + TTL);
+
+        //then
+        assertThat(oldest).isEqualTo(Outcome.MISMATCH);
+        assertThat(expired).isEqualTo(Outcome.UNKNOWN);
+        assertThat(store.getStatistics().getExpirations()).isEqualTo(1);
+        assertThat(store.getStatistics().getEntries()).isZero();
+    }
+
+    @Test
+    public void removesTheEntryOfAMatchingCode() {
+        //given
+        store.add("device", "1", 0);
+        store.add("device", "2", 100);
+
+        //when
+        final Outcome first = store.verify("device", "1", 200);
+        final Outcome second = store.verify("device", "2", 200);
+
+        //then
+        assertThat(first).isEqualTo(Outcome.MATCH);
+        assertThat(second).isEqualTo(Outcome.UNKNOWN);
+    }
+
+    @Test
+    public void throttlesFailedAttemptsWithinTheWindow() {
+        //given
+        store.add("device", "1", 0);
+        store.verify("device", "x", 10);
+        store.verify("device", "x", 20);
+        store.verify("device", "x", 30);
+        // resending does not reset the failures
+        store.add("device", "2", 40);
+
+        //when
+        final boolean rejected = store.isThrottled("device", 50);
+        final Outcome throttled = store.verify("device", "2", 50);
+        final Outcome afterWindow = store.verify("device", "2", 10 + WINDOW);
+
+        //then
+        assertThat(rejected).isTrue();
+        assertThat(throttled).isEqualTo(Outcome.THROTTLED);
+        assertThat(afterWindow).isEqualTo(Outcome.MATCH);
+        assertThat(store.getStatistics().getThrottled()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsTheEntryExpiringFirstWhenFull() {
+        //given
+        store.add("device1", "1", 0);
+        store.add("device2", "2", 100);
+
+        //when
+        store.add("device3", "3", 200);
+
+        //then
+        assertThat(store.verify("device1", "1", 300)).isEqualTo(Outcome.UNKNOWN);
+        assertThat(store.verify("device2", "2", 300)).isEqualTo(Outcome.MATCH);
+        assertThat(store.verify("device3", "3", 300)).isEqualTo(Outcome.MATCH);
+        assertThat(store.getStatistics().getEvictions()).isEqualTo(1);
+    }
+}
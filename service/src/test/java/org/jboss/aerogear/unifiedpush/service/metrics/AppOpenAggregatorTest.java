@@ -0,0 +1,111 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AppOpenAggregatorTest {
+
+    private final AppOpenAggregator aggregator = new AppOpenAggregator();
+
+    @Test
+    public void countsArePerMessageAndVariant() {
+        //given
+        aggregator.record("pmi-1", "android");
+        aggregator.record("pmi-1", "android");
+        aggregator.record("pmi-1", "ios");
+        aggregator.record("pmi-2", "ios");
+
+        //when
+        final List<AppOpenCount> counts = aggregator.drain();
+
+        //then
+        assertThat(counts).hasSize(3);
+        assertThat(total(counts)).isEqualTo(4);
+        for (AppOpenCount count : counts) {
+            assertThat(count.getFirstOpen()).isNotNull();
+            assertThat(count.getLastOpen()).isNotNull();
+            if (count.getPushMessageInformationId().equals("pmi-1") && count.getVariantID().equals("android")) {
+                assertThat(count.getCount()).isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    public void drainResetsAndEvictsIdleCounters() {
+        //given
+        aggregator.record("pmi-1", "android");
+        aggregator.drain();
+
+        //when
+        final List<AppOpenCount> idle = aggregator.drain();
+
+        //then
+        assertThat(idle).isEmpty();
+        assertThat(aggregator.getPendingCounters()).isZero();
+
+        aggregator.record("pmi-1", "android");
+        assertThat(total(aggregator.drain())).isEqualTo(1);
+    }
+
+    @Test
+    public void noOpenIsLostWhileDraining() throws Exception {
+        //given
+        final int threads = 4;
+        final int opensPerThread = 20000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        //when
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < opensPerThread; j++) {
+                        aggregator.record("pmi", "variant-" + (j % 3));
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        long drained = 0;
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            drained += total(aggregator.drain());
+        }
+        drained += total(aggregator.drain());
+        executor.shutdown();
+
+        //then
+        assertThat(drained).isEqualTo(threads * opensPerThread);
+    }
+
+    private static long total(List<AppOpenCount> counts) {
+        long total = 0;
+        for (AppOpenCount count : counts) {
+            total += count.getCount();
+        }
+        return total;
+    }
+}
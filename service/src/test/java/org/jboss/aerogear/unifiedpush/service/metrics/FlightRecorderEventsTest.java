@@ -0,0 +1,92 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.junit.Test;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void eventsAreDisabledWithoutRecording() {
+        //when
+        final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.NETWORK_SEND);
+        FlightRecorderEvents.networkSend(event, "pmi", "variant", VariantType.ANDROID, 1000, true);
+
+        //then
+        assertThat(FlightRecorderEvents.isRecording()).isFalse();
+        assertThat(event).isSameAs(FlightEvent.DISABLED);
+    }
+
+    @Test
+    public void eventsAreWrittenToRunningRecording() throws Exception {
+        assumeTrue(isFlightRecorderAvailable());
+
+        //given
+        final Object recording = Class.forName("jdk.jfr.Recording").newInstance();
+        final File file = File.createTempFile("pipeline", ".jfr");
+        try {
+            invoke(recording, "start");
+
+            //when
+            final FlightEvent event = FlightRecorderEvents.begin(FlightEventType.TOKEN_BATCH_LOADED);
+            FlightRecorderEvents.tokenBatchLoaded(event, "pmi", "variant", VariantType.IOS, 3, 2000);
+            invoke(recording, "stop");
+            recording.getClass().getMethod("dump", Path.class).invoke(recording, file.toPath());
+
+            //then
+            assertThat(event.isEnabled()).isTrue();
+            assertThat(FlightRecorderEvents.isRecording()).isFalse();
+            assertThat(eventNames(file)).contains("org.jboss.aerogear.unifiedpush.TokenBatchLoaded");
+        } finally {
+            invoke(recording, "close");
+            file.delete();
+        }
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static List<String> eventNames(File file) throws Exception {
+        final Class<?> recordingFile = Class.forName("jdk.jfr.consumer.RecordingFile");
+        final Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+        final List<String> names = new ArrayList<>();
+        for (Object event : (List<?>) recordingFile.getMethod("readAllEvents", Path.class).invoke(null, file.toPath())) {
+            names.add((String) invoke(getEventType.invoke(event), "getName"));
+        }
+        return names;
+    }
+
+    private static Object invoke(Object target, String method) throws Exception {
+        return target.getClass().getMethod(method).invoke(target);
+    }
+}
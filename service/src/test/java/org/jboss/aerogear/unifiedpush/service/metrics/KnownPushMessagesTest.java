@@ -0,0 +1,44 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class KnownPushMessagesTest {
+
+    private final KnownPushMessages knownPushMessages = new KnownPushMessages();
+
+    @Test
+    public void evictsTheOldestIds() {
+        //given
+        for (int i = 0; i < KnownPushMessages.MAX_IDS; i++) {
+            knownPushMessages.add("pmi-" + i);
+        }
+        knownPushMessages.add("pmi-0");
+
+        //when
+        knownPushMessages.add("pmi-new");
+
+        //then
+        assertThat(knownPushMessages.contains("pmi-0")).isFalse();
+        assertThat(knownPushMessages.contains("pmi-1")).isTrue();
+        assertThat(knownPushMessages.contains("pmi-new")).isTrue();
+        assertThat(knownPushMessages.contains("unknown")).isFalse();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverAllValuesInOrder() {
+        for (long value = 0; value < 100000; value++) {
+            final int bucket = LatencyHistogram.bucket(value);
+            assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+            }
+        }
+        assertThat(LatencyHistogram.upperBound(LatencyHistogram.bucket(LatencyHistogram.MAX_VALUE)))
+                .isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void reportsQuantilesWithinTheBucketPrecision() {
+        //given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100);
+        }
+        histogram.record(-5);
+
+        //when
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        //then
+        assertThat(snapshot.getCount()).isEqualTo(1001);
+        assertThat(snapshot.getSum()).isEqualTo(50050000);
+        assertThat(snapshot.getValueAtQuantile(0.5)).isBetween(50000L, 50000L + 50000 / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getValueAtQuantile(0.99)).isBetween(99000L, 99000L + 99000 / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getValueAtQuantile(1)).isBetween(100000L, 100000L + 100000 / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.getValueAtQuantile(0)).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jboss.aerogear.unifiedpush.api.VariantType;
+import org.junit.Test;
+
+public class PipelineMetricsTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+
+    @Test
+    public void writesRecordedSeriesOnly() {
+        //given
+        metrics.recordMillis(PipelineStage.TOKEN_QUEUE_WAIT, VariantType.ANDROID, true, 250, 1000);
+        metrics.recordMillis(PipelineStage.TOKEN_QUEUE_WAIT, VariantType.ANDROID, true, 750, 500);
+        metrics.record(PipelineStage.NETWORK_SEND, VariantType.IOS, false, metrics.start(), 10);
+
+        //when
+        final StringBuilder out = new StringBuilder();
+        metrics.writePrometheus(out);
+
+        //then
+        final String text = out.toString();
+        assertThat(text).contains("# TYPE ups_pipeline_latency_seconds summary\n");
+        assertThat(text).contains("ups_pipeline_latency_seconds_count{stage=\"token_queue_wait\",variant_type=\"android\",outcome=\"success\"} 2\n");
+        assertThat(text).contains("ups_pipeline_latency_seconds_sum{stage=\"token_queue_wait\",variant_type=\"android\",outcome=\"success\"} 1.000000\n");
+        assertThat(text).contains("ups_pipeline_items_total{stage=\"token_queue_wait\",variant_type=\"android\",outcome=\"success\"} 1500\n");
+        assertThat(text).contains("ups_pipeline_items_total{stage=\"network_send\",variant_type=\"ios\",outcome=\"failure\"} 10\n");
+        assertThat(text).doesNotContain("stage=\"route\"");
+    }
+
+    @Test
+    public void recordsNothingWhenDisabled() {
+        //given
+        metrics.setEnabled(false);
+
+        //when
+        metrics.record(PipelineStage.ROUTE, null, true, metrics.start(), 1);
+
+        //then
+        assertThat(metrics.getLatencies(PipelineStage.ROUTE, null, true).getCount()).isZero();
+        assertThat(metrics.getItems(PipelineStage.ROUTE, null, true)).isZero();
+    }
+}
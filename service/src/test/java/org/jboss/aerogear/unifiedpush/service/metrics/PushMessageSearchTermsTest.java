@@ -0,0 +1,70 @@
+/**
+ * JBoss, Home of Professional Open Source
+ * Copyright Red Hat, Inc., and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aerogear.unifiedpush.service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.jboss.aerogear.unifiedpush.message.Criteria;
+import org.jboss.aerogear.unifiedpush.message.Message;
+import org.jboss.aerogear.unifiedpush.message.UnifiedPushMessage;
+import org.junit.Test;
+
+public class PushMessageSearchTermsTest {
+
+    @Test
+    public void collectsAlertCriteriaAndUserDataKeys() {
+        //given
+        final Message message = new Message();
+        message.setAlert("Your order #42 has Shipped!");
+        message.setUserData(Collections.<String, Object>singletonMap("order-id", "should not be indexed"));
+        final Criteria criteria = new Criteria();
+        criteria.setAliases(Arrays.asList("john@example.org"));
+        criteria.setCategories(Arrays.asList("Orders"));
+        final UnifiedPushMessage pushMessage = new UnifiedPushMessage();
+        pushMessage.setMessage(message);
+        pushMessage.setCriteria(criteria);
+
+        //when
+        final Collection<String> terms = PushMessageMetricsService.searchTermsOf(pushMessage);
+
+        //then
+        assertThat(terms).containsOnly("your", "order", "42", "has", "shipped", "id", "john", "example", "org", "orders");
+    }
+
+    @Test
+    public void boundsTheNumberOfTerms() {
+        //given
+        final StringBuilder alert = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            alert.append("word").append(i).append(' ');
+        }
+        final Message message = new Message();
+        message.setAlert(alert.toString());
+        final UnifiedPushMessage pushMessage = new UnifiedPushMessage();
+        pushMessage.setMessage(message);
+
+        //when
+        final Collection<String> terms = PushMessageMetricsService.searchTermsOf(pushMessage);
+
+        //then
+        assertThat(terms).hasSize(100);
+    }
+}
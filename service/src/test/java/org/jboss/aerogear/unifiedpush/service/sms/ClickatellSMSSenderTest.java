@@ -0,0 +1,117 @@
+package org.jboss.aerogear.unifiedpush.service.sms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ClickatellSMSSenderTest {
+
+	private HttpServer gateway;
+	private final List<String> queries = new CopyOnWriteArrayList<>();
+	private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile String response = "ID: 1";
+
+	private final ClickatellSMSSender sender = new ClickatellSMSSender();
+	private Properties properties;
+
+	@Before
+	public void setUp() throws IOException {
+		gateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		gateway.createContext("/http/sendmsg", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				queries.add(exchange.getRequestURI().getRawQuery());
+				clientPorts.add(exchange.getRemoteAddress().getPort());
+				final boolean fail = failures.getAndDecrement() > 0;
+				final byte[] body = (fail ? "unavailable" : response).getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		gateway.start();
+
+		properties = new Properties();
+		properties.setProperty("aerogear.config.sms.sender.clickatell.api_url",
+				"http://127.0.0.1:" + gateway.getAddress().getPort() + "/http/sendmsg");
+		properties.setProperty("aerogear.config.sms.sender.clickatell.api_id", "api");
+		properties.setProperty("aerogear.config.sms.sender.clickatell.username", "user");
+		properties.setProperty("aerogear.config.sms.sender.clickatell.password", "secret");
+		properties.setProperty("aerogear.config.sms.sender.clickatell.encoding", "UTF-8");
+		properties.setProperty("aerogear.config.sms.sender.clickatell.countrycode972", "ATOMS");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		sender.close();
+		gateway.stop(0);
+	}
+
+	@Test
+	public void sendsOverPooledConnectionWithSenderOfCountry() {
+		//when
+		sender.send("9720541234567", "12345", properties);
+		sender.send("10541234567", "67890", properties);
+
+		//then
+		assertThat(queries).hasSize(2);
+		assertThat(queries.get(0)).contains("&to=972541234567").contains("&text=12345").endsWith("&from=ATOMS");
+		assertThat(queries.get(1)).contains("&to=1541234567").doesNotContain("&from=").endsWith("&mo=1");
+		// the connection was kept alive
+		assertThat(clientPorts.get(1)).isEqualTo(clientPorts.get(0));
+	}
+
+	@Test
+	public void retriesGatewayErrors() throws InterruptedException {
+		//given
+		failures.set(2);
+		final SmsDispatchQueue queue = new SmsDispatchQueue(sender, 2, 10, 3, 10);
+
+		//when
+		assertThat(queue.offer(new SmsMessage("9720541234567", "12345"), properties)).isTrue();
+		awaitDispatched(queue);
+
+		//then
+		assertThat(queries).hasSize(3);
+		queue.shutdown(1000);
+	}
+
+	@Test
+	public void doesNotRetryRejectedMessages() throws InterruptedException {
+		//given
+		response = "ERR: 001, Authentication failed";
+		final SmsDispatchQueue queue = new SmsDispatchQueue(sender, 2, 10, 3, 10);
+
+		//when
+		assertThat(queue.offer(new SmsMessage("9720541234567", "12345"), properties)).isTrue();
+		awaitDispatched(queue);
+
+		//then
+		assertThat(queries).hasSize(1);
+		queue.shutdown(1000);
+	}
+
+	private static void awaitDispatched(SmsDispatchQueue queue) throws InterruptedException {
+		for (int i = 0; i < 500 && queue.getPending() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(queue.getPending()).isZero();
+	}
+}
@@ -0,0 +1,64 @@
+package org.jboss.aerogear.unifiedpush.service.sms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.aerogear.unifiedpush.api.verification.VerificationPublisher;
+import org.junit.After;
+import org.junit.Test;
+
+public class SmsDispatchQueueTest {
+
+	private final ConcurrentMap<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+	private final SmsDispatchQueue queue = new SmsDispatchQueue(new VerificationPublisher() {
+		@Override
+		public void send(String alias, String message, Properties properties) {
+			attempts.putIfAbsent(alias, new AtomicInteger());
+			attempts.get(alias).incrementAndGet();
+			switch (message) {
+			case "unavailable":
+				throw new SmsGatewayException("503", true);
+			case "rejected":
+				throw new SmsGatewayException("400", false);
+			case "invalid":
+				throw new IllegalArgumentException("invalid number");
+			default:
+				return;
+			}
+		}
+	}, 2, 10, 3, 1);
+
+	@After
+	public void tearDown() {
+		queue.shutdown(1000);
+	}
+
+	@Test
+	public void retriesOnlyRetryableGatewayFailures() throws InterruptedException {
+		//when
+		queue.offer(new SmsMessage("1", "unavailable"), new Properties());
+		queue.offer(new SmsMessage("2", "rejected"), new Properties());
+		queue.offer(new SmsMessage("3", "invalid"), new Properties());
+		queue.offer(new SmsMessage("4", "sent"), new Properties());
+		awaitIdle();
+
+		//then
+		assertThat(attempts.get("1").get()).isEqualTo(3);
+		assertThat(attempts.get("2").get()).isEqualTo(1);
+		assertThat(attempts.get("3").get()).isEqualTo(1);
+		assertThat(attempts.get("4").get()).isEqualTo(1);
+	}
+
+	private void awaitIdle() throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (queue.getPending() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(queue.getPending()).isZero();
+	}
+}